@@ -24,10 +24,11 @@ import com.xinyue.maker.io.SessionManager;
 import com.xinyue.maker.io.input.AccessLayerCoordinator;
 import com.xinyue.maker.io.input.GapDetector;
 import com.xinyue.maker.io.input.dydx.DydxMarketDataConnector;
-import com.xinyue.maker.io.output.DydxConnector;
 import com.xinyue.maker.io.output.ExecutionGatewayManager;
 import com.xinyue.maker.io.output.NettySidecarGateway;
+import com.xinyue.maker.io.output.SidecarConnectionPool;
 import com.xinyue.maker.io.output.TradeSession;
+import com.xinyue.maker.sim.ExchangeSimulator;
 import com.xinyue.maker.strategy.*;
 import org.agrona.collections.Int2ObjectHashMap;
 
@@ -51,19 +52,22 @@ public final class MakerSystemApp {
         // 修复 IDEA 控制台中文乱码问题：设置 UTF-8 编码
         fixConsoleEncoding();
 
+        // 离线压测：-Dsim.enabled=true 时先启动本地交易所模拟器，并把 dYdX / Sidecar 地址指向它
+        ExchangeSimulator.startIfEnabled();
+
         // L4 基础设施层
         MetricsService metricsService = new MetricsService();
         //未知
         PersistenceDispatcher persistenceDispatcher = new PersistenceDispatcher();
 
-        DydxConnector dydxSidecarConnector = new DydxConnector("ws://127.0.0.1:8080");
-        dydxSidecarConnector.start();
-
         //队列
         Disruptor<CoreEvent> disruptor = getCoreEventDisruptor();
 
         //转换器
         Normalizer normalizer = new Normalizer(disruptor.getRingBuffer());
+
+        // Sidecar 连接池（transport.properties 的 io.sidecar.*）：下单 / 撤单指令出，执行回报经 normalizer 回到 ring
+        SidecarConnectionPool dydxSidecarPool = SidecarConnectionPool.fromConfig(normalizer);
         //落库处理
         OriginalMessageDao originalMessageDao =null;
         try {
@@ -78,21 +82,23 @@ public final class MakerSystemApp {
         PositionManager positionManager = new PositionManager(metricsService);
         
         //账户订单管理（需要先创建连接器）
-        NettySidecarGateway dydxGateway = createDydxGateway(dydxSidecarConnector);
-        OrderManagementSystem oms = getOrderManagementSystem(dydxGateway, metricsService, persistenceDispatcher, positionManager);
+        NettySidecarGateway dydxGateway = createDydxGateway(dydxSidecarPool);
+        OrderManagementSystem oms = getOrderManagementSystem(dydxGateway, dydxSidecarPool, metricsService, persistenceDispatcher, positionManager);
 
         //dydx行情 账户订单变动配置：统一配置所有账户（TradeSession + 订单订阅 + 资产初始化）  需要抽象成所有交易所公用
         dydxConnectorConfigAndStart(accessLayerCoordinator, dydxGateway, positionManager);
 
         //策略引擎
         StrategyEngine strategyEngine = wireStrategyLayer(oms, positionManager, metricsService);
+        // 启用的策略变化时，按其参考交易对动态订阅 / 退订 Binance 组合流
+        strategyEngine.setReferenceSymbolListener(symbols -> accessLayerCoordinator.updateSymbols(Exchange.BINANCE, symbols));
 
         // L2 核心层
         LobManager lobManager = new LobManager(metricsService);
         //缺口检测器  需优化 抽象出来
         GapDetector gapDetector = new GapDetector(lobManager, accessLayerCoordinator);
         //核心任务处理器
-        CoreEventHandler coreEventHandler = getCoreEventHandler(persistenceDispatcher, lobManager, oms, positionManager, strategyEngine, accessLayerCoordinator, gapDetector);
+        CoreEventHandler coreEventHandler = getCoreEventHandler(persistenceDispatcher, lobManager, oms, positionManager, strategyEngine, accessLayerCoordinator, gapDetector, metricsService);
         disruptor.handleEventsWith(coreEventHandler);
         // 设置 Disruptor 的 handler（需要在创建后设置）
         //todo
@@ -246,22 +252,24 @@ public final class MakerSystemApp {
         return disruptor;
     }
 
-    private static NettySidecarGateway createDydxGateway(DydxConnector dydxSidecarConnector) {
+    private static NettySidecarGateway createDydxGateway(SidecarConnectionPool dydxSidecarPool) {
         // 创建 dYdX 的会话池（可以根据实际账户数量调整）
         Int2ObjectHashMap<TradeSession> dydxSessionPool = new Int2ObjectHashMap<>();
 
         // 创建 dYdX 的 ExecutionGateway
         return new NettySidecarGateway(
-                dydxSidecarConnector.getChannel(),
+                dydxSidecarPool,
                 dydxSessionPool,
                 Exchange.DYDX
         );
     }
 
-    private static OrderManagementSystem getOrderManagementSystem(NettySidecarGateway dydxGateway, MetricsService metricsService, PersistenceDispatcher persistenceDispatcher, PositionManager positionManager) {
-        // 注册到 ExecutionGatewayManager
+    private static OrderManagementSystem getOrderManagementSystem(NettySidecarGateway dydxGateway, SidecarConnectionPool dydxSidecarPool, MetricsService metricsService, PersistenceDispatcher persistenceDispatcher, PositionManager positionManager) {
+        // 注册到 ExecutionGatewayManager，并建立 Sidecar 连接池
         ExecutionGatewayManager gatewayManager = new ExecutionGatewayManager()
-                .register(Exchange.DYDX, dydxGateway);
+                .register(Exchange.DYDX, dydxGateway)
+                .registerSidecarPool(Exchange.DYDX, dydxSidecarPool);
+        gatewayManager.startAll();
 
         // 创建 OMS，传入 gatewayManager 和 positionManager
         OrderManagementSystem oms = new OrderManagementSystem(metricsService, persistenceDispatcher, gatewayManager, positionManager);
@@ -293,7 +301,7 @@ public final class MakerSystemApp {
                 );
                 
                 // 2. 配置账户订单订阅（用于接收订单更新）
-                dydxConnector.configureAccountOrders(account.address, account.subaccountNumber);
+                dydxConnector.configureAccountOrders((short) account.accountId, account.address, account.subaccountNumber);
 
                 // 3. 初始化账户资产余额（阻塞操作，从 dYdX REST API 同步）
                 System.out.println(String.format(
@@ -331,7 +339,7 @@ public final class MakerSystemApp {
         configureAllAccounts(dydxGateway, dydxConnector, positionManager);
     }
 
-    private static CoreEventHandler getCoreEventHandler(PersistenceDispatcher persistenceDispatcher, LobManager lobManager, OrderManagementSystem oms, PositionManager positionManager, StrategyEngine strategyEngine, AccessLayerCoordinator accessLayerCoordinator, GapDetector gapDetector) {
+    private static CoreEventHandler getCoreEventHandler(PersistenceDispatcher persistenceDispatcher, LobManager lobManager, OrderManagementSystem oms, PositionManager positionManager, StrategyEngine strategyEngine, AccessLayerCoordinator accessLayerCoordinator, GapDetector gapDetector, MetricsService metricsService) {
         CoreEventHandler coreEventHandler = new CoreEventHandler(
                 lobManager,
                 oms,
@@ -339,7 +347,8 @@ public final class MakerSystemApp {
                 strategyEngine,
                 persistenceDispatcher,
                 gapDetector,
-                accessLayerCoordinator
+                accessLayerCoordinator,
+                metricsService
         );
         return coreEventHandler;
     }
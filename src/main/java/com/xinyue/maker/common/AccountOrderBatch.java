@@ -0,0 +1,159 @@
+package com.xinyue.maker.common;
+
+/**
+ * 账户全量同步（dYdX v4_subaccounts subscribed）的订单 / 资产批量数据，不限条数。
+ * <p>
+ * 字段布局与 CoreEvent 中的订单 / 资产数组一一对应（SoA），容量按需倍增，稳定运行后不再分配。
+ * 两处使用：
+ * 1. L1 解析器：整条快照先解析到这里，超出单个 CoreEvent 容量时由 Normalizer 拆成
+ *    header / N 个 chunk / commit 连续发布
+ * 2. L2 重组：按 chunk 逐段追加，commit 时交给 OMS / PositionManager 一次性应用
+ * <p>
+ * 注意：扩容会替换数组引用，写入时必须通过字段重新读取数组，不能缓存旧引用。
+ */
+public final class AccountOrderBatch {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    // === 批次元数据（仅 L2 重组时使用） ===
+    public long batchId;
+    public short accountId;
+    public int expectedChunks;
+    public int receivedChunks;
+
+    // === 订单 ===
+    public long[] orderClientIds = new long[INITIAL_CAPACITY];
+    public long[] orderPrices = new long[INITIAL_CAPACITY];
+    public long[] orderQtys = new long[INITIAL_CAPACITY];
+    public long[] orderFilledQtys = new long[INITIAL_CAPACITY];
+    public byte[] orderSides = new byte[INITIAL_CAPACITY];
+    public byte[] orderStatuses = new byte[INITIAL_CAPACITY];
+    public short[] orderSymbolIds = new short[INITIAL_CAPACITY];
+    public int[] orderClobPairIds = new int[INITIAL_CAPACITY];
+    public long[] orderFlags = new long[INITIAL_CAPACITY];
+    public long[] orderGoodTilBlockTimeSec = new long[INITIAL_CAPACITY];
+    public int orderCount;
+
+    // === 资产 ===
+    public short[] assetIds = new short[INITIAL_CAPACITY];
+    public long[] assetBalances = new long[INITIAL_CAPACITY];
+    public int assetCount;
+
+    /**
+     * 清空内容（数组只清已使用区间，保持"超出 count 的元素为 0"）。
+     */
+    public void clear() {
+        java.util.Arrays.fill(orderClientIds, 0, orderCount, 0L);
+        java.util.Arrays.fill(orderPrices, 0, orderCount, 0L);
+        java.util.Arrays.fill(orderQtys, 0, orderCount, 0L);
+        java.util.Arrays.fill(orderFilledQtys, 0, orderCount, 0L);
+        java.util.Arrays.fill(orderSides, 0, orderCount, (byte) 0);
+        java.util.Arrays.fill(orderStatuses, 0, orderCount, (byte) 0);
+        java.util.Arrays.fill(orderSymbolIds, 0, orderCount, (short) 0);
+        java.util.Arrays.fill(orderClobPairIds, 0, orderCount, 0);
+        java.util.Arrays.fill(orderFlags, 0, orderCount, 0L);
+        java.util.Arrays.fill(orderGoodTilBlockTimeSec, 0, orderCount, 0L);
+        java.util.Arrays.fill(assetIds, 0, assetCount, (short) 0);
+        java.util.Arrays.fill(assetBalances, 0, assetCount, 0L);
+        orderCount = 0;
+        assetCount = 0;
+        batchId = 0;
+        accountId = 0;
+        expectedChunks = 0;
+        receivedChunks = 0;
+    }
+
+    /**
+     * 追加一个空订单，返回其下标。
+     */
+    public int addOrder() {
+        if (orderCount == orderClientIds.length) {
+            growOrders(orderCount * 2);
+        }
+        return orderCount++;
+    }
+
+    /**
+     * 追加一个空资产，返回其下标。
+     */
+    public int addAsset() {
+        if (assetCount == assetIds.length) {
+            growAssets(assetCount * 2);
+        }
+        return assetCount++;
+    }
+
+    /**
+     * 把 [from, from + count) 的订单写入 event 的订单数组，并设置 event.orderCount。
+     * event 的订单数组需为空（刚 clear / reset 过）。
+     */
+    public void copyOrdersTo(CoreEvent event, int from, int count) {
+        System.arraycopy(orderClientIds, from, event.orderClientIds, 0, count);
+        System.arraycopy(orderPrices, from, event.orderPrices, 0, count);
+        System.arraycopy(orderQtys, from, event.orderQtys, 0, count);
+        System.arraycopy(orderFilledQtys, from, event.orderFilledQtys, 0, count);
+        System.arraycopy(orderSides, from, event.orderSides, 0, count);
+        System.arraycopy(orderStatuses, from, event.orderStatuses, 0, count);
+        System.arraycopy(orderSymbolIds, from, event.orderSymbolIds, 0, count);
+        System.arraycopy(orderClobPairIds, from, event.orderClobPairIds, 0, count);
+        System.arraycopy(orderFlags, from, event.orderFlags, 0, count);
+        System.arraycopy(orderGoodTilBlockTimeSec, from, event.orderGoodTilBlockTimeSec, 0, count);
+        event.orderCount = count;
+    }
+
+    /**
+     * 把 [from, from + count) 的资产写入 event 的资产数组，并设置 event.assetCount。
+     */
+    public void copyAssetsTo(CoreEvent event, int from, int count) {
+        System.arraycopy(assetIds, from, event.assetIds, 0, count);
+        System.arraycopy(assetBalances, from, event.assetBalances, 0, count);
+        event.assetCount = count;
+    }
+
+    /**
+     * 追加 event 中的订单与资产（L2 重组 chunk）。
+     */
+    public void append(CoreEvent event) {
+        int n = event.orderCount;
+        if (orderCount + n > orderClientIds.length) {
+            growOrders(Math.max(orderClientIds.length * 2, orderCount + n));
+        }
+        System.arraycopy(event.orderClientIds, 0, orderClientIds, orderCount, n);
+        System.arraycopy(event.orderPrices, 0, orderPrices, orderCount, n);
+        System.arraycopy(event.orderQtys, 0, orderQtys, orderCount, n);
+        System.arraycopy(event.orderFilledQtys, 0, orderFilledQtys, orderCount, n);
+        System.arraycopy(event.orderSides, 0, orderSides, orderCount, n);
+        System.arraycopy(event.orderStatuses, 0, orderStatuses, orderCount, n);
+        System.arraycopy(event.orderSymbolIds, 0, orderSymbolIds, orderCount, n);
+        System.arraycopy(event.orderClobPairIds, 0, orderClobPairIds, orderCount, n);
+        System.arraycopy(event.orderFlags, 0, orderFlags, orderCount, n);
+        System.arraycopy(event.orderGoodTilBlockTimeSec, 0, orderGoodTilBlockTimeSec, orderCount, n);
+        orderCount += n;
+
+        int m = event.assetCount;
+        if (assetCount + m > assetIds.length) {
+            growAssets(Math.max(assetIds.length * 2, assetCount + m));
+        }
+        System.arraycopy(event.assetIds, 0, assetIds, assetCount, m);
+        System.arraycopy(event.assetBalances, 0, assetBalances, assetCount, m);
+        assetCount += m;
+    }
+
+    private void growOrders(int capacity) {
+        orderClientIds = java.util.Arrays.copyOf(orderClientIds, capacity);
+        orderPrices = java.util.Arrays.copyOf(orderPrices, capacity);
+        orderQtys = java.util.Arrays.copyOf(orderQtys, capacity);
+        orderFilledQtys = java.util.Arrays.copyOf(orderFilledQtys, capacity);
+        orderSides = java.util.Arrays.copyOf(orderSides, capacity);
+        orderStatuses = java.util.Arrays.copyOf(orderStatuses, capacity);
+        orderSymbolIds = java.util.Arrays.copyOf(orderSymbolIds, capacity);
+        orderClobPairIds = java.util.Arrays.copyOf(orderClobPairIds, capacity);
+        orderFlags = java.util.Arrays.copyOf(orderFlags, capacity);
+        orderGoodTilBlockTimeSec = java.util.Arrays.copyOf(orderGoodTilBlockTimeSec, capacity);
+    }
+
+    private void growAssets(int capacity) {
+        assetIds = java.util.Arrays.copyOf(assetIds, capacity);
+        assetBalances = java.util.Arrays.copyOf(assetBalances, capacity);
+    }
+}
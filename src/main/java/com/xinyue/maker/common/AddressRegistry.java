@@ -0,0 +1,81 @@
+package com.xinyue.maker.common;
+
+import org.agrona.collections.Object2IntHashMap;
+
+import java.util.function.ObjIntConsumer;
+
+/**
+ * dYdX 账户地址到 accountId 的映射注册表。
+ * 订阅账户订单时注册（见 DydxMarketDataConnector#configureAccountOrders），
+ * 解析 subaccounts 消息时由 {@link RawIdResolver} 把 "address/subaccountNumber" 直接映射为 accountId。
+ */
+public final class AddressRegistry implements IdRegistry {
+
+    private static final AddressRegistry INSTANCE = new AddressRegistry();
+    private final Object2IntHashMap<String> addressToIdMap = new Object2IntHashMap<>(-1);
+    private final String[] idToAddressMap = new String[Short.MAX_VALUE];
+    private short maxId;
+    private volatile long version;
+
+    private AddressRegistry() {
+    }
+
+    public static AddressRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 获取地址对应的 accountId，未注册时返回 -1。
+     */
+    public short get(String address) {
+        return (short) addressToIdMap.getValue(address);
+    }
+
+    /**
+     * 注册地址与 accountId 的映射。同一地址重复注册相同 accountId 时不视为变更。
+     */
+    public synchronized void register(String address, short accountId) {
+        if (address == null || address.isEmpty() || accountId <= 0) {
+            throw new IllegalArgumentException("无效的账户地址映射: address=" + address + ", accountId=" + accountId);
+        }
+        int previousId = addressToIdMap.getValue(address);
+        if (previousId == accountId) {
+            return;
+        }
+        // 一个地址只对应一个账户，一个账户也只保留一个地址，替换时清掉旧的双向映射
+        if (previousId > 0) {
+            idToAddressMap[previousId] = null;
+        }
+        String previousAddress = idToAddressMap[accountId];
+        if (previousAddress != null) {
+            addressToIdMap.removeKey(previousAddress);
+        }
+        addressToIdMap.put(address, accountId);
+        idToAddressMap[accountId] = address;
+        if (accountId > maxId) {
+            maxId = accountId;
+        }
+        version++;
+    }
+
+    public String getAddress(short accountId) {
+        if (accountId <= 0 || accountId >= idToAddressMap.length) {
+            return null;
+        }
+        return idToAddressMap[accountId];
+    }
+
+    @Override
+    public long version() {
+        return version;
+    }
+
+    @Override
+    public synchronized void forEach(ObjIntConsumer<String> consumer) {
+        for (int id = 1; id <= maxId; id++) {
+            if (idToAddressMap[id] != null) {
+                consumer.accept(idToAddressMap[id], id);
+            }
+        }
+    }
+}
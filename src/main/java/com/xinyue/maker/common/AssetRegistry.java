@@ -2,16 +2,20 @@ package com.xinyue.maker.common;
 
 import org.agrona.collections.Object2IntHashMap;
 
+import java.util.function.ObjIntConsumer;
+
 /**
  * 用于管理单个资产（如 "USDT", "BTC", "ORCL"）
  * 使用 Agrona 的 Object2IntHashMap 实现零GC映射。
  */
-public final class AssetRegistry {
+public final class AssetRegistry implements IdRegistry {
 
     private static final AssetRegistry INSTANCE = new AssetRegistry();
     private final Object2IntHashMap<String> assetToIdMap = new Object2IntHashMap<>(-1);
     private final String[] idToAssetMap = new String[Short.MAX_VALUE];
     private short nextId = 1;
+    private short maxId;
+    private volatile long version;
 
     private AssetRegistry() {
         register("USDT",(short) 1);
@@ -37,9 +41,27 @@ public final class AssetRegistry {
         return (short) id;
     }
 
-    private void register(String assetSymbol, short id) {
+    private synchronized void register(String assetSymbol, short id) {
         assetToIdMap.put(assetSymbol, id);
         idToAssetMap[id] = assetSymbol;
+        if (id > maxId) {
+            maxId = id;
+        }
+        version++;
+    }
+
+    @Override
+    public long version() {
+        return version;
+    }
+
+    @Override
+    public synchronized void forEach(ObjIntConsumer<String> consumer) {
+        for (int id = 1; id <= maxId; id++) {
+            if (idToAssetMap[id] != null) {
+                consumer.accept(idToAssetMap[id], id);
+            }
+        }
     }
 
     /**
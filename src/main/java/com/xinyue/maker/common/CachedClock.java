@@ -0,0 +1,44 @@
+package com.xinyue.maker.common;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * 缓存的单调时钟（System.nanoTime）。
+ * <p>
+ * L2 在每个事件开始时调用一次 {@link #update()}，限频等热路径判断直接读缓存值，不再各自调用 nanoTime。
+ * 其它线程读到的值可能稍旧：令牌桶据此补充只会偏保守，不会超发。
+ */
+public final class CachedClock {
+
+    private static final VarHandle NANOS;
+    @SuppressWarnings("unused")
+    private static long nanos = System.nanoTime();
+
+    static {
+        try {
+            NANOS = MethodHandles.lookup().findStaticVarHandle(CachedClock.class, "nanos", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private CachedClock() {
+    }
+
+    /**
+     * 读取一次 System.nanoTime 并发布为缓存值（release 语义，无全屏障）。
+     */
+    public static long update() {
+        long now = System.nanoTime();
+        NANOS.setRelease(now);
+        return now;
+    }
+
+    /**
+     * 最近一次 {@link #update()} 的值。
+     */
+    public static long nanos() {
+        return (long) NANOS.getAcquire();
+    }
+}
@@ -60,7 +60,8 @@ public final class CoreEvent {
 
     // === 账户订单批量数据 (Account Order Batch Payload) ===
     // 用于同步账户订单（message_id == 1），参考 depthCount 的实现方式
-    public static final int MAX_ORDERS = 500; // 预分配最多 100 个订单
+    // 超出单个事件容量的全量同步拆成多个 ACCOUNT_SYNC_CHUNK 发布，因此这里只需覆盖常见消息大小
+    public static final int MAX_ORDERS = 64;
     public final long[] orderClientIds = new long[MAX_ORDERS];  // clientId 数组
     public final long[] orderPrices = new long[MAX_ORDERS];      // 价格数组（放大 1e8）
     public final long[] orderQtys = new long[MAX_ORDERS];        // 数量数组（放大 1e8）
@@ -82,7 +83,7 @@ public final class CoreEvent {
 
     // === 账户余额数据 (Account Balance Payload) ===
     // 用于同步账户余额（assetPositions），参考 orderCount 的实现方式
-    public static final int MAX_ASSETS = 100; // 预分配最多 100 个资产
+    public static final int MAX_ASSETS = 32; // 单个事件最多 32 个资产，超出时同样按 chunk 拆分
     public final short[] assetIds = new short[MAX_ASSETS];      // 资产ID数组（assetId，如 USDT、BTC）
     public final long[] assetBalances = new long[MAX_ASSETS];   // 余额数组（放大 1e8）
     public int assetCount;      // 实际资产数量
@@ -93,6 +94,16 @@ public final class CoreEvent {
     public long transferAmountE8;   // 转账数量（放大 1e8）
     public byte transferType;       // 转账类型：0=TRANSFER_IN（转入），1=TRANSFER_OUT（转出）
 
+    // === 执行回报 (Sidecar EXECUTION_REPORT) ===
+    public byte execType;       // 回报种类，取值见 SidecarProtocol.EXEC_*（订单 ID 在 localOrderId / clientOidHash）
+    public int errorCode;       // 拒绝原因码（链上 / Sidecar 错误码，0 表示成功）
+
+    // === 多 slot 批量发布 (Multi-slot Batch) ===
+    // ACCOUNT_SYNC_BEGIN / CHUNK / COMMIT 共用同一个 batchId；
+    // batchIndex：BEGIN = 0，CHUNK = 1..N，COMMIT = N + 1（L2 据此校验是否缺块）
+    public long batchId;
+    public int batchIndex;
+
     // === 辅助方法 ===
 
     /**
@@ -167,8 +178,130 @@ public final class CoreEvent {
         transferAssetId = 0;
         transferAmountE8 = 0;
         transferType = 0;
+
+        // 执行回报字段重置
+        execType = 0;
+        errorCode = 0;
+
+        // 批量发布字段重置
+        batchId = 0;
+        batchIndex = 0;
     }
     
+    /**
+     * 按有效区间清理：数组只清 [0, count)，标量全部归零。
+     * <p>
+     * 前提是数组中超出 count 的部分已经是 0（reset / clear / copyFrom 之后始终成立）。
+     * 解析中途失败时数组状态不确定，必须使用 {@link #reset()}。
+     */
+    public void clear() {
+        java.util.Arrays.fill(bidPrices, 0, depthCount, 0L);
+        java.util.Arrays.fill(bidQtys, 0, depthCount, 0L);
+        java.util.Arrays.fill(askPrices, 0, depthCount, 0L);
+        java.util.Arrays.fill(askQtys, 0, depthCount, 0L);
+        java.util.Arrays.fill(fillPrices, 0, fillCount, 0L);
+        java.util.Arrays.fill(fillQtys, 0, fillCount, 0L);
+        java.util.Arrays.fill(orderClientIds, 0, orderCount, 0L);
+        java.util.Arrays.fill(orderPrices, 0, orderCount, 0L);
+        java.util.Arrays.fill(orderQtys, 0, orderCount, 0L);
+        java.util.Arrays.fill(orderFilledQtys, 0, orderCount, 0L);
+        java.util.Arrays.fill(orderSides, 0, orderCount, (byte) 0);
+        java.util.Arrays.fill(orderStatuses, 0, orderCount, (byte) 0);
+        java.util.Arrays.fill(orderSymbolIds, 0, orderCount, (short) 0);
+        java.util.Arrays.fill(orderClobPairIds, 0, orderCount, 0);
+        java.util.Arrays.fill(orderFlags, 0, orderCount, 0L);
+        java.util.Arrays.fill(orderGoodTilBlockTimeSec, 0, orderCount, 0L);
+        java.util.Arrays.fill(assetIds, 0, assetCount, (short) 0);
+        java.util.Arrays.fill(assetBalances, 0, assetCount, 0L);
+        copyScalarsFrom(EMPTY);
+    }
+
+    /**
+     * 从暂存事件拷贝到 ring slot (Zero Allocation)。
+     * <p>
+     * 数组只拷贝 src 的有效区间 [0, count)，本对象原有效区间中超出 src 的部分清零，
+     * 保持"超出 count 的数组元素为 0"的约定（下游通过非零值判断有效范围）。
+     */
+    public void copyFrom(CoreEvent src) {
+        copyRange(src.bidPrices, bidPrices, src.depthCount, depthCount);
+        copyRange(src.bidQtys, bidQtys, src.depthCount, depthCount);
+        copyRange(src.askPrices, askPrices, src.depthCount, depthCount);
+        copyRange(src.askQtys, askQtys, src.depthCount, depthCount);
+        copyRange(src.fillPrices, fillPrices, src.fillCount, fillCount);
+        copyRange(src.fillQtys, fillQtys, src.fillCount, fillCount);
+        copyRange(src.orderClientIds, orderClientIds, src.orderCount, orderCount);
+        copyRange(src.orderPrices, orderPrices, src.orderCount, orderCount);
+        copyRange(src.orderQtys, orderQtys, src.orderCount, orderCount);
+        copyRange(src.orderFilledQtys, orderFilledQtys, src.orderCount, orderCount);
+        copyRange(src.orderFlags, orderFlags, src.orderCount, orderCount);
+        copyRange(src.orderGoodTilBlockTimeSec, orderGoodTilBlockTimeSec, src.orderCount, orderCount);
+        System.arraycopy(src.orderSides, 0, orderSides, 0, src.orderCount);
+        System.arraycopy(src.orderStatuses, 0, orderStatuses, 0, src.orderCount);
+        System.arraycopy(src.orderSymbolIds, 0, orderSymbolIds, 0, src.orderCount);
+        System.arraycopy(src.orderClobPairIds, 0, orderClobPairIds, 0, src.orderCount);
+        if (orderCount > src.orderCount) {
+            java.util.Arrays.fill(orderSides, src.orderCount, orderCount, (byte) 0);
+            java.util.Arrays.fill(orderStatuses, src.orderCount, orderCount, (byte) 0);
+            java.util.Arrays.fill(orderSymbolIds, src.orderCount, orderCount, (short) 0);
+            java.util.Arrays.fill(orderClobPairIds, src.orderCount, orderCount, 0);
+        }
+        copyRange(src.assetBalances, assetBalances, src.assetCount, assetCount);
+        System.arraycopy(src.assetIds, 0, assetIds, 0, src.assetCount);
+        if (assetCount > src.assetCount) {
+            java.util.Arrays.fill(assetIds, src.assetCount, assetCount, (short) 0);
+        }
+        copyScalarsFrom(src);
+    }
+
+    // clear() 的标量模板（全部为初始值）
+    private static final CoreEvent EMPTY = new CoreEvent();
+
+    static {
+        EMPTY.reset();
+    }
+
+    private void copyScalarsFrom(CoreEvent src) {
+        type = src.type;
+        timestamp = src.timestamp;
+        recvTime = src.recvTime;
+        sequence = src.sequence;
+        firstUpdateId = src.firstUpdateId;
+        exchangeId = src.exchangeId;
+        symbolId = src.symbolId;
+        accountId = src.accountId;
+        depthCount = src.depthCount;
+        price = src.price;
+        quantity = src.quantity;
+        localOrderId = src.localOrderId;
+        clientOidHash = src.clientOidHash;
+        side = src.side;
+        orderType = src.orderType;
+        orderStatus = src.orderStatus;
+        filledQty = src.filledQty;
+        filledPrice = src.filledPrice;
+        fillCount = src.fillCount;
+        totalFillQty = src.totalFillQty;
+        orderCount = src.orderCount;
+        clobPairId = src.clobPairId;
+        orderFlag = src.orderFlag;
+        goodTilBlockTimeSec = src.goodTilBlockTimeSec;
+        assetCount = src.assetCount;
+        transferAssetId = src.transferAssetId;
+        transferAmountE8 = src.transferAmountE8;
+        transferType = src.transferType;
+        execType = src.execType;
+        errorCode = src.errorCode;
+        batchId = src.batchId;
+        batchIndex = src.batchIndex;
+    }
+
+    private static void copyRange(long[] src, long[] dst, int count, int previousCount) {
+        System.arraycopy(src, 0, dst, 0, count);
+        if (previousCount > count) {
+            java.util.Arrays.fill(dst, count, previousCount, 0L);
+        }
+    }
+
     /**
      * 辅助拷贝深度数据 (Zero Allocation)
      * L1 调用此方法把解析好的数据填进去
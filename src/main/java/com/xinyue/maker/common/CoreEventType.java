@@ -6,8 +6,13 @@ public enum CoreEventType {
     DEPTH_UPDATE,        // 深度更新事件，用于本地订单簿维护
     EXECUTION_REPORT,
     ACCOUNT_ORDER_UPDATE, // 账户订单更新事件（dYdX v4_subaccounts）
+    ACCOUNT_SYNC_BEGIN,   // 大体量账户全量同步：批次头（后接 N 个 chunk）
+    ACCOUNT_SYNC_CHUNK,   // 大体量账户全量同步：分段数据（订单 / 资产数组）
+    ACCOUNT_SYNC_COMMIT,  // 大体量账户全量同步：提交标记，L2 在此一次性应用整批数据
+    FEED_STALE,           // 行情连接断开：该 symbol 的本地订单簿不可信，等待重连后的全量快照
     STRATEGY_COMMAND,
     CONFIG_UPDATE,
+    CANCEL_ALL_ORDERS,    // 按交易对批量撤单（symbolId）：Web 等非 L2 线程发起，由 L2 在热路径上执行
     TIMER,
     TEST                 // 测试事件，用于慢速订单测试策略
 }
@@ -8,6 +8,9 @@ public enum Exchange {
     DYDX((short) 2, false),
     Test((short) 3, true);
 
+    // values() 每次调用都会拷贝数组，fromId 在下单 / 撤单热路径上，使用缓存副本
+    private static final Exchange[] VALUES = values();
+
     private final short id;
     private final boolean referenceOnly;
 
@@ -25,7 +28,7 @@ public enum Exchange {
     }
 
     public static Exchange fromId(short id) {
-        for (Exchange exchange : values()) {
+        for (Exchange exchange : VALUES) {
             if (exchange.id == id) {
                 return exchange;
             }
@@ -0,0 +1,353 @@
+package com.xinyue.maker.common;
+
+import java.math.RoundingMode;
+import java.time.DateTimeException;
+
+/**
+ * ASCII 十进制数 / ISO-8601 UTC 时间的无分配解析工具。
+ * <p>
+ * 输入可以是 byte[]（原始报文）、char[]（Jackson 内部字符缓冲）或 CharSequence（String），
+ * 三种形式共用同一套实现，全程不创建 String / BigDecimal。
+ * <p>
+ * 十进制数 -> E8（放大 1e8 的 long）：
+ * - 支持可选符号、整数部分、小数部分和科学计数法指数（如 "-12.5"、".5"、"1E-8"）
+ * - 超过 8 位的小数按指定 {@link RoundingMode} 处理，默认 {@link RoundingMode#DOWN}（截断，与历史行为一致）
+ * - 结果超出 long 范围时抛 {@link ArithmeticException}，格式非法时抛 {@link NumberFormatException}
+ * - 结果与 {@code new BigDecimal(s).movePointRight(8).setScale(0, mode).longValueExact()} 完全一致
+ * <p>
+ * ISO-8601 -> epoch：
+ * - 格式 yyyy-MM-ddTHH:mm:ss[.fraction](Z|±HH:mm)，日期按公历严格校验
+ * - 非法输入抛 {@link DateTimeException}
+ */
+public final class FixedPointParser {
+
+    /** E8 的小数位数 */
+    public static final int SCALE_DIGITS = 8;
+
+    // 10^0 .. 10^18
+    private static final long[] POW10 = new long[19];
+
+    // 指数绝对值上限，避免 int 溢出；超出时非零值必然溢出，零值结果仍为 0
+    private static final int MAX_EXPONENT = 1_000;
+
+    static {
+        POW10[0] = 1L;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    private FixedPointParser() {
+    }
+
+    // ==================== 十进制 -> E8 ====================
+
+    public static long parseE8(CharSequence s) {
+        return parseE8Internal(s, 0, s.length(), RoundingMode.DOWN);
+    }
+
+    public static long parseE8(CharSequence s, RoundingMode mode) {
+        return parseE8Internal(s, 0, s.length(), mode);
+    }
+
+    public static long parseE8(char[] buf, int offset, int length) {
+        return parseE8Internal(buf, offset, length, RoundingMode.DOWN);
+    }
+
+    public static long parseE8(char[] buf, int offset, int length, RoundingMode mode) {
+        return parseE8Internal(buf, offset, length, mode);
+    }
+
+    public static long parseE8(byte[] buf, int offset, int length) {
+        return parseE8Internal(buf, offset, length, RoundingMode.DOWN);
+    }
+
+    public static long parseE8(byte[] buf, int offset, int length, RoundingMode mode) {
+        return parseE8Internal(buf, offset, length, mode);
+    }
+
+    /**
+     * 两遍扫描：第一遍确定整数位数与指数，第二遍按每位数字的实际权重累加，
+     * 因此小数位再多也不会中间溢出，只有最终结果超出 long 才报错。
+     */
+    private static long parseE8Internal(Object src, int offset, int length, RoundingMode mode) {
+        if (length <= 0) {
+            throw new NumberFormatException("空的十进制数");
+        }
+        int end = offset + length;
+        int i = offset;
+        boolean negative = false;
+        int c = charAt(src, i);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+        }
+
+        // 第一遍：校验格式，统计整数位数、数字总数，解析指数
+        int mantissaStart = i;
+        int intDigits = 0;
+        int digitCount = 0;
+        boolean seenDot = false;
+        for (; i < end; i++) {
+            c = charAt(src, i);
+            if (c >= '0' && c <= '9') {
+                digitCount++;
+                if (!seenDot) {
+                    intDigits++;
+                }
+            } else if (c == '.' && !seenDot) {
+                seenDot = true;
+            } else {
+                break;
+            }
+        }
+        int mantissaEnd = i;
+        if (digitCount == 0) {
+            throw new NumberFormatException("十进制数缺少数字");
+        }
+        int exponent = 0;
+        if (i < end) {
+            c = charAt(src, i);
+            if (c != 'e' && c != 'E') {
+                throw new NumberFormatException("非法字符: " + (char) c);
+            }
+            i++;
+            boolean expNegative = false;
+            if (i < end) {
+                c = charAt(src, i);
+                if (c == '-' || c == '+') {
+                    expNegative = c == '-';
+                    i++;
+                }
+            }
+            if (i == end) {
+                throw new NumberFormatException("指数缺少数字");
+            }
+            for (; i < end; i++) {
+                int d = charAt(src, i) - '0';
+                if (d < 0 || d > 9) {
+                    throw new NumberFormatException("指数包含非法字符");
+                }
+                if (exponent < MAX_EXPONENT) {
+                    exponent = exponent * 10 + d;
+                }
+            }
+            if (expNegative) {
+                exponent = -exponent;
+            }
+        }
+
+        // 第二遍：第 k 位数字的 E8 权重为 10^(intDigits - 1 - k + exponent + 8)
+        long acc = 0L;
+        int lastPower = 0;
+        boolean anyIntegral = false;
+        int roundDigit = 0;
+        boolean sticky = false;
+        int k = 0;
+        for (i = mantissaStart; i < mantissaEnd; i++) {
+            c = charAt(src, i);
+            if (c == '.') {
+                continue;
+            }
+            int d = c - '0';
+            int power = intDigits - 1 - k + exponent + SCALE_DIGITS;
+            if (power >= 0) {
+                if (acc > (Long.MAX_VALUE - d) / 10) {
+                    throw new ArithmeticException("十进制数超出 E8 long 范围");
+                }
+                acc = acc * 10 + d;
+                lastPower = power;
+                anyIntegral = true;
+            } else if (power == -1) {
+                roundDigit = d;
+            } else if (d != 0) {
+                sticky = true;
+            }
+            k++;
+        }
+        // 有效数字在 1e-8 位之前结束时补齐末尾的 0
+        if (anyIntegral && lastPower > 0 && acc != 0) {
+            acc = scaleUp(acc, lastPower);
+        }
+
+        if (roundDigit != 0 || sticky) {
+            if (roundUp(mode, negative, acc, roundDigit, sticky)) {
+                acc = Math.addExact(acc, 1L);
+            }
+        }
+        return negative ? -acc : acc;
+    }
+
+    private static long scaleUp(long value, int power) {
+        if (power >= POW10.length) {
+            throw new ArithmeticException("十进制数超出 E8 long 范围");
+        }
+        return Math.multiplyExact(value, POW10[power]);
+    }
+
+    /**
+     * 被舍弃部分不为 0 时，是否需要在绝对值上进一位。
+     */
+    private static boolean roundUp(RoundingMode mode, boolean negative, long acc, int roundDigit, boolean sticky) {
+        return switch (mode) {
+            case DOWN -> false;
+            case UP -> true;
+            case CEILING -> !negative;
+            case FLOOR -> negative;
+            case HALF_UP -> roundDigit >= 5;
+            case HALF_DOWN -> roundDigit > 5 || (roundDigit == 5 && sticky);
+            case HALF_EVEN -> roundDigit > 5 || (roundDigit == 5 && (sticky || (acc & 1L) == 1L));
+            case UNNECESSARY -> throw new ArithmeticException("超过 8 位小数需要舍入");
+        };
+    }
+
+    // ==================== ISO-8601 -> epoch ====================
+
+    public static long parseIsoEpochSeconds(CharSequence s) {
+        return parseIsoEpochMillisInternal(s, 0, s.length(), true);
+    }
+
+    public static long parseIsoEpochSeconds(char[] buf, int offset, int length) {
+        return parseIsoEpochMillisInternal(buf, offset, length, true);
+    }
+
+    public static long parseIsoEpochSeconds(byte[] buf, int offset, int length) {
+        return parseIsoEpochMillisInternal(buf, offset, length, true);
+    }
+
+    public static long parseIsoEpochMillis(CharSequence s) {
+        return parseIsoEpochMillisInternal(s, 0, s.length(), false);
+    }
+
+    public static long parseIsoEpochMillis(char[] buf, int offset, int length) {
+        return parseIsoEpochMillisInternal(buf, offset, length, false);
+    }
+
+    public static long parseIsoEpochMillis(byte[] buf, int offset, int length) {
+        return parseIsoEpochMillisInternal(buf, offset, length, false);
+    }
+
+    /**
+     * @param secondsOnly true 返回 epoch 秒（小数秒向下取整，与 {@code Instant.getEpochSecond()} 一致），false 返回毫秒（小数截断到毫秒）
+     */
+    private static long parseIsoEpochMillisInternal(Object src, int offset, int length, boolean secondsOnly) {
+        // 最短格式 yyyy-MM-ddTHH:mm:ssZ
+        if (length < 20) {
+            throw new DateTimeException("ISO-8601 时间长度不足");
+        }
+        int end = offset + length;
+        int year = digits(src, offset, 4);
+        expect(src, offset + 4, '-');
+        int month = digits(src, offset + 5, 2);
+        expect(src, offset + 7, '-');
+        int day = digits(src, offset + 8, 2);
+        int t = charAt(src, offset + 10);
+        if (t != 'T' && t != 't') {
+            throw new DateTimeException("ISO-8601 缺少 'T' 分隔符");
+        }
+        int hour = digits(src, offset + 11, 2);
+        expect(src, offset + 13, ':');
+        int minute = digits(src, offset + 14, 2);
+        expect(src, offset + 16, ':');
+        int second = digits(src, offset + 17, 2);
+        if (month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hour > 23 || minute > 59 || second > 59) {
+            throw new DateTimeException("ISO-8601 日期/时间字段超出范围");
+        }
+
+        int i = offset + 19;
+        int millis = 0;
+        if (charAt(src, i) == '.') {
+            i++;
+            int fractionDigits = 0;
+            while (i < end) {
+                int d = charAt(src, i) - '0';
+                if (d < 0 || d > 9) {
+                    break;
+                }
+                if (fractionDigits < 3) {
+                    millis = millis * 10 + d;
+                }
+                fractionDigits++;
+                i++;
+            }
+            if (fractionDigits == 0 || fractionDigits > 9) {
+                throw new DateTimeException("ISO-8601 小数秒位数非法");
+            }
+            for (int f = fractionDigits; f < 3; f++) {
+                millis *= 10;
+            }
+        }
+
+        int offsetSeconds;
+        if (i >= end) {
+            throw new DateTimeException("ISO-8601 缺少时区");
+        }
+        int z = charAt(src, i);
+        if ((z == 'Z' || z == 'z') && i + 1 == end) {
+            offsetSeconds = 0;
+        } else if ((z == '+' || z == '-') && i + 6 == end) {
+            int offsetHour = digits(src, i + 1, 2);
+            expect(src, i + 3, ':');
+            int offsetMinute = digits(src, i + 4, 2);
+            if (offsetHour > 18 || offsetMinute > 59) {
+                throw new DateTimeException("ISO-8601 时区偏移超出范围");
+            }
+            offsetSeconds = (offsetHour * 3_600 + offsetMinute * 60) * (z == '-' ? -1 : 1);
+        } else {
+            throw new DateTimeException("ISO-8601 时区格式非法");
+        }
+
+        long epochSeconds = daysFromCivil(year, month, day) * 86_400L
+                + hour * 3_600L + minute * 60L + second - offsetSeconds;
+        return secondsOnly ? epochSeconds : epochSeconds * 1_000L + millis;
+    }
+
+    private static int digits(Object src, int offset, int count) {
+        int value = 0;
+        for (int i = 0; i < count; i++) {
+            int d = charAt(src, offset + i) - '0';
+            if (d < 0 || d > 9) {
+                throw new DateTimeException("ISO-8601 包含非法字符");
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    private static void expect(Object src, int index, char expected) {
+        if (charAt(src, index) != expected) {
+            throw new DateTimeException("ISO-8601 缺少分隔符 '" + expected + "'");
+        }
+    }
+
+    private static int daysInMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    /**
+     * 公历日期到 1970-01-01 的天数（Howard Hinnant 的 days_from_civil 算法）。
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yoe = y - era * 400;
+        int doy = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146_097L + doe - 719_468L;
+    }
+
+    private static int charAt(Object src, int index) {
+        if (src instanceof byte[] bytes) {
+            return bytes[index] & 0xFF;
+        }
+        if (src instanceof char[] chars) {
+            return chars[index];
+        }
+        return ((CharSequence) src).charAt(index);
+    }
+}
@@ -0,0 +1,20 @@
+package com.xinyue.maker.common;
+
+import java.util.function.ObjIntConsumer;
+
+/**
+ * 名称到短整型 ID 的注册表（交易对 / 资产 / 账户地址）。
+ * 供 {@link RawIdResolver} 在注册表变更后重建查找表。
+ */
+public interface IdRegistry {
+
+    /**
+     * 变更版本号，每次注册递增。
+     */
+    long version();
+
+    /**
+     * 遍历当前所有 (名称, id)。
+     */
+    void forEach(ObjIntConsumer<String> consumer);
+}
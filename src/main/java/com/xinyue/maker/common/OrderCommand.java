@@ -5,6 +5,11 @@ package com.xinyue.maker.common;
  * L2 生成的原子指令 (POJO 或 预分配对象)
  */
 public class OrderCommand {
+    // === 出站优先级（数值越小越先发送）===
+    public static final byte PRIORITY_CANCEL = 0;  // 撤单
+    public static final byte PRIORITY_REDUCE = 1;  // 降低风险（对冲 / 平仓）
+    public static final byte PRIORITY_QUOTE = 2;   // 新报价
+
     public long internalOrderId; // L2 内部生成的唯一ID
     public short accountId;      // 关键：指定用哪个账号
     public short symbolId;        // "BTC"
@@ -19,4 +24,45 @@ public class OrderCommand {
     public long orderFlags;         // orderFlags（例如 64）
     public long goodTilBlockTimeSec; // goodTilBlockTime（epoch seconds）
 
+    // === 出站调度（见 OutboundOrderQueue）===
+    public byte priority = PRIORITY_QUOTE;
+    public int slotId;              // 策略报价槽（如买一 / 卖一、梯度档位），同一账户同一交易对同一槽未发出的报价只保留最新一笔（取低 24 位）；0 表示不合并
+
+    /**
+     * 恢复为新建时的默认值（交还 {@link OrderCommandPool} 时调用）。
+     */
+    public void reset() {
+        internalOrderId = 0;
+        accountId = 0;
+        symbolId = 0;
+        priceE8 = 0;
+        qtyE8 = 0;
+        side = 0;
+        exchangeId = 0;
+        goodTilTimeInSeconds = 3*60;
+        clobPairId = 0;
+        orderFlags = 0;
+        goodTilBlockTimeSec = 0;
+        priority = PRIORITY_QUOTE;
+        slotId = 0;
+    }
+
+    /**
+     * 按值拷贝（出站队列把指令拷入预分配槽位，不持有调用方对象）。
+     */
+    public void copyFrom(OrderCommand src) {
+        internalOrderId = src.internalOrderId;
+        accountId = src.accountId;
+        symbolId = src.symbolId;
+        priceE8 = src.priceE8;
+        qtyE8 = src.qtyE8;
+        side = src.side;
+        exchangeId = src.exchangeId;
+        goodTilTimeInSeconds = src.goodTilTimeInSeconds;
+        clobPairId = src.clobPairId;
+        orderFlags = src.orderFlags;
+        goodTilBlockTimeSec = src.goodTilBlockTimeSec;
+        priority = src.priority;
+        slotId = src.slotId;
+    }
 }
\ No newline at end of file
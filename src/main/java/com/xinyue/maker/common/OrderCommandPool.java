@@ -0,0 +1,57 @@
+package com.xinyue.maker.common;
+
+/**
+ * OrderCommand 对象池（预分配，只由 L2 线程使用，Zero GC）。
+ * <p>
+ * 所有权：{@link #acquire()} 取出的指令归调用方所有，直到 {@link #release(OrderCommand)} 交还。
+ * ExecutionGateway.sendOrder 返回时指令已经编码写出，或已按值拷入出站队列槽位（见 OutboundOrderQueue），
+ * 网关不持有调用方对象，因此 submitOrder / sendOrder 返回后即可交还；之后不得再读写该对象。
+ * <p>
+ * 池空时临时分配一个（计入 {@link #misses()}），交还时池已满则直接丢弃，不影响正确性。
+ */
+public final class OrderCommandPool {
+
+    private final OrderCommand[] free;
+    private int size;
+    private long misses;
+
+    public OrderCommandPool(int capacity) {
+        free = new OrderCommand[capacity];
+        for (int i = 0; i < capacity; i++) {
+            free[i] = new OrderCommand();
+        }
+        size = capacity;
+    }
+
+    public OrderCommand acquire() {
+        if (size == 0) {
+            misses++;
+            return new OrderCommand();
+        }
+        OrderCommand cmd = free[--size];
+        free[size] = null;
+        return cmd;
+    }
+
+    public void release(OrderCommand cmd) {
+        cmd.reset();
+        if (size < free.length) {
+            free[size++] = cmd;
+        }
+    }
+
+    public int capacity() {
+        return free.length;
+    }
+
+    public int available() {
+        return size;
+    }
+
+    /**
+     * 池空时临时分配的次数（持续增长说明容量不足或有指令没有交还）。
+     */
+    public long misses() {
+        return misses;
+    }
+}
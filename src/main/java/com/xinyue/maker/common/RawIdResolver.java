@@ -0,0 +1,388 @@
+package com.xinyue.maker.common;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 原始字节 / 字符片段到预注册 ID 的解析器（交易对、资产、账户地址），全程不创建 String。
+ * <p>
+ * 设计要点：
+ * 1. 按交易所格式在哈希时做规范化，而不是先改写字符串：
+ *    - 交易对：忽略 '-'（dYdX 的 H2-USDT 与 Binance 的 H2USDT 命中同一个 symbolId）
+ *    - 账户地址：遇到 '/' 截止（"address/subaccountNumber" 只取 address 部分）
+ * 2. 查找表是最小完美哈希（hash-and-displace）：先按 64 位哈希分桶，每个桶找一个位移值使桶内
+ *    所有 key 落到互不冲突的槽位。查询只需一次遍历输入计算哈希 + 一次逐字符比较，无探测链。
+ * 3. 查找表不可变，注册表版本号变化时重建并通过 volatile 发布，查询线程无锁。
+ * <p>
+ * 线程安全：可在多个 IO 线程间共享。
+ */
+public final class RawIdResolver {
+
+    /**
+     * 未命中时返回 -1，与 SymbolRegistry / AssetRegistry 的 get 保持一致。
+     */
+    public static final short MISSING = -1;
+
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    // 单个桶尝试的位移上限，超过后扩大槽位数重试
+    private static final int MAX_DISPLACEMENT = 1 << 16;
+    // 槽位数上限（相对 key 数量），仅在哈希种子极端不幸时才会逐级放大
+    private static final int MAX_SLOT_FACTOR = 16;
+
+    private final IdRegistry registry;
+    private final boolean ignoreDash;
+    private final boolean stopAtSlash;
+
+    private volatile Table table;
+
+    private RawIdResolver(IdRegistry registry, boolean ignoreDash, boolean stopAtSlash) {
+        this.registry = registry;
+        this.ignoreDash = ignoreDash;
+        this.stopAtSlash = stopAtSlash;
+        this.table = build(registry.version());
+    }
+
+    /**
+     * 交易对解析器，忽略 '-'（BTC-USDT / BTCUSDT 均映射到同一 symbolId）。
+     */
+    public static RawIdResolver forSymbols(SymbolRegistry symbolRegistry) {
+        return new RawIdResolver(symbolRegistry, true, false);
+    }
+
+    /**
+     * 资产解析器（USDT、BTC 等），按原样匹配。
+     */
+    public static RawIdResolver forAssets(AssetRegistry assetRegistry) {
+        return new RawIdResolver(assetRegistry, false, false);
+    }
+
+    /**
+     * 账户地址解析器，输入可以是 address 或 "address/subaccountNumber"。
+     */
+    public static RawIdResolver forAddresses(AddressRegistry addressRegistry) {
+        return new RawIdResolver(addressRegistry, false, true);
+    }
+
+    public short resolve(byte[] buf, int off, int len) {
+        Table t = current();
+        if (t.ids.length == 0) {
+            return MISSING;
+        }
+        long h = t.seed;
+        int keyLength = 0;
+        for (int i = 0; i < len; i++) {
+            int c = buf[off + i] & 0xFF;
+            if (stopAtSlash && c == '/') {
+                break;
+            }
+            if (ignoreDash && c == '-') {
+                continue;
+            }
+            h = (h ^ c) * FNV_PRIME;
+            keyLength++;
+        }
+        if (keyLength == 0) {
+            return MISSING;
+        }
+        int slot = t.slot(h);
+        char[] key = t.keys[slot];
+        if (key == null || key.length != keyLength) {
+            return MISSING;
+        }
+        int k = 0;
+        for (int i = 0; k < keyLength; i++) {
+            int c = buf[off + i] & 0xFF;
+            if (ignoreDash && c == '-') {
+                continue;
+            }
+            if (key[k++] != c) {
+                return MISSING;
+            }
+        }
+        return t.ids[slot];
+    }
+
+    public short resolve(char[] buf, int off, int len) {
+        Table t = current();
+        if (t.ids.length == 0) {
+            return MISSING;
+        }
+        long h = t.seed;
+        int keyLength = 0;
+        for (int i = 0; i < len; i++) {
+            char c = buf[off + i];
+            if (stopAtSlash && c == '/') {
+                break;
+            }
+            if (ignoreDash && c == '-') {
+                continue;
+            }
+            h = (h ^ c) * FNV_PRIME;
+            keyLength++;
+        }
+        if (keyLength == 0) {
+            return MISSING;
+        }
+        int slot = t.slot(h);
+        char[] key = t.keys[slot];
+        if (key == null || key.length != keyLength) {
+            return MISSING;
+        }
+        int k = 0;
+        for (int i = 0; k < keyLength; i++) {
+            char c = buf[off + i];
+            if (ignoreDash && c == '-') {
+                continue;
+            }
+            if (key[k++] != c) {
+                return MISSING;
+            }
+        }
+        return t.ids[slot];
+    }
+
+    public short resolve(CharSequence s) {
+        if (s == null) {
+            return MISSING;
+        }
+        Table t = current();
+        if (t.ids.length == 0) {
+            return MISSING;
+        }
+        int len = s.length();
+        long h = t.seed;
+        int keyLength = 0;
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+            if (stopAtSlash && c == '/') {
+                break;
+            }
+            if (ignoreDash && c == '-') {
+                continue;
+            }
+            h = (h ^ c) * FNV_PRIME;
+            keyLength++;
+        }
+        if (keyLength == 0) {
+            return MISSING;
+        }
+        int slot = t.slot(h);
+        char[] key = t.keys[slot];
+        if (key == null || key.length != keyLength) {
+            return MISSING;
+        }
+        int k = 0;
+        for (int i = 0; k < keyLength; i++) {
+            char c = s.charAt(i);
+            if (ignoreDash && c == '-') {
+                continue;
+            }
+            if (key[k++] != c) {
+                return MISSING;
+            }
+        }
+        return t.ids[slot];
+    }
+
+    /**
+     * 当前查找表的槽位数（用于观察紧凑程度）。
+     */
+    public int tableSize() {
+        return current().ids.length;
+    }
+
+    private Table current() {
+        Table t = table;
+        long version = registry.version();
+        if (t.version != version) {
+            t = rebuild(version);
+        }
+        return t;
+    }
+
+    private synchronized Table rebuild(long version) {
+        Table t = table;
+        if (t.version == version) {
+            return t;
+        }
+        t = build(version);
+        table = t;
+        return t;
+    }
+
+    private Table build(long version) {
+        List<char[]> keys = new ArrayList<>();
+        List<Short> ids = new ArrayList<>();
+        registry.forEach((name, id) -> {
+            char[] key = normalize(name);
+            if (key.length == 0) {
+                return;
+            }
+            for (int i = 0; i < keys.size(); i++) {
+                if (java.util.Arrays.equals(keys.get(i), key)) {
+                    // 规范化后重名（如同时注册 BTC-USDT 与 BTCUSDT），保留先注册的
+                    System.err.println("RawIdResolver: 规范化后 key 重复，忽略 " + name + " -> " + id);
+                    return;
+                }
+            }
+            keys.add(key);
+            ids.add((short) id);
+        });
+        int n = keys.size();
+        if (n == 0) {
+            return new Table(version, FNV_OFFSET, 0, 0, new int[0], new char[0][], new short[0]);
+        }
+
+        int slots = Integer.highestOneBit(n) == n ? n : Integer.highestOneBit(n) << 1;
+        int buckets = Math.max(1, slots >> 1);
+        for (long seed = FNV_OFFSET; ; seed += GOLDEN) {
+            long[] hashes = new long[n];
+            for (int i = 0; i < n; i++) {
+                long h = seed;
+                for (char c : keys.get(i)) {
+                    h = (h ^ c) * FNV_PRIME;
+                }
+                hashes[i] = h;
+            }
+            for (int size = slots; size <= slots * MAX_SLOT_FACTOR; size <<= 1) {
+                Table t = tryBuild(version, seed, size, buckets, hashes, keys, ids);
+                if (t != null) {
+                    return t;
+                }
+            }
+        }
+    }
+
+    /**
+     * hash-and-displace：桶按大小降序放置，每个桶搜索位移值直到桶内 key 全部落到空槽。
+     */
+    private static Table tryBuild(long version, long seed, int slots, int buckets, long[] hashes,
+                                  List<char[]> keys, List<Short> ids) {
+        int n = hashes.length;
+        int bucketMask = buckets - 1;
+        int slotMask = slots - 1;
+
+        int[] bucketSizes = new int[buckets];
+        for (long h : hashes) {
+            bucketSizes[bucketOf(h, bucketMask)]++;
+        }
+        Integer[] order = new Integer[buckets];
+        for (int b = 0; b < buckets; b++) {
+            order[b] = b;
+        }
+        java.util.Arrays.sort(order, (a, b) -> bucketSizes[b] - bucketSizes[a]);
+
+        int[] displacements = new int[buckets];
+        char[][] tableKeys = new char[slots][];
+        short[] tableIds = new short[slots];
+        int[] members = new int[n];
+        int[] candidate = new int[n];
+
+        for (int b : order) {
+            int size = bucketSizes[b];
+            if (size == 0) {
+                break;
+            }
+            int m = 0;
+            for (int i = 0; i < n; i++) {
+                if (bucketOf(hashes[i], bucketMask) == b) {
+                    members[m++] = i;
+                }
+            }
+            boolean placed = false;
+            for (int d = 0; d < MAX_DISPLACEMENT && !placed; d++) {
+                placed = true;
+                for (int j = 0; j < size; j++) {
+                    int s = slotOf(hashes[members[j]], d, slotMask);
+                    if (tableKeys[s] != null) {
+                        placed = false;
+                        break;
+                    }
+                    for (int k = 0; k < j; k++) {
+                        if (candidate[k] == s) {
+                            placed = false;
+                            break;
+                        }
+                    }
+                    if (!placed) {
+                        break;
+                    }
+                    candidate[j] = s;
+                }
+                if (placed) {
+                    displacements[b] = d;
+                    for (int j = 0; j < size; j++) {
+                        tableKeys[candidate[j]] = keys.get(members[j]);
+                        tableIds[candidate[j]] = ids.get(members[j]);
+                    }
+                }
+            }
+            if (!placed) {
+                return null;
+            }
+        }
+        return new Table(version, seed, bucketMask, slotMask, displacements, tableKeys, tableIds);
+    }
+
+    private char[] normalize(String name) {
+        StringBuilder sb = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (stopAtSlash && c == '/') {
+                break;
+            }
+            if (ignoreDash && c == '-') {
+                continue;
+            }
+            sb.append(c);
+        }
+        char[] key = new char[sb.length()];
+        sb.getChars(0, key.length, key, 0);
+        return key;
+    }
+
+    private static int bucketOf(long h, int bucketMask) {
+        return (int) (mix(h) >>> 32) & bucketMask;
+    }
+
+    private static int slotOf(long h, int displacement, int slotMask) {
+        return (int) mix(h + displacement * GOLDEN) & slotMask;
+    }
+
+    // MurmurHash3 fmix64
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static final class Table {
+        final long version;
+        final long seed;
+        final int bucketMask;
+        final int slotMask;
+        final int[] displacements;
+        final char[][] keys;
+        final short[] ids;
+
+        Table(long version, long seed, int bucketMask, int slotMask, int[] displacements, char[][] keys, short[] ids) {
+            this.version = version;
+            this.seed = seed;
+            this.bucketMask = bucketMask;
+            this.slotMask = slotMask;
+            this.displacements = displacements;
+            this.keys = keys;
+            this.ids = ids;
+        }
+
+        int slot(long h) {
+            return slotOf(h, displacements[bucketOf(h, bucketMask)], slotMask);
+        }
+    }
+}
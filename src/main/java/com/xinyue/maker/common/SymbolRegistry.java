@@ -2,16 +2,20 @@ package com.xinyue.maker.common;
 
 import org.agrona.collections.Object2IntHashMap;
 
+import java.util.function.ObjIntConsumer;
+
 /**
  * Symbol 字符串到 symbolId 的映射注册表。
  * 使用 Agrona 的 Object2IntHashMap 实现零GC映射。
  */
-public final class SymbolRegistry {
+public final class SymbolRegistry implements IdRegistry {
 
     private static final SymbolRegistry INSTANCE = new SymbolRegistry();
     private final Object2IntHashMap<String> symbolToIdMap = new Object2IntHashMap<>(-1);
     private final String[] idToSymbolMap = new String[Short.MAX_VALUE];
     private short nextId = 1;
+    private short maxId;
+    private volatile long version;
     //todo  这里以后预注册交易对 都需要添加个 资产映射关系  如btcusdc  要根据assetRegistry提前注册的资产id映射 比如 1-2
     private SymbolRegistry() {
         // 预注册常见交易对
@@ -35,9 +39,42 @@ public final class SymbolRegistry {
         return (short) id;
     }
 
-    private void register(String symbol, short id) {
+    /**
+     * 运行时注册 symbol（例如策略新增的 Binance 参考交易对），已存在时返回原 ID。
+     * 注册后版本号递增，RawIdResolver 在下一次查询时重建查找表。
+     */
+    public synchronized short register(String symbol) {
+        int existing = symbolToIdMap.getValue(symbol);
+        if (existing != -1) {
+            return (short) existing;
+        }
+        short id = (short) Math.max(nextId, maxId + 1);
+        register(symbol, id);
+        nextId = (short) (id + 1);
+        return id;
+    }
+
+    private synchronized void register(String symbol, short id) {
         symbolToIdMap.put(symbol, id);
         idToSymbolMap[id] = symbol;
+        if (id > maxId) {
+            maxId = id;
+        }
+        version++;
+    }
+
+    @Override
+    public long version() {
+        return version;
+    }
+
+    @Override
+    public synchronized void forEach(ObjIntConsumer<String> consumer) {
+        for (int id = 1; id <= maxId; id++) {
+            if (idToSymbolMap[id] != null) {
+                consumer.accept(idToSymbolMap[id], id);
+            }
+        }
     }
 
     public String getSymbol(short symbolId) {
@@ -0,0 +1,55 @@
+package com.xinyue.maker.config;
+
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * OMS 容量配置读取器。
+ * 从 oms.properties 读取订单对象池与终态订单归档的容量（均在启动时一次性预分配，决定 OMS 的内存上限），
+ * 以及监控快照的发布间隔；同名 JVM 系统属性优先。
+ */
+public final class OmsConfig {
+
+    // 预分配的 Order 对象数（同时在途 + 本批次待回收的订单超过它时临时分配）
+    public final int orderPoolCapacity;
+    // 终态订单归档保留的最近订单数（环形覆盖最旧的）
+    public final int archiveCapacity;
+    // L2 发布监控快照（耗时统计、卡在 PendingNew 的订单）的最小间隔（毫秒）
+    public final int monitorSnapshotIntervalMillis;
+
+    public OmsConfig(int orderPoolCapacity, int archiveCapacity, int monitorSnapshotIntervalMillis) {
+        this.orderPoolCapacity = Math.max(1, orderPoolCapacity);
+        this.archiveCapacity = Math.max(1, archiveCapacity);
+        this.monitorSnapshotIntervalMillis = Math.max(0, monitorSnapshotIntervalMillis);
+    }
+
+    public static OmsConfig load() {
+        Properties props = new Properties();
+        try (InputStream is = OmsConfig.class.getClassLoader().getResourceAsStream("oms.properties")) {
+            if (is != null) {
+                props.load(is);
+            }
+        } catch (Exception e) {
+            System.err.println("读取 OMS 配置失败，使用默认容量: " + e.getMessage());
+        }
+        return new OmsConfig(
+                intValue(props, "oms.orderPool.capacity", 16_384),
+                intValue(props, "oms.archive.capacity", 65_536),
+                intValue(props, "oms.monitorSnapshot.intervalMillis", 1_000)
+        );
+    }
+
+    private static int intValue(Properties props, String key, int defaultValue) {
+        String v = System.getProperty(key, props.getProperty(key, ""));
+        v = v == null ? "" : v.trim();
+        if (v.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(v);
+        } catch (NumberFormatException e) {
+            System.err.println("警告: OMS 配置 " + key + "=" + v + " 不是整数，使用默认值 " + defaultValue);
+            return defaultValue;
+        }
+    }
+}
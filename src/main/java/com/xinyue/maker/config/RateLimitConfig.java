@@ -0,0 +1,65 @@
+package com.xinyue.maker.config;
+
+import com.xinyue.maker.common.Exchange;
+
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * 下单限频配置读取器（按交易所）。
+ * 从 ratelimit.properties 读取 {@code <exchange>.account.*}（账户级，所有交易对共享）与 {@code <exchange>.market.*}（账户 × 交易对）两级令牌桶参数；
+ * 同名 JVM 系统属性优先，未配置的项为 0（不限频）。
+ */
+public final class RateLimitConfig {
+
+    // 账户级：每秒补充的令牌数 / 最多累积的令牌数
+    public final int accountOrdersPerSecond;
+    public final int accountBurst;
+    // 账户 × 交易对级
+    public final int marketOrdersPerSecond;
+    public final int marketBurst;
+
+    public RateLimitConfig(int accountOrdersPerSecond, int accountBurst, int marketOrdersPerSecond, int marketBurst) {
+        this.accountOrdersPerSecond = Math.max(0, accountOrdersPerSecond);
+        this.accountBurst = Math.max(1, accountBurst);
+        this.marketOrdersPerSecond = Math.max(0, marketOrdersPerSecond);
+        this.marketBurst = Math.max(1, marketBurst);
+    }
+
+    /**
+     * 从 ratelimit.properties 读取指定交易所的限频参数。
+     */
+    public static RateLimitConfig load(Exchange exchange) {
+        Properties props = new Properties();
+        try (InputStream is = RateLimitConfig.class.getClassLoader()
+                .getResourceAsStream("ratelimit.properties")) {
+            if (is != null) {
+                props.load(is);
+            }
+        } catch (Exception e) {
+            System.err.println("读取限频配置失败，不限频: " + e.getMessage());
+        }
+        String prefix = exchange.name().toLowerCase(Locale.ROOT);
+        return new RateLimitConfig(
+                intValue(props, prefix + ".account.ordersPerSecond", 0),
+                intValue(props, prefix + ".account.burst", 1),
+                intValue(props, prefix + ".market.ordersPerSecond", 0),
+                intValue(props, prefix + ".market.burst", 1)
+        );
+    }
+
+    private static int intValue(Properties props, String key, int defaultValue) {
+        String v = System.getProperty(key, props.getProperty(key, ""));
+        v = v == null ? "" : v.trim();
+        if (v.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(v);
+        } catch (NumberFormatException e) {
+            System.err.println("警告: 限频配置 " + key + "=" + v + " 不是整数，使用默认值 " + defaultValue);
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.xinyue.maker.config;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * 网络传输层配置读取器。
+ * 从 transport.properties 读取 IO 线程数、Epoll 开关、socket 参数、CPU 绑定、断线重连、压缩、Binance 组合流、dYdX 地址与 Sidecar 连接池参数；
+ * 同名 JVM 系统属性（-Dio.threads=2）优先，文件缺失时全部使用默认值。
+ */
+public final class TransportConfig {
+
+    // IO 线程数（所有连接器共享）
+    public final int ioThreads;
+    // 是否优先使用 Epoll（仅 Linux 且 native 库可用时生效）
+    public final boolean epollEnabled;
+    // SO_BUSY_POLL（微秒），0 表示关闭，仅 Epoll 生效
+    public final int busyPollMicros;
+    // SO_RCVBUF / SO_SNDBUF（字节），0 表示使用系统默认
+    public final int receiveBufferBytes;
+    public final int sendBufferBytes;
+    // IO 线程绑定的 CPU 列表（按线程顺序轮流分配），空表示不绑定
+    public final int[] ioCpus;
+    // 断线重连退避：首次立即重连，之后在 [d/2, d] 内随机，d 从 base 起按 2 倍增长到 max
+    public final int reconnectBaseMillis;
+    public final int reconnectMaxMillis;
+    // 是否为每条受监管连接预热一条已握手的备用连接（断线时直接切换）
+    public final boolean standbyEnabled;
+    // 协商 permessage-deflate 的行情源（交易所名小写，如 dydx、binance）
+    public final Set<String> deflateFeeds;
+    // Binance 组合流：单连接最多订阅的 stream 数（每个 symbol 占 depth + aggTrade 两个）
+    public final int binanceStreamsPerConnection;
+    // Binance 组合流：单连接期望承载的消息速率（条/秒），超过后把 symbol 迁移到其它连接
+    public final int binanceConnectionMessageRate;
+    // Binance 组合流：最多使用的连接数
+    public final int binanceMaxConnections;
+    // Binance 组合流：按实测速率重新均衡的周期（秒）
+    public final int binanceRebalanceSeconds;
+    // dYdX 账户频道连接数：账户按地址哈希分到各连接，与订单簿连接分开
+    public final int dydxAccountConnections;
+    // dYdX indexer 的 WebSocket 与 REST 地址（可指向本地交易所模拟器 com.xinyue.maker.sim）
+    public final String dydxWsUri;
+    public final String dydxRestUrl;
+    // Sidecar 连接池：各 Sidecar 进程的地址，以及每个地址建立的连接数（账户粘性分配到各连接）
+    public final String[] sidecarUris;
+    public final int sidecarConnectionsPerUri;
+
+    public TransportConfig(int ioThreads, boolean epollEnabled, int busyPollMicros,
+                           int receiveBufferBytes, int sendBufferBytes, int[] ioCpus,
+                           int reconnectBaseMillis, int reconnectMaxMillis, boolean standbyEnabled,
+                           Set<String> deflateFeeds, int binanceStreamsPerConnection,
+                           int binanceConnectionMessageRate, int binanceMaxConnections, int binanceRebalanceSeconds,
+                           int dydxAccountConnections, String dydxWsUri, String dydxRestUrl,
+                           String[] sidecarUris, int sidecarConnectionsPerUri) {
+        this.ioThreads = Math.max(1, ioThreads);
+        this.epollEnabled = epollEnabled;
+        this.busyPollMicros = Math.max(0, busyPollMicros);
+        this.receiveBufferBytes = Math.max(0, receiveBufferBytes);
+        this.sendBufferBytes = Math.max(0, sendBufferBytes);
+        this.ioCpus = ioCpus;
+        this.reconnectBaseMillis = Math.max(1, reconnectBaseMillis);
+        this.reconnectMaxMillis = Math.max(this.reconnectBaseMillis, reconnectMaxMillis);
+        this.standbyEnabled = standbyEnabled;
+        this.deflateFeeds = deflateFeeds;
+        // Binance 单连接上限 1024 个 stream
+        this.binanceStreamsPerConnection = Math.min(1024, Math.max(2, binanceStreamsPerConnection));
+        this.binanceConnectionMessageRate = Math.max(1, binanceConnectionMessageRate);
+        this.binanceMaxConnections = Math.max(1, binanceMaxConnections);
+        this.binanceRebalanceSeconds = Math.max(1, binanceRebalanceSeconds);
+        this.dydxAccountConnections = Math.max(1, dydxAccountConnections);
+        this.dydxWsUri = dydxWsUri;
+        this.dydxRestUrl = dydxRestUrl;
+        this.sidecarUris = sidecarUris.length == 0 ? new String[]{"ws://127.0.0.1:8080"} : sidecarUris;
+        this.sidecarConnectionsPerUri = Math.max(1, sidecarConnectionsPerUri);
+    }
+
+    /**
+     * 该行情源是否开启 permessage-deflate。
+     */
+    public boolean deflateEnabled(String feed) {
+        return deflateFeeds.contains(feed.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * 从 transport.properties 读取配置。
+     */
+    public static TransportConfig load() {
+        Properties props = new Properties();
+        try (InputStream is = TransportConfig.class.getClassLoader()
+                .getResourceAsStream("transport.properties")) {
+            if (is != null) {
+                props.load(is);
+            }
+        } catch (Exception e) {
+            System.err.println("读取传输层配置失败，使用默认值: " + e.getMessage());
+        }
+        return new TransportConfig(
+                intValue(props, "io.threads", 2),
+                Boolean.parseBoolean(value(props, "io.epoll", "true")),
+                intValue(props, "io.busyPollMicros", 0),
+                intValue(props, "io.receiveBufferBytes", 0),
+                intValue(props, "io.sendBufferBytes", 0),
+                cpuList(value(props, "io.cpus", "")),
+                intValue(props, "io.reconnectBaseMillis", 50),
+                intValue(props, "io.reconnectMaxMillis", 5000),
+                Boolean.parseBoolean(value(props, "io.standby", "true")),
+                feedList(value(props, "io.deflate", "dydx,binance")),
+                intValue(props, "io.binance.streamsPerConnection", 200),
+                intValue(props, "io.binance.connectionMessageRate", 500),
+                intValue(props, "io.binance.maxConnections", 4),
+                intValue(props, "io.binance.rebalanceSeconds", 30),
+                intValue(props, "io.dydx.accountConnections", 2),
+                value(props, "io.dydx.wsUri", "wss://dydx3.forcast.money/v4/ws"),
+                value(props, "io.dydx.restUrl", "https://dydx1.forcast.money"),
+                uriList(value(props, "io.sidecar.uris", "ws://127.0.0.1:8080")),
+                intValue(props, "io.sidecar.connectionsPerUri", 1)
+        );
+    }
+
+    private static String value(Properties props, String key, String defaultValue) {
+        String v = System.getProperty(key, props.getProperty(key, defaultValue));
+        return v == null ? defaultValue : v.trim();
+    }
+
+    private static int intValue(Properties props, String key, int defaultValue) {
+        String v = value(props, key, "");
+        if (v.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(v);
+        } catch (NumberFormatException e) {
+            System.err.println("警告: 传输层配置 " + key + "=" + v + " 不是整数，使用默认值 " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    private static Set<String> feedList(String v) {
+        Set<String> feeds = new java.util.HashSet<>();
+        for (String part : v.split(",")) {
+            String feed = part.trim().toLowerCase(Locale.ROOT);
+            if (!feed.isEmpty()) {
+                feeds.add(feed);
+            }
+        }
+        return Set.copyOf(feeds);
+    }
+
+    private static String[] uriList(String v) {
+        List<String> uris = new ArrayList<>();
+        for (String part : v.split(",")) {
+            String uri = part.trim();
+            if (!uri.isEmpty()) {
+                uris.add(uri);
+            }
+        }
+        return uris.toArray(new String[0]);
+    }
+
+    private static int[] cpuList(String v) {
+        if (v.isEmpty()) {
+            return new int[0];
+        }
+        String[] parts = v.split(",");
+        int[] cpus = new int[parts.length];
+        int n = 0;
+        for (String part : parts) {
+            try {
+                cpus[n] = Integer.parseInt(part.trim());
+                n++;
+            } catch (NumberFormatException e) {
+                System.err.println("警告: 传输层配置 io.cpus 中的 " + part + " 不是 CPU 编号，忽略");
+            }
+        }
+        return java.util.Arrays.copyOf(cpus, n);
+    }
+}
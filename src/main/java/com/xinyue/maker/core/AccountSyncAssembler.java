@@ -0,0 +1,109 @@
+package com.xinyue.maker.core;
+
+import com.xinyue.maker.common.AccountOrderBatch;
+import com.xinyue.maker.common.CoreEvent;
+import com.xinyue.maker.common.CoreEventType;
+import org.agrona.collections.Int2ObjectHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+
+/**
+ * L2 侧的账户全量同步重组器：把 ACCOUNT_SYNC_BEGIN / N 个 ACCOUNT_SYNC_CHUNK / ACCOUNT_SYNC_COMMIT
+ * 按 accountId 拼回完整快照，commit 时一次性交给 OMS / PositionManager。
+ * <p>
+ * 约定（由 Normalizer 保证）：
+ * 1. 同一批次的事件由同一个 IO 线程连续发布，batchIndex 严格递增：BEGIN = 0，CHUNK = 1..N，COMMIT = N + 1
+ * 2. 不同账户的批次可能交错，因此按 accountId 分别缓冲
+ * <p>
+ * 任何顺序异常（未 BEGIN 的 CHUNK、batchId 不一致、缺块）都丢弃整个批次，等待下一次全量同步，
+ * 绝不应用不完整的快照。
+ * <p>
+ * 线程模型：只在 L2 单线程中使用；缓冲对象池化复用，稳定运行后不再分配。
+ */
+public final class AccountSyncAssembler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AccountSyncAssembler.class);
+
+    private final Int2ObjectHashMap<AccountOrderBatch> pending = new Int2ObjectHashMap<>();
+    private final ArrayDeque<AccountOrderBatch> pool = new ArrayDeque<>();
+    // 上一次 commit 交出的批次，调用方在下一次 onEvent 前使用完毕，之后回收
+    private AccountOrderBatch completed;
+
+    /**
+     * 处理一个分块同步事件。
+     *
+     * @return COMMIT 且批次完整时返回重组好的批次（下一次调用前有效），否则返回 null
+     */
+    public AccountOrderBatch onEvent(CoreEvent event) {
+        if (completed != null) {
+            recycle(completed);
+            completed = null;
+        }
+        int accountId = event.accountId;
+        switch (event.type) {
+            case ACCOUNT_SYNC_BEGIN -> {
+                AccountOrderBatch stale = pending.remove(accountId);
+                if (stale != null) {
+                    LOG.warn("账户同步批次未提交即被新批次替换: accountId={}, oldBatchId={}, newBatchId={}",
+                            accountId, stale.batchId, event.batchId);
+                    recycle(stale);
+                }
+                AccountOrderBatch batch = acquire();
+                batch.batchId = event.batchId;
+                batch.accountId = event.accountId;
+                pending.put(accountId, batch);
+            }
+            case ACCOUNT_SYNC_CHUNK -> {
+                AccountOrderBatch batch = pending.get(accountId);
+                if (batch == null || batch.batchId != event.batchId || event.batchIndex != batch.receivedChunks + 1) {
+                    drop(accountId, event, "chunk 顺序异常");
+                    return null;
+                }
+                batch.append(event);
+                batch.receivedChunks++;
+            }
+            case ACCOUNT_SYNC_COMMIT -> {
+                AccountOrderBatch batch = pending.get(accountId);
+                if (batch == null || batch.batchId != event.batchId || event.batchIndex != batch.receivedChunks + 1) {
+                    drop(accountId, event, "commit 时 chunk 不完整");
+                    return null;
+                }
+                pending.remove(accountId);
+                batch.expectedChunks = batch.receivedChunks;
+                completed = batch;
+                return batch;
+            }
+            default -> {
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 当前未提交的批次数量（用于监控 / 测试）。
+     */
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    private void drop(int accountId, CoreEvent event, String reason) {
+        LOG.warn("丢弃账户同步批次（{}）: accountId={}, batchId={}, batchIndex={}",
+                reason, accountId, event.batchId, event.batchIndex);
+        AccountOrderBatch batch = pending.remove(accountId);
+        if (batch != null) {
+            recycle(batch);
+        }
+    }
+
+    private AccountOrderBatch acquire() {
+        AccountOrderBatch batch = pool.poll();
+        return batch != null ? batch : new AccountOrderBatch();
+    }
+
+    private void recycle(AccountOrderBatch batch) {
+        batch.clear();
+        pool.offer(batch);
+    }
+}
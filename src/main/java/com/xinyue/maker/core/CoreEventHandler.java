@@ -1,8 +1,11 @@
 package com.xinyue.maker.core;
 
 import com.lmax.disruptor.EventHandler;
+import com.xinyue.maker.common.AccountOrderBatch;
+import com.xinyue.maker.common.CachedClock;
 import com.xinyue.maker.common.CoreEvent;
 import com.xinyue.maker.common.Exchange;
+import com.xinyue.maker.common.SymbolRegistry;
 import com.xinyue.maker.core.lob.LobManager;
 import com.xinyue.maker.core.lob.ILocalOrderBook;
 import com.xinyue.maker.core.lob.OrderBookSnapshot;
@@ -11,6 +14,7 @@ import com.xinyue.maker.core.position.PositionManager;
 import com.xinyue.maker.io.input.AccessLayerCoordinator;
 import com.xinyue.maker.io.input.GapDetector;
 import com.xinyue.maker.strategy.StrategyEngine;
+import com.xinyue.maker.infra.MetricsService;
 import com.xinyue.maker.infra.PersistenceDispatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,6 +33,7 @@ public final class CoreEventHandler implements EventHandler<CoreEvent> {
     private final PersistenceDispatcher persistenceDispatcher;
     private final GapDetector gapDetector;
     private final AccessLayerCoordinator accessLayerCoordinator;
+    private final MetricsService metricsService;
 
     // dYdX：按 symbolId 记录上一次处理的 message_id，用于 gap 检测
     // 使用简单的数组即可（symbolId 为 short）
@@ -37,13 +42,20 @@ public final class CoreEventHandler implements EventHandler<CoreEvent> {
     // dYdX：标记哪些 symbol 正在重建订单簿（重建期间忽略增量更新）
     private final boolean[] dydxRebuilding = new boolean[Short.MAX_VALUE];
 
+    // dYdX：记录每个 symbol 开始重建的时间（纳秒），用于统计恢复耗时
+    private final long[] dydxRebuildStartNanos = new long[Short.MAX_VALUE];
+
+    // dYdX：大账户全量同步分块发布，按账户重组，commit 时一次性应用
+    private final AccountSyncAssembler accountSyncAssembler = new AccountSyncAssembler();
+
     public CoreEventHandler(LobManager lobManager,
                             OrderManagementSystem oms,
                             PositionManager positionManager,
                             StrategyEngine strategyEngine,
                             PersistenceDispatcher persistenceDispatcher,
                             GapDetector gapDetector,
-                            AccessLayerCoordinator accessLayerCoordinator) {
+                            AccessLayerCoordinator accessLayerCoordinator,
+                            MetricsService metricsService) {
         this.lobManager = lobManager;
         this.oms = oms;
         this.positionManager = positionManager;
@@ -51,18 +63,29 @@ public final class CoreEventHandler implements EventHandler<CoreEvent> {
         this.persistenceDispatcher = persistenceDispatcher;
         this.gapDetector = gapDetector;
         this.accessLayerCoordinator = accessLayerCoordinator;
+        this.metricsService = metricsService;
+    }
+
+    @Override
+    public void onStart() {
+        // 本线程上的下单 / 撤单按 Disruptor 批次合并发送
+        oms.enableOrderBatching();
     }
 
     @Override
     public void onEvent(CoreEvent event, long sequence, boolean endOfBatch) {
+        CachedClock.update(); // 本事件内的限频等判断共用这一次 nanoTime
         try {
             switch (event.type) {
                 case MARKET_DATA_TICK -> handleMarketData(event);
                 case DEPTH_UPDATE -> handleDepthUpdate(event);
-//                case EXECUTION_REPORT -> handleExecution(event);
+                case EXECUTION_REPORT -> handleExecution(event);
                 case ACCOUNT_ORDER_UPDATE -> handleAccountOrderUpdate(event);
+                case ACCOUNT_SYNC_BEGIN, ACCOUNT_SYNC_CHUNK, ACCOUNT_SYNC_COMMIT -> handleAccountSyncBatch(event);
+                case FEED_STALE -> handleFeedStale(event);
                 case STRATEGY_COMMAND -> handleStrategyCommand(event);
                 case CONFIG_UPDATE -> handleConfigUpdate(event);
+                case CANCEL_ALL_ORDERS -> handleCancelAllOrders(event);
 //                case TIMER -> strategyEngine.onTimer(event);
                 case TEST -> strategyEngine.onTimer(event); // TEST 事件也调用 onTimer
                 default -> {
@@ -74,6 +97,14 @@ public final class CoreEventHandler implements EventHandler<CoreEvent> {
             strategyEngine.killSwitch();
         } finally {
             event.reset();
+            if (endOfBatch) {
+                // 本批次内策略产生的所有指令合并成一帧写出（一次系统调用）
+                oms.flushOrders();
+                // 指令写出之后再回收本批次进入终态的订单
+                oms.recycleTerminalOrders();
+                // 按间隔重建监控接口读取的快照
+                oms.publishMonitorSnapshot();
+            }
         }
     }
 
@@ -127,13 +158,16 @@ public final class CoreEventHandler implements EventHandler<CoreEvent> {
         if (dydxRebuilding[symbolId]) {
             // 全量快照的特征：firstUpdateId == -1（在 Normalizer 中标记）
             if (event.firstUpdateId == -1) {
-                System.out.println("rebuild completed");
                 // 收到新的全量快照，重建完成
                 dydxRebuilding[symbolId] = false;
                 if (messageId != 0) {
                     dydxLastMessageId[symbolId] = messageId;
                 }
-                
+                long recoveryNanos = System.nanoTime() - dydxRebuildStartNanos[symbolId];
+                metricsService.recordDydxGapRecovered(symbolId, recoveryNanos);
+                strategyEngine.markRecovered(symbolId);
+                LOG.info("dYdX orderbook rebuild completed: symbolId={}, recovery={}us", symbolId, recoveryNanos / 1_000L);
+
                 // 计算实际的买盘和卖盘数量
                 int bidCount = 0;
                 int askCount = 0;
@@ -157,24 +191,28 @@ public final class CoreEventHandler implements EventHandler<CoreEvent> {
         }
 
         // 1. 通过判断 messageId 是否连续，检测 gap
-//        long last = dydxLastMessageId[symbolId];
-////        if(last == 100)last = 100+1;
-//        if (last != 0 && messageId != 0 && messageId != last + 1) {
-//            // 2. 检测到 gap：清空本地订单簿并标记为重建中
-//            System.out.println("checked gap,start rebuild");
-//            orderBook.reset();
-//            dydxLastMessageId[symbolId] = 0L;
-//            dydxRebuilding[symbolId] = true; // 标记为重建中
-//
-//            // 3/4/5. 调用接入层执行「取消订阅 + 重新订阅」
-//            String symbolStr = SymbolRegistry.getInstance().getSymbol(symbolId);
-//            if (symbolStr != null) {
-//                String dydxSymbol = toDydxSymbol(symbolStr);
-//                accessLayerCoordinator.resubscribeOrderBook(exchange, dydxSymbol);
-//            }
-//            // 这条增量消息直接丢弃
-//            return;
-//        }
+        // 每个 symbol 的订单簿使用独立连接（见 DydxMarketDataConnector），因此同一 symbol 的 message_id 连续，
+        // 全量快照（firstUpdateId == -1）本身就是新的基准，不参与连续性判断
+        long last = dydxLastMessageId[symbolId];
+        if (event.firstUpdateId != -1 && last != 0 && messageId != 0 && messageId != last + 1) {
+            // 2. 检测到 gap：清空本地订单簿并标记为重建中（只影响该 symbol，其他 symbol 照常处理）
+            LOG.warn("dYdX orderbook gap detected: symbolId={}, last={}, current={}, start rebuild", symbolId, last, messageId);
+            orderBook.reset();
+            dydxLastMessageId[symbolId] = 0L;
+            dydxRebuilding[symbolId] = true;
+            dydxRebuildStartNanos[symbolId] = System.nanoTime();
+            metricsService.recordDydxGap(symbolId);
+            strategyEngine.markStale(symbolId);
+
+            // 3/4/5. 调用接入层执行「取消订阅 + 重新订阅」（仅该 symbol 的专用连接）
+            String symbolStr = SymbolRegistry.getInstance().getSymbol(symbolId);
+            if (symbolStr != null) {
+                String dydxSymbol = toDydxSymbol(symbolStr);
+                accessLayerCoordinator.resubscribeOrderBook(exchange, dydxSymbol);
+            }
+            // 这条增量消息直接丢弃
+            return;
+        }
 
         // 更新 last messageId（忽略 messageId 为 0 的情况）
         if (messageId != 0) {
@@ -214,6 +252,29 @@ public final class CoreEventHandler implements EventHandler<CoreEvent> {
         lobManager.syncFromLocalOrderBook(exchange, symbolId, orderBook);
     }
 
+    /**
+     * 行情连接断开：清空该 symbol 的本地订单簿并进入重建状态，暂停相关策略。
+     * 接入层重连后重新订阅，收到的全量快照走上面的重建完成分支（恢复耗时从断线时刻算起）。
+     */
+    private void handleFeedStale(CoreEvent event) {
+        Exchange exchange = Exchange.fromId(event.exchangeId);
+        short symbolId = event.symbolId;
+        if (exchange != Exchange.DYDX || symbolId <= 0) {
+            return;
+        }
+        LOG.warn("dYdX orderbook feed lost: symbolId={}, mark stale until new snapshot", symbolId);
+        ILocalOrderBook orderBook = lobManager.getOrderBook(exchange, symbolId);
+        orderBook.reset();
+        lobManager.syncFromLocalOrderBook(exchange, symbolId, orderBook);
+        dydxLastMessageId[symbolId] = 0L;
+        if (!dydxRebuilding[symbolId]) {
+            dydxRebuilding[symbolId] = true;
+            dydxRebuildStartNanos[symbolId] = event.recvTime;
+        }
+        metricsService.recordDydxFeedStale(symbolId);
+        strategyEngine.markStale(symbolId);
+    }
+
     private String toDydxSymbol(String symbol) {
         // 简单规则：BTCUSDT -> BTC-USDT，其它保持原样
         if (symbol.endsWith("USDT") && symbol.length() > 5) {
@@ -224,7 +285,8 @@ public final class CoreEventHandler implements EventHandler<CoreEvent> {
     }
 
     private void handleExecution(CoreEvent event) {
-//        oms.onExecution(event);
+        // Sidecar 回报先于 indexer 推进订单状态（PendingNew -> New / Rejected）
+        oms.onExecutionReport(event);
         positionManager.onExecution(event);
         strategyEngine.onExecution(event);
     }
@@ -234,18 +296,38 @@ public final class CoreEventHandler implements EventHandler<CoreEvent> {
         oms.onAccountOrderUpdate(event);
         
         // 处理余额更新（如果有 assetPositions 数据）
-        if (event.assetCount > 0 && event.accountId == 1) {
-            positionManager.updateBalances(event.accountId, event.assetIds, event.assetBalances, event.assetCount);
-        }
-        
+        applyBalances(event.accountId, event.assetIds, event.assetBalances, event.assetCount);
+
         // 处理转账（如果有 transfers 数据）
+        applyTransfer(event);
+
+        // 调用策略层的 onAccountOrderUpdate（用于处理撤单确认等异步操作）
+        strategyEngine.onAccountOrderUpdate(event);
+    }
+
+    private void handleAccountSyncBatch(CoreEvent event) {
+        // BEGIN / CHUNK 只缓冲，COMMIT 且完整时才应用，下游不会看到半个快照
+        AccountOrderBatch batch = accountSyncAssembler.onEvent(event);
+        if (batch == null) {
+            return;
+        }
+        oms.onAccountOrderSync(batch.accountId, event.exchangeId, batch);
+        applyBalances(batch.accountId, batch.assetIds, batch.assetBalances, batch.assetCount);
+        applyTransfer(event);
+        strategyEngine.onAccountOrderUpdate(event);
+    }
+
+    private void applyBalances(short accountId, short[] assetIds, long[] assetBalances, int assetCount) {
+        if (assetCount > 0 && accountId == 1) {
+            positionManager.updateBalances(accountId, assetIds, assetBalances, assetCount);
+        }
+    }
+
+    private void applyTransfer(CoreEvent event) {
         if (event.transferAssetId > 0 && event.transferAmountE8 > 0) {
             boolean isTransferIn = (event.transferType == 0);
             positionManager.processTransfer(event.accountId, event.transferAssetId, event.transferAmountE8, isTransferIn);
         }
-        
-        // 调用策略层的 onAccountOrderUpdate（用于处理撤单确认等异步操作）
-        strategyEngine.onAccountOrderUpdate(event);
     }
 
     private void handleStrategyCommand(CoreEvent event) {
@@ -255,5 +337,13 @@ public final class CoreEventHandler implements EventHandler<CoreEvent> {
     private void handleConfigUpdate(CoreEvent event) {
         strategyEngine.onConfig(event);
     }
+
+    /**
+     * 按交易对批量撤单（OMS 的在途订单链只能在 L2 上遍历）。
+     */
+    private void handleCancelAllOrders(CoreEvent event) {
+        int canceledCount = oms.cancelAllOrdersBySymbolId(event.symbolId);
+        LOG.info("批量撤单完成: symbolId={}, canceledCount={}", event.symbolId, canceledCount);
+    }
 }
 
@@ -8,6 +8,7 @@ public interface ExecutionGateway {
     /**
      * 发送订单请求
      * 要求：必须是 Non-blocking (非阻塞) 的，耗时 < 5us
+     * 在已开启批量的线程上调用时（见 {@link #beginBatching()}），指令暂存到 {@link #flush()} 一起发出。
      */
     void sendOrder(OrderCommand cmd);
     
@@ -16,4 +17,38 @@ public interface ExecutionGateway {
      * 要求：必须是 Non-blocking (非阻塞) 的
      */
     void transfer(TransferCommand cmd);
-}
\ No newline at end of file
+
+    /**
+     * 在当前线程（L2）开启批量发送：此后该线程的 sendOrder 只追加到批次，由 {@link #flush()} 合并成一帧写出；
+     * 其它线程（如 Web 接口撤单）的调用仍立即发送。不支持批量的实现忽略。
+     */
+    default void beginBatching() {
+    }
+
+    /**
+     * 写出当前线程暂存的批次（一帧、一次 flush 系统调用）。
+     * L2 在每个 Disruptor 批次结束（endOfBatch）时调用；非批量线程调用时不做任何事。
+     */
+    default void flush() {
+    }
+
+    /**
+     * 注册出站反馈：没有发到交易所的指令（队列满、被合并、连接不可写等）回调 listener，由 OMS 回滚状态与余额。
+     */
+    default void setOutboundListener(OutboundListener listener) {
+    }
+
+    /**
+     * 出站连接当前是否处于背压（不可写）状态，策略可据此暂缓新报价。
+     */
+    default boolean isBackpressured() {
+        return false;
+    }
+
+    /**
+     * 此刻该账户在该交易对上下单是否会被限频（只查询，不扣令牌）。策略据此在 PositionManager 中换一个账户。
+     */
+    default boolean isThrottled(short accountId, short symbolId) {
+        return false;
+    }
+}
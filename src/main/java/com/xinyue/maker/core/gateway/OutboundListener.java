@@ -0,0 +1,31 @@
+package com.xinyue.maker.core.gateway;
+
+import com.xinyue.maker.common.OrderCommand;
+
+/**
+ * 网关出站调度的反馈：指令没有发到交易所时回调，由 OMS 回滚订单状态与预扣余额；指令写出时回调，由 OMS 记录写出时刻。
+ * 回调在调用 sendOrder / flush 的线程（L2）上执行；cmd 为网关内部副本，不得持有。
+ */
+public interface OutboundListener {
+
+    /** 同一策略报价槽有更新的报价入队，旧报价不再发送 */
+    byte DROP_SUPERSEDED = 1;
+    /** 出站队列已满（或被更高优先级的指令挤出） */
+    byte DROP_QUEUE_FULL = 2;
+    /** 非 L2 线程直接发送时连接不可写 */
+    byte DROP_BACKPRESSURE = 3;
+    /** 账户会话不存在 */
+    byte DROP_NO_SESSION = 4;
+    /** 下单指令尚未发出就收到了撤单：两条都不再发送，订单直接视为已撤 */
+    byte DROP_CANCELED_UNSENT = 5;
+    /** 账户或交易对令牌桶已空：下单被限频拒绝（策略应换账户而不是重试） */
+    byte DROP_THROTTLED = 6;
+
+    void onCommandDropped(OrderCommand cmd, byte reason);
+
+    /**
+     * 指令已编码并交给连接写出（writeAndFlush 交接给 IO 线程的时刻，nanoTime；同一批次的指令共用一个时刻）。
+     */
+    default void onCommandSent(OrderCommand cmd, long sentNanos) {
+    }
+}
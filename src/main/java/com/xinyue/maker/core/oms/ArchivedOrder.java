@@ -0,0 +1,28 @@
+package com.xinyue.maker.core.oms;
+
+/**
+ * 终态订单归档记录的拷贝（{@link OrderArchive} 查询时填充，调用方可复用同一个对象）。
+ */
+public final class ArchivedOrder {
+
+    public long sequence;           // 归档序号（单调递增）
+    public long localOrderId;
+    public long exchangeOrderId;
+    public short accountId;
+    public short symbolId;
+    public short exchangeId;
+    public byte side;               // 0=Buy, 1=Sell
+    public byte orderStatus;        // 5=Filled, 6=Canceled, 7=Rejected
+    public long priceE8;
+    public long qtyE8;
+    public long filledQtyE8;
+    public long createTime;         // 订单创建时间（毫秒）
+    public long terminalTime;       // 进入终态的时间（毫秒，归档内单调不减）
+
+    /**
+     * 时间区间查询的回调；返回 false 提前结束遍历。
+     */
+    public interface Visitor {
+        boolean onOrder(ArchivedOrder order);
+    }
+}
@@ -0,0 +1,90 @@
+package com.xinyue.maker.core.oms;
+
+/**
+ * 订单「首个信号」来源统计：Sidecar 广播回报（EXECUTION_REPORT）与 indexer v4_subaccounts 推送之间的时间差。
+ * <p>
+ * 同一订单两路信号都到达后记录一次 gap = indexer 到达时刻 - Sidecar 到达时刻（均为 recvTime，纳秒）：
+ * 正数表示 Sidecar 领先，负数表示 indexer 领先。只由 L2 线程写入（Zero GC），HTTP 线程读取时允许读到稍旧的值。
+ * 分布按 |gap| 的 2 的幂分桶，与 IoLatencyStats 一致。
+ */
+public final class FirstSignalStats {
+
+    public static final int BUCKETS = 40;
+
+    private long samples;
+    private long sidecarFirst;
+    private long indexerFirst;
+    private long totalGapNanos;
+    private long maxLeadNanos;
+    private final long[] buckets = new long[BUCKETS];
+
+    /**
+     * 记录一个订单的两路信号时间差（indexer - sidecar，纳秒）。
+     */
+    void record(long gapNanos) {
+        samples++;
+        totalGapNanos += gapNanos;
+        if (gapNanos >= 0) {
+            sidecarFirst++;
+        } else {
+            indexerFirst++;
+        }
+        long lead = Math.abs(gapNanos);
+        if (gapNanos > maxLeadNanos) {
+            maxLeadNanos = gapNanos;
+        }
+        buckets[Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(lead | 1))]++;
+    }
+
+    public long samples() {
+        return samples;
+    }
+
+    /**
+     * Sidecar 回报先到（或同时到）的订单数。
+     */
+    public long sidecarFirst() {
+        return sidecarFirst;
+    }
+
+    /**
+     * indexer 推送先到的订单数。
+     */
+    public long indexerFirst() {
+        return indexerFirst;
+    }
+
+    /**
+     * 平均领先时间（纳秒，带符号：正数为 Sidecar 领先）。
+     */
+    public long avgGapNanos() {
+        long c = samples;
+        return c == 0 ? 0L : totalGapNanos / c;
+    }
+
+    /**
+     * Sidecar 领先 indexer 的最大时间（纳秒）。
+     */
+    public long maxLeadNanos() {
+        return maxLeadNanos;
+    }
+
+    /**
+     * |gap| 的近似分位数：返回样本所在桶的上界（纳秒）。
+     */
+    public long percentileGapNanos(double percentile) {
+        long total = samples;
+        if (total == 0) {
+            return 0L;
+        }
+        long threshold = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i];
+            if (seen >= threshold) {
+                return 1L << (i + 1);
+            }
+        }
+        return 1L << BUCKETS;
+    }
+}
@@ -0,0 +1,139 @@
+package com.xinyue.maker.core.oms;
+
+/**
+ * 在途订单的侵入式双向链表（按挂入顺序）：链接字段放在 {@link Order} 上，挂入 / 摘除 O(1) 且不分配。
+ * <p>
+ * 同一订单同时挂在两条链上：交易对链（{@link #CHAIN_SYMBOL}）与（账户, 交易对）链（{@link #CHAIN_ACCOUNT_SYMBOL}），
+ * 各自使用 Order 上独立的一组前后指针。只由 L2 线程修改。
+ */
+public final class LiveOrderList {
+
+    public static final int CHAIN_SYMBOL = 0;
+    public static final int CHAIN_ACCOUNT_SYMBOL = 1;
+
+    /**
+     * 遍历回调（从早到晚）；返回 false 提前结束。
+     */
+    public interface Visitor {
+        boolean onOrder(Order order);
+    }
+
+    private final int chain;
+    private Order head;
+    private Order tail;
+    private int size;
+
+    LiveOrderList(int chain) {
+        this.chain = chain;
+    }
+
+    /**
+     * 追加到链表尾部；已在本链中的订单不重复挂入。
+     */
+    void add(Order order) {
+        if (list(order) != null) {
+            return;
+        }
+        setPrev(order, tail);
+        setNext(order, null);
+        if (tail == null) {
+            head = order;
+        } else {
+            setNext(tail, order);
+        }
+        tail = order;
+        setList(order, this);
+        size++;
+    }
+
+    /**
+     * 从链表摘除；不在本链中的订单忽略。
+     */
+    void remove(Order order) {
+        if (list(order) != this) {
+            return;
+        }
+        Order prev = prev(order);
+        Order next = next(order);
+        if (prev == null) {
+            head = next;
+        } else {
+            setNext(prev, next);
+        }
+        if (next == null) {
+            tail = prev;
+        } else {
+            setPrev(next, prev);
+        }
+        setPrev(order, null);
+        setNext(order, null);
+        setList(order, null);
+        size--;
+    }
+
+    public Order first() {
+        return head;
+    }
+
+    /**
+     * 本链中的下一笔订单，没有时返回 null。
+     */
+    public Order next(Order order) {
+        return chain == CHAIN_SYMBOL ? order.symbolNext : order.accountSymbolNext;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 按挂入顺序遍历（不分配）。回调中撤掉当前订单是安全的：下一笔在回调前取出。
+     *
+     * @return 回调次数
+     */
+    public int forEach(Visitor visitor) {
+        int visited = 0;
+        Order order = head;
+        while (order != null) {
+            Order next = next(order);
+            visited++;
+            if (!visitor.onOrder(order)) {
+                break;
+            }
+            order = next;
+        }
+        return visited;
+    }
+
+    private Order prev(Order order) {
+        return chain == CHAIN_SYMBOL ? order.symbolPrev : order.accountSymbolPrev;
+    }
+
+    private void setPrev(Order order, Order prev) {
+        if (chain == CHAIN_SYMBOL) {
+            order.symbolPrev = prev;
+        } else {
+            order.accountSymbolPrev = prev;
+        }
+    }
+
+    private void setNext(Order order, Order next) {
+        if (chain == CHAIN_SYMBOL) {
+            order.symbolNext = next;
+        } else {
+            order.accountSymbolNext = next;
+        }
+    }
+
+    private LiveOrderList list(Order order) {
+        return chain == CHAIN_SYMBOL ? order.symbolList : order.accountSymbolList;
+    }
+
+    private void setList(Order order, LiveOrderList list) {
+        if (chain == CHAIN_SYMBOL) {
+            order.symbolList = list;
+        } else {
+            order.accountSymbolList = list;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.xinyue.maker.core.oms;
+
+/**
+ * OMS 监控快照：L2 在批次结束时按间隔重建（见 {@link OrderManagementSystem#publishMonitorSnapshot()}），
+ * 整体通过 volatile 引用发布。发布后不再修改，HTTP 线程只读它，不接触 L2 的哈希表与池化的 Order 对象。
+ */
+public final class OmsMonitorSnapshot {
+
+    static final OmsMonitorSnapshot EMPTY = new OmsMonitorSnapshot(0L,
+            new OrderLatencyStats[0], new short[0], new OrderLatencyStats[0], new PendingOrder[0]);
+
+    /**
+     * 快照时刻处于 PendingNew 的订单（字段拷贝）。
+     */
+    public static final class PendingOrder {
+        public final long localOrderId;
+        public final short accountId;
+        public final short exchangeId;
+        public final short symbolId;
+        public final byte side;
+        public final long priceE8;
+        public final long qtyE8;
+        public final long createNanos;
+        public final String lastStage;   // 已到达的最后一个阶段：created / gateway / wire / ack
+
+        PendingOrder(Order order) {
+            this.localOrderId = order.localOrderId;
+            this.accountId = order.accountId;
+            this.exchangeId = order.exchangeId;
+            this.symbolId = order.symbolId;
+            this.side = order.side;
+            this.priceE8 = order.priceE8;
+            this.qtyE8 = order.qtyE8;
+            this.createNanos = order.createNanos;
+            this.lastStage = order.sidecarSignalNanos != 0 ? "ack"
+                    : order.wireNanos != 0 ? "wire"
+                    : order.gatewayNanos != 0 ? "gateway" : "created";
+        }
+    }
+
+    private final long publishedNanos;
+    private final OrderLatencyStats[] exchangeLatency;
+    private final short[] accountIds;
+    private final OrderLatencyStats[] accountLatency;
+    private final PendingOrder[] pendingNew;
+
+    OmsMonitorSnapshot(long publishedNanos, OrderLatencyStats[] exchangeLatency,
+                       short[] accountIds, OrderLatencyStats[] accountLatency, PendingOrder[] pendingNew) {
+        this.publishedNanos = publishedNanos;
+        this.exchangeLatency = exchangeLatency;
+        this.accountIds = accountIds;
+        this.accountLatency = accountLatency;
+        this.pendingNew = pendingNew;
+    }
+
+    /**
+     * 快照时刻（System.nanoTime），0 表示 L2 尚未发布过。
+     */
+    public long publishedNanos() {
+        return publishedNanos;
+    }
+
+    /**
+     * 某交易所的耗时统计拷贝，交易所 ID 越界时返回 null。
+     */
+    public OrderLatencyStats exchangeLatency(short exchangeId) {
+        return exchangeId >= 0 && exchangeId < exchangeLatency.length ? exchangeLatency[exchangeId] : null;
+    }
+
+    /**
+     * 有耗时统计的账户数；第 i 个账户为 {@link #accountId(int)}，统计为 {@link #accountLatency(int)}。
+     */
+    public int accountCount() {
+        return accountIds.length;
+    }
+
+    public short accountId(int index) {
+        return accountIds[index];
+    }
+
+    public OrderLatencyStats accountLatency(int index) {
+        return accountLatency[index];
+    }
+
+    /**
+     * 快照时刻处于 PendingNew 的订单数。
+     */
+    public int pendingNewCount() {
+        return pendingNew.length;
+    }
+
+    public PendingOrder pendingNew(int index) {
+        return pendingNew[index];
+    }
+}
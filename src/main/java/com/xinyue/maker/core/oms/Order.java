@@ -30,6 +30,28 @@ public final class Order {
     public long createTime;         // 订单创建时间（本地时间戳）
     public long submitTime;         // 提交到交易所时间
     public long updateTime;         // 最后更新时间
+    public long sidecarSignalNanos; // 首个 Sidecar 回报的接收时刻（nanoTime，0 表示未收到）
+    public long indexerSignalNanos; // 首个 indexer 增量推送的接收时刻（nanoTime，0 表示未收到）
+    // 生命周期打点（nanoTime，0 表示尚未经过该阶段；Sidecar 回报 / indexer 确认见上面两个字段）
+    public long createNanos;        // OMS 创建订单
+    public long gatewayNanos;       // 交给网关
+    public long wireNanos;          // 编码并交给连接写出
+    public long cancelRequestNanos; // 发起撤单
+    public long cancelConfirmNanos; // indexer 确认 CANCELED
+
+    // === 价位索引（由 PriceLevelBook 维护，null 表示不在索引中）===
+    PriceLevelBook priceBook;       // 所在价位索引
+    Order levelPrev;                // 同价位前一笔（更早挂入）
+    public Order levelNext;         // 同价位后一笔（更晚挂入）
+    long levelQtyE8;                // 计入价位合计的剩余数量
+
+    // === 在途订单链（由 LiveOrderList 维护，null 表示不在链中）===
+    LiveOrderList symbolList;       // 交易对链
+    Order symbolPrev;
+    Order symbolNext;
+    LiveOrderList accountSymbolList; // （账户, 交易对）链
+    Order accountSymbolPrev;
+    Order accountSymbolNext;
     
     /**
      * 重置订单对象（用于对象池复用）。
@@ -52,6 +74,23 @@ public final class Order {
         createTime = 0;
         submitTime = 0;
         updateTime = 0;
+        sidecarSignalNanos = 0;
+        indexerSignalNanos = 0;
+        createNanos = 0;
+        gatewayNanos = 0;
+        wireNanos = 0;
+        cancelRequestNanos = 0;
+        cancelConfirmNanos = 0;
+        priceBook = null;
+        levelPrev = null;
+        levelNext = null;
+        levelQtyE8 = 0;
+        symbolList = null;
+        symbolPrev = null;
+        symbolNext = null;
+        accountSymbolList = null;
+        accountSymbolPrev = null;
+        accountSymbolNext = null;
     }
     
     /**
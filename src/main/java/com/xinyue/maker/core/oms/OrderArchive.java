@@ -0,0 +1,180 @@
+package com.xinyue.maker.core.oms;
+
+import org.agrona.collections.Long2LongHashMap;
+
+import java.util.Arrays;
+
+/**
+ * 终态订单归档：Filled / Canceled / Rejected 的订单移出 OMS 热索引后按列存放在固定容量的环形缓冲中，
+ * 满后覆盖最旧的记录，内存在构造时一次性分配（容量见 oms.properties 的 oms.archive.capacity）。
+ * <p>
+ * 支持按 localOrderId 查找（id -> 归档序号的哈希索引，容量固定不扩容）与按进入终态时间的区间查询
+ * （写入时时间单调不减，按序号二分）。
+ * <p>
+ * 只由 L2 线程写入（Zero GC）。查询可在 HTTP 线程进行：逐条拷贝到 {@link ArchivedOrder} 后校验槽位序号，
+ * 拷贝期间被覆盖的记录视为不存在。
+ */
+public final class OrderArchive {
+
+    private final int capacity;
+
+    private final long[] sequences;
+    private final long[] localOrderIds;
+    private final long[] exchangeOrderIds;
+    private final short[] accountIds;
+    private final short[] symbolIds;
+    private final short[] exchangeIds;
+    private final byte[] sides;
+    private final byte[] statuses;
+    private final long[] prices;
+    private final long[] qtys;
+    private final long[] filledQtys;
+    private final long[] createTimes;
+    private final long[] terminalTimes;
+
+    // localOrderId -> 归档序号（同一 ID 再次归档时指向最新一条）
+    private final Long2LongHashMap idIndex;
+
+    // 已归档总数（下一条的序号），发布给查询线程
+    private volatile long head;
+    private long lastTerminalTime;
+
+    public OrderArchive(int capacity) {
+        this.capacity = capacity;
+        sequences = new long[capacity];
+        localOrderIds = new long[capacity];
+        exchangeOrderIds = new long[capacity];
+        accountIds = new short[capacity];
+        symbolIds = new short[capacity];
+        exchangeIds = new short[capacity];
+        sides = new byte[capacity];
+        statuses = new byte[capacity];
+        prices = new long[capacity];
+        qtys = new long[capacity];
+        filledQtys = new long[capacity];
+        createTimes = new long[capacity];
+        terminalTimes = new long[capacity];
+        Arrays.fill(sequences, -1L);
+        // 装载因子 0.5、初始容量 2 倍：索引最多 capacity 条，永不扩容
+        idIndex = new Long2LongHashMap(capacity * 2, 0.5f, -1L);
+    }
+
+    /**
+     * 归档一笔终态订单（L2 线程）。
+     */
+    void archive(Order order) {
+        long seq = head;
+        int slot = (int) (seq % capacity);
+        if (sequences[slot] >= 0) {
+            long evictedId = localOrderIds[slot];
+            if (idIndex.get(evictedId) == sequences[slot]) {
+                idIndex.remove(evictedId);
+            }
+        }
+        sequences[slot] = -1L; // 写入期间查询线程视为空槽
+
+        long terminalTime = order.updateTime != 0 ? order.updateTime : System.currentTimeMillis();
+        if (terminalTime < lastTerminalTime) {
+            terminalTime = lastTerminalTime; // 墙钟回拨时保持单调，区间查询依赖有序
+        }
+        lastTerminalTime = terminalTime;
+
+        localOrderIds[slot] = order.localOrderId;
+        exchangeOrderIds[slot] = order.exchangeOrderId;
+        accountIds[slot] = order.accountId;
+        symbolIds[slot] = order.symbolId;
+        exchangeIds[slot] = order.exchangeId;
+        sides[slot] = order.side;
+        statuses[slot] = order.orderStatus;
+        prices[slot] = order.priceE8;
+        qtys[slot] = order.qtyE8;
+        filledQtys[slot] = order.filledQtyE8;
+        createTimes[slot] = order.createTime;
+        terminalTimes[slot] = terminalTime;
+        sequences[slot] = seq;
+
+        idIndex.put(order.localOrderId, seq);
+        head = seq + 1;
+    }
+
+    /**
+     * 按 localOrderId 查找最近一次归档的记录，找到时填充 out 并返回 true。
+     */
+    public boolean find(long localOrderId, ArchivedOrder out) {
+        long seq = idIndex.get(localOrderId);
+        return seq >= 0 && copy(seq, out) && out.localOrderId == localOrderId;
+    }
+
+    /**
+     * 按进入终态的时间 [fromMillis, toMillis] 从旧到新遍历归档记录，返回回调的条数。
+     * scratch 为调用方提供的复用对象，每条记录拷贝进去后回调。
+     */
+    public int forEachInRange(long fromMillis, long toMillis, ArchivedOrder scratch, ArchivedOrder.Visitor visitor) {
+        long end = head;
+        long lo = Math.max(0L, end - capacity);
+        long hi = end;
+        // 二分查找第一条 terminalTime >= fromMillis 的记录
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (terminalTimes[(int) (mid % capacity)] < fromMillis) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        int visited = 0;
+        for (long seq = lo; seq < end; seq++) {
+            if (!copy(seq, scratch)) {
+                continue; // 已被覆盖
+            }
+            if (scratch.terminalTime > toMillis) {
+                break;
+            }
+            visited++;
+            if (!visitor.onOrder(scratch)) {
+                break;
+            }
+        }
+        return visited;
+    }
+
+    private boolean copy(long seq, ArchivedOrder out) {
+        int slot = (int) (seq % capacity);
+        if (sequences[slot] != seq) {
+            return false;
+        }
+        out.sequence = seq;
+        out.localOrderId = localOrderIds[slot];
+        out.exchangeOrderId = exchangeOrderIds[slot];
+        out.accountId = accountIds[slot];
+        out.symbolId = symbolIds[slot];
+        out.exchangeId = exchangeIds[slot];
+        out.side = sides[slot];
+        out.orderStatus = statuses[slot];
+        out.priceE8 = prices[slot];
+        out.qtyE8 = qtys[slot];
+        out.filledQtyE8 = filledQtys[slot];
+        out.createTime = createTimes[slot];
+        out.terminalTime = terminalTimes[slot];
+        // 拷贝期间被 L2 覆盖则丢弃
+        return sequences[slot] == seq;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * 累计归档的订单数（含已被覆盖的）。
+     */
+    public long archived() {
+        return head;
+    }
+
+    /**
+     * 当前保留的记录数。
+     */
+    public int size() {
+        return (int) Math.min(head, capacity);
+    }
+}
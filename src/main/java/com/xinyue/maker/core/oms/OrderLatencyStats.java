@@ -0,0 +1,92 @@
+package com.xinyue.maker.core.oms;
+
+/**
+ * 订单生命周期各阶段耗时直方图（一个账户或一个交易所一份，创建时预分配全部桶）。
+ * <p>
+ * 阶段起止均为 System.nanoTime（IO 线程的 recvTime 与 L2 的打点同一时钟）：
+ * <ul>
+ *   <li>{@link #STAGE_SUBMIT}：OMS 创建订单 -> 交给网关（余额预扣与建索引）；</li>
+ *   <li>{@link #STAGE_QUEUE}：交给网关 -> 编码并交给连接写出（出站队列排队 + 批次等待）；</li>
+ *   <li>{@link #STAGE_ACK}：写出 -> Sidecar 回报到达；</li>
+ *   <li>{@link #STAGE_CONFIRM}：写出 -> indexer 首个 v4_subaccounts 推送到达；</li>
+ *   <li>{@link #STAGE_LIVE}：创建 -> 订单离开 PendingNew（两路信号中先到的一路）；</li>
+ *   <li>{@link #STAGE_CANCEL}：发起撤单 -> indexer 确认 CANCELED。</li>
+ * </ul>
+ * 只由 L2 线程读写（Zero GC）；监控接口读取的是 L2 定期发布的拷贝（见 {@link OmsMonitorSnapshot}）。按 2 的幂分桶，与 FirstSignalStats 一致。
+ */
+public final class OrderLatencyStats {
+
+    public static final int STAGE_SUBMIT = 0;
+    public static final int STAGE_QUEUE = 1;
+    public static final int STAGE_ACK = 2;
+    public static final int STAGE_CONFIRM = 3;
+    public static final int STAGE_LIVE = 4;
+    public static final int STAGE_CANCEL = 5;
+    public static final int STAGES = 6;
+
+    public static final String[] STAGE_NAMES = {"submit", "queue", "ack", "confirm", "live", "cancel"};
+
+    public static final int BUCKETS = 40;
+
+    private final long[] samples = new long[STAGES];
+    private final long[] totalNanos = new long[STAGES];
+    private final long[] maxNanos = new long[STAGES];
+    private final long[] buckets = new long[STAGES * BUCKETS];
+
+    void record(int stage, long nanos) {
+        if (nanos < 0) {
+            return;
+        }
+        samples[stage]++;
+        totalNanos[stage] += nanos;
+        if (nanos > maxNanos[stage]) {
+            maxNanos[stage] = nanos;
+        }
+        buckets[stage * BUCKETS + Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(nanos | 1))]++;
+    }
+
+    /**
+     * 拷贝当前统计（L2 发布监控快照时调用，冷路径分配）。
+     */
+    OrderLatencyStats copy() {
+        OrderLatencyStats copy = new OrderLatencyStats();
+        System.arraycopy(samples, 0, copy.samples, 0, STAGES);
+        System.arraycopy(totalNanos, 0, copy.totalNanos, 0, STAGES);
+        System.arraycopy(maxNanos, 0, copy.maxNanos, 0, STAGES);
+        System.arraycopy(buckets, 0, copy.buckets, 0, buckets.length);
+        return copy;
+    }
+
+    public long samples(int stage) {
+        return samples[stage];
+    }
+
+    public long avgNanos(int stage) {
+        long c = samples[stage];
+        return c == 0 ? 0L : totalNanos[stage] / c;
+    }
+
+    public long maxNanos(int stage) {
+        return maxNanos[stage];
+    }
+
+    /**
+     * 近似分位数：返回样本所在桶的上界（纳秒）。
+     */
+    public long percentileNanos(int stage, double percentile) {
+        long total = samples[stage];
+        if (total == 0) {
+            return 0L;
+        }
+        long threshold = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        int base = stage * BUCKETS;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[base + i];
+            if (seen >= threshold) {
+                return 1L << (i + 1);
+            }
+        }
+        return maxNanos[stage];
+    }
+}
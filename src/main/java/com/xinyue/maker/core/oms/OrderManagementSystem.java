@@ -1,16 +1,21 @@
 package com.xinyue.maker.core.oms;
 
+import com.xinyue.maker.common.AccountOrderBatch;
 import com.xinyue.maker.common.AssetRegistry;
 import com.xinyue.maker.common.CoreEvent;
 import com.xinyue.maker.common.Exchange;
 import com.xinyue.maker.common.OrderCommand;
+import com.xinyue.maker.common.OrderCommandPool;
 import com.xinyue.maker.common.ScaleConstants;
 import com.xinyue.maker.common.SymbolRegistry;
+import com.xinyue.maker.config.OmsConfig;
 import com.xinyue.maker.core.gateway.ExecutionGateway;
+import com.xinyue.maker.core.gateway.OutboundListener;
 import com.xinyue.maker.core.position.PositionManager;
 import com.xinyue.maker.infra.MetricsService;
 import com.xinyue.maker.infra.PersistenceDispatcher;
 import com.xinyue.maker.io.output.ExecutionGatewayManager;
+import com.xinyue.maker.io.output.SidecarProtocol;
 import com.xinyue.maker.strategy.InternalRangeOscillatorStrategy2;
 import org.agrona.collections.Int2ObjectHashMap;
 import org.agrona.collections.Long2LongHashMap;
@@ -19,6 +24,7 @@ import org.agrona.collections.LongArrayList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicLong;
 
 
@@ -29,9 +35,14 @@ import java.util.concurrent.atomic.AtomicLong;
  * 1. 全局主索引：LongObjectMap<Order> (localOrderId -> Order) - 极速查找任意订单
  * 2. 外部ID索引：Long2LongHashMap (exchangeOrderId -> localOrderId) - 交易所回报时快速定位
  * 3. 分账户索引：Int2ObjectHashMap<LongArrayList> (accountId -> List<localOrderId>) - 按账户查询
- * 4. 价格索引：Long2ObjectHashMap<LongArrayList> (price -> List<localOrderId>) - 按价格查询
+ * 4. 价位索引：Int2ObjectHashMap<PriceLevelBook> (symbolId -> 有序价位 + 同价位订单链表，买卖分开) - 价格区间计数 / 自成交检查
+ * 5. 在途订单链：LiveOrderList[] / Int2ObjectHashMap<LiveOrderList> (symbolId / (accountId, symbolId) -> 侵入式链表) - 批量撤单与策略查询
+ * <p>
+ * 对象所有权：Order 与 OrderCommand 在 L2 线程上从预分配对象池取用。订单进入终态（Filled / Canceled / Rejected）后，
+ * 在当前 L2 批次结束、出站指令写出之后移出上述索引、写入 {@link OrderArchive} 并交还对象池，热索引只保留在途订单；
+ * 调用方不应跨事件持有 Order 引用，按 localOrderId 重新查询（终态订单查归档）。
  */
-public final class OrderManagementSystem {
+public final class OrderManagementSystem implements OutboundListener {
 
     private final MetricsService metricsService;
     private final ExecutionGatewayManager gatewayManager;
@@ -53,17 +64,71 @@ public final class OrderManagementSystem {
     // 2.3 分账户索引：accountId -> List<localOrderId>
     private final Int2ObjectHashMap<LongArrayList> accountIndex = new Int2ObjectHashMap<>();
     
-    // 价格索引：price -> List<localOrderId>（买单和卖单分开）
-    private final Long2ObjectHashMap<LongArrayList> bidPriceIndex = new Long2ObjectHashMap<>();
-    private final Long2ObjectHashMap<LongArrayList> askPriceIndex = new Long2ObjectHashMap<>();
+    // 价位索引：symbolId -> PriceLevelBook（买单和卖单分开；交易对首个订单时分配一次）
+    private final Int2ObjectHashMap<PriceLevelBook> bidBooks = new Int2ObjectHashMap<>();
+    private final Int2ObjectHashMap<PriceLevelBook> askBooks = new Int2ObjectHashMap<>();
+
+    // 在途订单链：symbolId -> 链表（按 symbolId 下标的数组，监控线程可安全读取链表长度），
+    // (accountId << 16 | symbolId) -> 链表（首次出现时分配一次；订单进入终态即摘链）
+    private final LiveOrderList[] symbolOrders = new LiveOrderList[Short.MAX_VALUE + 1];
+    private final Int2ObjectHashMap<LiveOrderList> accountSymbolOrders = new Int2ObjectHashMap<>();
+
+    // 交易对 -> 基础 / 报价资产 assetId（按 symbolId 下标，首次下单时解析一次，0 表示尚未解析）
+    private final short[] baseAssetIds = new short[Short.MAX_VALUE + 1];
+    private final short[] quoteAssetIds = new short[Short.MAX_VALUE + 1];
+
+    // Sidecar 回报与 indexer 推送的先后 / 时间差
+    private final FirstSignalStats firstSignalStats = new FirstSignalStats();
+
+    // 订单生命周期耗时：按交易所（构造时按交易所 ID 预分配）与按账户（账户首个订单时分配一次）
+    private final OrderLatencyStats[] exchangeLatency;
+    private final Int2ObjectHashMap<OrderLatencyStats> accountLatency = new Int2ObjectHashMap<>();
+    // 监控快照：L2 按间隔重建并整体替换，HTTP 线程只读它
+    private final long monitorSnapshotIntervalNanos;
+    private volatile OmsMonitorSnapshot monitorSnapshot = OmsMonitorSnapshot.EMPTY;
+    private long nextMonitorSnapshotNanos;
+
+    // === 对象池（只在 L2 线程使用；其它线程如 Web 接口撤单时直接分配），容量见 oms.properties ===
+    private static final int COMMAND_POOL_CAPACITY = 64;
+    private final OrderPool orderPool;
+    private final OrderCommandPool commandPool = new OrderCommandPool(COMMAND_POOL_CAPACITY);
+    // 终态订单归档（固定容量，列存）
+    private final OrderArchive archive;
+    // 本批次内进入终态、批次结束时回收的订单（满时扩容，冷路径）
+    private Order[] terminalOrders = new Order[256];
+    private int terminalCount;
+    // L2 事件处理线程（enableOrderBatching 时记录），对象池只在该线程上使用
+    private Thread l2Thread;
 
     public OrderManagementSystem(MetricsService metricsService,
                                  PersistenceDispatcher persistenceDispatcher,
                                  ExecutionGatewayManager gatewayManager,
                                  PositionManager positionManager) {
+        this(metricsService, persistenceDispatcher, gatewayManager, positionManager, OmsConfig.load());
+    }
+
+    public OrderManagementSystem(MetricsService metricsService,
+                                 PersistenceDispatcher persistenceDispatcher,
+                                 ExecutionGatewayManager gatewayManager,
+                                 PositionManager positionManager,
+                                 OmsConfig config) {
         this.metricsService = metricsService;
+        this.orderPool = new OrderPool(config.orderPoolCapacity);
+        this.archive = new OrderArchive(config.archiveCapacity);
+        this.monitorSnapshotIntervalNanos = config.monitorSnapshotIntervalMillis * 1_000_000L;
         this.gatewayManager = gatewayManager;
         this.positionManager = positionManager;
+        int maxExchangeId = 0;
+        for (Exchange exchange : Exchange.values()) {
+            maxExchangeId = Math.max(maxExchangeId, exchange.id());
+        }
+        this.exchangeLatency = new OrderLatencyStats[maxExchangeId + 1];
+        for (int i = 0; i < exchangeLatency.length; i++) {
+            exchangeLatency[i] = new OrderLatencyStats();
+        }
+        if (gatewayManager != null) {
+            gatewayManager.setOutboundListener(this);
+        }
     }
 
     private static final Logger LOG = LoggerFactory.getLogger(OrderManagementSystem.class);
@@ -74,16 +139,108 @@ public final class OrderManagementSystem {
         return gatewayManager;
     }
 
+    /**
+     * 在当前线程（L2 事件处理线程）开启批量发送：此后 submitOrder / cancelOrder 的指令
+     * 暂存在网关中，由 {@link #flushOrders()} 合并成一帧发出。
+     */
+    public void enableOrderBatching() {
+        l2Thread = Thread.currentThread();
+        gatewayManager.beginBatchingAll();
+    }
+
+    /**
+     * 发出当前批次暂存的下单 / 撤单指令（L2 在 endOfBatch 时调用，其它线程调用无副作用）。
+     */
+    public void flushOrders() {
+        gatewayManager.flushAll();
+    }
+
+    /**
+     * 出站指令未发出（L2 线程回调）：按订单当前状态回滚。
+     * <ul>
+     *   <li>PendingNew：新单没有发出，视为 Rejected，释放预扣余额并移出价格索引；</li>
+     *   <li>PendingCancel：撤单没有发出，恢复为挂单状态并放回价格索引，策略下一轮会重新撤单；</li>
+     *   <li>原单与撤单都未发出：订单直接视为 Canceled 并释放余额。</li>
+     * </ul>
+     */
+    @Override
+    public void onCommandDropped(OrderCommand cmd, byte reason) {
+        Order order = globalIndex.get(cmd.internalOrderId);
+        if (order == null) {
+            return;
+        }
+        if (reason == DROP_CANCELED_UNSENT) {
+            if (order.orderStatus != 6) {
+                order.orderStatus = 6; // Canceled
+                order.updateTime = System.currentTimeMillis();
+                releaseBalanceForCanceledOrder(order);
+                removeOrderFromPriceIndex(order);
+                retireOrder(order);
+            }
+            return;
+        }
+        if (order.orderStatus == 2) { // PendingNew
+            order.orderStatus = 7; // Rejected
+            order.updateTime = System.currentTimeMillis();
+            releaseBalanceForRejectedOrder(order);
+            removeOrderFromPriceIndex(order);
+            retireOrder(order);
+        } else if (order.orderStatus == 8) { // PendingCancel
+            order.orderStatus = order.filledQtyE8 > 0 ? (byte) 4 : (byte) 3;
+            order.updateTime = System.currentTimeMillis();
+            addOrderToPriceIndex(order);
+        }
+        if (reason != DROP_SUPERSEDED && reason != DROP_THROTTLED) {
+            LOG.warn("出站指令未发出: localOrderId={}, reason={}, status={}", order.localOrderId, reason, order.orderStatus);
+        }
+    }
+
+    /**
+     * 指令已交给连接写出（L2 线程回调）：记录下单的写出时刻与排队耗时。撤单只记录撤单发起时刻，不在这里打点。
+     */
+    @Override
+    public void onCommandSent(OrderCommand cmd, long sentNanos) {
+        if (cmd.priority == OrderCommand.PRIORITY_CANCEL) {
+            return;
+        }
+        Order order = globalIndex.get(cmd.internalOrderId);
+        if (order == null || order.wireNanos != 0) {
+            return;
+        }
+        order.wireNanos = sentNanos;
+        if (order.gatewayNanos != 0) {
+            recordLatency(order, OrderLatencyStats.STAGE_QUEUE, sentNanos - order.gatewayNanos);
+        }
+    }
+
+    /**
+     * 指定交易所的出站连接是否处于背压状态（策略可据此暂缓新报价）。
+     */
+    public boolean isOutboundBackpressured(Exchange exchange) {
+        ExecutionGateway gateway = gatewayManager.getGateway(exchange);
+        return gateway != null && gateway.isBackpressured();
+    }
+
+    /**
+     * 此刻该账户在该交易对上下单是否会被网关限频（策略选账户时跳过这些账户）。
+     */
+    public boolean isThrottled(short exchangeId, short accountId, short symbolId) {
+        ExecutionGateway gateway = gatewayManager.getGateway(Exchange.fromId(exchangeId));
+        return gateway != null && gateway.isThrottled(accountId, symbolId);
+    }
+
     /**
      * 提交订单到交易所。
      * 策略层调用此方法下单，OMS 负责创建订单并加入索引。
+     *
+     * @return false 表示订单没有发出（余额不足、网关不可用、被限频等，预扣余额已回滚），策略可换账户重试
      */
-    public void submitOrder(OrderCommand command) {
+    public boolean submitOrder(OrderCommand command) {
         // 1. 生成内部订单ID
        long localOrderId = orderIdGenerator.getAndIncrement();
         // long localOrderId = System.currentTimeMillis()-Long.valueOf("1765000000000");
-        // 2. 创建订单对象（TODO: 从对象池获取，实现零GC）
-        Order order = new Order();
+        // 2. 从对象池取订单对象（零GC）
+        Order order = acquireOrder();
         order.localOrderId = localOrderId;
         order.accountId = command.accountId;
         order.symbolId = command.symbolId;
@@ -93,14 +250,19 @@ public final class OrderManagementSystem {
         // 统一订单方向编码：OrderCommand 和 Order 都使用 0=Buy, 1=Sell
         order.side = (byte) command.side; // 直接赋值，编码一致
         order.orderType = 1; // Limit
+        // dYdX v4 撤单字段：指令带了就先记下，indexer 推送到达后以推送为准
+        order.clobPairId = command.clobPairId;
+        order.orderFlags = command.orderFlags;
+        order.goodTilBlockTimeSec = command.goodTilBlockTimeSec;
         order.orderStatus = 1; // Created
         order.createTime = System.currentTimeMillis();
+        order.createNanos = System.nanoTime();
         
         // 3. 预扣余额（在加入索引前检查，避免索引污染）
         if (!reserveBalanceForOrder(command, order)) {
-            order.orderStatus = 7; // Rejected
-            // 不加入索引，直接返回
-            return;
+            // 不加入索引，订单对象直接交还
+            releaseOrder(order);
+            return false;
         }
         
         // 4. 加入全局主索引
@@ -108,16 +270,11 @@ public final class OrderManagementSystem {
         
         // 5. 加入分账户索引
         LongArrayList accountOrders = accountIndex.computeIfAbsent(command.accountId, k -> new LongArrayList());
-        accountOrders.add(localOrderId);
+        accountOrders.addLong(localOrderId);
         
-        // 6. 加入价格索引
-        if (command.side == 0) { // Buy
-            LongArrayList priceOrders = bidPriceIndex.computeIfAbsent(command.priceE8, k -> new LongArrayList());
-            priceOrders.add(localOrderId);
-        } else if (command.side == 1) { // Sell
-            LongArrayList priceOrders = askPriceIndex.computeIfAbsent(command.priceE8, k -> new LongArrayList());
-            priceOrders.add(localOrderId);
-        }
+        // 6. 加入价格索引与在途订单链
+        addOrderToPriceIndex(order);
+        addOrderToLiveLists(order);
         
         // 7. 更新 OrderCommand 的 internalOrderId
         command.internalOrderId = localOrderId;
@@ -135,96 +292,71 @@ public final class OrderManagementSystem {
             order.orderStatus = 7; // Rejected
             // 余额已在前面扣减，如果网关不可用，需要释放余额
             releaseBalanceForRejectedOrder(order);
-            return;
+            removeOrderFromPriceIndex(order);
+            retireOrder(order);
+            return false;
         }
         
         // 10. 通过 ExecutionGateway 异步发送（非阻塞，< 5us）
         order.submitTime = System.currentTimeMillis();
         order.orderStatus = 2; // PendingNew
+        order.gatewayNanos = System.nanoTime();
+        recordLatency(order, OrderLatencyStats.STAGE_SUBMIT, order.gatewayNanos - order.createNanos);
         gateway.sendOrder(command);
+        // 限频 / 队列满时网关同步回调 onCommandDropped，订单此时已是 Rejected
+        return order.orderStatus != 7;
     }
 
 
 
     /**
-     * 3.1 查询价格区间内的买单数量。
+     * 3.1 查询价格区间内的挂单数量（O(log n)，n 为该交易对该方向的价位数）。
      *
-     * @param minPriceE8 最小价格（放大 1e8）
-     * @param maxPriceE8 最大价格（放大 1e8）
+     * @param symbolId 交易对 ID
+     * @param side 订单方向（0=Buy, 1=Sell）
+     * @param minPriceE8 最小价格（放大 1e8，包含）
+     * @param maxPriceE8 最大价格（放大 1e8，包含）
      * @return 订单数量
      */
-    public int countBidOrdersInPriceRange(long minPriceE8, long maxPriceE8) {
-        final int[] count = {0}; // 使用数组包装以在 lambda 中使用
-        // 遍历价格索引（注意：Long2ObjectHashMap 的遍历可能不是最优的，但对于小规模数据足够快）
-        bidPriceIndex.forEach((price, orderIds) -> {
-            if (price >= minPriceE8 && price <= maxPriceE8) {
-                // 只统计活跃订单
-                for (int i = 0; i < orderIds.size(); i++) {
-                    long localOrderId = orderIds.getLong(i);
-                    Order order = globalIndex.get(localOrderId);
-                    if (order != null && order.isActive()) {
-                        count[0]++;
-                    }
-                }
-            }
-        });
-        return count[0];
+    public int countOrdersInPriceRange(short symbolId, byte side, long minPriceE8, long maxPriceE8) {
+        PriceLevelBook book = priceLevels(symbolId, side);
+        return book == null ? 0 : book.countOrders(minPriceE8, maxPriceE8);
     }
 
     /**
-     * 3.2 查询买一价上是否有挂单。
+     * 3.2 查询指定价位上是否有挂单（O(1)）。
      *
-     * @param bestBidE8 买一价（放大 1e8）
+     * @param symbolId 交易对 ID
+     * @param side 订单方向（0=Buy, 1=Sell）
+     * @param priceE8 价格（放大 1e8）
      * @return true 如果有挂单，false 否则
      */
-    public boolean hasOrderAtBestBid(long bestBidE8) {
-        LongArrayList orderIds = bidPriceIndex.get(bestBidE8);
-        if (orderIds == null || orderIds.isEmpty()) {
-            return false;
-        }
-        
-        // 检查是否有活跃订单
-        for (int i = 0; i < orderIds.size(); i++) {
-            long localOrderId = orderIds.getLong(i);
-            Order order = globalIndex.get(localOrderId);
-            if (order != null && order.isActive()) {
-                return true;
-            }
-        }
-        return false;
+    public boolean hasOrderAtPrice(short symbolId, byte side, long priceE8) {
+        PriceLevelBook book = priceLevels(symbolId, side);
+        return book != null && book.ordersAt(priceE8) > 0;
     }
 
     /**
-     * 检查指定账户在指定价格和方向上是否有活跃订单。
+     * 检查指定账户在指定价格和方向上是否有活跃订单（O(1)）。
      * 用于避免自成交：买单时检查该账户是否在 bestAsk 上有卖单，卖单时检查该账户是否在 bestBid 上有买单。
      *
      * @param accountId 账户 ID
      * @param priceE8 价格（放大 1e8）
      * @param side 订单方向（0=Buy, 1=Sell）
-     * @param symbolId 交易对 ID（用于过滤）
+     * @param symbolId 交易对 ID
      * @return true 如果该账户在该价格和方向上有活跃订单，false 否则
      */
     public boolean hasAccountOrderAtPrice(short accountId, long priceE8, byte side, short symbolId) {
-        // 根据方向选择对应的价格索引
-        Long2ObjectHashMap<LongArrayList> priceIndex = (side == 0) ? bidPriceIndex : askPriceIndex;
-        
-        LongArrayList orderIds = priceIndex.get(priceE8);
-        if (orderIds == null || orderIds.isEmpty()) {
-            return false;
-        }
-        
-        // 检查是否有该账户的活跃订单
-        for (int i = 0; i < orderIds.size(); i++) {
-            long localOrderId = orderIds.getLong(i);
-            Order order = globalIndex.get(localOrderId);
-            if (order != null 
-                && order.isActive() 
-                && order.accountId == accountId 
-                && order.symbolId == symbolId) {
-                return true;
-            }
-        }
-        return false;
+        PriceLevelBook book = priceLevels(symbolId, side);
+        return book != null && book.hasAccountAt(accountId, priceE8);
+    }
+
+    /**
+     * 指定交易对某一侧的价位索引（只读使用：价位遍历、最优价、价位数量合计），没有挂过单时返回 null。
+     * 只能在 L2 线程访问。
+     */
+    public PriceLevelBook priceLevels(short symbolId, byte side) {
+        return side == 0 ? bidBooks.get(symbolId) : askBooks.get(symbolId);
     }
 
     /**
@@ -265,52 +397,10 @@ public final class OrderManagementSystem {
             // 同步模式：这是启动时或断联重连后的「重建本地订单视图」
             // 直接根据事件中的数组重建本地订单，不依赖历史索引
             for (int i = 0; i < event.orderCount; i++) {
-                long clientId = event.orderClientIds[i];
-                if (clientId == 0) {
-                    continue;
-                }
-
-                long localOrderId = clientId; // 约定：dYdX 的 clientId 直接作为本地订单ID
-                // 创建新订单对象（TODO: 改为从对象池获取）
-                Order order = new Order();
-                order.localOrderId = localOrderId;
-                order.accountId = event.accountId;          // 账户映射完成后，这里会被正确填充
-                order.symbolId = event.orderSymbolIds[i];
-                order.exchangeId = event.exchangeId;
-                order.priceE8 = event.orderPrices[i];
-                order.qtyE8 = event.orderQtys[i];
-                order.filledQtyE8 = event.orderFilledQtys[i];
-                order.side = event.orderSides[i];
-                order.orderType = 1; // Limit
-                order.orderStatus = event.orderStatuses[i];
-                // dYdX v4 cancel 需要的字段（从同步数组重建）
-                order.clobPairId = event.orderClobPairIds[i];
-                order.orderFlags = event.orderFlags[i];
-                order.goodTilBlockTimeSec = event.orderGoodTilBlockTimeSec[i];
-                long now = System.currentTimeMillis();
-                order.createTime = now;
-                order.updateTime = now;
-
-                // 写入全局主索引（重建时直接覆盖同 ID 的旧订单）
-                globalIndex.put(localOrderId, order);
-
-                // 分账户索引
-                if (order.accountId > 0) {
-                    LongArrayList accountOrders = accountIndex.computeIfAbsent(order.accountId, k -> new LongArrayList());
-                    accountOrders.add(localOrderId);
-                }
-
-                // 价格索引（根据买卖方向分别挂入 bid/ask）
-                if (order.side == 0) { // Buy
-                    LongArrayList priceOrders = bidPriceIndex.computeIfAbsent(order.priceE8, k -> new LongArrayList());
-                    priceOrders.add(localOrderId);
-                } else if (order.side == 1) { // Sell
-                    LongArrayList priceOrders = askPriceIndex.computeIfAbsent(order.priceE8, k -> new LongArrayList());
-                    priceOrders.add(localOrderId);
-                }
-
-                // 指标统计
-                metricsService.recordOrder(order.symbolId);
+                syncOrder(event.accountId, event.exchangeId, event.orderClientIds[i], event.orderSymbolIds[i],
+                        event.orderPrices[i], event.orderQtys[i], event.orderFilledQtys[i],
+                        event.orderSides[i], event.orderStatuses[i],
+                        event.orderClobPairIds[i], event.orderFlags[i], event.orderGoodTilBlockTimeSec[i]);
             }
             System.out.println("sync order successed");
         } else {
@@ -322,6 +412,8 @@ public final class OrderManagementSystem {
                 return;
             }
             
+            onIndexerSignal(order, event.recvTime);
+
             // 更新订单状态和成交数量
             order.updateTime = System.currentTimeMillis();
             byte oldStatus = order.orderStatus;
@@ -341,17 +433,28 @@ public final class OrderManagementSystem {
             // 更新成交数量
             if (event.filledQty > 0) {
                 order.filledQtyE8 = event.filledQty;
+                if (order.priceBook != null) {
+                    order.priceBook.updateQty(order);
+                }
             }
             
+            if (oldStatus == 2 && isLive(order.orderStatus)) {
+                onLive(order, event.recvTime);
+            }
+
             // 如果订单被取消，释放余额（撤单确认后释放）
             if (order.orderStatus == 6 && oldStatus != 6) { // Canceled（状态刚变为 Canceled）
                 releaseBalanceForCanceledOrder(order);
+                onCancelConfirmed(order, event.recvTime);
             }
             
             // 如果订单被取消或完全成交，从价格索引中移除
             if (order.orderStatus == 6 || order.orderStatus == 5) { // Canceled or Filled
                 removeOrderFromPriceIndex(order);
             }
+            if (isTerminal(order.orderStatus)) {
+                retireOrder(order);
+            }
 //            LOG.info("订单状态更新: localOrderId={}, goodTilBlockTimeSec:{}", order.localOrderId, order.goodTilBlockTimeSec);
             // 记录指标
             metricsService.recordOrder(order.symbolId);
@@ -359,47 +462,432 @@ public final class OrderManagementSystem {
     }
 
     /**
-     * 根据 symbolId 获取所有活跃订单（状态不是 Filled 或 Canceled）。
-     * 
+     * 处理 Sidecar 执行回报（EXECUTION_REPORT）：下单广播成功 / 失败、撤单广播成功 / 失败。
+     * <p>
+     * Sidecar 回报通常早于 indexer 的 v4_subaccounts 推送，因此 PendingNew 的订单在首个信号到达时即推进：
+     * 广播成功 -> New，广播失败 -> Rejected（释放预扣余额并移出价格索引）。
+     * 若 indexer 已先行推进了状态，则只记录时间差、不回退状态。
+     * 撤单回报不改变状态：撤单是否生效、余额何时释放仍以 indexer 的 CANCELED 为准。
+     */
+    public void onExecutionReport(CoreEvent event) {
+        Order order = getOrderByClientId(event.clientOidHash);
+        if (order == null) {
+            return;
+        }
+        switch (event.execType) {
+            case SidecarProtocol.EXEC_ORDER_ACCEPTED -> {
+                onSidecarSignal(order, event.recvTime);
+                if (order.orderStatus == 2) { // PendingNew
+                    order.orderStatus = 3; // New
+                    order.updateTime = System.currentTimeMillis();
+                    onLive(order, event.recvTime);
+                }
+            }
+            case SidecarProtocol.EXEC_ORDER_REJECTED -> {
+                onSidecarSignal(order, event.recvTime);
+                if (order.orderStatus == 2) { // PendingNew
+                    order.orderStatus = 7; // Rejected
+                    order.updateTime = System.currentTimeMillis();
+                    releaseBalanceForRejectedOrder(order);
+                    removeOrderFromPriceIndex(order);
+                    retireOrder(order);
+                }
+                LOG.warn("Sidecar 拒绝订单: localOrderId={}, accountId={}, errorCode={}",
+                        order.localOrderId, order.accountId, event.errorCode);
+            }
+            case SidecarProtocol.EXEC_CANCEL_REJECTED ->
+                    LOG.warn("Sidecar 撤单失败: localOrderId={}, status={}, errorCode={}",
+                            order.localOrderId, order.orderStatus, event.errorCode);
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Sidecar / indexer 两路信号的首次到达时刻；两路都到齐时记录一次时间差。
+     */
+    private void onSidecarSignal(Order order, long recvNanos) {
+        if (order.sidecarSignalNanos != 0) {
+            return;
+        }
+        order.sidecarSignalNanos = recvNanos;
+        if (order.indexerSignalNanos != 0) {
+            firstSignalStats.record(order.indexerSignalNanos - recvNanos);
+        }
+        if (order.wireNanos != 0) {
+            recordLatency(order, OrderLatencyStats.STAGE_ACK, recvNanos - order.wireNanos);
+        }
+    }
+
+    private void onIndexerSignal(Order order, long recvNanos) {
+        if (order.indexerSignalNanos != 0) {
+            return;
+        }
+        order.indexerSignalNanos = recvNanos;
+        if (order.sidecarSignalNanos != 0) {
+            firstSignalStats.record(recvNanos - order.sidecarSignalNanos);
+        }
+        if (order.wireNanos != 0) {
+            recordLatency(order, OrderLatencyStats.STAGE_CONFIRM, recvNanos - order.wireNanos);
+        }
+    }
+
+    private static boolean isTerminal(byte status) {
+        return status == 5 || status == 6 || status == 7; // Filled, Canceled, Rejected
+    }
+
+    private static boolean isLive(byte status) {
+        return status == 3 || status == 4 || status == 5; // New, PartiallyFilled, Filled
+    }
+
+    /**
+     * 订单离开 PendingNew（Sidecar 受理或 indexer 推送，先到者）：记录从创建到生效的耗时。
+     */
+    private void onLive(Order order, long recvNanos) {
+        if (order.createNanos != 0) {
+            recordLatency(order, OrderLatencyStats.STAGE_LIVE, recvNanos - order.createNanos);
+        }
+    }
+
+    private void onCancelConfirmed(Order order, long recvNanos) {
+        order.cancelConfirmNanos = recvNanos;
+        if (order.cancelRequestNanos != 0) {
+            recordLatency(order, OrderLatencyStats.STAGE_CANCEL, recvNanos - order.cancelRequestNanos);
+        }
+    }
+
+    private void recordLatency(Order order, int stage, long nanos) {
+        if (order.exchangeId >= 0 && order.exchangeId < exchangeLatency.length) {
+            exchangeLatency[order.exchangeId].record(stage, nanos);
+        }
+        accountLatency(order.accountId).record(stage, nanos);
+    }
+
+    private OrderLatencyStats accountLatency(short accountId) {
+        OrderLatencyStats stats = accountLatency.get(accountId);
+        if (stats == null) {
+            // 每个账户只在首个订单时分配一次
+            stats = new OrderLatencyStats();
+            accountLatency.put(accountId, stats);
+        }
+        return stats;
+    }
+
+    private boolean onL2Thread() {
+        return Thread.currentThread() == l2Thread;
+    }
+
+    private Order acquireOrder() {
+        return onL2Thread() ? orderPool.acquire() : new Order();
+    }
+
+    private void releaseOrder(Order order) {
+        if (onL2Thread()) {
+            orderPool.release(order);
+        }
+    }
+
+    /**
+     * 从指令池取一个 OrderCommand（策略下单用）。submitOrder 返回后调用方读完 internalOrderId 即用
+     * {@link #releaseCommand(OrderCommand)} 交还：网关在 sendOrder 返回前已完成编码或按值拷贝，不再引用该对象。
+     * 非 L2 线程调用时直接分配。
+     */
+    public OrderCommand acquireCommand() {
+        return onL2Thread() ? commandPool.acquire() : new OrderCommand();
+    }
+
+    /**
+     * 交还 {@link #acquireCommand()} 取得的指令，之后不得再读写该对象。
+     */
+    public void releaseCommand(OrderCommand cmd) {
+        if (onL2Thread()) {
+            commandPool.release(cmd);
+        }
+    }
+
+    /**
+     * 订单进入终态：立即摘出在途订单链，并登记到本批次的回收列表，批次结束时才移出其余索引（同一事件中后续的策略回调仍能查到它）。
+     * 会让订单进入终态的入口（下单、撤单、批量撤单、回报、网关丢弃回调）都只在 L2 线程调用，Web 接口的批量撤单
+     * 也以 {@code CANCEL_ALL_ORDERS} 事件交给 L2 执行。L2 启动前（未调用 {@link #enableOrderBatching()}）没有批次结束，
+     * 终态订单只改状态；L2 启动后仍在其他线程走到这里说明新增了未经 L2 的调用路径，记错误日志（订单不会归档与回收）。
+     */
+    private void retireOrder(Order order) {
+        if (!onL2Thread()) {
+            if (l2Thread != null) {
+                LOG.error("非 L2 线程的订单终态，未归档与回收: localOrderId={}, status={}, thread={}",
+                        order.localOrderId, order.orderStatus, Thread.currentThread().getName());
+            }
+            return;
+        }
+        removeOrderFromLiveLists(order);
+        if (terminalCount == terminalOrders.length) {
+            terminalOrders = Arrays.copyOf(terminalOrders, terminalCount * 2);
+        }
+        terminalOrders[terminalCount++] = order;
+    }
+
+    /**
+     * 回收本批次内进入终态的订单：移出全局 / 外部 ID / 分账户 / 价格索引，写入归档并交还对象池。
+     * L2 在每个批次结束、{@link #flushOrders()} 写出出站指令之后调用。
+     */
+    public void recycleTerminalOrders() {
+        for (int i = 0; i < terminalCount; i++) {
+            Order order = terminalOrders[i];
+            terminalOrders[i] = null;
+            // 同一订单可能被登记多次；已回收的对象 localOrderId 为 0，不会再匹配
+            if (isTerminal(order.orderStatus) && globalIndex.get(order.localOrderId) == order) {
+                globalIndex.remove(order.localOrderId);
+                if (order.exchangeOrderId != 0) {
+                    externalIndex.remove(order.exchangeOrderId);
+                }
+                removeOrderFromAccountIndex(order);
+                removeOrderFromPriceIndex(order);
+                removeOrderFromLiveLists(order);
+                archive.archive(order);
+                orderPool.release(order);
+            }
+        }
+        terminalCount = 0;
+    }
+
+    /**
+     * 终态订单归档（按 ID / 时间区间查询已移出热索引的订单）。
+     */
+    public OrderArchive orderArchive() {
+        return archive;
+    }
+
+    /**
+     * 热索引中的订单数（在途订单 + 本批次待回收的终态订单）。
+     */
+    public int liveOrderCount() {
+        return globalIndex.size();
+    }
+
+    /**
+     * Order 对象池（监控用）。
+     */
+    public OrderPool orderPool() {
+        return orderPool;
+    }
+
+    /**
+     * OrderCommand 对象池（监控用）。
+     */
+    public OrderCommandPool commandPool() {
+        return commandPool;
+    }
+
+    /**
+     * Sidecar 回报与 indexer 推送的时间差统计（供监控接口读取）。
+     */
+    public FirstSignalStats firstSignalStats() {
+        return firstSignalStats;
+    }
+
+    /**
+     * L2 最近发布的监控快照（订单生命周期耗时、卡在 PendingNew 的订单），任意线程可读。
+     */
+    public OmsMonitorSnapshot monitorSnapshot() {
+        return monitorSnapshot;
+    }
+
+    /**
+     * 重建并发布监控快照：拷贝各交易所 / 账户的耗时统计，收集处于 PendingNew 的订单（同步重建的订单没有创建时刻，不计入）。
+     * L2 在批次结束、{@link #recycleTerminalOrders()} 之后调用；距上次发布不足 oms.monitorSnapshot.intervalMillis 时直接返回，
+     * 遍历与分配只发生在发布时（冷路径）。
+     */
+    public void publishMonitorSnapshot() {
+        long now = System.nanoTime();
+        if (monitorSnapshot != OmsMonitorSnapshot.EMPTY && now - nextMonitorSnapshotNanos < 0) {
+            return;
+        }
+        nextMonitorSnapshotNanos = now + monitorSnapshotIntervalNanos;
+
+        OrderLatencyStats[] exchanges = new OrderLatencyStats[exchangeLatency.length];
+        for (int i = 0; i < exchanges.length; i++) {
+            exchanges[i] = exchangeLatency[i].copy();
+        }
+        short[] accountIds = new short[accountLatency.size()];
+        OrderLatencyStats[] accounts = new OrderLatencyStats[accountIds.length];
+        int[] accountCount = {0};
+        accountLatency.forEach((accountId, stats) -> {
+            accountIds[accountCount[0]] = (short) (int) accountId;
+            accounts[accountCount[0]++] = stats.copy();
+        });
+        java.util.List<OmsMonitorSnapshot.PendingOrder> pending = new java.util.ArrayList<>();
+        globalIndex.forEach((localOrderId, order) -> {
+            if (order.orderStatus == 2 && order.createNanos != 0) { // PendingNew
+                pending.add(new OmsMonitorSnapshot.PendingOrder(order));
+            }
+        });
+        monitorSnapshot = new OmsMonitorSnapshot(now, exchanges, accountIds, accounts,
+                pending.toArray(new OmsMonitorSnapshot.PendingOrder[0]));
+    }
+
+    /**
+     * 分块发布的账户全量同步（ACCOUNT_SYNC_BEGIN / CHUNK / COMMIT）在 commit 时一次性应用。
+     * 语义与 onAccountOrderUpdate 的同步分支一致，只是订单来自重组后的批量缓冲，不受单事件容量限制。
+     */
+    public void onAccountOrderSync(short accountId, short exchangeId, AccountOrderBatch batch) {
+        for (int i = 0; i < batch.orderCount; i++) {
+            syncOrder(accountId, exchangeId, batch.orderClientIds[i], batch.orderSymbolIds[i],
+                    batch.orderPrices[i], batch.orderQtys[i], batch.orderFilledQtys[i],
+                    batch.orderSides[i], batch.orderStatuses[i],
+                    batch.orderClobPairIds[i], batch.orderFlags[i], batch.orderGoodTilBlockTimeSec[i]);
+        }
+        LOG.debug("账户订单同步完成: accountId={}, orders={}", accountId, batch.orderCount);
+    }
+
+    /**
+     * 同步模式下按交易所快照重建单个订单（重建时直接覆盖同 ID 的旧订单）。
+     */
+    private void syncOrder(short accountId, short exchangeId, long clientId, short symbolId,
+                           long priceE8, long qtyE8, long filledQtyE8, byte side, byte orderStatus,
+                           int clobPairId, long orderFlags, long goodTilBlockTimeSec) {
+        if (clientId == 0) {
+            return;
+        }
+
+        long localOrderId = clientId; // 约定：dYdX 的 clientId 直接作为本地订单ID
+        Order order = globalIndex.get(localOrderId);
+        if (order == null) {
+            order = acquireOrder();
+            // 写入全局主索引
+            globalIndex.put(localOrderId, order);
+        } else {
+            // 重建时复用同 ID 的订单对象（保留生命周期打点），先移出旧的分账户 / 价格索引，再按快照重新挂入
+            removeOrderFromAccountIndex(order);
+            removeOrderFromPriceIndex(order);
+            removeOrderFromLiveLists(order);
+        }
+        order.localOrderId = localOrderId;
+        order.accountId = accountId;          // 账户映射完成后，这里会被正确填充
+        order.symbolId = symbolId;
+        order.exchangeId = exchangeId;
+        order.priceE8 = priceE8;
+        order.qtyE8 = qtyE8;
+        order.filledQtyE8 = filledQtyE8;
+        order.side = side;
+        order.orderType = 1; // Limit
+        order.orderStatus = orderStatus;
+        // dYdX v4 cancel 需要的字段（从同步数组重建）
+        order.clobPairId = clobPairId;
+        order.orderFlags = orderFlags;
+        order.goodTilBlockTimeSec = goodTilBlockTimeSec;
+        long now = System.currentTimeMillis();
+        order.createTime = now;
+        order.updateTime = now;
+
+        // 分账户索引
+        if (order.accountId > 0) {
+            LongArrayList accountOrders = accountIndex.computeIfAbsent(order.accountId, k -> new LongArrayList());
+            accountOrders.addLong(localOrderId);
+        }
+
+        // 快照中已是终态的订单在批次结束时回收，其余挂入价位索引（根据买卖方向分别挂入 bid/ask）与在途订单链
+        if (isTerminal(orderStatus)) {
+            retireOrder(order);
+        } else {
+            addOrderToPriceIndex(order);
+            addOrderToLiveLists(order);
+        }
+
+        // 指标统计
+        metricsService.recordOrder(order.symbolId);
+    }
+
+    /**
+     * 根据 symbolId 获取所有在途订单（非终态，按下单顺序）。
+     * 会分配结果列表，供 L2 上的非热路径使用；热路径用 {@link #forEachLiveOrder(short, LiveOrderList.Visitor)}。
+     * 只能在 L2 线程调用：链表节点是池化订单，其它线程遍历时可能走到已回收并复用到其它交易对的订单。
+     *
      * @param symbolId 交易对 ID
-     * @return 订单列表（只包含活跃订单，即状态不是 5=Filled 或 6=Canceled）
+     * @return 订单列表（只包含在途订单，即状态不是 5=Filled、6=Canceled 或 7=Rejected）
      */
     public java.util.List<Order> getOrdersBySymbolId(short symbolId) {
         java.util.List<Order> result = new java.util.ArrayList<>();
-        
-        // 遍历全局索引，查找匹配的订单
-        globalIndex.forEach((localOrderId, order) -> {
-            if (order.symbolId == symbolId) {
-                // 只返回活跃订单（状态不是 Filled(5) 或 Canceled(6)）
-                if (order.orderStatus != 5 && order.orderStatus != 6) {
+        LiveOrderList orders = liveOrders(symbolId);
+        if (orders != null) {
+            for (Order order = orders.first(); order != null; order = orders.next(order)) {
+                // 未启用批次回收时进入终态的订单不摘链（见 retireOrder），这里过滤掉
+                if (order.symbolId == symbolId && !isTerminal(order.orderStatus)) {
                     result.add(order);
                 }
             }
-        });
-        
+        }
         return result;
     }
+
+    /**
+     * 按下单顺序遍历指定交易对的在途订单（不分配，O(该交易对在途订单数)）。
+     * 回调中撤掉当前订单是安全的。只能在 L2 线程调用。
+     *
+     * @return 回调次数
+     */
+    public int forEachLiveOrder(short symbolId, LiveOrderList.Visitor visitor) {
+        LiveOrderList orders = liveOrders(symbolId);
+        return orders == null ? 0 : orders.forEach(visitor);
+    }
+
+    /**
+     * 按下单顺序遍历指定账户在指定交易对上的在途订单（不分配）。只能在 L2 线程调用。
+     *
+     * @return 回调次数
+     */
+    public int forEachLiveOrder(short accountId, short symbolId, LiveOrderList.Visitor visitor) {
+        LiveOrderList orders = accountSymbolOrders.get(accountSymbolKey(accountId, symbolId));
+        return orders == null ? 0 : orders.forEach(visitor);
+    }
+
+    /**
+     * 指定交易对的在途订单数（O(1)）。任意线程可调用，其它线程允许读到稍旧的值。
+     * 终态订单只在 L2 线程上摘链，未启用 {@link #enableOrderBatching()} 时进入终态的订单仍会计入。
+     */
+    public int liveOrderCount(short symbolId) {
+        LiveOrderList orders = liveOrders(symbolId);
+        return orders == null ? 0 : orders.size();
+    }
+
+    /**
+     * 指定账户在指定交易对上的在途订单数（O(1)）。只能在 L2 线程调用。
+     */
+    public int liveOrderCount(short accountId, short symbolId) {
+        LiveOrderList orders = accountSymbolOrders.get(accountSymbolKey(accountId, symbolId));
+        return orders == null ? 0 : orders.size();
+    }
     
     /**
-     * 取消指定 symbolId 的所有活跃订单。
+     * 取消指定 symbolId 的所有在途订单（沿交易对在途订单链遍历，O(该交易对在途订单数)）。
+     * 只能在 L2 线程调用；Web 等其它线程通过 {@link com.xinyue.maker.common.CoreEventType#CANCEL_ALL_ORDERS} 事件交给 L2 执行。
      * 
      * @param symbolId 交易对 ID
      * @return 取消的订单数量
      */
     public int cancelAllOrdersBySymbolId(short symbolId) {
-        java.util.List<Order> orders = getOrdersBySymbolId(symbolId);
+        LiveOrderList orders = liveOrders(symbolId);
+        if (orders == null) {
+            return 0;
+        }
         int canceledCount = 0;
-        for (Order order : orders) {
-            try {
-                cancelOrder(order.localOrderId);
-                canceledCount++;
-            } catch (Exception e) {
-                // 记录错误但继续取消其他订单
-                // 注意：这里不使用 Logger，避免在 L2 热路径中引入日志依赖
-                // 错误会被上层捕获并记录
+        Order order = orders.first();
+        while (order != null) {
+            // 先取下一笔：撤单可能同步触发丢弃回调使当前订单进入终态并摘链
+            Order next = orders.next(order);
+            if (order.symbolId == symbolId && !isTerminal(order.orderStatus)) {
+                try {
+                    cancelOrder(order.localOrderId);
+                    canceledCount++;
+                } catch (Exception e) {
+                    // 记录错误但继续取消其他订单
+                    // 注意：这里不使用 Logger，避免在 L2 热路径中引入日志依赖
+                    // 错误会被上层捕获并记录
+                }
             }
+            order = next;
         }
-
+        // 显式 flush：在 L2 线程调用时批量撤单立即合并成一帧发出，不等批次结束
+        flushOrders();
         return canceledCount;
     }
     
@@ -415,12 +903,15 @@ public final class OrderManagementSystem {
         }
         
         // 如果订单已经完成或取消，不需要再取消
-        if (order.orderStatus == 5 || order.orderStatus == 6) { // Filled or Canceled
+        if (order.orderStatus == 5 || order.orderStatus == 6 || order.orderStatus == 7) { // Filled, Canceled or Rejected
             return;
         }
         // 立即将订单状态标记为 PendingCancel（状态码 8）
         order.orderStatus = 8; // PendingCancel
         order.updateTime = System.currentTimeMillis();
+        if (order.cancelRequestNanos == 0) {
+            order.cancelRequestNanos = System.nanoTime();
+        }
         
         // 从价格索引移除该订单（避免查询到，但不释放余额）
         removeOrderFromPriceIndex(order);
@@ -429,37 +920,95 @@ public final class OrderManagementSystem {
         Exchange exchange = Exchange.fromId(order.exchangeId);
         ExecutionGateway gateway = gatewayManager.getGateway(exchange);
         if (gateway != null) {
-            OrderCommand cancelCommand = new OrderCommand();
+            OrderCommand cancelCommand = acquireCommand();
             cancelCommand.accountId = order.accountId;
+            cancelCommand.symbolId = order.symbolId; // 限频按交易对计数
             cancelCommand.internalOrderId = order.localOrderId;
             cancelCommand.orderFlags = order.orderFlags;
             cancelCommand.clobPairId = order.clobPairId;
             cancelCommand.goodTilBlockTimeSec = order.goodTilBlockTimeSec;
+            cancelCommand.priority = OrderCommand.PRIORITY_CANCEL;
 
-             gateway.sendOrder(cancelCommand);
+            gateway.sendOrder(cancelCommand);
+            releaseCommand(cancelCommand); // sendOrder 返回时已编码或拷入出站队列
         }
         
         // 不释放余额，等撤单确认消息（ACCOUNT_ORDER_UPDATE 或 EXECUTION_REPORT）到来时再释放
     }
     
     /**
-     * 从价格索引中移除订单。
+     * 把订单挂入所属交易对的价位索引（买单和卖单分开）。
+     */
+    private void addOrderToPriceIndex(Order order) {
+        Int2ObjectHashMap<PriceLevelBook> books;
+        if (order.side == 0) { // Buy
+            books = bidBooks;
+        } else if (order.side == 1) { // Sell
+            books = askBooks;
+        } else {
+            return;
+        }
+        PriceLevelBook book = books.get(order.symbolId);
+        if (book == null) {
+            book = new PriceLevelBook(order.symbolId, order.side);
+            books.put(order.symbolId, book);
+        }
+        book.add(order);
+    }
+
+    /**
+     * 从价位索引中移除订单（订单记录了所在价位索引，O(1) 摘链；价位清空时 O(log n) 删除价位）。
      */
     private void removeOrderFromPriceIndex(Order order) {
-        Long2ObjectHashMap<LongArrayList> priceIndex = (order.side == 0) ? bidPriceIndex : askPriceIndex;
-        LongArrayList orderIds = priceIndex.get(order.priceE8);
-        if (orderIds != null) {
-            // 移除订单ID（需要遍历查找）
-            for (int i = orderIds.size() - 1; i >= 0; i--) {
-                if (orderIds.getLong(i) == order.localOrderId) {
-                    orderIds.remove(i);
-                    break;
-                }
-            }
-            // 如果该价格档位没有订单了，可以移除（可选优化）
-            if (orderIds.isEmpty()) {
-                priceIndex.remove(order.priceE8);
-            }
+        if (order.priceBook != null) {
+            order.priceBook.remove(order);
+        }
+    }
+
+    /**
+     * 把订单挂入交易对与（账户, 交易对）在途订单链。
+     */
+    private void addOrderToLiveLists(Order order) {
+        LiveOrderList bySymbol = symbolOrders[order.symbolId];
+        if (bySymbol == null) {
+            bySymbol = new LiveOrderList(LiveOrderList.CHAIN_SYMBOL);
+            symbolOrders[order.symbolId] = bySymbol;
+        }
+        bySymbol.add(order);
+
+        int key = accountSymbolKey(order.accountId, order.symbolId);
+        LiveOrderList byAccount = accountSymbolOrders.get(key);
+        if (byAccount == null) {
+            byAccount = new LiveOrderList(LiveOrderList.CHAIN_ACCOUNT_SYMBOL);
+            accountSymbolOrders.put(key, byAccount);
+        }
+        byAccount.add(order);
+    }
+
+    /**
+     * 从在途订单链摘除（订单记录了所在链表，O(1)）。
+     */
+    private void removeOrderFromLiveLists(Order order) {
+        if (order.symbolList != null) {
+            order.symbolList.remove(order);
+        }
+        if (order.accountSymbolList != null) {
+            order.accountSymbolList.remove(order);
+        }
+    }
+
+    private LiveOrderList liveOrders(short symbolId) {
+        return symbolId < 0 ? null : symbolOrders[symbolId];
+    }
+
+    private static int accountSymbolKey(short accountId, short symbolId) {
+        return (accountId << 16) | (symbolId & 0xFFFF);
+    }
+
+    private void removeOrderFromAccountIndex(Order order) {
+        LongArrayList accountOrders = accountIndex.get(order.accountId);
+        if (accountOrders != null) {
+            accountOrders.fastUnorderedRemoveLong(order.localOrderId);
         }
     }
     
@@ -478,8 +1027,8 @@ public final class OrderManagementSystem {
         }
         
         // 从 symbolId 推导基础资产和报价资产
-        AssetPair assetPair = parseAssetPair(command.symbolId);
-        if (assetPair == null) {
+        short symbolId = command.symbolId;
+        if (!resolveAssetPair(symbolId)) {
             return true; // 无法推导资产类型，跳过余额检查
         }
         
@@ -488,10 +1037,10 @@ public final class OrderManagementSystem {
             // 买单：扣减报价资产（USDT），数量 = price * qty / 1e8
             // 使用安全计算避免溢出
             long requiredQuoteE8 = multiplyAndDivideSafe(command.priceE8, command.qtyE8, ScaleConstants.SCALE_E8);
-            return positionManager.reserve(command.accountId, assetPair.quoteAssetId, requiredQuoteE8);
+            return positionManager.reserve(command.accountId, quoteAssetIds[symbolId], requiredQuoteE8);
         } else if (command.side == 1) { // Sell
             // 卖单：扣减基础资产（BTC），数量 = qty
-            return positionManager.reserve(command.accountId, assetPair.baseAssetId, command.qtyE8);
+            return positionManager.reserve(command.accountId, baseAssetIds[symbolId], command.qtyE8);
         }
         
         return true; // 未知方向，跳过余额检查
@@ -538,67 +1087,59 @@ public final class OrderManagementSystem {
             return;
         }
         
-        AssetPair assetPair = parseAssetPair(order.symbolId);
-        if (assetPair == null) {
+        if (!resolveAssetPair(order.symbolId)) {
             return;
         }
         
         if (order.side == 0) { // Buy
             // 买单：释放报价资产
             long releaseAmountE8 = multiplyAndDivideSafe(order.priceE8, order.qtyE8, ScaleConstants.SCALE_E8);
-            positionManager.release(order.accountId, assetPair.quoteAssetId, releaseAmountE8);
+            positionManager.release(order.accountId, quoteAssetIds[order.symbolId], releaseAmountE8);
         } else if (order.side == 1) { // Sell
             // 卖单：释放基础资产
-            positionManager.release(order.accountId, assetPair.baseAssetId, order.qtyE8);
+            positionManager.release(order.accountId, baseAssetIds[order.symbolId], order.qtyE8);
         }
     }
     
     /**
-     * 从交易对 symbolId 解析出基础资产和报价资产的 assetId。
-     * 
+     * 解析交易对 symbolId 的基础资产和报价资产 assetId，结果写入 {@link #baseAssetIds} / {@link #quoteAssetIds}。
+     * 每个交易对只在首次解析成功时查注册表（字符串截取），之后只读数组；解析失败不缓存，交易对或资产注册后可再次解析。
+     *
      * @param symbolId 交易对ID
-     * @return 资产对（baseAssetId, quoteAssetId），如果无法解析则返回 null
+     * @return false 表示无法解析
      */
-    private AssetPair parseAssetPair(short symbolId) {
-        SymbolRegistry symbolRegistry = SymbolRegistry.getInstance();
-        AssetRegistry assetRegistry = AssetRegistry.getInstance();
-        
-        String symbol = symbolRegistry.getSymbol(symbolId);
+    private boolean resolveAssetPair(short symbolId) {
+        if (symbolId < 0) {
+            return false;
+        }
+        if (quoteAssetIds[symbolId] > 0) {
+            return true;
+        }
+        String symbol = SymbolRegistry.getInstance().getSymbol(symbolId);
         if (symbol == null) {
-            return null;
+            return false;
         }
-        
+
         // 简单规则：假设交易对格式为 BASEQUOTE（如 BTCUSDT）
         // TODO: 更通用的解析逻辑，支持其他格式（如 ETHBTC, BNBUSDC）
         short baseAssetId = 0;
         short quoteAssetId = 0;
-        
+
         if (symbol.endsWith("USDT")) {
-            String baseSymbol = symbol.substring(0, symbol.length() - 4);
-            baseAssetId = assetRegistry.get(baseSymbol);
+            AssetRegistry assetRegistry = AssetRegistry.getInstance();
+            baseAssetId = assetRegistry.get(symbol.substring(0, symbol.length() - 4));
             quoteAssetId = assetRegistry.get("USDT");
         }
-        
-        if (baseAssetId == 0 || quoteAssetId == 0) {
-            return null;
-        }
-        
-        return new AssetPair(baseAssetId, quoteAssetId);
-    }
-    
-    /**
-     * 资产对（基础资产和报价资产的 assetId）。
-     */
-    private static class AssetPair {
-        final short baseAssetId;
-        final short quoteAssetId;
-        
-        AssetPair(short baseAssetId, short quoteAssetId) {
-            this.baseAssetId = baseAssetId;
-            this.quoteAssetId = quoteAssetId;
+
+        // 注册表查不到时返回 -1
+        if (baseAssetId <= 0 || quoteAssetId <= 0) {
+            return false;
         }
+        baseAssetIds[symbolId] = baseAssetId;
+        quoteAssetIds[symbolId] = quoteAssetId; // 最后写：非 0 即表示已解析
+        return true;
     }
-    
+
     /**
      * 释放已取消订单的余额。
      * 买单：释放报价资产（USDT），数量 = price * remainingQty
@@ -609,8 +1150,7 @@ public final class OrderManagementSystem {
             return; // PositionManager 未注入，跳过
         }
         
-        AssetPair assetPair = parseAssetPair(order.symbolId);
-        if (assetPair == null) {
+        if (!resolveAssetPair(order.symbolId)) {
             return; // 无法推导资产类型
         }
         
@@ -622,10 +1162,10 @@ public final class OrderManagementSystem {
         if (order.side == 0) { // Buy
             // 买单：释放报价资产（USDT）
             long releaseAmountE8 = multiplyAndDivideSafe(order.priceE8, remainingQtyE8, ScaleConstants.SCALE_E8);
-            positionManager.release(order.accountId, assetPair.quoteAssetId, releaseAmountE8);
+            positionManager.release(order.accountId, quoteAssetIds[order.symbolId], releaseAmountE8);
         } else if (order.side == 1) { // Sell
             // 卖单：释放基础资产（BTC）
-            positionManager.release(order.accountId, assetPair.baseAssetId, remainingQtyE8);
+            positionManager.release(order.accountId, baseAssetIds[order.symbolId], remainingQtyE8);
         }
     }
 }
@@ -0,0 +1,55 @@
+package com.xinyue.maker.core.oms;
+
+/**
+ * Order 对象池（预分配，只由 L2 线程使用，Zero GC）。
+ * <p>
+ * 订单从池中取出后由 OMS 的索引持有；进入终态（Filled / Canceled / Rejected）后在当前 L2 批次结束时
+ * 移出索引并交还（见 {@link OrderManagementSystem#recycleTerminalOrders()}）。
+ * 池空时临时分配一个（计入 {@link #misses()}），交还时池已满则直接丢弃。
+ */
+public final class OrderPool {
+
+    private final Order[] free;
+    private int size;
+    private long misses;
+
+    public OrderPool(int capacity) {
+        free = new Order[capacity];
+        for (int i = 0; i < capacity; i++) {
+            free[i] = new Order();
+        }
+        size = capacity;
+    }
+
+    public Order acquire() {
+        if (size == 0) {
+            misses++;
+            return new Order();
+        }
+        Order order = free[--size];
+        free[size] = null;
+        return order;
+    }
+
+    public void release(Order order) {
+        order.reset();
+        if (size < free.length) {
+            free[size++] = order;
+        }
+    }
+
+    public int capacity() {
+        return free.length;
+    }
+
+    public int available() {
+        return size;
+    }
+
+    /**
+     * 池空时临时分配的次数。
+     */
+    public long misses() {
+        return misses;
+    }
+}
@@ -0,0 +1,419 @@
+package com.xinyue.maker.core.oms;
+
+import org.agrona.collections.Long2LongHashMap;
+
+import java.util.Arrays;
+
+/**
+ * 自有挂单的价位索引（一个交易对的一侧一份）：按价格有序的价位树，每个价位挂一条在途订单的侵入式链表，
+ * 并维护该价位的订单数、剩余数量合计与按账户的订单数。
+ * <p>
+ * 价位树是数组实现的 AVL 树，节点额外记录子树订单数，因此价格区间内的订单数是 O(log n)；
+ * price -> 节点、(节点, 账户) -> 订单数 两个哈希索引使「账户 X 是否在价格 P 挂单」为 O(1)。
+ * 节点数组与空闲链表复用，价位增删不产生分配（节点数超过当前容量时扩容一次，冷路径）。
+ * <p>
+ * 只由 L2 线程读写。
+ */
+public final class PriceLevelBook {
+
+    private static final int NIL = -1;
+    private static final int INITIAL_LEVELS = 64;
+
+    /**
+     * 价位遍历回调（按价格从低到高）；返回 false 提前结束。
+     */
+    public interface LevelVisitor {
+        boolean onLevel(long priceE8, int orders, long qtyE8, Order first);
+    }
+
+    private final short symbolId;
+    private final byte side;
+
+    // === 价位节点（下标即节点 ID）===
+    private long[] prices;
+    private int[] left;
+    private int[] right;
+    private int[] heights;
+    private int[] subtreeOrders;   // 子树内所有价位的订单数之和
+    private int[] levelOrders;
+    private long[] levelQtys;      // 价位剩余数量合计（放大 1e8）
+    private Order[] heads;
+    private Order[] tails;
+    private int root = NIL;
+    private int freeHead = NIL;    // 空闲节点链表（复用 left[] 作为链接）
+    private int allocated;
+    private int levelCount;
+    private int orderCount;
+
+    // price -> 节点
+    private final Long2LongHashMap levelIndex = new Long2LongHashMap(NIL);
+    // (节点 << 16 | 账户) -> 该账户在该价位的订单数
+    private final Long2LongHashMap accountOrders = new Long2LongHashMap(0L);
+
+    public PriceLevelBook(short symbolId, byte side) {
+        this.symbolId = symbolId;
+        this.side = side;
+        grow(INITIAL_LEVELS);
+    }
+
+    public short symbolId() {
+        return symbolId;
+    }
+
+    public byte side() {
+        return side;
+    }
+
+    /**
+     * 订单挂入所在价位（追加到链表尾部）；已在索引中的订单不重复挂入。
+     */
+    void add(Order order) {
+        if (order.priceBook != null) {
+            return;
+        }
+        long priceE8 = order.priceE8;
+        int node = (int) levelIndex.get(priceE8);
+        if (node == NIL) {
+            node = newNode(priceE8);
+            root = insert(root, node);
+            levelIndex.put(priceE8, node);
+            levelCount++;
+        }
+        Order tail = tails[node];
+        order.levelPrev = tail;
+        order.levelNext = null;
+        if (tail == null) {
+            heads[node] = order;
+        } else {
+            tail.levelNext = order;
+        }
+        tails[node] = order;
+        order.priceBook = this;
+        order.levelQtyE8 = Math.max(0L, order.getRemainingQtyE8());
+
+        levelOrders[node]++;
+        levelQtys[node] += order.levelQtyE8;
+        accountOrders.put(accountKey(node, order.accountId), accountOrders.get(accountKey(node, order.accountId)) + 1);
+        orderCount++;
+        adjustSubtreeOrders(priceE8, 1);
+    }
+
+    /**
+     * 订单移出价位；价位清空时删除该价位节点。
+     */
+    void remove(Order order) {
+        if (order.priceBook != this) {
+            return;
+        }
+        long priceE8 = order.priceE8;
+        int node = (int) levelIndex.get(priceE8);
+        if (order.levelPrev == null) {
+            heads[node] = order.levelNext;
+        } else {
+            order.levelPrev.levelNext = order.levelNext;
+        }
+        if (order.levelNext == null) {
+            tails[node] = order.levelPrev;
+        } else {
+            order.levelNext.levelPrev = order.levelPrev;
+        }
+
+        levelOrders[node]--;
+        levelQtys[node] -= order.levelQtyE8;
+        long key = accountKey(node, order.accountId);
+        long count = accountOrders.get(key) - 1;
+        if (count <= 0) {
+            accountOrders.remove(key);
+        } else {
+            accountOrders.put(key, count);
+        }
+        orderCount--;
+        adjustSubtreeOrders(priceE8, -1);
+
+        order.priceBook = null;
+        order.levelPrev = null;
+        order.levelNext = null;
+        order.levelQtyE8 = 0;
+
+        if (levelOrders[node] == 0) {
+            root = delete(root, priceE8);
+            levelIndex.remove(priceE8);
+            freeNode(node);
+            levelCount--;
+        }
+    }
+
+    /**
+     * 订单成交数量变化后同步价位剩余数量合计。
+     */
+    void updateQty(Order order) {
+        if (order.priceBook != this) {
+            return;
+        }
+        long remaining = Math.max(0L, order.getRemainingQtyE8());
+        int node = (int) levelIndex.get(order.priceE8);
+        levelQtys[node] += remaining - order.levelQtyE8;
+        order.levelQtyE8 = remaining;
+    }
+
+    // === 查询 ===
+
+    /**
+     * 价格在 [minPriceE8, maxPriceE8] 内的订单数，O(log n)。
+     */
+    public int countOrders(long minPriceE8, long maxPriceE8) {
+        if (minPriceE8 > maxPriceE8) {
+            return 0;
+        }
+        return countBelow(maxPriceE8, true) - countBelow(minPriceE8, false);
+    }
+
+    /**
+     * 该价位的订单数，O(1)。
+     */
+    public int ordersAt(long priceE8) {
+        int node = (int) levelIndex.get(priceE8);
+        return node == NIL ? 0 : levelOrders[node];
+    }
+
+    /**
+     * 该价位的剩余数量合计（放大 1e8），O(1)。
+     */
+    public long qtyAt(long priceE8) {
+        int node = (int) levelIndex.get(priceE8);
+        return node == NIL ? 0L : levelQtys[node];
+    }
+
+    /**
+     * 该价位最早挂入的订单（沿 {@link Order#levelNext} 遍历整条链），没有时返回 null。
+     */
+    public Order firstAt(long priceE8) {
+        int node = (int) levelIndex.get(priceE8);
+        return node == NIL ? null : heads[node];
+    }
+
+    /**
+     * 账户在该价位是否有挂单，O(1)。
+     */
+    public boolean hasAccountAt(short accountId, long priceE8) {
+        int node = (int) levelIndex.get(priceE8);
+        return node != NIL && accountOrders.get(accountKey(node, accountId)) > 0;
+    }
+
+    /**
+     * 最优价：买侧为最高价，卖侧为最低价；没有挂单时返回 0。
+     */
+    public long bestPrice() {
+        int n = root;
+        if (n == NIL) {
+            return 0L;
+        }
+        if (side == 0) {
+            while (right[n] != NIL) {
+                n = right[n];
+            }
+        } else {
+            while (left[n] != NIL) {
+                n = left[n];
+            }
+        }
+        return prices[n];
+    }
+
+    /**
+     * 按价格从低到高遍历价位（中序遍历，不分配）。
+     */
+    public void forEachLevel(LevelVisitor visitor) {
+        visit(root, visitor);
+    }
+
+    public int levelCount() {
+        return levelCount;
+    }
+
+    public int orderCount() {
+        return orderCount;
+    }
+
+    // === 价位树 ===
+
+    private static long accountKey(int node, short accountId) {
+        return ((long) node << 16) | (accountId & 0xFFFFL);
+    }
+
+    private int countBelow(long priceE8, boolean inclusive) {
+        int count = 0;
+        int n = root;
+        while (n != NIL) {
+            if (prices[n] < priceE8 || (inclusive && prices[n] == priceE8)) {
+                count += subtree(left[n]) + levelOrders[n];
+                n = right[n];
+            } else {
+                n = left[n];
+            }
+        }
+        return count;
+    }
+
+    private boolean visit(int n, LevelVisitor visitor) {
+        if (n == NIL) {
+            return true;
+        }
+        return visit(left[n], visitor)
+                && visitor.onLevel(prices[n], levelOrders[n], levelQtys[n], heads[n])
+                && visit(right[n], visitor);
+    }
+
+    private void adjustSubtreeOrders(long priceE8, int delta) {
+        int n = root;
+        while (n != NIL) {
+            subtreeOrders[n] += delta;
+            if (priceE8 < prices[n]) {
+                n = left[n];
+            } else if (priceE8 > prices[n]) {
+                n = right[n];
+            } else {
+                return;
+            }
+        }
+    }
+
+    private int insert(int n, int node) {
+        if (n == NIL) {
+            return node;
+        }
+        if (prices[node] < prices[n]) {
+            left[n] = insert(left[n], node);
+        } else {
+            right[n] = insert(right[n], node);
+        }
+        return balance(n);
+    }
+
+    private int delete(int n, long priceE8) {
+        if (n == NIL) {
+            return NIL;
+        }
+        if (priceE8 < prices[n]) {
+            left[n] = delete(left[n], priceE8);
+        } else if (priceE8 > prices[n]) {
+            right[n] = delete(right[n], priceE8);
+        } else {
+            if (left[n] == NIL || right[n] == NIL) {
+                return left[n] != NIL ? left[n] : right[n];
+            }
+            // 用右子树的最小节点顶替（移动节点而不是拷贝字段，节点 ID 在哈希索引中保持有效）
+            int successor = minNode(right[n]);
+            right[successor] = removeMin(right[n]);
+            left[successor] = left[n];
+            n = successor;
+        }
+        return balance(n);
+    }
+
+    private int minNode(int n) {
+        while (left[n] != NIL) {
+            n = left[n];
+        }
+        return n;
+    }
+
+    private int removeMin(int n) {
+        if (left[n] == NIL) {
+            return right[n];
+        }
+        left[n] = removeMin(left[n]);
+        return balance(n);
+    }
+
+    private int balance(int n) {
+        update(n);
+        int factor = height(left[n]) - height(right[n]);
+        if (factor > 1) {
+            if (height(left[left[n]]) < height(right[left[n]])) {
+                left[n] = rotateLeft(left[n]);
+            }
+            return rotateRight(n);
+        }
+        if (factor < -1) {
+            if (height(right[right[n]]) < height(left[right[n]])) {
+                right[n] = rotateRight(right[n]);
+            }
+            return rotateLeft(n);
+        }
+        return n;
+    }
+
+    private int rotateRight(int n) {
+        int l = left[n];
+        left[n] = right[l];
+        right[l] = n;
+        update(n);
+        update(l);
+        return l;
+    }
+
+    private int rotateLeft(int n) {
+        int r = right[n];
+        right[n] = left[r];
+        left[r] = n;
+        update(n);
+        update(r);
+        return r;
+    }
+
+    private void update(int n) {
+        heights[n] = 1 + Math.max(height(left[n]), height(right[n]));
+        subtreeOrders[n] = levelOrders[n] + subtree(left[n]) + subtree(right[n]);
+    }
+
+    private int height(int n) {
+        return n == NIL ? 0 : heights[n];
+    }
+
+    private int subtree(int n) {
+        return n == NIL ? 0 : subtreeOrders[n];
+    }
+
+    private int newNode(long priceE8) {
+        if (freeHead == NIL) {
+            grow(prices.length * 2);
+        }
+        int node = freeHead;
+        freeHead = left[node];
+        prices[node] = priceE8;
+        left[node] = NIL;
+        right[node] = NIL;
+        heights[node] = 1;
+        subtreeOrders[node] = 0;
+        levelOrders[node] = 0;
+        levelQtys[node] = 0;
+        return node;
+    }
+
+    private void freeNode(int node) {
+        heads[node] = null;
+        tails[node] = null;
+        left[node] = freeHead;
+        freeHead = node;
+    }
+
+    private void grow(int capacity) {
+        int from = allocated;
+        prices = prices == null ? new long[capacity] : Arrays.copyOf(prices, capacity);
+        left = left == null ? new int[capacity] : Arrays.copyOf(left, capacity);
+        right = right == null ? new int[capacity] : Arrays.copyOf(right, capacity);
+        heights = heights == null ? new int[capacity] : Arrays.copyOf(heights, capacity);
+        subtreeOrders = subtreeOrders == null ? new int[capacity] : Arrays.copyOf(subtreeOrders, capacity);
+        levelOrders = levelOrders == null ? new int[capacity] : Arrays.copyOf(levelOrders, capacity);
+        levelQtys = levelQtys == null ? new long[capacity] : Arrays.copyOf(levelQtys, capacity);
+        heads = heads == null ? new Order[capacity] : Arrays.copyOf(heads, capacity);
+        tails = tails == null ? new Order[capacity] : Arrays.copyOf(tails, capacity);
+        // 新节点按下标从小到大进入空闲链表
+        for (int i = capacity - 1; i >= from; i--) {
+            left[i] = freeHead;
+            freeHead = i;
+        }
+        allocated = capacity;
+    }
+}
@@ -225,6 +225,22 @@ public final class PositionManager {
      * @return 选中的账户 ID，如果没有则返回 -1
      */
     public short selectAccountWithBalance(short[] accountIds, short assetId, long requiredBalanceE8) {
+        return selectAccountWithBalance(accountIds, assetId, requiredBalanceE8, null);
+    }
+
+    /**
+     * 账户过滤条件（如跳过此刻已被限频的账户）。实现应是策略持有的单例，避免每次调用分配 lambda。
+     */
+    @FunctionalInterface
+    public interface AccountFilter {
+        boolean accept(short accountId);
+    }
+
+    /**
+     * 同 {@link #selectAccountWithBalance(short[], short, long)}，额外跳过 filter 不接受的账户（filter 为 null 时不过滤）。
+     * 策略传入「未被限频」的过滤条件，即可在突发挂单时把订单分散到仍有令牌的账户，而不是在限频账户上排队。
+     */
+    public short selectAccountWithBalance(short[] accountIds, short assetId, long requiredBalanceE8, AccountFilter filter) {
         if (accountIds.length == 0) {
             return -1;
         }
@@ -237,7 +253,7 @@ public final class PositionManager {
             short accountId = accountIds[index];
 //            LOG.info("检查账户{}",accountId);
             long availableBalance = getFreeBalance(accountId, assetId);
-            if (availableBalance >= requiredBalanceE8) {
+            if (availableBalance >= requiredBalanceE8 && (filter == null || filter.accept(accountId))) {
 //                LOG.info("选中账户{}",accountId);
                 return accountId;
             }
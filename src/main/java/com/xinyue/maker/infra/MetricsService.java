@@ -2,9 +2,21 @@ package com.xinyue.maker.infra;
 
 /**
  * 记录系统级 KPI，后续接入 Micrometer/Prometheus 等指标后端。
+ * <p>
+ * 计数类指标按 symbolId 预分配数组，仅由 L2 单线程写入（Zero GC），
+ * 监控/HTTP 线程读取时允许读到稍旧的值。
  */
 public final class MetricsService {
 
+    // === dYdX 订单簿 gap 恢复指标（按 symbolId） ===
+    private final long[] dydxGapCount = new long[Short.MAX_VALUE];
+    private final long[] dydxLastRecoveryNanos = new long[Short.MAX_VALUE];
+    private final long[] dydxMaxRecoveryNanos = new long[Short.MAX_VALUE];
+    private final long[] dydxTotalRecoveryNanos = new long[Short.MAX_VALUE];
+    private final long[] dydxRecoveredCount = new long[Short.MAX_VALUE];
+    // 行情连接断开（FEED_STALE）次数；恢复耗时与 gap 重建共用上面的统计
+    private final long[] dydxFeedStaleCount = new long[Short.MAX_VALUE];
+
     public void recordBookUpdate(short symbolId) {
     }
 
@@ -16,5 +28,57 @@ public final class MetricsService {
 
     public void recordPositionUpdate(short accountId, long qtyE8) {
     }
-}
 
+    /**
+     * 记录一次 dYdX 订单簿 message_id gap（开始重建）。
+     */
+    public void recordDydxGap(short symbolId) {
+        dydxGapCount[symbolId]++;
+    }
+
+    /**
+     * 记录一次 dYdX 订单簿连接断开（开始等待重连后的全量快照）。
+     */
+    public void recordDydxFeedStale(short symbolId) {
+        dydxFeedStaleCount[symbolId]++;
+    }
+
+    /**
+     * 记录一次 dYdX 订单簿重建完成。
+     *
+     * @param recoveryNanos 从发现 gap / 连接断开到收到新全量快照的耗时（纳秒）
+     */
+    public void recordDydxGapRecovered(short symbolId, long recoveryNanos) {
+        dydxRecoveredCount[symbolId]++;
+        dydxLastRecoveryNanos[symbolId] = recoveryNanos;
+        dydxTotalRecoveryNanos[symbolId] += recoveryNanos;
+        if (recoveryNanos > dydxMaxRecoveryNanos[symbolId]) {
+            dydxMaxRecoveryNanos[symbolId] = recoveryNanos;
+        }
+    }
+
+    public long dydxGapCount(short symbolId) {
+        return dydxGapCount[symbolId];
+    }
+
+    public long dydxFeedStaleCount(short symbolId) {
+        return dydxFeedStaleCount[symbolId];
+    }
+
+    public long dydxRecoveredCount(short symbolId) {
+        return dydxRecoveredCount[symbolId];
+    }
+
+    public long dydxLastRecoveryNanos(short symbolId) {
+        return dydxLastRecoveryNanos[symbolId];
+    }
+
+    public long dydxMaxRecoveryNanos(short symbolId) {
+        return dydxMaxRecoveryNanos[symbolId];
+    }
+
+    public long dydxAvgRecoveryNanos(short symbolId) {
+        long count = dydxRecoveredCount[symbolId];
+        return count == 0 ? 0L : dydxTotalRecoveryNanos[symbolId] / count;
+    }
+}
@@ -0,0 +1,158 @@
+package com.xinyue.maker.io;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单条受监管连接（含其备用 / 重连后的新连接）的吞吐与排队延迟统计。
+ * <p>
+ * - messages / bytes：收到的完整文本消息数与字节数（解压后），以及最近一个统计窗口（约 1 秒）的速率
+ * - 排队延迟：同一次 socket 读中，一帧从「本次读的第一帧到达处理器」到「轮到自己处理」等待的时间，
+ *   即被排在前面的帧（例如大的账户全量快照）占用的处理时间，用于判断是否需要拆分连接 / IO 线程
+ * <p>
+ * 连接固定在一个 IO 线程上（备用与重连的连接也在同一线程），只由该线程写入（Zero GC），
+ * 监控/HTTP 线程读取时允许读到稍旧的值。分布分桶与 {@link IoLatencyStats} 一致。
+ */
+public final class ConnectionTrafficStats {
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final List<ConnectionTrafficStats> ALL = new CopyOnWriteArrayList<>();
+
+    private final String name;
+    private volatile String ioThread;
+
+    private long messages;
+    private long bytes;
+
+    private long windowStartNanos;
+    private long windowMessages;
+    private long windowBytes;
+    private double messagesPerSecond;
+    private double bytesPerSecond;
+
+    private long queuedCount;
+    private long totalQueueNanos;
+    private long maxQueueNanos;
+    private final long[] buckets = new long[IoLatencyStats.BUCKETS];
+
+    private ConnectionTrafficStats(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 创建并登记一条连接的统计，连接关闭时调用 {@link #unregister()}。
+     */
+    public static ConnectionTrafficStats register(String name) {
+        ConnectionTrafficStats stats = new ConnectionTrafficStats(name);
+        ALL.add(stats);
+        return stats;
+    }
+
+    public void unregister() {
+        ALL.remove(this);
+    }
+
+    /**
+     * 所有已登记的连接统计。
+     */
+    public static List<ConnectionTrafficStats> all() {
+        return ALL;
+    }
+
+    /**
+     * IO 线程：收到一条完整文本消息时调用。
+     *
+     * @param bytes 消息字节数
+     * @param queueNanos 在本次读中排在前面的帧占用的处理时间（本次读的第一帧为 0）
+     */
+    public void onMessage(int bytes, long queueNanos) {
+        long now = System.nanoTime();
+        if (ioThread == null) {
+            ioThread = Thread.currentThread().getName();
+            windowStartNanos = now;
+        }
+        messages++;
+        this.bytes += bytes;
+
+        long elapsed = now - windowStartNanos;
+        if (elapsed >= WINDOW_NANOS) {
+            messagesPerSecond = windowMessages * 1e9 / elapsed;
+            bytesPerSecond = windowBytes * 1e9 / elapsed;
+            windowStartNanos = now;
+            windowMessages = 0;
+            windowBytes = 0;
+        }
+        windowMessages++;
+        windowBytes += bytes;
+
+        if (queueNanos < 0) {
+            return;
+        }
+        queuedCount++;
+        totalQueueNanos += queueNanos;
+        if (queueNanos > maxQueueNanos) {
+            maxQueueNanos = queueNanos;
+        }
+        buckets[Math.min(IoLatencyStats.BUCKETS - 1, 63 - Long.numberOfLeadingZeros(queueNanos | 1))]++;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * 承载该连接的 IO 线程名，尚未收到消息时为 null。
+     */
+    public String ioThread() {
+        return ioThread;
+    }
+
+    public long messages() {
+        return messages;
+    }
+
+    public long bytes() {
+        return bytes;
+    }
+
+    /**
+     * 最近一个完整统计窗口的消息速率（条/秒）。
+     */
+    public double messagesPerSecond() {
+        return messagesPerSecond;
+    }
+
+    public double bytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    public long avgQueueNanos() {
+        long c = queuedCount;
+        return c == 0 ? 0L : totalQueueNanos / c;
+    }
+
+    public long maxQueueNanos() {
+        return maxQueueNanos;
+    }
+
+    /**
+     * 排队延迟近似分位数：返回样本所在桶的上界（纳秒）。
+     */
+    public long percentileQueueNanos(double percentile) {
+        long c = queuedCount;
+        if (c == 0) {
+            return 0L;
+        }
+        long target = (long) Math.ceil(c * percentile);
+        long seen = 0;
+        for (int i = 0; i < IoLatencyStats.BUCKETS; i++) {
+            seen += buckets[i];
+            if (seen >= target) {
+                return 1L << (i + 1);
+            }
+        }
+        return maxQueueNanos;
+    }
+}
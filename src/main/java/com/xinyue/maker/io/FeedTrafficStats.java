@@ -0,0 +1,106 @@
+package com.xinyue.maker.io;
+
+import com.xinyue.maker.common.Exchange;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按行情源（交易所）统计的 WebSocket 流量与解压耗时，用于判断 permessage-deflate 是否值得开启。
+ * <p>
+ * - payloadBytes：交给 Normalizer 的消息字节数（解压后）
+ * - wireBytes：线上实际收到的消息字节数（压缩消息按压缩后计算，未压缩消息等于 payload）
+ * - inflateNanos：解压耗时，与节省的传输时间对比
+ * <p>
+ * 同一行情源的多条连接可能分布在不同 IO 线程，计数使用 LongAdder（累加不分配内存）。
+ */
+public final class FeedTrafficStats {
+
+    private static final FeedTrafficStats[] BY_EXCHANGE = new FeedTrafficStats[Exchange.values().length];
+
+    static {
+        for (Exchange exchange : Exchange.values()) {
+            BY_EXCHANGE[exchange.ordinal()] = new FeedTrafficStats(exchange);
+        }
+    }
+
+    private final Exchange exchange;
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder payloadBytes = new LongAdder();
+    private final LongAdder compressedFrames = new LongAdder();
+    private final LongAdder compressedWireBytes = new LongAdder();
+    private final LongAdder compressedPayloadBytes = new LongAdder();
+    private final LongAdder inflateNanos = new LongAdder();
+    private final AtomicLong maxInflateNanos = new AtomicLong();
+
+    private FeedTrafficStats(Exchange exchange) {
+        this.exchange = exchange;
+    }
+
+    public static FeedTrafficStats of(Exchange exchange) {
+        return BY_EXCHANGE[exchange.ordinal()];
+    }
+
+    /**
+     * 连接处理器收到一条完整的文本消息（已解压）时调用。
+     */
+    public void onMessage(int bytes) {
+        messages.increment();
+        payloadBytes.add(bytes);
+    }
+
+    /**
+     * 解压一帧 permessage-deflate 数据后调用。
+     */
+    void onInflate(int wireBytes, int inflatedBytes, long nanos) {
+        compressedFrames.increment();
+        compressedWireBytes.add(wireBytes);
+        compressedPayloadBytes.add(inflatedBytes);
+        inflateNanos.add(nanos);
+        long max = maxInflateNanos.get();
+        while (nanos > max && !maxInflateNanos.compareAndSet(max, nanos)) {
+            max = maxInflateNanos.get();
+        }
+    }
+
+    public Exchange exchange() {
+        return exchange;
+    }
+
+    public long messages() {
+        return messages.sum();
+    }
+
+    public long payloadBytes() {
+        return payloadBytes.sum();
+    }
+
+    public long wireBytes() {
+        return payloadBytes.sum() - compressedPayloadBytes.sum() + compressedWireBytes.sum();
+    }
+
+    public long compressedFrames() {
+        return compressedFrames.sum();
+    }
+
+    /**
+     * 压缩消息的压缩比（解压后 / 线上），没有压缩消息时为 0。
+     */
+    public double compressionRatio() {
+        long wire = compressedWireBytes.sum();
+        return wire == 0 ? 0.0 : (double) compressedPayloadBytes.sum() / wire;
+    }
+
+    public long inflateNanos() {
+        return inflateNanos.sum();
+    }
+
+    public long avgInflateNanos() {
+        long n = compressedFrames.sum();
+        return n == 0 ? 0L : inflateNanos.sum() / n;
+    }
+
+    public long maxInflateNanos() {
+        return maxInflateNanos.get();
+    }
+}
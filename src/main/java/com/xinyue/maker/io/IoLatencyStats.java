@@ -0,0 +1,95 @@
+package com.xinyue.maker.io;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 单个 IO 线程的「收到帧 -> 发布到 ring」耗时统计。
+ * <p>
+ * 每个 IO 线程持有独立实例（首次记录时创建并登记），只由所属线程写入（Zero GC），
+ * 监控/HTTP 线程读取时允许读到稍旧的值。
+ * 分布用 2 的幂分桶：第 i 桶统计 [2^i, 2^(i+1)) 纳秒的样本，足够定位尾延迟所在量级。
+ */
+public final class IoLatencyStats {
+
+    public static final int BUCKETS = 40;
+
+    private static final List<IoLatencyStats> ALL = new CopyOnWriteArrayList<>();
+    private static final ThreadLocal<IoLatencyStats> CURRENT = ThreadLocal.withInitial(() -> {
+        IoLatencyStats stats = new IoLatencyStats(Thread.currentThread().getName());
+        ALL.add(stats);
+        return stats;
+    });
+
+    private final String threadName;
+    private long count;
+    private long totalNanos;
+    private long maxNanos;
+    private final long[] buckets = new long[BUCKETS];
+
+    private IoLatencyStats(String threadName) {
+        this.threadName = threadName;
+    }
+
+    /**
+     * 当前线程的统计实例。
+     */
+    static IoLatencyStats current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 所有已登记的 IO 线程统计。
+     */
+    public static List<IoLatencyStats> all() {
+        return ALL;
+    }
+
+    void record(long nanos) {
+        if (nanos < 0) {
+            return;
+        }
+        count++;
+        totalNanos += nanos;
+        if (nanos > maxNanos) {
+            maxNanos = nanos;
+        }
+        buckets[Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(nanos | 1))]++;
+    }
+
+    public String threadName() {
+        return threadName;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long maxNanos() {
+        return maxNanos;
+    }
+
+    public long avgNanos() {
+        long c = count;
+        return c == 0 ? 0L : totalNanos / c;
+    }
+
+    /**
+     * 近似分位数：返回样本所在桶的上界（纳秒）。
+     */
+    public long percentileNanos(double percentile) {
+        long c = count;
+        if (c == 0) {
+            return 0L;
+        }
+        long target = (long) Math.ceil(c * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i];
+            if (seen >= target) {
+                return 1L << (i + 1);
+            }
+        }
+        return maxNanos;
+    }
+}
@@ -2,6 +2,8 @@ package com.xinyue.maker.io;
 
 import com.xinyue.maker.common.Exchange;
 
+import java.util.Set;
+
 /**
  * 抽象出的行情连接器，统一管理多交易所接入。
  */
@@ -17,5 +19,11 @@ public interface MarketDataConnector {
     void start();
 
     void stop();
+
+    /**
+     * 运行期更新需要订阅的 symbol 集合（差量订阅 / 退订），不支持动态订阅的连接器忽略。
+     */
+    default void updateSymbols(Set<String> symbols) {
+    }
 }
 
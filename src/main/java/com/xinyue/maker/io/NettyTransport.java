@@ -0,0 +1,223 @@
+package com.xinyue.maker.io;
+
+import com.xinyue.maker.common.Exchange;
+import com.xinyue.maker.config.TransportConfig;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 所有 WebSocket 连接器共享的 Netty 传输层。
+ * <p>
+ * 设计要点：
+ * 1. Linux 且 native 库可用时使用 Epoll（边缘触发、更少的系统调用），否则回退到 NIO
+ * 2. 行情 / 账户 / sidecar 连接共用一个可配置大小的 IO 线程池，不再每个连接器各建一个 NioEventLoopGroup(1)
+ * 3. 统一的 socket 参数：TCP_NODELAY、SO_RCVBUF / SO_SNDBUF、Epoll 下的 SO_BUSY_POLL
+ * 4. 可选 CPU 绑定：IO 线程启动时绑定到 io.cpus 中的 CPU，使其远离 L2 核心线程
+ * <p>
+ * 配置见 {@link TransportConfig}（transport.properties）。
+ */
+public final class NettyTransport {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NettyTransport.class);
+
+    private static volatile NettyTransport instance;
+
+    private final TransportConfig config;
+    private final boolean epoll;
+    private final EventLoopGroup group;
+    // group 中的各 IO 线程，按下标固定分配连接（见 bootstrap(EventLoop)）
+    private final EventLoop[] eventLoops;
+
+    private NettyTransport(TransportConfig config) {
+        this.config = config;
+        this.epoll = config.epollEnabled && Epoll.isAvailable();
+        ThreadFactory threadFactory = new IoThreadFactory(config.ioCpus);
+        this.group = epoll
+                ? new EpollEventLoopGroup(config.ioThreads, threadFactory)
+                : new NioEventLoopGroup(config.ioThreads, threadFactory);
+        List<EventLoop> loops = new ArrayList<>();
+        group.forEach(executor -> loops.add((EventLoop) executor));
+        this.eventLoops = loops.toArray(new EventLoop[0]);
+        LOG.info("Netty 传输层: transport={}, ioThreads={}, busyPollMicros={}, ioCpus={}",
+                epoll ? "epoll" : "nio", config.ioThreads, epoll ? config.busyPollMicros : 0,
+                java.util.Arrays.toString(config.ioCpus));
+        if (config.epollEnabled && !epoll) {
+            LOG.info("Epoll 不可用，回退到 NIO: {}", String.valueOf(Epoll.unavailabilityCause()));
+        }
+    }
+
+    /**
+     * 全局共享实例（首次使用时按 transport.properties 创建）。
+     */
+    public static NettyTransport getInstance() {
+        NettyTransport t = instance;
+        if (t == null) {
+            synchronized (NettyTransport.class) {
+                t = instance;
+                if (t == null) {
+                    t = new NettyTransport(TransportConfig.load());
+                    instance = t;
+                }
+            }
+        }
+        return t;
+    }
+
+    /**
+     * 共享的 IO 线程池。连接器不得自行 shutdown，统一由 {@link #shutdown()} 关闭。
+     */
+    public EventLoopGroup group() {
+        return group;
+    }
+
+    public TransportConfig config() {
+        return config;
+    }
+
+    public boolean isEpoll() {
+        return epoll;
+    }
+
+    public Class<? extends Channel> channelClass() {
+        return epoll ? EpollSocketChannel.class : NioSocketChannel.class;
+    }
+
+    /**
+     * IO 线程数。
+     */
+    public int ioThreads() {
+        return eventLoops.length;
+    }
+
+    /**
+     * 第 index 个 IO 线程（按线程数取模），用于把不同类型的连接固定到不同线程。
+     */
+    public EventLoop eventLoop(int index) {
+        return eventLoops[Math.floorMod(index, eventLoops.length)];
+    }
+
+    /**
+     * 创建已设置 group / channel 与统一 socket 参数的客户端 Bootstrap，调用方只需补充 handler 与专有参数。
+     * 连接由 Netty 轮流分配到各 IO 线程。
+     */
+    public Bootstrap bootstrap() {
+        return configure(new Bootstrap().group(group));
+    }
+
+    /**
+     * 同 {@link #bootstrap()}，但连接固定在指定 IO 线程上（例如订单簿与账户连接分开，互不排队）。
+     */
+    public Bootstrap bootstrap(EventLoop eventLoop) {
+        return configure(new Bootstrap().group(eventLoop));
+    }
+
+    private Bootstrap configure(Bootstrap bootstrap) {
+        bootstrap.channel(channelClass())
+                .option(ChannelOption.TCP_NODELAY, true);
+        if (config.receiveBufferBytes > 0) {
+            bootstrap.option(ChannelOption.SO_RCVBUF, config.receiveBufferBytes);
+        }
+        if (config.sendBufferBytes > 0) {
+            bootstrap.option(ChannelOption.SO_SNDBUF, config.sendBufferBytes);
+        }
+        if (epoll && config.busyPollMicros > 0) {
+            bootstrap.option(EpollChannelOption.SO_BUSY_POLL, config.busyPollMicros);
+        }
+        return bootstrap;
+    }
+
+    /**
+     * 按 io.deflate 配置返回该行情源的 permessage-deflate 协商 handler（每条连接新建一个），未开启返回 null。
+     *
+     * @param maxInflatedBytes 单条消息解压后的上限
+     */
+    public ChannelHandler deflateHandler(Exchange exchange, int maxInflatedBytes) {
+        if (!config.deflateEnabled(exchange.name())) {
+            return null;
+        }
+        return PooledDeflateExtension.handler(exchange, maxInflatedBytes);
+    }
+
+    /**
+     * 关闭共享 IO 线程池（进程退出时调用），之后再次 getInstance() 会重新创建。
+     */
+    public static void shutdown() {
+        NettyTransport t;
+        synchronized (NettyTransport.class) {
+            t = instance;
+            instance = null;
+        }
+        if (t != null) {
+            t.group.shutdownGracefully(0, 2, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * IO 线程工厂：命名为 maker-io-N，配置了 io.cpus 时在线程启动后绑定 CPU。
+     */
+    private static final class IoThreadFactory implements ThreadFactory {
+
+        private final int[] cpus;
+        private final AtomicInteger index = new AtomicInteger();
+
+        IoThreadFactory(int[] cpus) {
+            this.cpus = cpus;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            int n = index.getAndIncrement();
+            Runnable task = cpus.length == 0 ? r : () -> {
+                pinCurrentThread(cpus[n % cpus.length]);
+                r.run();
+            };
+            Thread thread = new Thread(task, "maker-io-" + n);
+            // 与 Netty 默认一致：非守护线程，连接存活期间保持进程运行
+            thread.setDaemon(false);
+            return thread;
+        }
+    }
+
+    /**
+     * 尽力而为的 CPU 绑定：通过 /proc/thread-self 取得内核线程 ID，再调用 taskset。
+     * 非 Linux 或 taskset 不可用时只记录日志，不影响连接。
+     */
+    private static void pinCurrentThread(int cpu) {
+        try {
+            Path self = Files.readSymbolicLink(Path.of("/proc/thread-self"));
+            String tid = self.getFileName().toString();
+            Process process = new ProcessBuilder("taskset", "-p", "-c", Integer.toString(cpu), tid)
+                    .redirectErrorStream(true)
+                    .start();
+            process.getInputStream().readAllBytes();
+            if (process.waitFor() == 0) {
+                LOG.info("IO 线程 {} 已绑定到 CPU {}", Thread.currentThread().getName(), cpu);
+            } else {
+                LOG.warn("IO 线程 {} 绑定 CPU {} 失败: taskset 退出码 {}",
+                        Thread.currentThread().getName(), cpu, process.exitValue());
+            }
+        } catch (Exception e) {
+            LOG.warn("IO 线程 {} 绑定 CPU {} 失败: {}", Thread.currentThread().getName(), cpu, e.toString());
+        }
+    }
+}
@@ -1,69 +1,303 @@
 package com.xinyue.maker.io;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.lmax.disruptor.RingBuffer;
+import com.xinyue.maker.common.AccountOrderBatch;
+import com.xinyue.maker.common.AddressRegistry;
 import com.xinyue.maker.common.AssetRegistry;
 import com.xinyue.maker.common.CoreEvent;
 import com.xinyue.maker.common.CoreEventType;
 import com.xinyue.maker.common.Exchange;
-import com.xinyue.maker.common.ScaleConstants;
+import com.xinyue.maker.common.FixedPointParser;
+import com.xinyue.maker.common.RawIdResolver;
 import com.xinyue.maker.common.SymbolRegistry;
+import com.xinyue.maker.io.parser.BinanceStreamingParser;
+import com.xinyue.maker.io.parser.DydxStreamingParser;
+import com.xinyue.maker.io.parser.JsonParsers;
 import com.xinyue.maker.io.rest.DydxRestClient;
 import com.xinyue.maker.io.input.dydx.DydxMarketDataConnector;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.time.Instant;
+import java.time.DateTimeException;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 将交易所原始 JSON 转换成可复用的 CoreEvent。
  * <p>
  * 设计要点：
- * 1. ObjectMapper 复用（避免每次创建）
- * 2. 直接解析 byte[]，减少 String 对象分配
- * 3. 价格/数量转换为 long（放大 1e8）
+ * 1. 默认走流式解析（{@link DydxStreamingParser} / {@link BinanceStreamingParser}），
+ *    基于 JsonParser token 迭代直接写入 CoreEvent，不构建 JsonNode 树
+ * 2. 流式解析器按 IO 线程隔离（ThreadLocal），内部暂存状态无需加锁
+ * 3. 保留 readTree 的 DOM 路径，用于流式解析无法处理的非常规消息布局，以及基准对比
+ * 4. Netty 入口直接解析 WebSocket 帧的 ByteBuf（堆内/直接内存均不拷贝），解析后释放
+ * 5. 价格/数量转换为 long（放大 1e8）
+ * 6. 两阶段发布：先解析到线程内暂存事件，成功后才 claim ring slot、拷贝有效区间并发布，
+ *    ring slot 的占用时间只包含拷贝，不包含解析；解析失败不占用 slot
+ * 7. 超出单个 CoreEvent 容量的账户全量同步按 header / chunk / commit 多 slot 发布，
+ *    L2 由 {@code AccountSyncAssembler} 重组后一次性应用，不再截断
+ * 8. 每个 IO 线程记录「收到帧 -> 发布」耗时（{@link IoLatencyStats}）
  */
 public final class Normalizer {
 
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
     private final RingBuffer<CoreEvent> ringBuffer;
-    private final SymbolRegistry symbolRegistry;
-    private final AssetRegistry assetRegistry;
+    // 交易对 / 资产 / 账户地址解析（按原始字符直接查预注册 ID，不做 replace / split）
+    private final RawIdResolver symbolResolver;
+    private final RawIdResolver assetResolver;
+    private final RawIdResolver addressResolver;
+
+    private final ThreadLocal<DydxStreamingParser> dydxParser;
+    private final ThreadLocal<BinanceStreamingParser> binanceParser;
+    // 两阶段发布的暂存事件：先解析到这里，成功后再占用 ring slot 拷贝发布
+    private final ThreadLocal<CoreEvent> staging = ThreadLocal.withInitial(CoreEvent::new);
 
     private static final Logger LOG = LoggerFactory.getLogger(Normalizer.class);
 
+    // 分块发布的账户同步批次号（跨 IO 线程唯一）
+    private static final AtomicLong BATCH_ID = new AtomicLong();
+
     public Normalizer(RingBuffer<CoreEvent> ringBuffer) {
         this.ringBuffer = ringBuffer;
-        this.symbolRegistry = SymbolRegistry.getInstance();
-        this.assetRegistry = AssetRegistry.getInstance();
+        this.symbolResolver = RawIdResolver.forSymbols(SymbolRegistry.getInstance());
+        this.assetResolver = RawIdResolver.forAssets(AssetRegistry.getInstance());
+        this.addressResolver = RawIdResolver.forAddresses(AddressRegistry.getInstance());
+        this.dydxParser = ThreadLocal.withInitial(() -> new DydxStreamingParser(symbolResolver, assetResolver, addressResolver));
+        this.binanceParser = ThreadLocal.withInitial(() -> new BinanceStreamingParser(symbolResolver));
     }
 
     public void onJsonMessage(Exchange exchange, byte[] payload) {
+        CoreEvent staged = beginStaging(exchange);
+        try {
+            parseStreaming(exchange, payload, staged);
+        } catch (Exception e) {
+            discardStaging(staged, e);
+            return;
+        }
+        publishStaged(staged);
+    }
+
+    /**
+     * Netty 入口：直接解析 WebSocket 帧内容，不经过 String / byte[] 中转。
+     * <p>
+     * 调用方转移 payload 的所有权（通常传入 {@code frame.content().retain()}），
+     * 本方法在解析结束后负责 release，无论成功与否。
+     */
+    public void onJsonMessage(Exchange exchange, ByteBuf payload) {
+        CoreEvent staged = beginStaging(exchange);
+        try {
+            parseStreaming(exchange, payload, staged);
+        } catch (Exception e) {
+            discardStaging(staged, e);
+            return;
+        } finally {
+            payload.release();
+        }
+        publishStaged(staged);
+    }
+
+    /**
+     * 行情连接断开时由接入层调用：发布 FEED_STALE，L2 据此清空该 symbol 的本地订单簿、暂停相关策略，
+     * 直到重连后收到新的全量快照。recvTime 记录断线时刻，用于统计恢复耗时。
+     */
+    public void onFeedStale(Exchange exchange, short symbolId) {
         long seq = ringBuffer.next();
         try {
             CoreEvent event = ringBuffer.get(seq);
-            event.reset(); // 确保干净状态
+            event.type = CoreEventType.FEED_STALE;
             event.exchangeId = exchange.id();
-            event.recvTime = System.nanoTime(); // 接收时间（纳秒精度）
-            switch (exchange){
-                case BINANCE ->  parseBinanceMessage(exchange, payload, event);
-                case DYDX -> parseDydxMessage(exchange, payload, event);
-            }
-        } catch (Exception e) {
-            // 解析失败时设置事件类型为 NONE，消费者会忽略
-            // 注意：一旦获取了 seq，必须发布，否则会导致 RingBuffer 阻塞
+            event.symbolId = symbolId;
+            event.recvTime = System.nanoTime();
+        } finally {
+            ringBuffer.publish(seq);
+        }
+    }
+
+    /**
+     * Sidecar 回报（下单 / 撤单的广播结果）：发布 EXECUTION_REPORT，L2 据此在 indexer 推送之前推进订单状态。
+     * 定长小事件，直接写 ring slot，不经暂存。
+     */
+    public void onExecutionReport(Exchange exchange, short accountId, long clientId, byte execType,
+                                  int errorCode, long timestampMillis) {
+        long seq = ringBuffer.next();
+        try {
             CoreEvent event = ringBuffer.get(seq);
-            event.type = CoreEventType.NONE;
-            // 在实际生产环境中应该记录错误日志到异步日志系统
-            System.err.println("解析消息失败: " + e.getMessage());
+            event.type = CoreEventType.EXECUTION_REPORT;
+            event.exchangeId = exchange.id();
+            event.accountId = accountId;
+            event.localOrderId = clientId;
+            event.clientOidHash = clientId; // 约定 clientId == localOrderId
+            event.execType = execType;
+            event.errorCode = errorCode;
+            event.timestamp = timestampMillis;
+            event.recvTime = System.nanoTime();
         } finally {
             ringBuffer.publish(seq);
         }
     }
 
+    /**
+     * 第一阶段：取出本线程的暂存事件并清理（只清上一条消息写过的区间）。
+     */
+    private CoreEvent beginStaging(Exchange exchange) {
+        CoreEvent staged = staging.get();
+        staged.clear();
+        staged.exchangeId = exchange.id();
+        staged.recvTime = System.nanoTime(); // 接收时间（纳秒精度）
+        return staged;
+    }
+
+    /**
+     * 第二阶段：解析完成后才占用 ring slot，只拷贝有效区间并立即发布。
+     * 无需下游处理的消息（订阅确认、心跳等，type 仍为 NONE）不占用 slot。
+     */
+    private void publishStaged(CoreEvent staged) {
+        if (staged.type == CoreEventType.NONE) {
+            return;
+        }
+        if (staged.type == CoreEventType.ACCOUNT_SYNC_BEGIN) {
+            publishBatch(staged, dydxParser.get().syncBatch());
+        } else {
+            long seq = ringBuffer.next();
+            try {
+                ringBuffer.get(seq).copyFrom(staged);
+            } finally {
+                ringBuffer.publish(seq);
+            }
+        }
+        // 收到帧 -> 发布完成（含解析与等待 ring slot），按 IO 线程统计
+        IoLatencyStats.current().record(System.nanoTime() - staged.recvTime);
+    }
+
+    /**
+     * 超出单个 CoreEvent 容量的账户全量同步：按 header / N 个 chunk / commit 连续发布。
+     * <p>
+     * 每个 chunk 最多 MAX_ORDERS 个订单 + MAX_ASSETS 个资产；所有 slot 共享 header 的标量字段与 batchId，
+     * batchIndex 依次为 0（BEGIN）、1..N（CHUNK）、N + 1（COMMIT）。
+     * 按组批量 claim（每组不超过 ring 的一半，避免大快照占满 ring 卡死消费者），组内一次性 publish。
+     */
+    private void publishBatch(CoreEvent header, AccountOrderBatch batch) {
+        int orderChunks = (batch.orderCount + CoreEvent.MAX_ORDERS - 1) / CoreEvent.MAX_ORDERS;
+        int assetChunks = (batch.assetCount + CoreEvent.MAX_ASSETS - 1) / CoreEvent.MAX_ASSETS;
+        int chunks = Math.max(orderChunks, assetChunks);
+        int total = chunks + 2;
+        long batchId = BATCH_ID.incrementAndGet();
+        int maxClaim = Math.max(1, ringBuffer.getBufferSize() / 2);
+
+        int index = 0;
+        while (index < total) {
+            int n = Math.min(total - index, maxClaim);
+            long hi = ringBuffer.next(n);
+            long lo = hi - n + 1;
+            long seq = lo;
+            try {
+                for (; seq <= hi; seq++, index++) {
+                    fillBatchSlot(ringBuffer.get(seq), header, batch, batchId, index, chunks);
+                }
+            } catch (RuntimeException e) {
+                // 已 claim 的 slot 必须发布；未写完的置为 NONE，L2 重组器收不到 COMMIT 会丢弃整个批次
+                for (; seq <= hi; seq++) {
+                    ringBuffer.get(seq).reset();
+                }
+                LOG.error("分块发布账户同步失败: batchId={}", batchId, e);
+                index = total;
+            } finally {
+                ringBuffer.publish(lo, hi);
+            }
+        }
+    }
+
+    private static void fillBatchSlot(CoreEvent slot, CoreEvent header, AccountOrderBatch batch,
+                                      long batchId, int index, int chunks) {
+        slot.copyFrom(header);
+        slot.batchId = batchId;
+        slot.batchIndex = index;
+        if (index == 0) {
+            slot.type = CoreEventType.ACCOUNT_SYNC_BEGIN;
+        } else if (index > chunks) {
+            slot.type = CoreEventType.ACCOUNT_SYNC_COMMIT;
+        } else {
+            slot.type = CoreEventType.ACCOUNT_SYNC_CHUNK;
+            // 订单与资产的 chunk 数可能不同，较短的一侧在后面的 chunk 中为空
+            int orderFrom = (index - 1) * CoreEvent.MAX_ORDERS;
+            if (orderFrom < batch.orderCount) {
+                batch.copyOrdersTo(slot, orderFrom, Math.min(CoreEvent.MAX_ORDERS, batch.orderCount - orderFrom));
+            }
+            int assetFrom = (index - 1) * CoreEvent.MAX_ASSETS;
+            if (assetFrom < batch.assetCount) {
+                batch.copyAssetsTo(slot, assetFrom, Math.min(CoreEvent.MAX_ASSETS, batch.assetCount - assetFrom));
+            }
+        }
+    }
+
+    private void discardStaging(CoreEvent staged, Exception e) {
+        // 解析中途失败时暂存数组的有效区间不可信，整体重置；此时尚未占用任何 ring slot
+        staged.reset();
+        // 在实际生产环境中应该记录错误日志到异步日志系统
+        System.err.println("解析消息失败: " + e.getMessage());
+    }
+
+    /**
+     * 流式解析入口：直接写入 event，无法流式处理时回退到 DOM 路径。
+     */
+    void parseStreaming(Exchange exchange, byte[] payload, CoreEvent event) throws IOException {
+        boolean handled;
+        try (JsonParser parser = JsonParsers.create(payload, 0, payload.length)) {
+            handled = parseStreaming(exchange, parser, event);
+        }
+        if (!handled) {
+            fallbackToDom(exchange, payload, event);
+        }
+    }
+
+    /**
+     * 流式解析入口（ByteBuf），不修改 readerIndex，不 release。
+     */
+    void parseStreaming(Exchange exchange, ByteBuf payload, CoreEvent event) throws IOException {
+        boolean handled;
+        try (JsonParser parser = JsonParsers.create(payload)) {
+            handled = parseStreaming(exchange, parser, event);
+        }
+        if (!handled) {
+            // 回退路径极少触发，此处拷贝一份 byte[] 可以接受
+            fallbackToDom(exchange, ByteBufUtil.getBytes(payload), event);
+        }
+    }
+
+    private boolean parseStreaming(Exchange exchange, JsonParser parser, CoreEvent event) throws IOException {
+        return switch (exchange) {
+            case BINANCE -> binanceParser.get().parse(parser, event);
+            case DYDX -> dydxParser.get().parse(parser, event);
+            default -> true;
+        };
+    }
+
+    private void fallbackToDom(Exchange exchange, byte[] payload, CoreEvent event) throws IOException {
+        LOG.debug("消息布局不支持流式解析，回退到 DOM 路径");
+        short exchangeId = event.exchangeId;
+        long recvTime = event.recvTime;
+        event.reset();
+        event.exchangeId = exchangeId;
+        event.recvTime = recvTime;
+        parseDom(exchange, payload, event);
+    }
+
+    /**
+     * DOM 解析入口（readTree），作为流式解析的回退路径和基准对比的参照。
+     */
+    void parseDom(Exchange exchange, byte[] payload, CoreEvent event) throws IOException {
+        switch (exchange) {
+            case BINANCE -> parseBinanceMessage(exchange, payload, event);
+            case DYDX -> parseDydxMessage(exchange, payload, event);
+        }
+    }
+
     /**
      * 解析 dYdX WebSocket 消息。
      * <p>
@@ -120,9 +354,8 @@ public final class Normalizer {
         // 解析 symbol
         String symbol = root.path("id").asText();
         if (symbol != null && !symbol.isEmpty()) {
-            // dYdX 使用 BTC-USDT 格式，转换为 BTCUSDT
-            symbol = symbol.replace("-", "");
-            event.symbolId = symbolRegistry.get(symbol);
+            // dYdX 使用 BTC-USDT 格式，解析器忽略 '-' 直接映射到 BTCUSDT
+            event.symbolId = symbolResolver.resolve(symbol);
         }
         
         // 时间戳（dYdX 可能没有时间戳字段，使用接收时间）
@@ -182,8 +415,7 @@ public final class Normalizer {
         // 解析 symbol
         String symbol = root.path("id").asText();
         if (symbol != null && !symbol.isEmpty()) {
-            symbol = symbol.replace("-", "");
-            event.symbolId = symbolRegistry.get(symbol);
+            event.symbolId = symbolResolver.resolve(symbol);
         }
         
         // 时间戳
@@ -226,6 +458,10 @@ public final class Normalizer {
      */
     private void parseBinanceMessage(Exchange exchange, byte[] payload, CoreEvent event) throws IOException {
         JsonNode root = OBJECT_MAPPER.readTree(payload);
+        // 组合流（/stream）：{"stream":"...","data":{...}}
+        if (root.has("data")) {
+            root = root.path("data");
+        }
 
         // 检查是否是订阅响应（忽略）
         if (root.has("result") || root.has("id")) {
@@ -267,7 +503,7 @@ public final class Normalizer {
         if (symbol == null || symbol.isEmpty()) {
             throw new IllegalArgumentException("aggTrade 消息缺少 symbol 字段");
         }
-        event.symbolId = symbolRegistry.get(symbol);
+        event.symbolId = symbolResolver.resolve(symbol);
 
         // 时间戳（交易所时间，毫秒）
         event.timestamp = root.path("T").asLong();
@@ -313,7 +549,7 @@ public final class Normalizer {
         // 解析 symbol
         String symbol = root.path("s").asText();
         if (symbol != null && !symbol.isEmpty()) {
-            event.symbolId = symbolRegistry.get(symbol);
+            event.symbolId = symbolResolver.resolve(symbol);
         }
         
         // 时间戳
@@ -351,50 +587,16 @@ public final class Normalizer {
     /**
      * 将十进制字符串转换为 long（放大 1e8）。
      * <p>
-     * 示例："0.001" -> 10000000L
+     * 示例："0.001" -> 100000L
      * 示例："100.5" -> 10050000000L
      * <p>
-     * 注意：此方法针对 Binance 格式优化，假设输入格式规范。
-     * 对于超过8位小数的数字，会截断到8位（不四舍五入，避免舍入误差）。
+     * 超过 8 位小数截断（不四舍五入），解析规则见 {@link FixedPointParser}。
      */
     private long parseDecimal(String decimalStr) {
         if (decimalStr == null || decimalStr.isEmpty()) {
             return 0;
         }
-
-        int dotIndex = decimalStr.indexOf('.');
-        if (dotIndex == -1) {
-            // 整数
-            long integerPart = Long.parseLong(decimalStr);
-            return integerPart * ScaleConstants.SCALE_E8;
-        }
-
-        // 小数部分
-        String integerPartStr = decimalStr.substring(0, dotIndex);
-        String fractionalPartStr = decimalStr.substring(dotIndex + 1);
-
-        long integerPart = integerPartStr.isEmpty() ? 0 : Long.parseLong(integerPartStr);
-        
-        if (fractionalPartStr.isEmpty()) {
-            return integerPart * ScaleConstants.SCALE_E8;
-        }
-
-        // 计算小数位数并处理超过8位的情况
-        int fractionalDigits = fractionalPartStr.length();
-        long fractionalPart;
-        
-        if (fractionalDigits > 8) {
-            // 截断到8位（避免使用Math.pow，直接字符串截断更高效）
-            fractionalPartStr = fractionalPartStr.substring(0, 8);
-            fractionalPart = Long.parseLong(fractionalPartStr);
-            fractionalDigits = 8;
-        } else {
-            fractionalPart = Long.parseLong(fractionalPartStr);
-        }
-
-        // 放大到 1e8（使用查表法避免Math.pow的开销）
-        long scaleMultiplier = SCALE_MULTIPLIERS[8 - fractionalDigits];
-        return integerPart * ScaleConstants.SCALE_E8 + fractionalPart * scaleMultiplier;
+        return FixedPointParser.parseE8(decimalStr);
     }
 
     /**
@@ -434,19 +636,16 @@ public final class Normalizer {
                     event.sequence = messageId;
                     event.timestamp = System.currentTimeMillis();
 
-                    String address = null;
                     // 解析账户信息
-                    if (id != null && id.contains("/")) {
-                        // TODO: 根据 address 映射到 accountId
-                         address = id.split("/")[0];
-                         if(address.equals("ba1pqhys5muk0tpftmvpak87rakycs9vh3rp6rgv8")) {
-                             event.accountId = 1;
-                         }
-                    }
+                    resolveAccountId(id, event);
 
                     
                     // 遍历所有订单，填充到数组中
                     int orderCount = Math.min(orders.size(), CoreEvent.MAX_ORDERS);
+                    if (orders.size() > CoreEvent.MAX_ORDERS) {
+                        // DOM 回退路径不做分块发布，超出单事件容量的部分被截断
+                        LOG.warn("DOM 路径账户同步订单数 {} 超过单事件容量 {}，已截断", orders.size(), CoreEvent.MAX_ORDERS);
+                    }
                     for (int i = 0; i < orderCount; i++) {
                         JsonNode order = orders.get(i);
                         
@@ -496,8 +695,7 @@ public final class Normalizer {
                         // 解析交易对
                         String ticker = order.path("ticker").asText();
                         if (ticker != null && !ticker.isEmpty()) {
-                            String symbol = ticker.replace("-", "");
-                            event.orderSymbolIds[i] = symbolRegistry.get(symbol);
+                            event.orderSymbolIds[i] = symbolResolver.resolve(ticker);
                         }
 
                         // === dYdX v4 cancel 需要的字段 ===
@@ -536,14 +734,7 @@ public final class Normalizer {
                     event.timestamp = System.currentTimeMillis();
                     
                     // 解析账户信息
-                    String address = null;
-                    if (id != null && id.contains("/")) {
-                        // TODO: 根据 address 映射到 accountId
-                        address = id.split("/")[0];
-                        if(address.equals("ba1pqhys5muk0tpftmvpak87rakycs9vh3rp6rgv8")) {
-                            event.accountId = 1;
-                        }
-                    }
+                    resolveAccountId(id, event);
                     
                     JsonNode firstOrder = orders.get(0);
                     parseDydxOrder(firstOrder, event, isSync);
@@ -601,17 +792,13 @@ public final class Normalizer {
                 }
                 
                 // 解析账户信息
-                String address = null;
-                if (id != null && id.contains("/")) {
-                    // TODO: 根据 address 映射到 accountId
-                    address = id.split("/")[0];
-                    if(address.equals("ba1pqhys5muk0tpftmvpak87rakycs9vh3rp6rgv8")) {
-                        event.accountId = 1;
-                    }
-                }
+                resolveAccountId(id, event);
                 
                 // 遍历所有资产，填充到数组中
                 int assetCount = Math.min(assetPositions.size(), CoreEvent.MAX_ASSETS);
+                if (assetPositions.size() > CoreEvent.MAX_ASSETS) {
+                    LOG.warn("DOM 路径资产数 {} 超过单事件容量 {}，已截断", assetPositions.size(), CoreEvent.MAX_ASSETS);
+                }
                 for (int i = 0; i < assetCount; i++) {
                     JsonNode assetPosition = assetPositions.get(i);
                     
@@ -619,7 +806,7 @@ public final class Normalizer {
                     String symbol = assetPosition.path("symbol").asText();
                     if (symbol != null && !symbol.isEmpty()) {
                         // 将资产符号转换为 assetId
-                        short assetId = assetRegistry.get(symbol);
+                        short assetId = assetResolver.resolve(symbol);
                         if (assetId > 0) {
                             event.assetIds[i] = assetId;
                         }
@@ -668,9 +855,9 @@ public final class Normalizer {
                 
                 // 判断转账方向：如果接收方是当前账户，则是转入；否则是转出
                 boolean isTransferIn = false;
-                if (id != null && id.contains("/")) {
-                    String currentAddress = id.split("/")[0];
-                    if (currentAddress.equals(recipientAddress)) {
+                int slash = id != null ? id.indexOf('/') : -1;
+                if (slash >= 0) {
+                    if (slash == recipientAddress.length() && id.startsWith(recipientAddress)) {
                         isTransferIn = true;
                     }
                 } else if ("TRANSFER_IN".equals(typeStr)) {
@@ -680,7 +867,7 @@ public final class Normalizer {
                 
                 // 解析资产符号并转换为 assetId
                 if (symbol != null && !symbol.isEmpty()) {
-                    short assetId = assetRegistry.get(symbol);
+                    short assetId = assetResolver.resolve(symbol);
                     if (assetId > 0) {
                         event.transferAssetId = assetId;
                     }
@@ -698,6 +885,18 @@ public final class Normalizer {
         }
     }
 
+    /**
+     * 根据 id（address/subaccountNumber）映射 accountId，未注册的地址保持 accountId 不变。
+     */
+    private void resolveAccountId(String id, CoreEvent event) {
+        if (id != null && id.indexOf('/') > 0) {
+            short accountId = addressResolver.resolve(id);
+            if (accountId > 0) {
+                event.accountId = accountId;
+            }
+        }
+    }
+
     /**
      * 解析单个 dYdX 订单。
      *
@@ -756,8 +955,7 @@ public final class Normalizer {
         // 交易对
         String ticker = order.path("ticker").asText();
         if (ticker != null && !ticker.isEmpty()) {
-            String symbol = ticker.replace("-", "");
-            event.symbolId = symbolRegistry.get(symbol);
+            event.symbolId = symbolResolver.resolve(ticker);
         }
 
         // === dYdX v4 cancel 需要的字段 ===
@@ -792,23 +990,9 @@ public final class Normalizer {
      */
     private long parseIsoToEpochSeconds(String iso) {
         try {
-            return Instant.parse(iso).getEpochSecond();
-        } catch (Throwable ignore) {
+            return FixedPointParser.parseIsoEpochSeconds(iso);
+        } catch (DateTimeException ignore) {
             return 0L;
         }
     }
-
-    // 预计算的缩放因子表（10^0 到 10^8）
-    private static final long[] SCALE_MULTIPLIERS = {
-        1L,           // 10^0
-        10L,          // 10^1
-        100L,                  // 10^2
-        1_000L,                // 10^3
-        10_000L,               // 10^4
-        100_000L,              // 10^5
-        1_000_000L,            // 10^6
-        10_000_000L,           // 10^7
-        ScaleConstants.SCALE_E8  // 10^8
-    };
 }
-
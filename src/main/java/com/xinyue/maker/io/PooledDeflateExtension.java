@@ -0,0 +1,216 @@
+package com.xinyue.maker.io;
+
+import com.xinyue.maker.common.Exchange;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.DecoderException;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketClientExtension;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketClientExtensionHandler;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketClientExtensionHandshaker;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtension;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionData;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionDecoder;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionEncoder;
+import io.netty.handler.codec.http.websocketx.extensions.compression.PerMessageDeflateClientExtensionHandshaker;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * 行情连接使用的 permessage-deflate（RFC 7692）扩展。
+ * <p>
+ * 协商沿用 Netty 的 {@link PerMessageDeflateClientExtensionHandshaker}，只替换解压端：
+ * 1. 每条连接一个 {@link Inflater}，服务端保留上下文（context takeover）时跨消息复用字典
+ * 2. 解压直接写入 channel 分配器（池化）的单段 ByteBuf，容量按上一条消息大小预估，
+ *    Normalizer 可直接在这段内存上解析，不需要 Netty 默认实现的 CompositeByteBuf 拼接与拷贝
+ * 3. 每帧记录线上字节、解压后字节与解压耗时（{@link FeedTrafficStats}）
+ * 4. 解压后超过 maxInflatedBytes 的消息直接报错，防止压缩炸弹
+ */
+public final class PooledDeflateExtension implements WebSocketClientExtensionHandshaker {
+
+    private static final int MIN_ESTIMATE = 4096;
+
+    // permessage-deflate 发送端去掉的 sync flush 尾部，解压最后一帧时补回
+    private static final byte[] TAIL = {0x00, 0x00, (byte) 0xff, (byte) 0xff};
+
+    private final PerMessageDeflateClientExtensionHandshaker delegate = new PerMessageDeflateClientExtensionHandshaker(
+            6, ZlibCodecFactory.isSupportingWindowSizeAndMemLevel(), 15, true, false);
+    private final Exchange exchange;
+    private final int maxInflatedBytes;
+
+    private PooledDeflateExtension(Exchange exchange, int maxInflatedBytes) {
+        this.exchange = exchange;
+        this.maxInflatedBytes = maxInflatedBytes;
+    }
+
+    /**
+     * 创建扩展协商 handler（每条连接一个，放在 HttpClientCodec 之后、WebSocket 处理器之前）。
+     */
+    public static WebSocketClientExtensionHandler handler(Exchange exchange, int maxInflatedBytes) {
+        return new WebSocketClientExtensionHandler(new PooledDeflateExtension(exchange, maxInflatedBytes));
+    }
+
+    @Override
+    public WebSocketExtensionData newRequestData() {
+        return delegate.newRequestData();
+    }
+
+    @Override
+    public WebSocketClientExtension handshakeExtension(WebSocketExtensionData extensionData) {
+        WebSocketClientExtension negotiated = delegate.handshakeExtension(extensionData);
+        if (negotiated == null) {
+            return null;
+        }
+        boolean serverNoContext = extensionData.parameters().containsKey("server_no_context_takeover");
+        return new WebSocketClientExtension() {
+            @Override
+            public int rsv() {
+                return negotiated.rsv();
+            }
+
+            @Override
+            public WebSocketExtensionEncoder newExtensionEncoder() {
+                return negotiated.newExtensionEncoder();
+            }
+
+            @Override
+            public WebSocketExtensionDecoder newExtensionDecoder() {
+                return new Decoder(exchange, serverNoContext, maxInflatedBytes);
+            }
+        };
+    }
+
+    /**
+     * 解压 RSV1 标记的消息（含其后续 continuation 帧），其它帧原样透传。
+     */
+    static final class Decoder extends WebSocketExtensionDecoder {
+
+        private final FeedTrafficStats stats;
+        private final boolean serverNoContext;
+        private final int maxInflatedBytes;
+
+        private Inflater inflater;
+        // 当前是否处于一条压缩消息的分片序列中
+        private boolean compressing;
+        private int inflated;
+        private int estimate = MIN_ESTIMATE;
+
+        Decoder(Exchange exchange, boolean serverNoContext, int maxInflatedBytes) {
+            this.stats = FeedTrafficStats.of(exchange);
+            this.serverNoContext = serverNoContext;
+            this.maxInflatedBytes = maxInflatedBytes;
+        }
+
+        @Override
+        protected void decode(ChannelHandlerContext ctx, WebSocketFrame frame, List<Object> out) {
+            boolean continuation = frame instanceof ContinuationWebSocketFrame;
+            if (!continuation && (frame.rsv() & WebSocketExtension.RSV1) != 0) {
+                compressing = true;
+                inflated = 0;
+            } else if (!continuation || !compressing) {
+                // 未压缩消息、控制帧（可能插在分片之间）直接透传
+                out.add(frame.retain());
+                return;
+            }
+
+            long start = System.nanoTime();
+            ByteBuf in = frame.content();
+            int wireBytes = in.readableBytes();
+            boolean last = frame.isFinalFragment();
+            ByteBuf content;
+            try {
+                content = inflate(ctx, in, last);
+            } catch (RuntimeException e) {
+                // 解压上下文已损坏，后续消息都无法还原：关闭连接，由 ConnectionSupervisor 重连
+                ctx.close();
+                throw e;
+            }
+            stats.onInflate(wireBytes, content.readableBytes(), System.nanoTime() - start);
+
+            int rsv = frame.rsv() & ~WebSocketExtension.RSV1;
+            if (frame instanceof TextWebSocketFrame) {
+                out.add(new TextWebSocketFrame(last, rsv, content));
+            } else if (frame instanceof BinaryWebSocketFrame) {
+                out.add(new BinaryWebSocketFrame(last, rsv, content));
+            } else {
+                out.add(new ContinuationWebSocketFrame(last, rsv, content));
+            }
+            if (last) {
+                compressing = false;
+                estimate = Math.max(MIN_ESTIMATE, inflated);
+                if (serverNoContext || inflater.finished()) {
+                    inflater.reset();
+                }
+            }
+        }
+
+        private ByteBuf inflate(ChannelHandlerContext ctx, ByteBuf in, boolean last) {
+            if (inflater == null) {
+                inflater = new Inflater(true);
+            }
+            int initial = Math.min(maxInflatedBytes, Math.max(estimate - inflated, in.readableBytes() * 4));
+            ByteBuf out = ctx.alloc().buffer(Math.max(initial, 64));
+            try {
+                if (in.isReadable()) {
+                    ByteBuffer input = in.nioBufferCount() == 1
+                            ? in.internalNioBuffer(in.readerIndex(), in.readableBytes())
+                            : in.nioBuffer();
+                    inflater.setInput(input);
+                    drain(out);
+                }
+                if (last) {
+                    inflater.setInput(TAIL);
+                    drain(out);
+                }
+                inflated += out.readableBytes();
+                if (inflated > maxInflatedBytes) {
+                    throw new DecoderException("permessage-deflate 解压后超过上限: " + inflated + " > " + maxInflatedBytes);
+                }
+                return out;
+            } catch (DataFormatException e) {
+                out.release();
+                throw new DecoderException("permessage-deflate 解压失败", e);
+            } catch (RuntimeException e) {
+                out.release();
+                throw e;
+            }
+        }
+
+        private void drain(ByteBuf out) throws DataFormatException {
+            while (true) {
+                if (!out.isWritable()) {
+                    if (inflated + out.writerIndex() > maxInflatedBytes) {
+                        return; // 由调用方统一报超限
+                    }
+                    out.ensureWritable(out.capacity());
+                }
+                int n = inflater.inflate(out.internalNioBuffer(out.writerIndex(), out.writableBytes()));
+                out.writerIndex(out.writerIndex() + n);
+                if (n == 0) {
+                    if (inflater.needsInput() || inflater.finished()) {
+                        return;
+                    }
+                    if (inflater.needsDictionary()) {
+                        throw new DataFormatException("permessage-deflate 不支持预置字典");
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+            if (inflater != null) {
+                inflater.end();
+                inflater = null;
+            }
+            super.handlerRemoved(ctx);
+        }
+    }
+}
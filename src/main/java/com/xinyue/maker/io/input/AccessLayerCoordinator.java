@@ -2,10 +2,14 @@ package com.xinyue.maker.io.input;
 
 import com.xinyue.maker.common.Exchange;
 import com.xinyue.maker.io.MarketDataConnector;
+import com.xinyue.maker.io.Normalizer;
+import com.xinyue.maker.io.input.binance.BinanceMarketDataConnector;
 import com.xinyue.maker.io.input.dydx.DydxMarketDataConnector;
 
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 /**
  * 接入层协调器，负责统一启动/终止所有行情连接器，并提供部分控制能力（例如重新订阅）。
@@ -19,6 +23,31 @@ public final class AccessLayerCoordinator {
         return this;
     }
 
+    /**
+     * 冗余行情模式：对同一交易所开 endpoints.size() 条连接，先到先得仲裁后进入 Normalizer。
+     * <p>
+     * 仅支持序号全局唯一的交易所（Binance：depthUpdate 的 u、aggTrade 的 a）；
+     * dYdX 的 message_id 是按连接计数的，不同连接之间不可比较，无法仲裁。
+     *
+     * @return 冗余连接器（可通过 {@link RedundantMarketDataConnector#arbiter()} 读取各 leg 领先/落后统计）
+     */
+    public RedundantMarketDataConnector registerRedundant(Exchange exchange, Normalizer normalizer, List<URI> endpoints) {
+        if (exchange != Exchange.BINANCE) {
+            throw new IllegalArgumentException("冗余行情暂不支持交易所: " + exchange + "（消息序号非全局唯一）");
+        }
+        if (endpoints.size() < 2) {
+            throw new IllegalArgumentException("冗余行情至少需要 2 个 endpoint");
+        }
+        FeedArbiter arbiter = new FeedArbiter(endpoints.size());
+        List<MarketDataConnector> legs = new ArrayList<>(endpoints.size());
+        for (int i = 0; i < endpoints.size(); i++) {
+            legs.add(new BinanceMarketDataConnector(normalizer, endpoints.get(i), arbiter, i));
+        }
+        RedundantMarketDataConnector connector = new RedundantMarketDataConnector(exchange, arbiter, legs);
+        register(connector);
+        return connector;
+    }
+
     public void startAll() {
         connectors.forEach(MarketDataConnector::start);
     }
@@ -38,6 +67,17 @@ public final class AccessLayerCoordinator {
         }
     }
 
+    /**
+     * 更新指定交易所行情连接器的订阅集合（例如 StrategyEngine 汇总的 Binance 参考交易对）。
+     */
+    public void updateSymbols(Exchange exchange, Set<String> symbols) {
+        for (MarketDataConnector connector : connectors) {
+            if (connector.exchange() == exchange) {
+                connector.updateSymbols(symbols);
+            }
+        }
+    }
+
     /**
      * 根据交易所获取连接器。
      */
@@ -0,0 +1,383 @@
+package com.xinyue.maker.io.input;
+
+import com.xinyue.maker.config.TransportConfig;
+import io.netty.channel.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单条 WebSocket 连接的监管器：断线后自动恢复并重放订阅。
+ * <p>
+ * 设计要点：
+ * 1. 活动连接断开（closeFuture）时先回调 {@link Link#onLost()}，由连接器标记相关订单簿陈旧
+ * 2. 若已预热备用连接（已握手、未订阅），立即切换为活动连接并重放订阅，耗时只有一次 writeAndFlush
+ * 3. 无可用备用连接时在后台线程重连：首次立即重试，之后按带抖动的指数退避重试
+ * 4. 切换 / 重连成功后在后台补建新的备用连接；备用连接自身断开时同样按退避重建
+ * 5. 记录断线次数、恢复耗时（断线 -> 新连接完成订阅重放）、备用切换次数与失败重试次数
+ * <p>
+ * 建立连接（阻塞到握手完成）只在后台线程 maker-reconnect 执行，不会阻塞 IO 线程；
+ * {@link #close()} 之后的断开不会触发重连。
+ */
+public final class ConnectionSupervisor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConnectionSupervisor.class);
+
+    private static final List<ConnectionSupervisor> ALL = new CopyOnWriteArrayList<>();
+
+    private static final AtomicInteger THREAD_INDEX = new AtomicInteger();
+    private static final ScheduledExecutorService SCHEDULER = Executors.newScheduledThreadPool(2, r -> {
+        Thread thread = new Thread(r, "maker-reconnect-" + THREAD_INDEX.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 由连接器实现：如何建立连接、连接可用后订阅什么、断线时标记什么。
+     */
+    public interface Link {
+
+        /**
+         * 建立一条已完成 WebSocket 握手、尚未订阅任何频道的连接（阻塞），失败抛出异常。
+         */
+        Channel open() throws Exception;
+
+        /**
+         * 连接成为活动连接后调用：重放当前的订阅集合。
+         */
+        void activate(Channel channel);
+
+        /**
+         * 活动连接断开时调用（IO 线程），用于标记依赖该连接的数据陈旧。
+         */
+        void onLost();
+    }
+
+    private final String name;
+    private final Link link;
+    private final long baseNanos;
+    private final long maxNanos;
+    private final boolean standbyEnabled;
+
+    private volatile Channel active;
+    private volatile Channel standby;
+    private volatile boolean closed;
+
+    // 连续失败次数（决定下一次退避时长），只在持锁时修改
+    private int reconnectAttempt;
+    private int standbyAttempt;
+    private boolean reconnectScheduled;
+    private boolean standbyScheduled;
+    private long lostAtNanos;
+
+    // 统计（监控线程读取时允许读到稍旧的值）
+    private volatile long disconnects;
+    private volatile long recoveries;
+    private volatile long standbyPromotions;
+    private volatile long failedAttempts;
+    private volatile long lastRecoverNanos;
+    private volatile long maxRecoverNanos;
+    private volatile long totalRecoverNanos;
+
+    public ConnectionSupervisor(String name, Link link, TransportConfig config) {
+        this(name, link, TimeUnit.MILLISECONDS.toNanos(config.reconnectBaseMillis),
+                TimeUnit.MILLISECONDS.toNanos(config.reconnectMaxMillis), config.standbyEnabled);
+    }
+
+    ConnectionSupervisor(String name, Link link, long baseNanos, long maxNanos, boolean standbyEnabled) {
+        this.name = name;
+        this.link = link;
+        this.baseNanos = baseNanos;
+        this.maxNanos = maxNanos;
+        this.standbyEnabled = standbyEnabled;
+    }
+
+    /**
+     * 同步建立首条连接并订阅（失败直接抛出，与原先 start() 的语义一致），之后在后台预热备用连接。
+     */
+    public void start() throws Exception {
+        closed = false;
+        Channel channel = link.open();
+        synchronized (this) {
+            if (closed) {
+                channel.close();
+                return;
+            }
+            install(channel);
+        }
+        if (!ALL.contains(this)) {
+            ALL.add(this);
+        }
+        scheduleStandby();
+    }
+
+    /**
+     * 在后台建立首条连接，失败时按退避重试（与断线重连同一路径）。
+     * 用于允许暂时缺席的连接，例如 Sidecar 连接池中某个 Sidecar 进程尚未启动。
+     */
+    public void startInBackground() {
+        synchronized (this) {
+            closed = false;
+            reconnectAttempt = 0;
+            lostAtNanos = System.nanoTime();
+            scheduleReconnect();
+        }
+        if (!ALL.contains(this)) {
+            ALL.add(this);
+        }
+    }
+
+    /**
+     * 主动关闭：关闭活动连接与备用连接，不再重连。
+     */
+    public void close() {
+        Channel a;
+        Channel s;
+        synchronized (this) {
+            closed = true;
+            a = active;
+            s = standby;
+            active = null;
+            standby = null;
+        }
+        if (a != null) {
+            a.close();
+        }
+        if (s != null) {
+            s.close();
+        }
+        ALL.remove(this);
+    }
+
+    /**
+     * 当前活动连接（断线恢复期间为 null）。
+     */
+    public Channel channel() {
+        return active;
+    }
+
+    public boolean isActive() {
+        Channel a = active;
+        return a != null && a.isActive();
+    }
+
+    // 持锁调用：设为活动连接并重放订阅
+    private void install(Channel channel) {
+        active = channel;
+        channel.closeFuture().addListener(f -> onActiveClosed(channel));
+        link.activate(channel);
+    }
+
+    private void onActiveClosed(Channel channel) {
+        Channel promoted;
+        synchronized (this) {
+            if (closed || active != channel) {
+                return;
+            }
+            active = null;
+            lostAtNanos = System.nanoTime();
+            disconnects++;
+        }
+        LOG.warn("连接 {} 断开，开始恢复", name);
+        try {
+            link.onLost();
+        } catch (Exception e) {
+            LOG.error("连接 {} 断线回调失败", name, e);
+        }
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            promoted = standby;
+            standby = null;
+            if (promoted != null && promoted.isActive()) {
+                install(promoted);
+                standbyPromotions++;
+                recordRecovered();
+            } else {
+                promoted = null;
+                reconnectAttempt = 0;
+                scheduleReconnect();
+            }
+        }
+        if (promoted != null) {
+            LOG.info("连接 {} 已切换到备用连接，恢复耗时 {}us", name, lastRecoverNanos / 1_000L);
+            scheduleStandby();
+        }
+    }
+
+    // 持锁调用
+    private void scheduleReconnect() {
+        if (reconnectScheduled) {
+            return;
+        }
+        reconnectScheduled = true;
+        long delay = reconnectAttempt == 0 ? 0L : backoffNanos(reconnectAttempt, baseNanos, maxNanos);
+        SCHEDULER.schedule(this::reconnect, delay, TimeUnit.NANOSECONDS);
+    }
+
+    private void reconnect() {
+        synchronized (this) {
+            reconnectScheduled = false;
+            if (closed || active != null) {
+                return;
+            }
+        }
+        Channel channel;
+        try {
+            channel = link.open();
+        } catch (Exception e) {
+            synchronized (this) {
+                failedAttempts++;
+                reconnectAttempt++;
+                LOG.warn("连接 {} 第 {} 次重连失败: {}", name, reconnectAttempt, e.toString());
+                if (!closed) {
+                    scheduleReconnect();
+                }
+            }
+            return;
+        }
+        synchronized (this) {
+            if (closed || active != null) {
+                channel.close();
+                return;
+            }
+            install(channel);
+            reconnectAttempt = 0;
+            recordRecovered();
+        }
+        LOG.info("连接 {} 重连成功，恢复耗时 {}us", name, lastRecoverNanos / 1_000L);
+        scheduleStandby();
+    }
+
+    private synchronized void scheduleStandby() {
+        if (!standbyEnabled || closed || standbyScheduled) {
+            return;
+        }
+        Channel s = standby;
+        if (s != null && s.isActive()) {
+            return;
+        }
+        standbyScheduled = true;
+        long delay = standbyAttempt == 0 ? 0L : backoffNanos(standbyAttempt, baseNanos, maxNanos);
+        SCHEDULER.schedule(this::warmStandby, delay, TimeUnit.NANOSECONDS);
+    }
+
+    private void warmStandby() {
+        synchronized (this) {
+            standbyScheduled = false;
+            if (closed) {
+                return;
+            }
+        }
+        Channel channel;
+        try {
+            channel = link.open();
+        } catch (Exception e) {
+            synchronized (this) {
+                standbyAttempt++;
+            }
+            LOG.warn("连接 {} 备用连接预热失败: {}", name, e.toString());
+            scheduleStandby();
+            return;
+        }
+        synchronized (this) {
+            Channel s = standby;
+            if (closed || (s != null && s.isActive())) {
+                channel.close();
+                return;
+            }
+            standby = channel;
+            standbyAttempt = 0;
+        }
+        channel.closeFuture().addListener(f -> onStandbyClosed(channel));
+    }
+
+    private void onStandbyClosed(Channel channel) {
+        synchronized (this) {
+            if (standby != channel) {
+                return; // 已被提升为活动连接或已被替换
+            }
+            standby = null;
+            standbyAttempt++;
+        }
+        scheduleStandby();
+    }
+
+    // 持锁调用
+    private void recordRecovered() {
+        long nanos = System.nanoTime() - lostAtNanos;
+        recoveries++;
+        lastRecoverNanos = nanos;
+        totalRecoverNanos += nanos;
+        if (nanos > maxRecoverNanos) {
+            maxRecoverNanos = nanos;
+        }
+    }
+
+    /**
+     * 第 attempt 次（从 1 开始）重试前的等待时间：d = min(max, base * 2^(attempt-1))，在 [d/2, d] 内随机，
+     * 避免大量连接同时断开后同时重连。
+     */
+    static long backoffNanos(int attempt, long baseNanos, long maxNanos) {
+        int shift = Math.min(Math.max(attempt - 1, 0), 30);
+        long ceiling = baseNanos << shift;
+        if (ceiling <= 0 || ceiling > maxNanos) {
+            ceiling = maxNanos;
+        }
+        long floor = ceiling / 2;
+        return floor + ThreadLocalRandom.current().nextLong(ceiling - floor + 1);
+    }
+
+    /**
+     * 所有运行中的受监管连接。
+     */
+    public static List<ConnectionSupervisor> all() {
+        return ALL;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public boolean hasStandby() {
+        Channel s = standby;
+        return s != null && s.isActive();
+    }
+
+    public long disconnects() {
+        return disconnects;
+    }
+
+    public long recoveries() {
+        return recoveries;
+    }
+
+    public long standbyPromotions() {
+        return standbyPromotions;
+    }
+
+    public long failedAttempts() {
+        return failedAttempts;
+    }
+
+    public long lastRecoverNanos() {
+        return lastRecoverNanos;
+    }
+
+    public long maxRecoverNanos() {
+        return maxRecoverNanos;
+    }
+
+    public long avgRecoverNanos() {
+        long n = recoveries;
+        return n == 0 ? 0L : totalRecoverNanos / n;
+    }
+}
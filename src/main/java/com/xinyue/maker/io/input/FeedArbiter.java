@@ -0,0 +1,315 @@
+package com.xinyue.maker.io.input;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * A/B 冗余行情的先到先得仲裁器。
+ * <p>
+ * 多条连接（leg）订阅同一组流，每条消息在进入 Normalizer 之前先按 (streamKey, sequence) 仲裁：
+ * 只有第一份到达的副本被转发，其余副本丢弃。
+ * <p>
+ * 设计要点：
+ * 1. 仲裁与转发是同一个临界区：每个流一把自旋锁，胜出的 leg 在持锁期间调用 forward（Normalizer 解析并发布 ring slot），
+ *    因此同一个流发布到 ring 的顺序就是仲裁顺序，不会出现 A 赢了 u=1、B 赢了 u=2 却先发布的乱序。
+ *    锁只在不同 leg 同时收到同一个流的消息时竞争，临界区是一次解析 + 发布。
+ * 2. 每个流保留最近 {@link #RECENT} 条已转发记录（序号、到达时间、leg，按转发顺序环形覆盖）。
+ *    序号只有在记录中出现过才判为重复；高于水位的直接转发；低于水位但没转发过的（快的 leg 漏掉、慢的 leg 补上）
+ *    作为补洞转发；比窗口内最小序号还旧的无法判断，按过期丢弃。
+ *    要求序号是交易所全局的、在单条连接内单调递增（Binance depthUpdate 的 u、aggTrade 的 a）。
+ * 3. 流表是定长开放寻址表（AtomicLongArray），首次出现时 CAS 占位，热路径不分配内存。
+ * 4. 重复副本到达时按转发记录计算它落后胜出副本多少纳秒，记入该 leg 的统计（只由该 leg 所在 IO 线程写入）。
+ * <p>
+ * 线程安全：不同 leg 可在不同 IO 线程并发调用 {@link #offer}；同一 leg 只能在一个线程调用
+ * （Netty 中一条连接固定绑定一个 EventLoop，天然满足）。
+ */
+public final class FeedArbiter {
+
+    /**
+     * 流表容量（不同 streamKey 的上限）。
+     */
+    public static final int MAX_STREAMS = 256;
+
+    // 每个流保留的最近转发记录数（必须是 2 的幂）
+    static final int RECENT = 256;
+
+    private static final long EMPTY = 0L;
+
+    private final AtomicLongArray keys = new AtomicLongArray(MAX_STREAMS);
+    // 流锁：0 空闲，1 占用；以下每流状态只在持锁时读写（锁的 CAS / volatile 释放保证可见性）
+    private final AtomicIntegerArray locks = new AtomicIntegerArray(MAX_STREAMS);
+    private final long[] highWater = new long[MAX_STREAMS];
+    private final long[] delivered = new long[MAX_STREAMS];     // 已转发条数，recent* 的写入位置
+    private final long[] recentSeq = new long[MAX_STREAMS * RECENT];
+    private final long[] recentNanos = new long[MAX_STREAMS * RECENT];
+    private final byte[] recentLeg = new byte[MAX_STREAMS * RECENT];
+
+    private final LegStats[] legs;
+
+    public FeedArbiter(int legCount) {
+        if (legCount < 1 || legCount > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("legCount 超出范围: " + legCount);
+        }
+        legs = new LegStats[legCount];
+        for (int i = 0; i < legCount; i++) {
+            legs[i] = new LegStats();
+        }
+        for (int i = 0; i < MAX_STREAMS; i++) {
+            highWater[i] = Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * 仲裁一条消息（只判定，不转发）。
+     *
+     * @param leg       连接编号（0 起）
+     * @param streamKey 流标识（非 0），例如 (消息类型, symbolId) 的组合
+     * @param sequence  流内序号
+     * @return true 表示首次到达，应转发；false 表示重复副本或过期消息，应丢弃
+     */
+    public boolean offer(int leg, long streamKey, long sequence) {
+        return offer(leg, streamKey, sequence, System.nanoTime(), null, null);
+    }
+
+    /**
+     * 仲裁一条消息，首次到达时在流锁内调用 forward.accept(message) 转发，保证同一个流的转发顺序与仲裁顺序一致。
+     * forward 抛出的异常会向上传播（锁已释放，该序号已记为转发）。
+     *
+     * @return true 表示已转发；false 表示重复副本或过期消息，未调用 forward
+     */
+    public <T> boolean offer(int leg, long streamKey, long sequence, T message, Consumer<T> forward) {
+        return offer(leg, streamKey, sequence, System.nanoTime(), message, forward);
+    }
+
+    boolean offer(int leg, long streamKey, long sequence, long nowNanos) {
+        return offer(leg, streamKey, sequence, nowNanos, null, null);
+    }
+
+    private <T> boolean offer(int leg, long streamKey, long sequence, long nowNanos, T message, Consumer<T> forward) {
+        LegStats stats = legs[leg];
+        int stream = streamIndex(streamKey);
+        if (stream < 0) {
+            // 流表已满：不做仲裁直接放行，宁可重复也不丢消息
+            stats.unarbitrated++;
+            if (forward != null) {
+                forward.accept(message);
+            }
+            return true;
+        }
+        lock(stream);
+        try {
+            long high = highWater[stream];
+            if (sequence <= high) {
+                int slot = findDelivered(stream, sequence);
+                if (slot >= 0) {
+                    stats.duplicates++;
+                    if (recentLeg[slot] != leg) {
+                        // 同一 leg 重发（如重连后交易所重放）不计入落后统计
+                        stats.recordLag(nowNanos - recentNanos[slot]);
+                    }
+                    return false;
+                }
+                if (sequence < oldestDelivered(stream)) {
+                    // 早于转发记录窗口，无法判断是否转发过（多半是落后太多的副本）
+                    stats.duplicates++;
+                    stats.lagUnknown++;
+                    return false;
+                }
+                // 窗口内没有转发过：其它 leg 漏掉的消息，由本 leg 补上
+                stats.gapFills++;
+            } else {
+                if (high != Long.MIN_VALUE && sequence > high + 1) {
+                    // 本 leg 胜出时发现序号跳跃（可能由更慢的 leg 补上；真实 gap 由下游 GapDetector 处理）
+                    stats.gapsAhead++;
+                }
+                highWater[stream] = sequence;
+            }
+            int slot = stream * RECENT + (int) (delivered[stream]++ & (RECENT - 1));
+            recentSeq[slot] = sequence;
+            recentNanos[slot] = nowNanos;
+            recentLeg[slot] = (byte) leg;
+            stats.wins++;
+            if (forward != null) {
+                forward.accept(message);
+            }
+            return true;
+        } finally {
+            locks.set(stream, 0);
+        }
+    }
+
+    private void lock(int stream) {
+        while (!locks.compareAndSet(stream, 0, 1)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * 从最近一次转发往前找（重复副本通常只落后几条），返回记录下标，没有转发过返回 -1。
+     */
+    private int findDelivered(int stream, long sequence) {
+        long count = delivered[stream];
+        int n = (int) Math.min(count, RECENT);
+        int base = stream * RECENT;
+        for (int i = 1; i <= n; i++) {
+            int slot = base + (int) ((count - i) & (RECENT - 1));
+            if (recentSeq[slot] == sequence) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private long oldestDelivered(int stream) {
+        long count = delivered[stream];
+        int n = (int) Math.min(count, RECENT);
+        int base = stream * RECENT;
+        long oldest = Long.MAX_VALUE;
+        for (int i = 1; i <= n; i++) {
+            oldest = Math.min(oldest, recentSeq[base + (int) ((count - i) & (RECENT - 1))]);
+        }
+        return oldest;
+    }
+
+    private int streamIndex(long streamKey) {
+        if (streamKey == EMPTY) {
+            throw new IllegalArgumentException("streamKey 不能为 0");
+        }
+        int mask = MAX_STREAMS - 1;
+        int i = (int) mix(streamKey) & mask;
+        for (int probe = 0; probe < MAX_STREAMS; probe++, i = (i + 1) & mask) {
+            long k = keys.get(i);
+            if (k == streamKey) {
+                return i;
+            }
+            if (k == EMPTY) {
+                if (keys.compareAndSet(i, EMPTY, streamKey)) {
+                    return i;
+                }
+                if (keys.get(i) == streamKey) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    public int legCount() {
+        return legs.length;
+    }
+
+    public LegStats leg(int leg) {
+        return legs[leg];
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * 单条 leg 的仲裁统计。只由该 leg 的 IO 线程写入，监控线程读取时允许读到稍旧的值。
+     */
+    public static final class LegStats {
+
+        public static final int BUCKETS = 40;
+
+        // 首先送达（被转发）的消息数
+        long wins;
+        // 丢弃的副本数（已转发过，或早于转发记录窗口）
+        long duplicates;
+        // 重复副本中能算出落后时间的样本
+        long lagSamples;
+        long lagTotalNanos;
+        long lagMaxNanos;
+        // 落后太多、早于转发记录窗口而丢弃的副本
+        long lagUnknown;
+        // 本 leg 胜出时发现序号跳跃的次数
+        long gapsAhead;
+        // 低于水位但其它 leg 没有转发过、由本 leg 补上的消息数（计入 wins）
+        long gapFills;
+        // 流表已满未仲裁直接放行的消息数
+        long unarbitrated;
+        // 落后时间分布：第 i 桶为 [2^i, 2^(i+1)) 纳秒
+        private final long[] lagBuckets = new long[BUCKETS];
+
+        void recordLag(long nanos) {
+            if (nanos < 0) {
+                nanos = 0;
+            }
+            lagSamples++;
+            lagTotalNanos += nanos;
+            if (nanos > lagMaxNanos) {
+                lagMaxNanos = nanos;
+            }
+            lagBuckets[Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(nanos | 1))]++;
+        }
+
+        public long wins() {
+            return wins;
+        }
+
+        public long duplicates() {
+            return duplicates;
+        }
+
+        public long lagSamples() {
+            return lagSamples;
+        }
+
+        public long lagUnknown() {
+            return lagUnknown;
+        }
+
+        public long gapsAhead() {
+            return gapsAhead;
+        }
+
+        public long gapFills() {
+            return gapFills;
+        }
+
+        public long unarbitrated() {
+            return unarbitrated;
+        }
+
+        public long lagMaxNanos() {
+            return lagMaxNanos;
+        }
+
+        public long lagAvgNanos() {
+            long n = lagSamples;
+            return n == 0 ? 0L : lagTotalNanos / n;
+        }
+
+        /**
+         * 领先占比：本 leg 首先送达的消息占其收到消息的比例。
+         */
+        public double leadRatio() {
+            long total = wins + duplicates;
+            return total == 0 ? 0.0 : (double) wins / total;
+        }
+
+        /**
+         * 近似落后时间分位数：返回样本所在桶的上界（纳秒）。
+         */
+        public long lagPercentileNanos(double percentile) {
+            long n = lagSamples;
+            if (n == 0) {
+                return 0L;
+            }
+            long target = (long) Math.ceil(n * percentile);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += lagBuckets[i];
+                if (seen >= target) {
+                    return 1L << (i + 1);
+                }
+            }
+            return lagMaxNanos;
+        }
+    }
+}
@@ -4,8 +4,11 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.xinyue.maker.common.CoreEvent;
 import com.xinyue.maker.common.Exchange;
+import com.xinyue.maker.common.FixedPointParser;
+import com.xinyue.maker.common.SymbolRegistry;
 import com.xinyue.maker.core.lob.ILocalOrderBook;
 import com.xinyue.maker.core.lob.LobManager;
+import org.agrona.collections.Int2ObjectHashMap;
 
 import java.io.IOException;
 import java.net.URI;
@@ -14,8 +17,12 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.util.Deque;
+import java.util.Locale;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 负责 Binance 参考盘口的缺口检测与本地订单簿初始化。
@@ -27,36 +34,52 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * 2. 通过 REST 获取深度快照，直到 lastUpdateId 覆盖到第一条缓存事件的 U；
  * 3. 使用 {@link ILocalOrderBook} 应用快照 + 回放缓冲区事件；
  * 4. 将 bestBid/bestAsk 同步到 {@link LobManager} 的参考盘口快照。
+ * <p>
+ * 按 symbolId 独立维护对齐状态（组合流同时订阅多个参考交易对），某个 symbol 的 gap 重建不影响其它 symbol；
+ * 快照请求在共享的后台线程池中执行。
  */
 public final class GapDetector {
 
-    private static final long SCALE_E8 = 100_000_000L;
-
-    // 目前仅为一个 Binance 币对做 gap 检测（示例：GPSUSDT）。
-    // 如需支持多币对，可扩展为按 symbolId 维护不同的 URL。
-    private static final String BINANCE_DEPTH_URL =
-            "https://api.binance.com/api/v3/depth?symbol=REDUSDT&limit=50";
+    // 快照接口，symbol 按 symbolId 从 SymbolRegistry 取（去掉 '-'，大写）
+    private static final String BINANCE_DEPTH_URL = "https://api.binance.com/api/v3/depth?symbol=%s&limit=50";
 
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
+    // 快照对齐线程池：多个 symbol 同时 gap（如断线恢复）时并发拉快照
+    private static final int BOOTSTRAP_THREADS = 4;
+    private static final AtomicInteger BOOTSTRAP_THREAD_INDEX = new AtomicInteger();
+    private static final ExecutorService BOOTSTRAP_EXECUTOR = Executors.newFixedThreadPool(BOOTSTRAP_THREADS, r -> {
+        Thread t = new Thread(r, "binance-lob-bootstrap-" + BOOTSTRAP_THREAD_INDEX.getAndIncrement());
+        t.setDaemon(true);
+        return t;
+    });
+
     private final LobManager lobManager;
 
+    // symbolId -> 对齐状态（只在 L2 线程查找 / 创建，状态对象本身与后台线程共享）
+    private final Int2ObjectHashMap<SymbolState> states = new Int2ObjectHashMap<>();
+
     /**
-     * 仅用于「启动初始化 / gap 重建」阶段的 WS 增量缓冲。
-     * <p>
-     * 线程模型：
-     * - 主线程（CoreEventHandler）持续 addLast
-     * - 后台线程（binance-lob-bootstrap）pollFirst 回放
-     * 因此必须使用线程安全容器；且回放不能使用 for-each + clear，否则会误删并发新增的事件。
+     * 单个 symbol 的对齐状态。
      */
-    private final Deque<DepthEvent> buffer = new ConcurrentLinkedDeque<>();
-
-    /** 是否已经完成一次「快照 + 回放」对齐（后台线程会写，需可见性）。 */
-    private volatile boolean initialized = false;
-    /** 是否处于对齐阶段（启动 / gap 重建）（后台线程会写，需可见性）。 */
-    private volatile boolean bootstrapping = false;
-    /** 避免重复启动 bootstrap 线程（CAS 门闩）。 */
-    private final AtomicBoolean bootstrapThreadStarted = new AtomicBoolean(false);
+    private static final class SymbolState {
+        /**
+         * 仅用于「启动初始化 / gap 重建」阶段的 WS 增量缓冲。
+         * <p>
+         * 线程模型：
+         * - 主线程（CoreEventHandler）持续 addLast
+         * - 后台线程（binance-lob-bootstrap）pollFirst 回放
+         * 因此必须使用线程安全容器；且回放不能使用 for-each + clear，否则会误删并发新增的事件。
+         */
+        final Deque<DepthEvent> buffer = new ConcurrentLinkedDeque<>();
+
+        /** 是否已经完成一次「快照 + 回放」对齐（后台线程会写，需可见性）。 */
+        volatile boolean initialized = false;
+        /** 是否处于对齐阶段（启动 / gap 重建）（后台线程会写，需可见性）。 */
+        volatile boolean bootstrapping = false;
+        /** 避免重复提交 bootstrap 任务（CAS 门闩）。 */
+        final AtomicBoolean bootstrapThreadStarted = new AtomicBoolean(false);
+    }
 
     private final HttpClient httpClient = HttpClient.newBuilder()
             .connectTimeout(Duration.ofSeconds(3))
@@ -90,19 +113,20 @@ public final class GapDetector {
         final ILocalOrderBook localOrderBook = lobManager.getOrderBook(exchange, symbolId);
 
         final DepthEvent depthEvent = toDepthEvent(event);
+        final SymbolState state = state(symbolId);
 
         // 1) 启动 / 重建阶段：只缓冲，等待后台线程完成「快照 + 回放」对齐
-        maybeBuffer(depthEvent);
+        maybeBuffer(state, depthEvent);
 
-        // 启动阶段：本地簿未对齐 -> 起 bootstrap 线程并返回（不做增量 apply）
-        if (!initialized) {
-            ensureBootstrapStarted(exchange, symbolId);
+        // 启动阶段：本地簿未对齐 -> 提交 bootstrap 任务并返回（不做增量 apply）
+        if (!state.initialized) {
+            ensureBootstrapStarted(state, exchange, symbolId);
             return false;
         }
 
         // bootstrap 结束到下一条事件之间，buffer 可能残留（竞态窗口新增）
         // 在进入正常增量 apply 前先 drain 一次，避免丢事件/顺序错位
-        if (!bootstrapping) drainIfNeeded(exchange, symbolId);
+        if (!state.bootstrapping) drainIfNeeded(state, exchange, symbolId);
 
         // 正常运行阶段：增量 apply（若返回 false 表示发现 gap）
         final boolean ok = localOrderBook.applyEvent(
@@ -113,7 +137,7 @@ public final class GapDetector {
         );
 
         if (!ok) {
-            onIncrementalGap(exchange, symbolId, localOrderBook, depthEvent);
+            onIncrementalGap(state, exchange, symbolId, localOrderBook, depthEvent);
             return false;
         }
 
@@ -167,7 +191,8 @@ public final class GapDetector {
      *
      * @return true 对齐成功（允许切到增量），false 对齐失败（保持 initialized=false，等待后续重试）
      */
-    private boolean bootstrapOrderBookFromRestAndBuffer(Exchange exchange, short symbolId) throws IOException, InterruptedException {
+    private boolean bootstrapOrderBookFromRestAndBuffer(SymbolState state, Exchange exchange, short symbolId) throws IOException, InterruptedException {
+        final Deque<DepthEvent> buffer = state.buffer;
         DepthEvent firstEvent = buffer.peekFirst();
         if (firstEvent == null) return false;
         long firstU = firstEvent.firstUpdateId;
@@ -177,7 +202,7 @@ public final class GapDetector {
 
         // 1) REST 拉快照，直到 lastUpdateId 覆盖到第一条缓冲事件的 U
         while (true) {
-            snapshot = fetchSnapshot();
+            snapshot = fetchSnapshot(symbolId);
             lastUpdateId = snapshot.lastUpdateId;
             if (lastUpdateId >= firstU) {
                 break;
@@ -225,7 +250,8 @@ public final class GapDetector {
      * 在切回正常增量路径前，把残留的 buffer 再回放一次。
      * 只会在 initialized=true && bootstrapping=false 的场景触发，属于小概率竞态兜底。
      */
-    private void drainBufferIntoOrderBook(Exchange exchange, short symbolId) {
+    private void drainBufferIntoOrderBook(SymbolState state, Exchange exchange, short symbolId) {
+        final Deque<DepthEvent> buffer = state.buffer;
         ILocalOrderBook localOrderBook = lobManager.getOrderBook(exchange, symbolId);
         while (true) {
             DepthEvent e = buffer.pollFirst();
@@ -243,39 +269,45 @@ public final class GapDetector {
                 localOrderBook.reset();
                 buffer.clear();
                 buffer.addLast(e);
-                initialized = false;
-                bootstrapping = true;
-                startBootstrapThread(exchange, symbolId);
+                state.initialized = false;
+                state.bootstrapping = true;
+                startBootstrapThread(state, exchange, symbolId);
                 return;
             }
         }
     }
 
     /**
-     * 简化版：直接起一个后台线程跑 bootstrap，主线程继续往 buffer 加事件。
-     * 对齐完成后后台线程负责把 initialized/bootstrapping 状态翻转。
+     * 向后台线程池提交 bootstrap 任务，主线程继续往 buffer 加事件。
+     * 对齐完成后后台线程负责把该 symbol 的 initialized/bootstrapping 状态翻转。
      */
-    private void startBootstrapThread(Exchange exchange, short symbolId) {
-        if (!bootstrapThreadStarted.compareAndSet(false, true)) {
+    private void startBootstrapThread(SymbolState state, Exchange exchange, short symbolId) {
+        if (!state.bootstrapThreadStarted.compareAndSet(false, true)) {
             return;
         }
-        //todo  改成线程池
-        Thread t = new Thread(() -> {
+        BOOTSTRAP_EXECUTOR.execute(() -> {
             try {
-                boolean ok = bootstrapOrderBookFromRestAndBuffer(exchange, symbolId);
+                boolean ok = bootstrapOrderBookFromRestAndBuffer(state, exchange, symbolId);
                 // 只有对齐成功才切到增量逻辑
-                initialized = ok;
+                state.initialized = ok;
             } catch (Throwable e) {
-                System.err.println("bootstrap 本地订单簿失败: " + e.getMessage());
+                System.err.println("bootstrap 本地订单簿失败 symbolId=" + symbolId + ": " + e.getMessage());
                 // 失败时允许后续事件再次触发重试
-                initialized = false;
+                state.initialized = false;
             } finally {
-                bootstrapping = false;
-                bootstrapThreadStarted.set(false);
+                state.bootstrapping = false;
+                state.bootstrapThreadStarted.set(false);
             }
-        }, "binance-lob-bootstrap");
-        t.setDaemon(true);
-        t.start();
+        });
+    }
+
+    private SymbolState state(short symbolId) {
+        SymbolState state = states.get(symbolId);
+        if (state == null) {
+            state = new SymbolState();
+            states.put(symbolId, state);
+        }
+        return state;
     }
 
     private boolean isBinance(short exchangeId) {
@@ -305,45 +337,49 @@ public final class GapDetector {
         return new int[]{bidCount, askCount};
     }
 
-    private void maybeBuffer(DepthEvent depthEvent) {
-        if (!initialized || bootstrapping) {
-            buffer.addLast(depthEvent);
+    private void maybeBuffer(SymbolState state, DepthEvent depthEvent) {
+        if (!state.initialized || state.bootstrapping) {
+            state.buffer.addLast(depthEvent);
         }
     }
 
-    private void ensureBootstrapStarted(Exchange exchange, short symbolId) {
-        if (!bootstrapping) {
-            bootstrapping = true;
-            startBootstrapThread(exchange, symbolId);
+    private void ensureBootstrapStarted(SymbolState state, Exchange exchange, short symbolId) {
+        if (!state.bootstrapping) {
+            state.bootstrapping = true;
+            startBootstrapThread(state, exchange, symbolId);
         }
     }
 
-    private void drainIfNeeded(Exchange exchange, short symbolId) {
-        if (!buffer.isEmpty()) {
-            drainBufferIntoOrderBook(exchange, symbolId);
+    private void drainIfNeeded(SymbolState state, Exchange exchange, short symbolId) {
+        if (!state.buffer.isEmpty()) {
+            drainBufferIntoOrderBook(state, exchange, symbolId);
         }
     }
 
-    private void onIncrementalGap(Exchange exchange, short symbolId, ILocalOrderBook localOrderBook, DepthEvent currentEvent) {
+    private void onIncrementalGap(SymbolState state, Exchange exchange, short symbolId, ILocalOrderBook localOrderBook, DepthEvent currentEvent) {
         // 发现 gap：本地簿不可信，进入重建流程
         localOrderBook.reset();
-        buffer.clear();
-        buffer.addLast(currentEvent);
-        initialized = false;
-        bootstrapping = true;
-        startBootstrapThread(exchange, symbolId);
+        state.buffer.clear();
+        state.buffer.addLast(currentEvent);
+        state.initialized = false;
+        state.bootstrapping = true;
+        startBootstrapThread(state, exchange, symbolId);
     }
 
-    private Snapshot fetchSnapshot() throws IOException, InterruptedException {
+    private Snapshot fetchSnapshot(short symbolId) throws IOException, InterruptedException {
+        String symbol = SymbolRegistry.getInstance().getSymbol(symbolId);
+        if (symbol == null) {
+            throw new IOException("未注册的 symbolId=" + symbolId);
+        }
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(BINANCE_DEPTH_URL))
+                .uri(URI.create(String.format(BINANCE_DEPTH_URL, symbol.replace("-", "").toUpperCase(Locale.ROOT))))
                 .timeout(Duration.ofSeconds(3))
                 .GET()
                 .build();
 
         HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
         if (response.statusCode() != 200) {
-            throw new IOException("调用 Binance depth 接口失败, status=" + response.statusCode());
+            throw new IOException("调用 Binance depth 接口失败, symbol=" + symbol + ", status=" + response.statusCode());
         }
 
         JsonNode root = OBJECT_MAPPER.readTree(response.body());
@@ -389,25 +425,7 @@ public final class GapDetector {
         if (decimalStr == null || decimalStr.isEmpty()) {
             return 0L;
         }
-        int dotIndex = decimalStr.indexOf('.');
-        if (dotIndex == -1) {
-            long integerPart = Long.parseLong(decimalStr);
-            return integerPart * SCALE_E8;
-        }
-        String integerPartStr = decimalStr.substring(0, dotIndex);
-        String fractionalPartStr = decimalStr.substring(dotIndex + 1);
-        long integerPart = integerPartStr.isEmpty() ? 0L : Long.parseLong(integerPartStr);
-        if (fractionalPartStr.isEmpty()) {
-            return integerPart * SCALE_E8;
-        }
-        int fractionalDigits = fractionalPartStr.length();
-        if (fractionalDigits > 8) {
-            fractionalPartStr = fractionalPartStr.substring(0, 8);
-            fractionalDigits = 8;
-        }
-        long fractionalPart = Long.parseLong(fractionalPartStr);
-        long scale = (long) Math.pow(10, 8 - fractionalDigits);
-        return integerPart * SCALE_E8 + fractionalPart * scale;
+        return FixedPointParser.parseE8(decimalStr);
     }
 
 
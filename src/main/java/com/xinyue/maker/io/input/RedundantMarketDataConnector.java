@@ -0,0 +1,92 @@
+package com.xinyue.maker.io.input;
+
+import com.xinyue.maker.common.Exchange;
+import com.xinyue.maker.io.MarketDataConnector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A/B 冗余行情连接器：同一交易所开多条独立连接（leg，可指向不同 endpoint / 网络路径），
+ * 每条消息先由共享的 {@link FeedArbiter} 仲裁，只有第一份到达的副本进入 Normalizer。
+ * <p>
+ * 对外表现为一个普通的 {@link MarketDataConnector}；单条 leg 启动失败不影响其它 leg。
+ */
+public final class RedundantMarketDataConnector implements MarketDataConnector {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RedundantMarketDataConnector.class);
+
+    private final Exchange exchange;
+    private final FeedArbiter arbiter;
+    private final List<MarketDataConnector> legs;
+
+    /**
+     * @param legs 按 leg 编号排列的连接器，必须已绑定同一个 arbiter
+     */
+    public RedundantMarketDataConnector(Exchange exchange, FeedArbiter arbiter, List<MarketDataConnector> legs) {
+        if (legs.size() != arbiter.legCount()) {
+            throw new IllegalArgumentException("leg 数量与仲裁器不一致: " + legs.size() + " != " + arbiter.legCount());
+        }
+        this.exchange = exchange;
+        this.arbiter = arbiter;
+        this.legs = List.copyOf(legs);
+    }
+
+    @Override
+    public Exchange exchange() {
+        return exchange;
+    }
+
+    @Override
+    public boolean referenceOnly() {
+        return legs.get(0).referenceOnly();
+    }
+
+    @Override
+    public void start() {
+        int started = 0;
+        for (int i = 0; i < legs.size(); i++) {
+            try {
+                legs.get(i).start();
+                started++;
+            } catch (Exception e) {
+                LOG.error("冗余行情 {} leg {} 启动失败", exchange, i, e);
+            }
+        }
+        if (started == 0) {
+            throw new IllegalStateException("冗余行情 " + exchange + " 所有 leg 均启动失败");
+        }
+        LOG.info("冗余行情 {} 已启动 {}/{} 条 leg", exchange, started, legs.size());
+    }
+
+    @Override
+    public void stop() {
+        for (MarketDataConnector leg : legs) {
+            try {
+                leg.stop();
+            } catch (Exception e) {
+                LOG.warn("冗余行情 {} leg 关闭失败", exchange, e);
+            }
+        }
+    }
+
+    /**
+     * 各 leg 订阅同一组 symbol，仲裁才有意义。
+     */
+    @Override
+    public void updateSymbols(Set<String> symbols) {
+        for (MarketDataConnector leg : legs) {
+            leg.updateSymbols(symbols);
+        }
+    }
+
+    public FeedArbiter arbiter() {
+        return arbiter;
+    }
+
+    public List<MarketDataConnector> legs() {
+        return legs;
+    }
+}
@@ -3,43 +3,129 @@ package com.xinyue.maker.io.input.binance;
 import com.xinyue.maker.common.CoreEvent;
 import com.xinyue.maker.common.CoreEventType;
 import com.xinyue.maker.common.Exchange;
+import com.xinyue.maker.common.RawIdResolver;
+import com.xinyue.maker.common.SymbolRegistry;
+import com.xinyue.maker.config.TransportConfig;
 import com.lmax.disruptor.RingBuffer;
 import com.xinyue.maker.io.MarketDataConnector;
+import com.xinyue.maker.io.NettyTransport;
 import com.xinyue.maker.io.Normalizer;
+import com.xinyue.maker.io.input.ConnectionSupervisor;
+import com.xinyue.maker.io.input.FeedArbiter;
+import com.xinyue.maker.io.parser.BinanceSequenceScanner;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
-import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.HttpClientCodec;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.websocketx.WebSocketClientHandshaker;
 import io.netty.handler.codec.http.websocketx.WebSocketClientHandshakerFactory;
 import io.netty.handler.codec.http.websocketx.WebSocketVersion;
-import io.netty.handler.codec.http.websocketx.extensions.compression.WebSocketClientCompressionHandler;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import javax.net.ssl.SSLException;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Binance 行情连接器，实现参考行情接入。
+ * <p>
+ * 使用组合流（/stream）：多个 symbol 的 depth@100ms + aggTrade 复用少量连接，运行期按需 SUBSCRIBE / UNSUBSCRIBE：
+ * 1. 订阅集合由 {@link #updateSymbols(Set)} 给出（通常由 StrategyEngine 按当前启用的策略汇总），与当前集合做差量
+ * 2. 新 symbol 按 {@link StreamBalancer} 分配到负载（实测消息速率）最低、未超出预算的连接，必要时新开连接
+ * 3. 每 io.binance.rebalanceSeconds 按实测速率重新均衡；迁移时先在新连接订阅，
+ *    重叠 {@link #MIGRATION_OVERLAP_MILLIS} 后再退订旧连接（重叠期间重复的 depthUpdate 会被本地簿按 u 忽略）
+ * <p>
+ * 每条连接由 {@link ConnectionSupervisor} 监管：断线后切换备用连接或按退避重连并重放该连接的订阅；
+ * 断线期间丢失的 depthUpdate 由 GapDetector 通过 U/u 不连续发现并按 symbol 重新对齐参考簿。
+ * <p>
+ * 订阅状态只在调度线程 binance-streams 上修改，调用方线程（L2 / 启动线程）不会被建连阻塞。
  */
 public final class BinanceMarketDataConnector implements MarketDataConnector {
 
-    private static final URI BINANCE_WS_URI = URI.create("wss://stream.binance.com:443/ws");
+    private static final Logger LOG = LoggerFactory.getLogger(BinanceMarketDataConnector.class);
+
+    private static final URI BINANCE_WS_URI = URI.create("wss://stream.binance.com:443/stream");
+
+    // 策略尚未给出订阅集合前的默认参考交易对
+    private static final Set<String> DEFAULT_SYMBOLS = Set.of("REDUSDT");
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 3000;
+    private static final long HANDSHAKE_TIMEOUT_MILLIS = 5000;
+
+    // 开启 permessage-deflate 时单条消息解压后的上限
+    private static final int MAX_INFLATED_MESSAGE_BYTES = 1024 * 1024;
+
+    // 尚无实测数据的 symbol 的预估速率（条/秒）：depth@100ms 最多 10 条/秒，加上 aggTrade
+    private static final double DEFAULT_SYMBOL_RATE = 20.0;
+    // 实测速率的指数平滑系数
+    private static final double RATE_SMOOTHING = 0.5;
+    // symbol 迁移时新旧连接的重叠时间
+    private static final long MIGRATION_OVERLAP_MILLIS = 1000;
+
+    private static final AtomicInteger THREAD_INDEX = new AtomicInteger();
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "binance-streams-" + THREAD_INDEX.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+    });
 
     private final Normalizer normalizer;
-    private EventLoopGroup eventLoopGroup;
-    private Channel channel;
+    private final URI uri;
+    private final FeedArbiter arbiter;
+    private final int leg;
+    private final TransportConfig config;
+
+    // === 以下状态只在 SCHEDULER 线程读写（connections 允许监控线程读取） ===
+    private final List<BinanceStreamConnection> connections = new CopyOnWriteArrayList<>();
+    private StreamBalancer balancer;
+    private Set<String> desired = DEFAULT_SYMBOLS;
+    private final Map<String, Double> rates = new HashMap<>();
+    private boolean running;
+    private ScheduledFuture<?> rebalanceTask;
+    private long lastSampleNanos;
 
     public BinanceMarketDataConnector(Normalizer normalizer) {
+        this(normalizer, BINANCE_WS_URI, null, 0);
+    }
+
+    /**
+     * 冗余行情模式下的一条连接（leg）：连接指定 endpoint，消息先经 arbiter 仲裁再进入 Normalizer。
+     *
+     * @param arbiter 为 null 时等同于单连接模式
+     */
+    public BinanceMarketDataConnector(Normalizer normalizer, URI uri, FeedArbiter arbiter, int leg) {
         this.normalizer = normalizer;
+        this.uri = uri;
+        this.arbiter = arbiter;
+        this.leg = leg;
+        this.config = NettyTransport.getInstance().config();
+        this.balancer = newBalancer();
+        DEFAULT_SYMBOLS.forEach(SymbolRegistry.getInstance()::register);
     }
 
     @Override
@@ -52,53 +138,249 @@ public final class BinanceMarketDataConnector implements MarketDataConnector {
         return true;
     }
 
+    /**
+     * 建立首批连接并订阅当前 symbol 集合（阻塞），首条连接失败直接抛出。
+     */
     @Override
-    public synchronized void start() {
-        if (channel != null && channel.isActive()) {
+    public void start() {
+        await(SCHEDULER.submit(() -> {
+            if (running) {
+                return null;
+            }
+            running = true;
+            lastSampleNanos = System.nanoTime();
+            try {
+                apply(desired, Set.of(), true);
+            } catch (Exception e) {
+                closeAll();
+                running = false;
+                throw new IllegalStateException("初始化 Binance WebSocket 失败", e);
+            }
+            rebalanceTask = SCHEDULER.scheduleAtFixedRate(this::rebalance,
+                    config.binanceRebalanceSeconds, config.binanceRebalanceSeconds, TimeUnit.SECONDS);
+            return null;
+        }));
+    }
+
+    @Override
+    public void stop() {
+        await(SCHEDULER.submit(() -> {
+            running = false;
+            if (rebalanceTask != null) {
+                rebalanceTask.cancel(false);
+                rebalanceTask = null;
+            }
+            closeAll();
+            return null;
+        }));
+    }
+
+    /**
+     * 设置需要订阅的 symbol 集合（Binance 交易对，如 BTCUSDT），与当前集合做差量订阅 / 退订。
+     * 异步执行，可在任意线程调用；未启动时只记录，启动时订阅。
+     */
+    @Override
+    public void updateSymbols(Set<String> symbols) {
+        Set<String> next = new LinkedHashSet<>();
+        for (String symbol : symbols) {
+            String s = symbol.replace("-", "").toUpperCase(Locale.ROOT);
+            // 运行时注册，Normalizer / 仲裁器按 "s" 字段解析到 symbolId
+            SymbolRegistry.getInstance().register(s);
+            next.add(s);
+        }
+        SCHEDULER.execute(() -> {
+            Set<String> previous = desired;
+            desired = Set.copyOf(next);
+            if (!running) {
+                return;
+            }
+            try {
+                apply(desired, previous, false);
+            } catch (Exception e) {
+                LOG.error("Binance 订阅变更失败", e);
+            }
+        });
+    }
+
+    // SCHEDULER 线程：对 previous -> target 做差量；strict 为 true 时（启动）建连失败直接抛出
+    private void apply(Set<String> target, Set<String> previous, boolean strict) throws Exception {
+        Map<Integer, List<String>> removed = new TreeMap<>();
+        for (String symbol : previous) {
+            if (!target.contains(symbol)) {
+                int index = balancer.remove(symbol);
+                if (index >= 0) {
+                    removed.computeIfAbsent(index, k -> new ArrayList<>()).add(symbol);
+                }
+            }
+        }
+        Map<Integer, List<String>> added = new TreeMap<>();
+        for (String symbol : target) {
+            if (balancer.connectionOf(symbol) >= 0) {
+                continue;
+            }
+            int index = balancer.place(symbol, rates.getOrDefault(symbol, DEFAULT_SYMBOL_RATE));
+            if (index < 0) {
+                LOG.warn("Binance 组合流连接已订满（{} 条 x {} 个 stream），无法订阅 {}",
+                        config.binanceMaxConnections, config.binanceStreamsPerConnection, symbol);
+                continue;
+            }
+            added.computeIfAbsent(index, k -> new ArrayList<>()).add(symbol);
+        }
+        removed.forEach((index, symbols) -> connections.get(index).unsubscribe(symbols));
+        for (Map.Entry<Integer, List<String>> e : added.entrySet()) {
+            BinanceStreamConnection connection = connection(e.getKey());
+            connection.subscribe(e.getValue());
+            ensureStarted(connection, strict);
+        }
+        if (!removed.isEmpty() || !added.isEmpty()) {
+            LOG.info("Binance 组合流订阅变更：新增 {}，退订 {}，连接数 {}", added, removed, connections.size());
+        }
+    }
+
+    // SCHEDULER 线程：按实测速率更新负载并迁移 symbol
+    private void rebalance() {
+        try {
+            long now = System.nanoTime();
+            double seconds = (now - lastSampleNanos) / 1e9;
+            lastSampleNanos = now;
+            for (String symbol : desired) {
+                int index = balancer.connectionOf(symbol);
+                if (index < 0 || index >= connections.size()) {
+                    continue;
+                }
+                BinanceStreamConnection.SymbolCounter counter = connections.get(index).counter(symbol);
+                if (counter == null || seconds <= 0) {
+                    continue;
+                }
+                long total = counter.messages;
+                double sample = (total - counter.sampled) / seconds;
+                counter.sampled = total;
+                double rate = rates.getOrDefault(symbol, DEFAULT_SYMBOL_RATE);
+                rate += RATE_SMOOTHING * (sample - rate);
+                rates.put(symbol, rate);
+                balancer.updateRate(symbol, rate);
+            }
+            // 之前建连失败的连接在这里重试
+            for (BinanceStreamConnection connection : connections) {
+                ensureStarted(connection, false);
+            }
+            for (StreamBalancer.Move move : balancer.rebalance()) {
+                migrate(move);
+            }
+        } catch (Exception e) {
+            LOG.error("Binance 组合流重新均衡失败", e);
+        }
+    }
+
+    private void migrate(StreamBalancer.Move move) throws Exception {
+        BinanceStreamConnection from = connections.get(move.from());
+        BinanceStreamConnection to = connection(move.to());
+        List<String> symbol = List.of(move.symbol());
+        to.subscribe(symbol);
+        ensureStarted(to, false);
+        LOG.info("Binance 组合流迁移 {}：连接 {} -> {}（负载 {} -> {} 条/秒）", move.symbol(), move.from(), move.to(),
+                Math.round(balancer.load(move.from())), Math.round(balancer.load(move.to())));
+        SCHEDULER.schedule(() -> {
+            // 重叠期内又迁回原连接时不退订
+            if (balancer.connectionOf(move.symbol()) != move.from()) {
+                from.unsubscribe(symbol);
+            }
+        }, MIGRATION_OVERLAP_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    // 取编号为 index 的连接，不存在时创建（尚未建连）
+    private BinanceStreamConnection connection(int index) {
+        while (connections.size() <= index) {
+            BinanceStreamConnection connection = new BinanceStreamConnection(connections.size());
+            connection.bind(new ConnectionSupervisor(
+                    "binance-" + uri.getHost() + "-" + leg + "-" + connection.index(), new Link(connection), config));
+            connections.add(connection);
+        }
+        return connections.get(index);
+    }
+
+    private void ensureStarted(BinanceStreamConnection connection, boolean strict) throws Exception {
+        if (connection.started() || connection.symbols().isEmpty()) {
             return;
         }
         try {
-            bootstrapNetty();
-        } catch (SSLException e) {
-            throw new IllegalStateException("初始化 Binance WebSocket 失败", e);
+            connection.start();
+        } catch (Exception e) {
+            if (strict) {
+                throw e;
+            }
+            LOG.warn("Binance 组合流连接 {} 建立失败，下次均衡时重试: {}", connection.index(), e.toString());
         }
     }
 
-    @Override
-    public synchronized void stop() {
-        if (channel != null) {
-            channel.close();
-            channel = null;
+    private void closeAll() {
+        for (BinanceStreamConnection connection : connections) {
+            connection.close();
         }
-        if (eventLoopGroup != null) {
-            eventLoopGroup.shutdownGracefully();
-            eventLoopGroup = null;
+        connections.clear();
+        balancer = newBalancer();
+    }
+
+    private StreamBalancer newBalancer() {
+        // 每个 symbol 占 depth + aggTrade 两个 stream
+        return new StreamBalancer(config.binanceStreamsPerConnection / 2,
+                config.binanceConnectionMessageRate, config.binanceMaxConnections);
+    }
+
+    private static void await(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待 Binance 连接器任务被中断", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
         }
     }
 
-    private void bootstrapNetty() throws SSLException {
-        String scheme = BINANCE_WS_URI.getScheme();
-        String host = BINANCE_WS_URI.getHost();
-        int port = BINANCE_WS_URI.getPort() == -1 ? 443 : BINANCE_WS_URI.getPort();
+    /**
+     * 当前订阅的 symbol 集合。
+     */
+    public Set<String> symbols() {
+        return desired;
+    }
+
+    /**
+     * 当前组合流连接数。
+     */
+    public int connectionCount() {
+        return connections.size();
+    }
+
+    /**
+     * 建立一条已握手的连接（阻塞），失败或超时抛出异常。
+     */
+    private Channel connect(BinanceStreamConnection streams) throws SSLException {
+        String scheme = uri.getScheme();
         boolean ssl = "wss".equalsIgnoreCase(scheme);
+        String host = uri.getHost();
+        int port = uri.getPort() == -1 ? (ssl ? 443 : 80) : uri.getPort();
         SslContext sslCtx = ssl ? SslContextBuilder.forClient().build() : null;
 
-        eventLoopGroup = new NioEventLoopGroup(1);
-
         WebSocketClientHandshaker handshaker = WebSocketClientHandshakerFactory.newHandshaker(
-                BINANCE_WS_URI,
+                uri,
                 WebSocketVersion.V13,
                 null,
                 true,
                 new DefaultHttpHeaders()
         );
 
-        BinanceWebSocketClientHandler handler = new BinanceWebSocketClientHandler(handshaker, normalizer, Exchange.BINANCE);
+        BinanceSequenceScanner scanner = arbiter == null ? null
+                : new BinanceSequenceScanner(RawIdResolver.forSymbols(SymbolRegistry.getInstance()));
+        BinanceWebSocketClientHandler handler = new BinanceWebSocketClientHandler(
+                handshaker, normalizer, Exchange.BINANCE, arbiter, leg, scanner, streams);
 
-        Bootstrap bootstrap = new Bootstrap()
-                .group(eventLoopGroup)
-                .channel(NioSocketChannel.class)
-                .option(ChannelOption.TCP_NODELAY, true)
+        // 共享 IO 线程池与统一 socket 参数（见 NettyTransport）
+        Bootstrap bootstrap = NettyTransport.getInstance().bootstrap()
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, CONNECT_TIMEOUT_MILLIS)
                 .handler(new ChannelInitializer<Channel>() {
                     @Override
                     protected void initChannel(Channel ch) throws Exception {
@@ -108,15 +390,48 @@ public final class BinanceMarketDataConnector implements MarketDataConnector {
                         }
                         pipeline.addLast(
                                 new HttpClientCodec(),
-                                new HttpObjectAggregator(8192),
-                                WebSocketClientCompressionHandler.INSTANCE,
-                                handler
+                                new HttpObjectAggregator(8192)
                         );
+                        ChannelHandler deflate = NettyTransport.getInstance()
+                                .deflateHandler(Exchange.BINANCE, MAX_INFLATED_MESSAGE_BYTES);
+                        if (deflate != null) {
+                            pipeline.addLast(deflate);
+                        }
+                        pipeline.addLast(handler);
                     }
                 });
 
-        channel = bootstrap.connect(host, port).syncUninterruptibly().channel();
-        handler.handshakeFuture().syncUninterruptibly();
+        Channel ch = bootstrap.connect(host, port).syncUninterruptibly().channel();
+        ChannelFuture handshake = handler.handshakeFuture();
+        if (!handshake.awaitUninterruptibly(HANDSHAKE_TIMEOUT_MILLIS) || !handshake.isSuccess()) {
+            ch.close();
+            throw new IllegalStateException("Binance WebSocket 握手失败", handshake.cause());
+        }
+        return ch;
+    }
+
+    private final class Link implements ConnectionSupervisor.Link {
+
+        private final BinanceStreamConnection streams;
+
+        Link(BinanceStreamConnection streams) {
+            this.streams = streams;
+        }
+
+        @Override
+        public Channel open() throws Exception {
+            return connect(streams);
+        }
+
+        @Override
+        public void activate(Channel channel) {
+            streams.activate(channel);
+        }
+
+        @Override
+        public void onLost() {
+            // 参考簿由 GapDetector 在数据恢复后按 U/u 不连续自动重建
+        }
     }
 
     public void publishMockTick(RingBuffer<CoreEvent> ringBuffer) {
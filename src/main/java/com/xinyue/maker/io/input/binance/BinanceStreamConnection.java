@@ -0,0 +1,230 @@
+package com.xinyue.maker.io.input.binance;
+
+import com.xinyue.maker.io.input.ConnectionSupervisor;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import org.agrona.collections.Long2ObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binance 组合流（/stream）上的一条受监管连接：维护本连接订阅的 symbol 集合，
+ * 负责发送 SUBSCRIBE / UNSUBSCRIBE，并按 stream 名统计每个 symbol 的消息数（用于按速率分摊连接）。
+ * <p>
+ * 每个 symbol 订阅两个 stream：&lt;symbol&gt;@depth@100ms 与 &lt;symbol&gt;@aggTrade。
+ * 交易所限制每条连接每秒最多 5 条控制消息，因此：
+ * 1. 一次变更的所有 symbol 合并成一条消息
+ * 2. 相邻两条控制消息至少间隔 {@link #CONTROL_INTERVAL_NANOS}，不足时在 IO 线程上延迟发送
+ * <p>
+ * 线程模型：订阅变更由连接器的调度线程调用；{@link #onMessage(ByteBuf)} 在本连接的 IO 线程调用，
+ * 计数表按写时复制发布，IO 线程查表不加锁、不分配内存。
+ */
+final class BinanceStreamConnection {
+
+    private static final long CONTROL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    // 组合流消息前缀：{"stream":"btcusdt@depth@100ms","data":{...}}
+    private static final byte[] STREAM_PREFIX = "{\"stream\":\"".getBytes(java.nio.charset.StandardCharsets.US_ASCII);
+
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    /**
+     * 单个 symbol 在本连接上的消息计数（只有本连接的 IO 线程写）。
+     */
+    static final class SymbolCounter {
+        final String symbol;
+        volatile long messages;
+        // 上次采样时的计数（只有调度线程读写）
+        long sampled;
+
+        SymbolCounter(String symbol) {
+            this.symbol = symbol;
+        }
+    }
+
+    private final int index;
+    private ConnectionSupervisor supervisor;
+    private boolean started;
+
+    // 本连接订阅的 symbol（大写）；断线恢复时由 IO / 重连线程读取并整体重放
+    private final Set<String> symbols = ConcurrentHashMap.newKeySet();
+    // stream 名中 symbol 部分（小写）的哈希 -> 计数器，写时复制
+    private volatile Long2ObjectHashMap<SymbolCounter> counters = new Long2ObjectHashMap<>();
+
+    private volatile long unmatchedMessages;
+    private long nextRequestId = 1;
+    private long nextControlNanos;
+
+    BinanceStreamConnection(int index) {
+        this.index = index;
+    }
+
+    void bind(ConnectionSupervisor supervisor) {
+        this.supervisor = supervisor;
+    }
+
+    /**
+     * 建立连接并订阅当前 symbol 集合（阻塞到首次连接完成），失败抛出异常，可重试。
+     */
+    void start() throws Exception {
+        supervisor.start();
+        started = true;
+    }
+
+    void close() {
+        started = false;
+        supervisor.close();
+    }
+
+    boolean started() {
+        return started;
+    }
+
+    int index() {
+        return index;
+    }
+
+    Set<String> symbols() {
+        return symbols;
+    }
+
+    /**
+     * 增加订阅：更新 symbol 集合，连接可用时立即发送一条 SUBSCRIBE；
+     * 断线恢复期间只更新集合，由 {@link #activate(Channel)} 重放。
+     */
+    void subscribe(Collection<String> added) {
+        List<String> fresh = new ArrayList<>(added.size());
+        Long2ObjectHashMap<SymbolCounter> next = new Long2ObjectHashMap<>(counters);
+        for (String symbol : added) {
+            if (symbols.add(symbol)) {
+                fresh.add(symbol);
+                next.put(hash(symbol), new SymbolCounter(symbol));
+            }
+        }
+        counters = next;
+        if (!fresh.isEmpty()) {
+            send("SUBSCRIBE", fresh);
+        }
+    }
+
+    /**
+     * 取消订阅并移除计数器。
+     */
+    void unsubscribe(Collection<String> removed) {
+        List<String> gone = new ArrayList<>(removed.size());
+        Long2ObjectHashMap<SymbolCounter> next = new Long2ObjectHashMap<>(counters);
+        for (String symbol : removed) {
+            if (symbols.remove(symbol)) {
+                gone.add(symbol);
+                next.remove(hash(symbol));
+            }
+        }
+        counters = next;
+        if (!gone.isEmpty()) {
+            send("UNSUBSCRIBE", gone);
+        }
+    }
+
+    /**
+     * 连接成为活动连接（首次连接 / 备用切换 / 重连）后重放全部订阅。
+     */
+    void activate(Channel channel) {
+        List<String> all = new ArrayList<>(symbols);
+        if (!all.isEmpty()) {
+            channel.writeAndFlush(new TextWebSocketFrame(payload("SUBSCRIBE", all, 0)));
+        }
+    }
+
+    private void send(String method, List<String> changed) {
+        Channel channel = supervisor == null ? null : supervisor.channel();
+        if (channel == null || !channel.isActive()) {
+            return;
+        }
+        String payload = payload(method, changed, nextRequestId++);
+        long now = System.nanoTime();
+        long sendAt = Math.max(now, nextControlNanos);
+        nextControlNanos = sendAt + CONTROL_INTERVAL_NANOS;
+        if (sendAt == now) {
+            channel.writeAndFlush(new TextWebSocketFrame(payload));
+        } else {
+            channel.eventLoop().schedule(() -> channel.writeAndFlush(new TextWebSocketFrame(payload)),
+                    sendAt - now, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    static String payload(String method, List<String> symbols, long id) {
+        StringBuilder sb = new StringBuilder(64 + symbols.size() * 48);
+        sb.append("{\"method\":\"").append(method).append("\",\"params\":[");
+        for (int i = 0; i < symbols.size(); i++) {
+            String s = symbols.get(i).toLowerCase(Locale.ROOT);
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append('"').append(s).append("@depth@100ms\",\"").append(s).append("@aggTrade\"");
+        }
+        return sb.append("],\"id\":").append(id).append('}').toString();
+    }
+
+    /**
+     * IO 线程：按组合流前缀中的 stream 名给对应 symbol 计数，不修改 readerIndex。
+     * 原始流（/ws）消息没有 stream 前缀，只计入 unmatched。
+     */
+    void onMessage(ByteBuf content) {
+        int start = content.readerIndex();
+        int end = content.writerIndex();
+        int pos = start + STREAM_PREFIX.length;
+        if (pos >= end) {
+            unmatchedMessages++;
+            return;
+        }
+        for (int i = 0; i < STREAM_PREFIX.length; i++) {
+            if (content.getByte(start + i) != STREAM_PREFIX[i]) {
+                unmatchedMessages++;
+                return;
+            }
+        }
+        long h = FNV_OFFSET;
+        for (; pos < end; pos++) {
+            byte b = content.getByte(pos);
+            if (b == '@' || b == '"') {
+                break;
+            }
+            h = (h ^ (b & 0xFF)) * FNV_PRIME;
+        }
+        SymbolCounter counter = counters.get(h);
+        if (counter != null) {
+            counter.messages++; // 单写者（本连接 IO 线程）
+        } else {
+            unmatchedMessages++;
+        }
+    }
+
+    SymbolCounter counter(String symbol) {
+        return counters.get(hash(symbol));
+    }
+
+    long unmatchedMessages() {
+        return unmatchedMessages;
+    }
+
+    // 与 onMessage 一致：对小写 symbol 做 FNV-1a
+    static long hash(String symbol) {
+        long h = FNV_OFFSET;
+        for (int i = 0; i < symbol.length(); i++) {
+            h = (h ^ (Character.toLowerCase(symbol.charAt(i)) & 0xFF)) * FNV_PRIME;
+        }
+        return h;
+    }
+
+    boolean isActive() {
+        return supervisor != null && supervisor.isActive();
+    }
+}
@@ -1,7 +1,11 @@
 package com.xinyue.maker.io.input.binance;
 
 import com.xinyue.maker.common.Exchange;
+import com.xinyue.maker.io.FeedTrafficStats;
 import com.xinyue.maker.io.Normalizer;
+import com.xinyue.maker.io.input.FeedArbiter;
+import com.xinyue.maker.io.parser.BinanceSequenceScanner;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
@@ -17,33 +21,43 @@ import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.PongWebSocketFrame;
 import io.netty.util.CharsetUtil;
 
-import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
 
 /**
- * Binance 行情 WebSocket 客户端处理器。
+ * Binance 行情 WebSocket 客户端处理器（组合流的一条连接）。
+ * 订阅 / 退订由 {@link BinanceStreamConnection} 发送，这里只负责握手、心跳与消息转发。
  */
 final class BinanceWebSocketClientHandler extends SimpleChannelInboundHandler<Object> {
 
-
-    private static final String SUBSCRIBE_PAYLOAD = """
-            {
-              "method": "SUBSCRIBE",
-              "params": [
-                "redusdt@depth"
-              ],
-              "id": 1
-            }
-            """;
-
     private final WebSocketClientHandshaker handshaker;
     private final Normalizer normalizer;
     private final Exchange exchange;
+    private final FeedTrafficStats trafficStats;
     private ChannelPromise handshakeFuture;
 
-    BinanceWebSocketClientHandler(WebSocketClientHandshaker handshaker, Normalizer normalizer, Exchange exchange) {
+    // 冗余行情模式：本连接在仲裁器中的编号；arbiter 为 null 表示单连接模式，不做仲裁
+    private final FeedArbiter arbiter;
+    private final int leg;
+    private final BinanceSequenceScanner sequenceScanner;
+    // 仲裁胜出时在流锁内转发（构造时创建一次，热路径不分配）
+    private final Consumer<ByteBuf> forwardToNormalizer;
+
+    // 本连接的订阅集合与按 symbol 的消息计数
+    private final BinanceStreamConnection streams;
+
+    BinanceWebSocketClientHandler(WebSocketClientHandshaker handshaker, Normalizer normalizer, Exchange exchange,
+                                  FeedArbiter arbiter, int leg, BinanceSequenceScanner sequenceScanner,
+                                  BinanceStreamConnection streams) {
         this.handshaker = handshaker;
         this.normalizer = normalizer;
         this.exchange = exchange;
+        this.trafficStats = FeedTrafficStats.of(exchange);
+        this.arbiter = arbiter;
+        this.leg = leg;
+        this.sequenceScanner = sequenceScanner;
+        this.streams = streams;
+        this.forwardToNormalizer = this::forward;
     }
 
     @Override
@@ -73,8 +87,8 @@ final class BinanceWebSocketClientHandler extends SimpleChannelInboundHandler<Ob
         if (!handshaker.isHandshakeComplete()) {
             try {
                 handshaker.finishHandshake(ch, (FullHttpResponse) msg);
+                // 订阅由 ConnectionSupervisor 在连接成为活动连接时重放（见 BinanceStreamConnection.activate）
                 handshakeFuture.setSuccess();
-                ch.writeAndFlush(new TextWebSocketFrame(SUBSCRIBE_PAYLOAD));
             } catch (WebSocketHandshakeException e) {
                 handshakeFuture.setFailure(e);
             }
@@ -89,14 +103,42 @@ final class BinanceWebSocketClientHandler extends SimpleChannelInboundHandler<Ob
 
         WebSocketFrame frame = (WebSocketFrame) msg;
         if (frame instanceof TextWebSocketFrame textFrame) {
-            byte[] payload = textFrame.text().getBytes(StandardCharsets.UTF_8);
-            normalizer.onJsonMessage(exchange, payload);
+            trafficStats.onMessage(textFrame.content().readableBytes());
+            streams.onMessage(textFrame.content());
+            if (arbiter == null || !arbitrateAndForward(textFrame.content())) {
+                forward(textFrame.content());
+            }
         } else if (frame instanceof PingWebSocketFrame pingFrame) {
             // WebSocket 服务器每 20 秒发送一次 PING，客户端必须在 1 分钟内回复 PONG，payload 需保持一致
-            ch.writeAndFlush(new PongWebSocketFrame(pingFrame.content()));
+            // content 交给 Pong 帧写出后释放，SimpleChannelInboundHandler 还会释放一次，需先 retain
+            ch.writeAndFlush(new PongWebSocketFrame(pingFrame.content().retain()));
         } else if (frame instanceof CloseWebSocketFrame) {
             ch.close();
         }
     }
-}
 
+    /**
+     * 直接把帧的 ByteBuf 交给 Normalizer 解析（零拷贝），retain 的引用由 Normalizer 解析后释放。
+     */
+    private void forward(ByteBuf content) {
+        normalizer.onJsonMessage(exchange, content.retain());
+    }
+
+    /**
+     * 冗余行情仲裁：只读消息头取出序号，交给仲裁器判定；首次到达的消息由仲裁器在流锁内转发，
+     * 使同一个流发布到 ring 的顺序与仲裁顺序一致。
+     *
+     * @return false 表示取不到序号（订阅响应等）或扫描失败，调用方直接放行，由 Normalizer 正常处理 / 报错
+     */
+    private boolean arbitrateAndForward(ByteBuf content) {
+        try {
+            if (!sequenceScanner.scan(content)) {
+                return false;
+            }
+        } catch (Exception e) {
+            return false;
+        }
+        arbiter.offer(leg, sequenceScanner.streamKey(), sequenceScanner.sequence(), content, forwardToNormalizer);
+        return true;
+    }
+}
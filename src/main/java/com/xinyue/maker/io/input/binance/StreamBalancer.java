@@ -0,0 +1,200 @@
+package com.xinyue.maker.io.input.binance;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binance 组合流的 symbol -> 连接分配表（纯计算，不涉及网络）。
+ * <p>
+ * 每个 symbol 带一个消息速率（条/秒），连接负载 = 其上所有 symbol 速率之和：
+ * 1. 新 symbol 放到「放得下且负载最低」的连接；都超出速率预算时新开连接（不超过 maxConnections），
+ *    连接数已满时退而放到负载最低的连接
+ * 2. 重新均衡：负载最高的连接超预算、或与最低连接差距超过预算的 1/4 时，
+ *    把能让两者最接近的 symbol 迁过去，直到无法再改善
+ * <p>
+ * 非线程安全，由连接器的单线程调度器访问。
+ */
+final class StreamBalancer {
+
+    /**
+     * 一次 symbol 迁移：from / to 为连接编号。
+     */
+    record Move(String symbol, int from, int to) {
+    }
+
+    private static final class Bucket {
+        final Map<String, Double> rates = new HashMap<>();
+        double load;
+    }
+
+    private final int maxSymbolsPerConnection;
+    private final double rateBudget;
+    private final int maxConnections;
+
+    private final List<Bucket> buckets = new ArrayList<>();
+    private final Map<String, Integer> owner = new HashMap<>();
+
+    StreamBalancer(int maxSymbolsPerConnection, double rateBudget, int maxConnections) {
+        this.maxSymbolsPerConnection = Math.max(1, maxSymbolsPerConnection);
+        this.rateBudget = rateBudget;
+        this.maxConnections = Math.max(1, maxConnections);
+    }
+
+    /**
+     * 为 symbol 分配连接，返回连接编号（可能等于 {@link #connections()} 之前的值，即需要新开连接）；
+     * 所有连接都已订满时返回 -1。已分配过的 symbol 直接返回原连接。
+     */
+    int place(String symbol, double rate) {
+        Integer existing = owner.get(symbol);
+        if (existing != null) {
+            return existing;
+        }
+        int target = -1;
+        int fallback = -1;
+        for (int i = 0; i < buckets.size(); i++) {
+            Bucket b = buckets.get(i);
+            if (b.rates.size() >= maxSymbolsPerConnection) {
+                continue;
+            }
+            if (fallback < 0 || b.load < buckets.get(fallback).load) {
+                fallback = i;
+            }
+            if (b.load + rate <= rateBudget && (target < 0 || b.load < buckets.get(target).load)) {
+                target = i;
+            }
+        }
+        if (target < 0) {
+            if (buckets.size() < maxConnections) {
+                buckets.add(new Bucket());
+                target = buckets.size() - 1;
+            } else if (fallback >= 0) {
+                target = fallback;
+            } else {
+                return -1;
+            }
+        }
+        assign(symbol, rate, target);
+        return target;
+    }
+
+    /**
+     * 移除 symbol，返回其原连接编号，未分配时返回 -1。
+     */
+    int remove(String symbol) {
+        Integer index = owner.remove(symbol);
+        if (index == null) {
+            return -1;
+        }
+        Bucket b = buckets.get(index);
+        Double rate = b.rates.remove(symbol);
+        b.load -= rate == null ? 0.0 : rate;
+        if (b.rates.isEmpty()) {
+            b.load = 0.0; // 消除浮点累计误差
+        }
+        return index;
+    }
+
+    /**
+     * 用实测速率更新 symbol 的负载。
+     */
+    void updateRate(String symbol, double rate) {
+        Integer index = owner.get(symbol);
+        if (index == null) {
+            return;
+        }
+        Bucket b = buckets.get(index);
+        Double old = b.rates.put(symbol, rate);
+        b.load += rate - (old == null ? 0.0 : old);
+    }
+
+    /**
+     * 计算并应用迁移方案（分配表立即更新），返回需要执行的迁移。
+     */
+    List<Move> rebalance() {
+        List<Move> moves = new ArrayList<>();
+        for (int round = 0; round < owner.size(); round++) {
+            int hot = 0;
+            int cold = -1;
+            for (int i = 0; i < buckets.size(); i++) {
+                Bucket b = buckets.get(i);
+                if (b.load > buckets.get(hot).load) {
+                    hot = i;
+                }
+                if (b.rates.size() < maxSymbolsPerConnection && (cold < 0 || b.load < buckets.get(cold).load)) {
+                    cold = i;
+                }
+            }
+            Bucket h = buckets.get(hot);
+            boolean overloaded = h.load > rateBudget;
+            // 所有连接都满负荷时新开连接承接迁移
+            if (overloaded && (cold < 0 || buckets.get(cold).load + minRate(h) > rateBudget)
+                    && buckets.size() < maxConnections) {
+                buckets.add(new Bucket());
+                cold = buckets.size() - 1;
+            }
+            if (cold < 0 || hot == cold) {
+                break;
+            }
+            Bucket c = buckets.get(cold);
+            double gap = h.load - c.load;
+            if (!overloaded && gap <= rateBudget / 4) {
+                break;
+            }
+            // 选使两条连接负载最接近的 symbol：|gap - 2r| 最小且必须严格改善（r < gap）
+            String best = null;
+            double bestRate = 0.0;
+            double bestDiff = gap;
+            for (Map.Entry<String, Double> e : h.rates.entrySet()) {
+                double r = e.getValue();
+                double diff = Math.abs(gap - 2 * r);
+                if (r > 0 && r < gap && diff < bestDiff) {
+                    best = e.getKey();
+                    bestRate = r;
+                    bestDiff = diff;
+                }
+            }
+            if (best == null) {
+                break;
+            }
+            h.rates.remove(best);
+            h.load -= bestRate;
+            assign(best, bestRate, cold);
+            moves.add(new Move(best, hot, cold));
+        }
+        return moves;
+    }
+
+    private void assign(String symbol, double rate, int index) {
+        Bucket b = buckets.get(index);
+        b.rates.put(symbol, rate);
+        b.load += rate;
+        owner.put(symbol, index);
+    }
+
+    private static double minRate(Bucket b) {
+        double min = Double.MAX_VALUE;
+        for (double r : b.rates.values()) {
+            min = Math.min(min, r);
+        }
+        return min;
+    }
+
+    int connections() {
+        return buckets.size();
+    }
+
+    int connectionOf(String symbol) {
+        Integer index = owner.get(symbol);
+        return index == null ? -1 : index;
+    }
+
+    double load(int connection) {
+        return buckets.get(connection).load;
+    }
+
+    int symbolCount(int connection) {
+        return buckets.get(connection).rates.size();
+    }
+}
@@ -1,53 +1,99 @@
 package com.xinyue.maker.io.input.dydx;
 
 import com.lmax.disruptor.dsl.Disruptor;
+import com.xinyue.maker.common.AddressRegistry;
 import com.xinyue.maker.common.CoreEvent;
 import com.xinyue.maker.common.Exchange;
+import com.xinyue.maker.common.RawIdResolver;
+import com.xinyue.maker.common.SymbolRegistry;
+import com.xinyue.maker.config.TransportConfig;
 import com.xinyue.maker.core.CoreEngine;
 import com.xinyue.maker.core.CoreEventFactory;
 import com.xinyue.maker.infra.OriginalMessageDao;
+import com.xinyue.maker.io.ConnectionTrafficStats;
 import com.xinyue.maker.io.MarketDataConnector;
+import com.xinyue.maker.io.NettyTransport;
 import com.xinyue.maker.io.Normalizer;
 import com.xinyue.maker.io.input.AccessLayerCoordinator;
+import com.xinyue.maker.io.input.ConnectionSupervisor;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.HttpClientCodec;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.websocketx.WebSocketClientHandshaker;
 import io.netty.handler.codec.http.websocketx.WebSocketClientHandshakerFactory;
 import io.netty.handler.codec.http.websocketx.WebSocketVersion;
-import io.netty.handler.codec.http.websocketx.extensions.compression.WebSocketClientCompressionHandler;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
 
 import javax.net.ssl.SSLException;
 import java.net.URI;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadFactory;
 
 /**
  * dYdX 行情连接器，实现订单簿订阅。
+ * <p>
+ * 连接划分：
+ * 1. 账户连接：v4_subaccounts 按 (地址, 子账户) 哈希分到 io.dydx.accountConnections 条连接，
+ *    某个账户的大快照只阻塞同一分片上的账户；
+ * 2. 订单簿专用连接：每个 symbol 的 v4_orderbook 独占一条连接。
+ * dYdX 的 message_id 是按连接递增的，多个频道共享一条连接时同一 symbol 的 message_id 不连续，
+ * 独占连接后 message_id 即可按 symbol 做 gap 检测，重订阅也只影响该 symbol。
+ * <p>
+ * IO 线程划分：io.threads &gt;= 2 时前一半 IO 线程承载订单簿连接、其余承载账户连接，
+ * 账户快照的解析不会排在订单簿增量前面；每条连接的吞吐与排队延迟见 {@link ConnectionTrafficStats}。
+ * <p>
+ * 每条连接由 {@link ConnectionSupervisor} 监管：断线后切换到预热的备用连接或按退避重连，
+ * 并重放该连接的订阅集合；订单簿连接断开时通过 Normalizer 发布 FEED_STALE，
+ * L2 清空该 symbol 的本地订单簿并暂停相关策略，直到新连接推送全量快照。
  */
 public final class DydxMarketDataConnector implements MarketDataConnector {
 
-    private static final URI DYDX_WS_URI = URI.create("wss://dydx3.forcast.money/v4/ws");
+    // 设置 WebSocket 最大帧大小为 10MB（默认 64KB 不够用）
+    private static final int MAX_FRAME_PAYLOAD_LENGTH = 10 * 1024 * 1024; // 10MB
 
+    // 开启 permessage-deflate 时单条消息解压后的上限（全量快照压缩比通常在 5~10 倍）
+    private static final int MAX_INFLATED_MESSAGE_BYTES = 32 * 1024 * 1024;
+
+    // HttpObjectAggregator 只用于握手响应（握手完成后即从 pipeline 移除），不需要与帧大小一致
+    private static final int HANDSHAKE_RESPONSE_MAX_BYTES = 64 * 1024;
+
+    // 建连 / 握手超时：重连在后台线程阻塞执行，超时后按退避重试
+    private static final int CONNECT_TIMEOUT_MILLIS = 3000;
+    private static final long HANDSHAKE_TIMEOUT_MILLIS = 5000;
+
+    // indexer WebSocket 地址（transport.properties 的 io.dydx.wsUri）
+    private final URI wsUri;
     private final Normalizer normalizer;
+    private final RawIdResolver symbolResolver = RawIdResolver.forSymbols(SymbolRegistry.getInstance());
     private EventLoopGroup eventLoopGroup;
-    private Channel channel;
-    private DydxWebSocketClientHandler handler;
     private OriginalMessageDao originalMessageDao;
 
-    // 账户订单订阅配置（支持多个账户）
-    private final List<DydxWebSocketClientHandler.AccountSubscription> accountSubscriptions = new ArrayList<>();
+    // 账户频道连接分片（订阅集合在构造时创建，start 前配置的账户在连接建立后统一订阅）
+    private final AccountShard[] accountShards;
+    private boolean started;
+    // 已创建的订单簿连接数，用于在订单簿 IO 线程间轮流分配
+    private int orderBookConnectionCount;
+
+    // 订单簿专用连接：dYdX symbol（如 "H2-USDT"）-> 连接（L2 线程在 gap 时读取，需线程安全）
+    private final Map<String, ConnectionSupervisor> orderBookConnections = new ConcurrentHashMap<>();
+    // 订单簿连接的流量统计（仅在 synchronized 方法中访问），连接关闭时注销
+    private final Map<String, ConnectionTrafficStats> orderBookStats = new HashMap<>();
 
     public DydxMarketDataConnector(Normalizer normalizer, OriginalMessageDao originalMessageDao) {
         this.normalizer = normalizer;
         this.originalMessageDao = originalMessageDao;
+        TransportConfig config = TransportConfig.load();
+        this.wsUri = URI.create(config.dydxWsUri);
+        this.accountShards = new AccountShard[config.dydxAccountConnections];
+        for (int i = 0; i < accountShards.length; i++) {
+            accountShards[i] = new AccountShard(i);
+        }
     }
 
     @Override
@@ -62,57 +108,73 @@ public final class DydxMarketDataConnector implements MarketDataConnector {
 
     @Override
     public synchronized void start() {
-        if (channel != null && channel.isActive()) {
+        if (started) {
             return;
         }
+        eventLoopGroup = NettyTransport.getInstance().group();
         try {
-            bootstrapNetty();
-        } catch (SSLException e) {
+            for (AccountShard shard : accountShards) {
+                shard.start();
+            }
+        } catch (Exception e) {
+            for (AccountShard shard : accountShards) {
+                shard.close();
+            }
             throw new IllegalStateException("init dYdX WebSocket fail", e);
         }
+        started = true;
     }
 
     @Override
     public synchronized void stop() {
-        if (channel != null) {
-            channel.close();
-            channel = null;
+        for (ConnectionSupervisor connection : orderBookConnections.values()) {
+            connection.close();
+        }
+        orderBookConnections.clear();
+        for (ConnectionTrafficStats stats : orderBookStats.values()) {
+            stats.unregister();
         }
-        if (eventLoopGroup != null) {
-            eventLoopGroup.shutdownGracefully();
-            eventLoopGroup = null;
+        orderBookStats.clear();
+        for (AccountShard shard : accountShards) {
+            shard.close();
         }
+        started = false;
+        // 共享 IO 线程池由 NettyTransport 统一关闭，这里只断开引用
+        eventLoopGroup = null;
     }
 
-    private void bootstrapNetty() throws SSLException {
-        String scheme = DYDX_WS_URI.getScheme();
-        String host = DYDX_WS_URI.getHost();
-        int port = DYDX_WS_URI.getPort() == -1 ? 443 : DYDX_WS_URI.getPort();
-        boolean ssl = "wss".equalsIgnoreCase(scheme);
-        SslContext sslCtx = ssl ? SslContextBuilder.forClient().build() : null;
-
-        eventLoopGroup = new NioEventLoopGroup(1);
-
-        // 设置 WebSocket 最大帧大小为 10MB（默认 64KB 不够用）
-        final int maxFramePayloadLength = 10 * 1024 * 1024; // 10MB
-        
+    /**
+     * 创建 handler。
+     *
+     * @param orderBookSymbol 非空表示订单簿专用连接（仅用于日志，订阅由 ConnectionSupervisor 激活时发送）
+     * @param stats 所属连接的吞吐 / 排队延迟统计
+     */
+    private DydxWebSocketClientHandler newHandler(String orderBookSymbol, ConnectionTrafficStats stats) {
         // 创建 handshaker，传入最大帧大小参数
         WebSocketClientHandshaker handshaker = WebSocketClientHandshakerFactory.newHandshaker(
-                DYDX_WS_URI,
+                wsUri,
                 WebSocketVersion.V13,
                 null,
                 true,
                 new DefaultHttpHeaders(),
-                maxFramePayloadLength  // 设置最大帧大小
+                MAX_FRAME_PAYLOAD_LENGTH  // 设置最大帧大小
         );
+        return new DydxWebSocketClientHandler(handshaker, normalizer, Exchange.DYDX, originalMessageDao, MAX_FRAME_PAYLOAD_LENGTH, orderBookSymbol, stats);
+    }
 
+    /**
+     * 建立一条 WebSocket 连接（阻塞到握手完成），固定在共享 IO 线程池中的指定线程上。
+     * 握手失败或超时时关闭连接并抛出异常。
+     */
+    private Channel connect(DydxWebSocketClientHandler wsHandler, EventLoop eventLoop) throws SSLException {
+        String scheme = wsUri.getScheme();
+        String host = wsUri.getHost();
+        boolean ssl = "wss".equalsIgnoreCase(scheme);
+        int port = wsUri.getPort() == -1 ? (ssl ? 443 : 80) : wsUri.getPort();
+        SslContext sslCtx = ssl ? SslContextBuilder.forClient().build() : null;
 
-        handler = new DydxWebSocketClientHandler(handshaker, normalizer, Exchange.DYDX, originalMessageDao, accountSubscriptions, maxFramePayloadLength);
-
-        Bootstrap bootstrap = new Bootstrap()
-                .group(eventLoopGroup)
-                .channel(NioSocketChannel.class)
-                .option(ChannelOption.TCP_NODELAY, true)
+        Bootstrap bootstrap = NettyTransport.getInstance().bootstrap(eventLoop)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, CONNECT_TIMEOUT_MILLIS)
                 .handler(new ChannelInitializer<Channel>() {
                     @Override
                     protected void initChannel(Channel ch) throws Exception {
@@ -120,88 +182,296 @@ public final class DydxMarketDataConnector implements MarketDataConnector {
                         if (sslCtx != null) {
                             pipeline.addLast(sslCtx.newHandler(ch.alloc(), host, port));
                         }
-                        // 增加 HttpObjectAggregator 大小以支持更大的 HTTP 消息（握手阶段）
                         pipeline.addLast(
                                 new HttpClientCodec(),
-                                new HttpObjectAggregator(maxFramePayloadLength), // 10MB，与 WebSocket 帧大小一致
-                                WebSocketClientCompressionHandler.INSTANCE,
-                                // 手动添加 WebSocket 帧解码器和编码器，设置最大帧大小
-                                // 注意：这些会在握手完成后由 handshaker 自动添加，但我们需要在握手前就设置好
-                                // 所以这里先不添加，而是在握手完成后动态添加
-                                handler
+                                new HttpObjectAggregator(HANDSHAKE_RESPONSE_MAX_BYTES)
                         );
+                        // 可选 permessage-deflate（io.deflate），大快照压缩传输，解压到池化 buffer
+                        ChannelHandler deflate = NettyTransport.getInstance()
+                                .deflateHandler(Exchange.DYDX, MAX_INFLATED_MESSAGE_BYTES);
+                        if (deflate != null) {
+                            pipeline.addLast(deflate);
+                        }
+                        // WebSocket 帧解码器会在握手完成后由 handler 替换为支持大帧的版本
+                        pipeline.addLast(wsHandler);
                     }
                 });
 
-        channel = bootstrap.connect(host, port).syncUninterruptibly().channel();
-        handler.handshakeFuture().syncUninterruptibly();
+        Channel ch = bootstrap.connect(host, port).syncUninterruptibly().channel();
+        ChannelFuture handshake = wsHandler.handshakeFuture();
+        if (!handshake.awaitUninterruptibly(HANDSHAKE_TIMEOUT_MILLIS) || !handshake.isSuccess()) {
+            ch.close();
+            throw new IllegalStateException("dYdX WebSocket handshake fail", handshake.cause());
+        }
+        return ch;
+    }
+
+    private static DydxWebSocketClientHandler handlerOf(Channel ch) {
+        return ch.pipeline().get(DydxWebSocketClientHandler.class);
+    }
+
+    /**
+     * 订单簿 IO 线程数：io.threads &gt;= 2 时占前一半（向上取整），否则与账户连接共用唯一的线程。
+     */
+    private static int orderBookThreads(int ioThreads) {
+        return ioThreads >= 2 ? (ioThreads + 1) / 2 : ioThreads;
+    }
+
+    /**
+     * 第 n 条订单簿连接的 IO 线程：在订单簿线程间轮流分配。
+     */
+    private static EventLoop orderBookLoop(int n) {
+        NettyTransport transport = NettyTransport.getInstance();
+        return transport.eventLoop(n % orderBookThreads(transport.ioThreads()));
+    }
+
+    /**
+     * 账户分片的 IO 线程：在订单簿线程之后的线程间轮流分配。
+     */
+    private static EventLoop accountLoop(int shard) {
+        NettyTransport transport = NettyTransport.getInstance();
+        int threads = transport.ioThreads();
+        int bookThreads = orderBookThreads(threads);
+        if (bookThreads >= threads) {
+            return transport.eventLoop(shard);
+        }
+        return transport.eventLoop(bookThreads + shard % (threads - bookThreads));
+    }
+
+    /**
+     * 账户所在分片：同一 (地址, 子账户) 总是落在同一条连接上，订阅 / 退订 / 重放一致。
+     */
+    static int accountShard(String address, int subaccountNumber, int shards) {
+        return Math.floorMod(address.hashCode() * 31 + subaccountNumber, shards);
+    }
+
+    private AccountShard shardOf(AccountSubscription sub) {
+        return accountShards[accountShard(sub.address(), sub.subaccountNumber(), accountShards.length)];
     }
 
     /**
      * 订阅订单簿（v4_orderbook 频道）。
+     * 每个 symbol 建立一条受监管的专用连接，连接可用后发送订阅消息，断线恢复后自动重新订阅。
      *
      * @param symbol 交易对符号（如 "H2-USDT"）
      */
-    public void subscribeOrderBook(String symbol) {
-        if (channel != null && channel.isActive() && handler != null) {
-            handler.subscribeOrderBook(channel, symbol);
+    public synchronized void subscribeOrderBook(String symbol) {
+        if (eventLoopGroup == null) {
+            return;
+        }
+        if (orderBookConnections.containsKey(symbol)) {
+            return; // 已订阅（断线恢复由 ConnectionSupervisor 负责）
+        }
+        String name = "dydx-orderbook-" + symbol;
+        ConnectionTrafficStats stats = ConnectionTrafficStats.register(name);
+        ConnectionSupervisor supervisor = new ConnectionSupervisor(name,
+                new OrderBookLink(symbol, orderBookLoop(orderBookConnectionCount), stats),
+                NettyTransport.getInstance().config());
+        try {
+            supervisor.start();
+        } catch (Exception e) {
+            stats.unregister();
+            throw new IllegalStateException("init dYdX orderbook WebSocket fail, symbol=" + symbol, e);
         }
+        orderBookConnectionCount++;
+        orderBookConnections.put(symbol, supervisor);
+        orderBookStats.put(symbol, stats);
     }
 
     /**
      * 由核心层在检测到 dYdX messageId gap 时调用，触发「取消订阅 + 重新订阅」。
+     * 只作用于该 symbol 的专用连接，其他 symbol 的订单簿不受影响。
+     * <p>
+     * 注意：该方法在 L2 线程调用，只做非阻塞的 writeAndFlush，不加锁。
+     * 连接正在恢复时直接跳过：新连接激活时本身就会重新订阅。
      */
     public void resubscribeOrderBook(String symbol) {
-        if (channel != null && channel.isActive() && handler != null) {
-            handler.resubscribe(channel, symbol);
+        ConnectionSupervisor connection = orderBookConnections.get(symbol);
+        Channel ch = connection == null ? null : connection.channel();
+        if (ch != null && ch.isActive()) {
+            handlerOf(ch).resubscribe(ch, symbol);
         }
     }
 
     /**
-     * 订阅账户订单（v4_subaccounts 频道）。
-     * 在项目启动时调用，为每个账户订阅订单更新。
+     * 订阅账户订单（v4_subaccounts 频道），并加入订阅集合，断线恢复后自动重放。
      *
      * @param address 账户地址（如 "h21lmflgzs766v7syh44j2fe286f75auxt6xgx0mt"）
      * @param subaccountNumber 子账户编号（通常为 0）
      */
     public void subscribeAccountOrders(String address, int subaccountNumber) {
-        if (channel != null && channel.isActive() && handler != null) {
-            handler.subscribeAccountOrders(channel, address, subaccountNumber);
+        AccountSubscription sub = new AccountSubscription(address, subaccountNumber);
+        AccountShard shard = shardOf(sub);
+        shard.subscriptions.add(sub);
+        Channel ch = shard.channel();
+        if (ch != null) {
+            handlerOf(ch).subscribeAccountOrders(ch, address, subaccountNumber);
         }
     }
 
     /**
-     * 退订订单簿（v4_orderbook 频道）。
+     * 退订订单簿（v4_orderbook 频道）并关闭该 symbol 的专用连接。
      *
      * @param symbol 交易对符号（如 "H2-USDT"）
      */
-    public void unsubscribeOrderBook(String symbol) {
-        if (channel != null && channel.isActive() && handler != null) {
-            handler.unsubscribeOrderBook(channel, symbol);
+    public synchronized void unsubscribeOrderBook(String symbol) {
+        ConnectionSupervisor connection = orderBookConnections.remove(symbol);
+        if (connection == null) {
+            return;
+        }
+        Channel ch = connection.channel();
+        if (ch != null && ch.isActive()) {
+            handlerOf(ch).unsubscribeOrderBook(ch, symbol);
+        }
+        connection.close();
+        ConnectionTrafficStats stats = orderBookStats.remove(symbol);
+        if (stats != null) {
+            stats.unregister();
         }
     }
 
     /**
-     * 退订账户订单（v4_subaccounts 频道）。
+     * 退订账户订单（v4_subaccounts 频道），并从订阅集合中移除。
      *
      * @param address 账户地址
      * @param subaccountNumber 子账户编号
      */
     public void unsubscribeAccountOrders(String address, int subaccountNumber) {
-        if (channel != null && channel.isActive() && handler != null) {
-            handler.unsubscribeAccountOrders(channel, address, subaccountNumber);
+        AccountSubscription sub = new AccountSubscription(address, subaccountNumber);
+        AccountShard shard = shardOf(sub);
+        shard.subscriptions.remove(sub);
+        Channel ch = shard.channel();
+        if (ch != null) {
+            handlerOf(ch).unsubscribeAccountOrders(ch, address, subaccountNumber);
         }
     }
 
     /**
-     * 在启动前配置需要订阅账户订单的地址/子账户（支持多个账户）。
-     * - 如果在握手前调用：握手成功后由 handler 自动发送订阅消息
-     * - 如果在握手完成后调用：立即通过现有 channel 发送订阅消息
+     * 注册地址到 accountId 的映射后再订阅账户订单，subaccounts 消息按地址解析出 accountId。
+     */
+    public void configureAccountOrders(short accountId, String address, int subaccountNumber) {
+        AddressRegistry.getInstance().register(address, accountId);
+        configureAccountOrders(address, subaccountNumber);
+    }
+
+    /**
+     * 配置需要订阅账户订单的地址/子账户（支持多个账户）。
+     * - 如果在连接建立前调用：连接可用后由 ConnectionSupervisor 激活时统一订阅
+     * - 如果在连接可用后调用：立即通过现有 channel 发送订阅消息
      */
     public void configureAccountOrders(String address, int subaccountNumber) {
-        accountSubscriptions.add(new DydxWebSocketClientHandler.AccountSubscription(address, subaccountNumber));
-        if (handler != null) {
-            handler.addAccountSubscription(address, subaccountNumber);
+        AccountSubscription sub = new AccountSubscription(address, subaccountNumber);
+        AccountShard shard = shardOf(sub);
+        if (!shard.subscriptions.add(sub)) {
+            return; // 已订阅
+        }
+        Channel ch = shard.channel();
+        if (ch != null) {
+            handlerOf(ch).subscribeAccountOrders(ch, address, subaccountNumber);
+        }
+    }
+
+    /**
+     * 账户订阅（地址 + 子账户编号）。
+     */
+    private record AccountSubscription(String address, int subaccountNumber) {
+    }
+
+    /**
+     * 账户连接分片：恢复后重放本分片的 v4_subaccounts 订阅，dYdX 会为每个账户重新推送全量同步，
+     * OMS / 资产以此覆盖断线期间的变化。
+     */
+    private final class AccountShard implements ConnectionSupervisor.Link {
+
+        private final int index;
+        // 本分片的账户订阅集合，连接每次恢复后整体重放
+        private final Set<AccountSubscription> subscriptions = ConcurrentHashMap.newKeySet();
+        private volatile ConnectionSupervisor supervisor;
+        private ConnectionTrafficStats stats;
+        private EventLoop eventLoop;
+
+        AccountShard(int index) {
+            this.index = index;
+        }
+
+        void start() throws Exception {
+            String name = "dydx-account-" + index;
+            eventLoop = accountLoop(index);
+            stats = ConnectionTrafficStats.register(name);
+            ConnectionSupervisor connection = new ConnectionSupervisor(name, this, NettyTransport.getInstance().config());
+            connection.start();
+            supervisor = connection;
+        }
+
+        void close() {
+            ConnectionSupervisor connection = supervisor;
+            supervisor = null;
+            if (connection != null) {
+                connection.close();
+            }
+            if (stats != null) {
+                stats.unregister();
+                stats = null;
+            }
+        }
+
+        Channel channel() {
+            ConnectionSupervisor connection = supervisor;
+            Channel ch = connection == null ? null : connection.channel();
+            return ch != null && ch.isActive() ? ch : null;
+        }
+
+        @Override
+        public Channel open() throws Exception {
+            return connect(newHandler(null, stats), eventLoop);
+        }
+
+        @Override
+        public void activate(Channel channel) {
+            DydxWebSocketClientHandler wsHandler = handlerOf(channel);
+            for (AccountSubscription sub : subscriptions) {
+                wsHandler.subscribeAccountOrders(channel, sub.address(), sub.subaccountNumber());
+            }
+        }
+
+        @Override
+        public void onLost() {
+            // 账户状态以重连后的全量同步为准，这里无需额外标记
+        }
+    }
+
+    /**
+     * 订单簿专用连接：断开时标记该 symbol 的订单簿陈旧，恢复后重新订阅（服务端推送新的全量快照）。
+     */
+    private final class OrderBookLink implements ConnectionSupervisor.Link {
+
+        private final String symbol;
+        private final short symbolId;
+        private final EventLoop eventLoop;
+        private final ConnectionTrafficStats stats;
+
+        OrderBookLink(String symbol, EventLoop eventLoop, ConnectionTrafficStats stats) {
+            this.symbol = symbol;
+            this.symbolId = symbolResolver.resolve(symbol);
+            this.eventLoop = eventLoop;
+            this.stats = stats;
+        }
+
+        @Override
+        public Channel open() throws Exception {
+            return connect(newHandler(symbol, stats), eventLoop);
+        }
+
+        @Override
+        public void activate(Channel channel) {
+            handlerOf(channel).subscribeOrderBook(channel, symbol);
+        }
+
+        @Override
+        public void onLost() {
+            if (symbolId != RawIdResolver.MISSING) {
+                normalizer.onFeedStale(Exchange.DYDX, symbolId);
+            }
         }
     }
 
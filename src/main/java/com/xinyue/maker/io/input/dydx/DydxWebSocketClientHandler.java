@@ -2,6 +2,8 @@ package com.xinyue.maker.io.input.dydx;
 
 import com.xinyue.maker.common.Exchange;
 import com.xinyue.maker.infra.OriginalMessageDao;
+import com.xinyue.maker.io.ConnectionTrafficStats;
+import com.xinyue.maker.io.FeedTrafficStats;
 import com.xinyue.maker.io.Normalizer;
 import com.xinyue.maker.strategy.InternalRangeOscillatorStrategy;
 import io.netty.channel.Channel;
@@ -24,10 +26,6 @@ import io.netty.util.CharsetUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * dYdX WebSocket 客户端处理器。
  */
@@ -68,42 +66,35 @@ final class DydxWebSocketClientHandler extends SimpleChannelInboundHandler<Objec
             }
             """;
 
-    public static final class AccountSubscription {
-        public final String address;
-        public final int subaccountNumber;
-        
-        public AccountSubscription(String address, int subaccountNumber) {
-            this.address = address;
-            this.subaccountNumber = subaccountNumber;
-        }
-    }
-
     private final WebSocketClientHandshaker handshaker;
     private final Normalizer normalizer;
     private final Exchange exchange;
+    private final FeedTrafficStats trafficStats;
+    // 所属连接的吞吐 / 排队延迟统计（同一受监管连接的备用、重连连接共用）
+    private final ConnectionTrafficStats connectionStats;
+    // 本次 socket 读中第一帧到达的时间，channelReadComplete 时清零
+    private long readBatchStartNanos;
 
     private final OriginalMessageDao originalMessageDao;
 
-    // 当前订阅的 symbol，默认 BTC-USDT，后续可扩展为多币种
-    private volatile String symbol = "H2-USDT";
+    // 订单簿专用连接对应的 symbol（如 "H2-USDT"），null 表示账户频道连接
+    private final String orderBookSymbol;
 
-    // 账户订单订阅配置（由上层在握手前配置，支持多个账户）
-    private final List<AccountSubscription> accountSubscriptions = new ArrayList<>();
     private ChannelPromise handshakeFuture;
     
     // WebSocket 最大帧大小
     private final int maxFramePayloadLength;
 
 
-    public DydxWebSocketClientHandler(WebSocketClientHandshaker handshaker, Normalizer normalizer, Exchange exchange, OriginalMessageDao originalMessageDao, List<AccountSubscription> accountSubscriptions, int maxFramePayloadLength) {
+    public DydxWebSocketClientHandler(WebSocketClientHandshaker handshaker, Normalizer normalizer, Exchange exchange, OriginalMessageDao originalMessageDao, int maxFramePayloadLength, String orderBookSymbol, ConnectionTrafficStats connectionStats) {
         this.handshaker = handshaker;
         this.normalizer = normalizer;
         this.exchange = exchange;
+        this.trafficStats = FeedTrafficStats.of(exchange);
         this.originalMessageDao = originalMessageDao;
         this.maxFramePayloadLength = maxFramePayloadLength;
-        if (accountSubscriptions != null) {
-            this.accountSubscriptions.addAll(accountSubscriptions);
-        }
+        this.orderBookSymbol = orderBookSymbol;
+        this.connectionStats = connectionStats;
     }
 
     @Override
@@ -126,7 +117,22 @@ final class DydxWebSocketClientHandler extends SimpleChannelInboundHandler<Objec
             handshakeFuture.setFailure(new IllegalStateException("WebSocket collect closed"));
             LOG.info("dydx subcribe handshake collection was close");
         }
-        LOG.info("dydx subcribe orderbook collection was close ");
+        // 重连与订阅重放由 ConnectionSupervisor 负责（监听 closeFuture）
+        LOG.info("dydx subcribe collection was close, orderBookSymbol={}", orderBookSymbol);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (readBatchStartNanos == 0) {
+            readBatchStartNanos = System.nanoTime();
+        }
+        super.channelRead(ctx, msg);
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) {
+        readBatchStartNanos = 0;
+        ctx.fireChannelReadComplete();
     }
 
     @Override
@@ -153,14 +159,8 @@ final class DydxWebSocketClientHandler extends SimpleChannelInboundHandler<Objec
                     String encoderName = pipeline.context(encoder).name();
                     pipeline.replace(encoderName, "ws-encoder-large", new WebSocket13FrameEncoder(true));
                 }
-                
-////                 初始订阅订单簿
-//                //todo 订单簿要单独连接 因为多个连接的情况下 messageId不是连续的 无法判断有没有丢包
-//                ch.writeAndFlush(new TextWebSocketFrame(String.format(SUBSCRIBE_TEMPLATE, symbol)));
-////                 如已配置账户订单订阅，则在握手成功后立即订阅 v4_subaccounts（支持多个账户）
-//                for (AccountSubscription sub : accountSubscriptions) {
-//                    subscribeAccountOrders(ch, sub.address, sub.subaccountNumber);
-//                }
+                // 订阅不在这里发送：由 ConnectionSupervisor 在连接成为活动连接时重放，
+                // 预热的备用连接握手后保持空闲，不产生重复数据
             } catch (WebSocketHandshakeException e) {
                 handshakeFuture.setFailure(e);
             }
@@ -175,14 +175,18 @@ final class DydxWebSocketClientHandler extends SimpleChannelInboundHandler<Objec
 
         WebSocketFrame frame = (WebSocketFrame) msg;
         if (frame instanceof TextWebSocketFrame textFrame) {
+            int bytes = textFrame.content().readableBytes();
+            trafficStats.onMessage(bytes);
+            // 排队延迟：同一次读中排在前面的帧（如大快照）占用的处理时间
+            connectionStats.onMessage(bytes, System.nanoTime() - readBatchStartNanos);
 //            originalMessageDao.insertAsync("0",exchange.id()+"",((TextWebSocketFrame) frame).text(),"btcusdt");
 //            System.out.println(((TextWebSocketFrame) frame).text());
-            byte[] payload = textFrame.text().getBytes(StandardCharsets.UTF_8);
-            normalizer.onJsonMessage(exchange, payload);
+            // 直接把帧的 ByteBuf 交给 Normalizer 解析（零拷贝），retain 的引用由 Normalizer 解析后释放
+            normalizer.onJsonMessage(exchange, textFrame.content().retain());
         } else if (frame instanceof PingWebSocketFrame) {
-            // 回复 PONG
+            // 回复 PONG（content 交给 Pong 帧写出后释放，SimpleChannelInboundHandler 还会释放一次，需先 retain）
             LOG.info("heartbeat run ");
-            ch.writeAndFlush(new PongWebSocketFrame(frame.content()));
+            ch.writeAndFlush(new PongWebSocketFrame(frame.content().retain()));
         } else if (frame instanceof CloseWebSocketFrame) {
             ch.close();
         }
@@ -204,7 +208,6 @@ final class DydxWebSocketClientHandler extends SimpleChannelInboundHandler<Objec
      * 由接入层在检测到 dYdX gap 时调用，执行「取消订阅 + 重新订阅」。
      */
     void resubscribe(Channel ch, String symbol) {
-        this.symbol = symbol;
         String unsub = String.format(UNSUBSCRIBE_TEMPLATE, symbol);
         String sub = String.format(SUBSCRIBE_TEMPLATE, symbol);
         ch.writeAndFlush(new TextWebSocketFrame(unsub));
@@ -248,17 +251,4 @@ final class DydxWebSocketClientHandler extends SimpleChannelInboundHandler<Objec
         LOG.info("退订账户订单: {}", unsubscribeMsg);
         ch.writeAndFlush(new TextWebSocketFrame(unsubscribeMsg));
     }
-
-    /**
-     * 由上层在连接建立前配置账户订单订阅信息（支持多个账户）。
-     * 在握手成功后会自动发送订阅消息；如果此时连接已就绪，则立即订阅。
-     */
-    void addAccountSubscription(String address, int subaccountNumber) {
-        accountSubscriptions.add(new AccountSubscription(address, subaccountNumber));
-        // 如果连接已就绪，立即订阅
-        Channel ch = handshakeFuture.channel();
-        if (ch != null && ch.isActive() && handshaker.isHandshakeComplete()) {
-            subscribeAccountOrders(ch, address, subaccountNumber);
-        }
-    }
 }
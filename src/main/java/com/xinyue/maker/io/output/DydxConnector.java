@@ -1,13 +1,12 @@
 package com.xinyue.maker.io.output;
 
+import com.xinyue.maker.io.NettyTransport;
+import com.xinyue.maker.io.Normalizer;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
-import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.HttpClientCodec;
 import io.netty.handler.codec.http.HttpObjectAggregator;
@@ -21,17 +20,18 @@ import java.net.URI;
 
 /**
  * Sidecar WebSocket 连接器，负责连接到 Node.js Sidecar 服务。
- * 用于传输下单、取消订单等操作指令。
+ * 用于传输下单、取消订单等操作指令，并把 Sidecar 的下单 / 撤单回报经 Normalizer 发布到 Core。
  */
 public final class DydxConnector {
 
     private final URI sidecarUri;
-    private EventLoopGroup eventLoopGroup;
+    private final Normalizer normalizer;
     private Channel channel;
     private SidecarWebSocketClientHandler handler;
 
-    public DydxConnector(String uri) {
+    public DydxConnector(String uri, Normalizer normalizer) {
         this.sidecarUri = URI.create(uri);
+        this.normalizer = normalizer;
     }
 
     /**
@@ -56,10 +56,6 @@ public final class DydxConnector {
             channel.close();
             channel = null;
         }
-        if (eventLoopGroup != null) {
-            eventLoopGroup.shutdownGracefully();
-            eventLoopGroup = null;
-        }
     }
 
     /**
@@ -77,26 +73,30 @@ public final class DydxConnector {
     }
 
     private void bootstrapNetty() {
-        String host = sidecarUri.getHost();
-        int port = sidecarUri.getPort() == -1 ? 8080 : sidecarUri.getPort();
-        // 注意：本地 Sidecar 通常使用 ws://，不需要 SSL
-
-        eventLoopGroup = new NioEventLoopGroup(1);
+        handler = new SidecarWebSocketClientHandler(newHandshaker(sidecarUri), normalizer, null);
+        channel = connect(sidecarUri, handler);
+    }
 
-        WebSocketClientHandshaker handshaker = WebSocketClientHandshakerFactory.newHandshaker(
-                sidecarUri,
+    static WebSocketClientHandshaker newHandshaker(URI uri) {
+        return WebSocketClientHandshakerFactory.newHandshaker(
+                uri,
                 WebSocketVersion.V13,
                 null,
                 true,
                 new DefaultHttpHeaders()
         );
+    }
 
-        handler = new SidecarWebSocketClientHandler(handshaker);
+    /**
+     * 建立一条到 Sidecar 的 WebSocket 连接并阻塞到握手完成（连接池中的各条连接共用）。
+     */
+    static Channel connect(URI uri, SidecarWebSocketClientHandler handler) {
+        String host = uri.getHost();
+        int port = uri.getPort() == -1 ? 8080 : uri.getPort();
+        // 注意：本地 Sidecar 通常使用 ws://，不需要 SSL
 
-        Bootstrap bootstrap = new Bootstrap()
-                .group(eventLoopGroup)
-                .channel(NioSocketChannel.class)
-                .option(ChannelOption.TCP_NODELAY, true)
+        // 共享 IO 线程池与统一 socket 参数（见 NettyTransport）
+        Bootstrap bootstrap = NettyTransport.getInstance().bootstrap()
                 .option(ChannelOption.SO_KEEPALIVE, true)
                 .handler(new ChannelInitializer<Channel>() {
                     @Override
@@ -112,12 +112,13 @@ public final class DydxConnector {
                     }
                 });
 
-        channel = bootstrap.connect(host, port).syncUninterruptibly().channel();
+        Channel ch = bootstrap.connect(host, port).syncUninterruptibly().channel();
         handler.handshakeFuture().syncUninterruptibly();
+        return ch;
     }
 
     public static void main(String[] args) {
-        DydxConnector sidecarConnector = new DydxConnector("ws://127.0.0.1:8080");
+        DydxConnector sidecarConnector = new DydxConnector("ws://127.0.0.1:8080", null);
         sidecarConnector.start();
         Channel channel = sidecarConnector.getChannel();
         channel.writeAndFlush(new TextWebSocketFrame("hello"));
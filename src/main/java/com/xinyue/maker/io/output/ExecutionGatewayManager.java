@@ -2,24 +2,89 @@ package com.xinyue.maker.io.output;
 
 import com.xinyue.maker.common.Exchange;
 import com.xinyue.maker.core.gateway.ExecutionGateway;
+import com.xinyue.maker.core.gateway.OutboundListener;
 import org.agrona.collections.Object2ObjectHashMap;
 
+import java.util.Arrays;
+
 /**
  * 管理多个交易所的 ExecutionGateway 实例。
- * 根据 Exchange 路由到对应的网关。
+ * 根据 Exchange 路由到对应的网关，并负责各交易所 Sidecar 连接池的启停。
  */
 public final class ExecutionGatewayManager {
 
     private final Object2ObjectHashMap<Exchange, ExecutionGateway> gateways = new Object2ObjectHashMap<>();
+    // 已注册网关的数组副本，L2 每个批次结束时遍历 flush（不产生迭代器）
+    private ExecutionGateway[] all = new ExecutionGateway[0];
+    private OutboundListener outboundListener;
+    private final Object2ObjectHashMap<Exchange, SidecarConnectionPool> sidecarPools = new Object2ObjectHashMap<>();
 
     /**
      * 注册交易所的 ExecutionGateway。
      */
     public ExecutionGatewayManager register(Exchange exchange, ExecutionGateway gateway) {
-        gateways.put(exchange, gateway);
+        ExecutionGateway previous = gateways.put(exchange, gateway);
+        ExecutionGateway[] next = previous == null ? Arrays.copyOf(all, all.length + 1) : all.clone();
+        if (previous == null) {
+            next[next.length - 1] = gateway;
+        } else {
+            for (int i = 0; i < next.length; i++) {
+                if (next[i] == previous) {
+                    next[i] = gateway;
+                }
+            }
+        }
+        all = next;
+        if (outboundListener != null) {
+            gateway.setOutboundListener(outboundListener);
+        }
+        return this;
+    }
+
+    /**
+     * 登记交易所的 Sidecar 连接池，由 {@link #startAll()} / {@link #stopAll()} 统一启停。
+     */
+    public ExecutionGatewayManager registerSidecarPool(Exchange exchange, SidecarConnectionPool pool) {
+        sidecarPools.put(exchange, pool);
         return this;
     }
 
+    /**
+     * 获取交易所的 Sidecar 连接池（监控用），未登记时返回 null。
+     */
+    public SidecarConnectionPool getSidecarPool(Exchange exchange) {
+        return sidecarPools.get(exchange);
+    }
+
+    /**
+     * 为所有网关（含之后注册的）设置出站反馈。
+     */
+    public void setOutboundListener(OutboundListener listener) {
+        outboundListener = listener;
+        for (ExecutionGateway gateway : all) {
+            gateway.setOutboundListener(listener);
+        }
+    }
+
+    /**
+     * 在当前线程（L2）为所有网关开启批量发送。
+     */
+    public void beginBatchingAll() {
+        for (ExecutionGateway gateway : all) {
+            gateway.beginBatching();
+        }
+    }
+
+    /**
+     * 写出所有网关在当前线程暂存的批次。
+     */
+    public void flushAll() {
+        ExecutionGateway[] gateways = all;
+        for (int i = 0; i < gateways.length; i++) {
+            gateways[i].flush();
+        }
+    }
+
     /**
      * 获取指定交易所的 ExecutionGateway。
      */
@@ -31,16 +96,19 @@ public final class ExecutionGatewayManager {
      * 启动所有网关的连接。
      */
     public void startAll() {
-        // 各个网关的连接启动逻辑由各自的 Connector 负责
-        // 这里可以添加统一的启动逻辑，如果需要的话
+        // 行情 / 账户连接由各自的 Connector 负责，这里只启动 Sidecar 连接池（阻塞到各连接握手完成或转入后台重连）
+        for (SidecarConnectionPool pool : sidecarPools.values()) {
+            pool.start();
+        }
     }
 
     /**
      * 停止所有网关的连接。
      */
     public void stopAll() {
-        // 各个网关的连接停止逻辑由各自的 Connector 负责
-        // 这里可以添加统一的停止逻辑，如果需要的话
+        for (SidecarConnectionPool pool : sidecarPools.values()) {
+            pool.stop();
+        }
     }
 }
 
@@ -1,39 +1,63 @@
 package com.xinyue.maker.io.output;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.xinyue.maker.common.AssetRegistry;
+import com.xinyue.maker.common.CachedClock;
 import com.xinyue.maker.common.Exchange;
 import com.xinyue.maker.common.OrderCommand;
 import com.xinyue.maker.common.TransferCommand;
+import com.xinyue.maker.config.RateLimitConfig;
 import com.xinyue.maker.core.gateway.ExecutionGateway;
+import com.xinyue.maker.core.gateway.OutboundListener;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
-import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
 import org.agrona.collections.Int2ObjectHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+
 /**
- * L1 实现类：负责将 L2 的指令翻译成 Node.js 能懂的 JSON，并塞入 Netty 管道
+ * L1 实现类：负责将 L2 的指令按 {@link SidecarProtocol} 编码成二进制帧，并塞入 Netty 管道。
+ * 账户会话（含助记词）在连接上只注册一次，之后的指令只携带 accountId。
+ * <p>
+ * 连接：{@link SidecarConnectionPool} 中的多条 Sidecar 连接，每个账户粘性地使用其中一条（断线时迁移），
+ * 某个 Sidecar worker 签名 / 广播慢只阻塞该连接上的账户。
+ * <p>
+ * 批量：L2 线程调用 {@link #beginBatching()} 后，其下单 / 撤单先进入所在连接的 {@link OutboundOrderQueue}（撤单优先、报价槽合并），
+ * 在 Disruptor 批次结束（或显式 {@link #flush()}）时按优先级编码成 BATCH 帧，每条连接一次 writeAndFlush，梯度挂单刷新从 N 帧 N 次 flush 变为 1 帧 1 次。
+ * 连接不可写时指令留在有界队列中等待下一次 flush，队列满或被合并的指令通过 {@link OutboundListener} 反馈给 OMS。
  */
 public class NettySidecarGateway implements ExecutionGateway {
     
     private static final Logger LOG = LoggerFactory.getLogger(NettySidecarGateway.class);
-    private static final ObjectMapper jsonMapper = new ObjectMapper();
 
-    // 1. 物理连接：只有一条，连接到 Node.js Sidecar
-    private final Channel sidecarChannel;
+    // 1. 物理连接：连接到一个或多个 Node.js Sidecar 进程的连接池
+    private final SidecarConnectionPool connections;
     
     // 2. 逻辑会话池：管理多个账号的限频和状态
     private final Int2ObjectHashMap<TradeSession> sessionPool;
+    // 会话数组副本，供监控线程遍历（不碰 sessionPool 的共享迭代器）
+    private volatile TradeSession[] sessions = new TradeSession[0];
     
-    // 3. 交易所类型（用于初始化 TradeSession）
+    // 3. 交易所类型（用于初始化 TradeSession）与该交易所的限频参数
     private final Exchange exchange;
+    private final RateLimitConfig rateLimits;
+
+    // 单帧最多合并的指令数，超过时提前写出
+    private static final int MAX_BATCH_COMMANDS = 256;
+    private static final int BATCH_INITIAL_BYTES = SidecarProtocol.HEADER_LENGTH + 32 * SidecarProtocol.ORDER_LENGTH;
+
+    // 4. 批量发送：只有 batchThread 会读写各连接的出站队列
+    private volatile Thread batchThread;
+    private volatile OutboundListener listener;
 
-    public NettySidecarGateway(Channel sidecarChannel, Int2ObjectHashMap<TradeSession> sessionPool, Exchange exchange) {
-        this.sidecarChannel = sidecarChannel;
+    public NettySidecarGateway(SidecarConnectionPool connections, Int2ObjectHashMap<TradeSession> sessionPool,
+                               Exchange exchange) {
+        this.connections = connections;
         this.sessionPool = sessionPool;
         this.exchange = exchange;
+        this.rateLimits = RateLimitConfig.load(exchange);
     }
 
     /**
@@ -45,10 +69,15 @@ public class NettySidecarGateway implements ExecutionGateway {
      * @param mnemonicPhrase 助记词
      */
     public void initializeSession(int accountId, String accountName, String mnemonicPhrase) {
-        TradeSession session = new TradeSession(accountId, accountName, exchange, mnemonicPhrase);
+        TradeSession session = new TradeSession(accountId, accountName, exchange, mnemonicPhrase, rateLimits);
+        connections.assign(session);
         sessionPool.put(accountId, session);
-        LOG.info("TradeSession initialized: accountId={}, accountName={}, exchange={}", 
-                accountId, accountName, exchange);
+        TradeSession[] next = Arrays.copyOf(sessions, sessions.length + 1);
+        next[next.length - 1] = session;
+        sessions = next;
+        registerSession(session, session.connection);
+        LOG.info("TradeSession initialized: accountId={}, accountName={}, exchange={}, connection={}",
+                accountId, accountName, exchange, session.connection.name());
     }
 
     @Override
@@ -59,73 +88,259 @@ public class NettySidecarGateway implements ExecutionGateway {
         TradeSession session = sessionPool.get(cmd.accountId);
         if (session == null) {
             LOG.error("Account {} not found, order rejected.", cmd.accountId);
+            notifyDropped(cmd, OutboundListener.DROP_NO_SESSION);
             return;
         }
 
-        // 2. 账号级限频检查 (Rate Limit)
-        // 假设 RateLimiter 是非阻塞的 (如 Guava 或自研计数器)
-//        if (!session.rateLimiter.tryAcquire()) {
-//            LOG.warn("Account {} rate limited.", cmd.accountId);
-//            // 这里可以反馈给 L2 做流控，或者直接丢弃
-//            return;
-//        }
+        // 2. 账号 / 交易对级限频（无锁令牌桶，时间取 L2 缓存时钟）
+        // 下单超限直接拒绝并反馈给 OMS（策略据 isThrottled 换账户），不进入队列；撤单照常计入限额但不拒绝
+        long now = CachedClock.nanos();
+        if (isCancelCommand(cmd)) {
+            session.forceAcquire(cmd.symbolId, now);
+        } else if (!session.tryAcquire(cmd.symbolId, now)) {
+            notifyDropped(cmd, OutboundListener.DROP_THROTTLED);
+            return;
+        }
 
-        // --- 步骤 B: 协议封装 (仍在 L2 线程，Jackson 序列化通常在微秒级) ---
-        
-        try {
-            // 构造发给 Node.js 的 JSON Payload
-            ObjectNode payload = jsonMapper.createObjectNode();
+        // 3. 账户粘性连接：L2 线程在连接断开时把账户迁移到其它连接，其它线程只用当前连接
+        boolean batching = Thread.currentThread() == batchThread;
+        SidecarConnection connection = batching ? connections.route(session, now) : connections.current(session);
+        session.lastSendNanos = now;
+
+        // 连接建立前初始化或刚迁移 / 重连的账户：首次下单前在该连接上补发注册（冷路径）
+        if (session.registeredEpoch != connection.epoch()) {
+            registerSession(session, connection);
+        }
+        if (batching) {
+            OutboundOrderQueue outbound = connection.outbound;
+            outbound.offer(cmd, lane(cmd), System.nanoTime());
+            if (outbound.size() >= MAX_BATCH_COMMANDS) {
+                flush(connection); // 单个 Disruptor 批次内指令过多：凑满一帧先写出，避免挤占队列
+            }
+            return;
+        }
+        Channel sidecarChannel = connection.channel();
+        if (sidecarChannel == null || !sidecarChannel.isWritable()) {
+            LOG.error("Sidecar channel {} is full/busy, dropping order {}", connection.name(), cmd.internalOrderId);
+            notifyDropped(cmd, OutboundListener.DROP_BACKPRESSURE);
+            return;
+        }
 
-            // 取消订单：OMS 只会填充 clientId/clobPairId/orderFlags/goodTilBlockTimeSec
+        // --- 步骤 B: 协议封装 (仍在 L2 线程，按固定偏移写入池化 ByteBuf，无 JSON / 字符串分配) ---
+        ByteBuf buf = null;
+        try {
             if (isCancelCommand(cmd)) {
-                payload.put("action", "CANCEL");
-                payload.put("clientId", cmd.internalOrderId); // 透传 ID
-                payload.put("accountId", cmd.accountId);
-                payload.put("clobPairId", cmd.clobPairId);
-                payload.put("orderFlags", cmd.orderFlags);
-                payload.put("goodTilBlockTime", cmd.goodTilBlockTimeSec); // 秒
-                payload.put("word", session.mnemonicPhrase);
+                // 取消订单：OMS 只会填充 clientId/clobPairId/orderFlags/goodTilBlockTimeSec
+                buf = sidecarChannel.alloc().buffer(SidecarProtocol.CANCEL_LENGTH);
+                SidecarProtocol.writeCancel(buf, cmd);
             } else {
-                // 下单
-                payload.put("action", "ORDER");
-                payload.put("clientId", cmd.internalOrderId); // 透传 ID
-                payload.put("accountId", cmd.accountId);   // 告诉 Node 用谁的私钥
-                payload.put("symbol", cmd.symbolId);
-                payload.put("price", cmd.priceE8);         // Node 端需处理精度
-                payload.put("qty", cmd.qtyE8);
-                payload.put("side", cmd.side);
-                // 从 TradeSession 获取助记词
-                payload.put("word", session.mnemonicPhrase);
-                payload.put("goodTilTimeInSeconds",cmd.goodTilTimeInSeconds);
+                buf = sidecarChannel.alloc().buffer(SidecarProtocol.ORDER_LENGTH);
+                SidecarProtocol.writeOrder(buf, cmd);
             }
-            // 转为字符串 (Netty TextFrame)
-            String jsonStr = payload.toString();
-            TextWebSocketFrame frame = new TextWebSocketFrame(jsonStr);
             // --- 步骤 C: 异步交接 (Async Handoff) ---
             // 关键点：writeAndFlush 是线程安全的，且是非阻塞的。
             // 它会将任务添加到 Netty IO 线程的队列中，L2 线程立刻返回。
-            if (sidecarChannel.isWritable()) {
-                sidecarChannel.writeAndFlush(frame); 
-                // 可选：添加监听器处理网络层面的发送失败（不在 L2 线程回调）
-            } else {
-                LOG.error("Sidecar channel is full/busy, dropping order {}", cmd.internalOrderId);
+            sidecarChannel.writeAndFlush(new BinaryWebSocketFrame(buf));
+            connection.onSent(1);
+            notifySent(cmd, System.nanoTime());
+        } catch (Exception e) {
+            if (buf != null && buf.refCnt() > 0) {
+                buf.release();
             }
+            LOG.error("Failed to encode order", e);
+        }
+    }
+
+    @Override
+    public void beginBatching() {
+        batchThread = Thread.currentThread();
+    }
+
+    @Override
+    public void setOutboundListener(OutboundListener listener) {
+        this.listener = listener;
+        for (SidecarConnection connection : connections.connections()) {
+            connection.outbound.setListener(listener);
+        }
+    }
+
+    /**
+     * 连接池中没有任何可写连接时视为背压。
+     */
+    @Override
+    public boolean isBackpressured() {
+        return connections.isBackpressured();
+    }
+
+    @Override
+    public boolean isThrottled(short accountId, short symbolId) {
+        TradeSession session = sessionPool.get(accountId);
+        return session != null && session.isThrottled(symbolId, CachedClock.nanos());
+    }
+
+    /**
+     * 所有账户因限频被拒绝的下单数（监控用）。
+     */
+    public long throttledOrders() {
+        long total = 0;
+        for (TradeSession session : sessions) {
+            total += session.throttled();
+        }
+        return total;
+    }
+
+    /**
+     * Sidecar 连接池（监控读取各连接的健康状态、在途指令数与出站队列）。
+     */
+    public SidecarConnectionPool connectionPool() {
+        return connections;
+    }
 
+    /**
+     * 批量线程：逐条连接按优先级排空出站队列，每帧最多 {@link #MAX_BATCH_COMMANDS} 条；
+     * 连接不可写时剩余指令留在队列中，连接已断开时把排队指令转移到各账户迁移后的连接。
+     */
+    @Override
+    public void flush() {
+        if (Thread.currentThread() != batchThread) {
+            return;
+        }
+        SidecarConnection[] all = connections.connections();
+        for (int i = 0; i < all.length; i++) {
+            if (!all[i].outbound.isEmpty() && !all[i].isActive()) {
+                migrateQueued(all[i]);
+            }
+        }
+        for (int i = 0; i < all.length; i++) {
+            flush(all[i]);
+        }
+    }
+
+    private void flush(SidecarConnection connection) {
+        OutboundOrderQueue outbound = connection.outbound;
+        Channel sidecarChannel;
+        while (!outbound.isEmpty() && (sidecarChannel = connection.channel()) != null && sidecarChannel.isWritable()) {
+            if (!writeBatch(connection, sidecarChannel)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 连接断开：排队中的指令随账户迁移到其它连接的队列（所有连接都不可用时留在原队列）。
+     */
+    private void migrateQueued(SidecarConnection dead) {
+        long now = CachedClock.nanos();
+        OrderCommand cmd;
+        while ((cmd = dead.outbound.peek()) != null) {
+            TradeSession session = sessionPool.get(cmd.accountId);
+            SidecarConnection target = session == null ? null : connections.route(session, now);
+            if (target == null || target == dead) {
+                return;
+            }
+            if (session.registeredEpoch != target.epoch()) {
+                registerSession(session, target);
+            }
+            target.outbound.offer(cmd, lane(cmd), System.nanoTime());
+            dead.outbound.skip();
+        }
+    }
+
+    private boolean writeBatch(SidecarConnection connection, Channel sidecarChannel) {
+        OutboundOrderQueue outbound = connection.outbound;
+        ByteBuf buf = null;
+        try {
+            buf = sidecarChannel.alloc().buffer(BATCH_INITIAL_BYTES);
+            int header = SidecarProtocol.writeBatchHeader(buf);
+            int count = 0;
+            long now = System.nanoTime();
+            OrderCommand cmd;
+            while (count < MAX_BATCH_COMMANDS && (cmd = outbound.peek()) != null) {
+                if (isCancelCommand(cmd)) {
+                    SidecarProtocol.writeCancel(buf, cmd);
+                } else {
+                    SidecarProtocol.writeOrder(buf, cmd);
+                }
+                // 队列槽位在 remove 后复用：写出时刻按批次开始时刻回调
+                notifySent(cmd, now);
+                outbound.remove(now);
+                count++;
+            }
+            if (count == 1) {
+                // 只有一条指令时不加批次头，与非批量发送的帧完全相同
+                buf.skipBytes(SidecarProtocol.HEADER_LENGTH);
+            } else {
+                SidecarProtocol.setBatchCount(buf, header, count);
+            }
+            sidecarChannel.writeAndFlush(new BinaryWebSocketFrame(buf));
+            connection.onSent(count);
+            return true;
         } catch (Exception e) {
-            LOG.error("Failed to encode order", e);
+            if (buf != null && buf.refCnt() > 0) {
+                buf.release();
+            }
+            LOG.error("Failed to encode order batch", e);
+            return false;
         }
     }
 
     /**
-     * 判断是否为撤单命令。
-     * 约定：撤单命令不会携带 price/qty/side，但会携带 clobPairId/goodTilBlockTimeSec/orderFlags。
+     * 出站优先级：按 OMS / 策略设置的 {@link OrderCommand#priority}，未知取值按新报价处理。
+     */
+    private static int lane(OrderCommand cmd) {
+        if (isCancelCommand(cmd)) {
+            return OrderCommand.PRIORITY_CANCEL;
+        }
+        return cmd.priority == OrderCommand.PRIORITY_REDUCE ? OrderCommand.PRIORITY_REDUCE : OrderCommand.PRIORITY_QUOTE;
+    }
+
+    private void notifySent(OrderCommand cmd, long sentNanos) {
+        OutboundListener l = listener;
+        if (l != null) {
+            l.onCommandSent(cmd, sentNanos);
+        }
+    }
+
+    private void notifyDropped(OrderCommand cmd, byte reason) {
+        OutboundListener l = listener;
+        if (l != null) {
+            l.onCommandDropped(cmd, reason);
+        }
+    }
+
+    /**
+     * 在账户的当前 Sidecar 连接上注册账户会话（助记词只在这里发送），重复注册由 Sidecar 覆盖。
+     */
+    private void registerSession(TradeSession session, SidecarConnection connection) {
+        int epoch = connection.epoch(); // 先读代数：注册写到这一代连接上
+        if (writeRegistration(session, connection)) {
+            session.registeredEpoch = epoch;
+        }
+    }
+
+    private boolean writeRegistration(TradeSession session, SidecarConnection connection) {
+        Channel sidecarChannel = connection.channel();
+        if (sidecarChannel == null) {
+            return false; // 连接可用后由首次下单补发
+        }
+        ByteBuf buf = sidecarChannel.alloc().buffer();
+        try {
+            SidecarProtocol.writeRegisterSession(buf, session.accountId, session.accountName, session.mnemonicPhrase);
+        } catch (RuntimeException e) {
+            buf.release();
+            LOG.error("Failed to encode session registration: accountId={}", session.accountId, e);
+            return false;
+        }
+        sidecarChannel.writeAndFlush(new BinaryWebSocketFrame(buf));
+        return true;
+    }
+
+    /**
+     * 判断是否为撤单命令：OMS 撤单时设置 {@link OrderCommand#PRIORITY_CANCEL}（与 OMS 的 onCommandSent 判定一致）。
+     * 不按 clobPairId 等内容识别：尚未收到 indexer 推送的订单这些字段为 0，而这正是撤单优先最需要覆盖的情形。
      */
     private static boolean isCancelCommand(OrderCommand cmd) {
-        return cmd.clobPairId != 0
-                && cmd.goodTilBlockTimeSec != 0L
-                && cmd.priceE8 == 0L
-                && cmd.qtyE8 == 0L
-                && cmd.side == 0;
+        return cmd.priority == OrderCommand.PRIORITY_CANCEL;
     }
 
     @Override
@@ -139,31 +354,35 @@ public class NettySidecarGateway implements ExecutionGateway {
             return;
         }
 
+        // 转账走转出账户的连接；转入账户若在其它连接上，则在这条连接上也注册一次（冷路径）
+        SidecarConnection connection = connections.current(fromSession);
+        if (fromSession.registeredEpoch != connection.epoch()) {
+            registerSession(fromSession, connection);
+        }
+        if (toSession.connection != connection) {
+            writeRegistration(toSession, connection);
+        } else if (toSession.registeredEpoch != connection.epoch()) {
+            registerSession(toSession, connection);
+        }
+        String asset = AssetRegistry.getInstance().getAsset(cmd.symbolId); // 转换 assetId 回 symbol 字符串
+        ByteBuf buf = null;
         try {
-            ObjectNode payload = jsonMapper.createObjectNode();
-            payload.put("action", "TRANSFER");
-            payload.put("fromAccountId", cmd.fromAccountId);
-            payload.put("toAccountId", cmd.toAccountId);
-            payload.put("symbol", AssetRegistry.getInstance().getAsset(cmd.symbolId)); // 转换 assetId 回 symbol 字符串
-            payload.put("qty", cmd.qtyE8);
-            payload.put("exchangeId", cmd.exchangeId);
-            payload.put("fromWord", fromSession.mnemonicPhrase); // 发送方助记词
-            payload.put("toWord", toSession.mnemonicPhrase);     // 接收方助记词（dYdX 转账可能需要，但可能不严格需要）
-
-            String jsonStr = payload.toString();
-            TextWebSocketFrame frame = new TextWebSocketFrame(jsonStr);
-
-            if (sidecarChannel.isWritable()) {
-                sidecarChannel.writeAndFlush(frame);
+            Channel sidecarChannel = connection.channel();
+            if (sidecarChannel != null && sidecarChannel.isWritable()) {
+                // 双方助记词已随会话注册发送，这里只携带 accountId
+                buf = sidecarChannel.alloc().buffer();
+                SidecarProtocol.writeTransfer(buf, cmd, asset);
+                sidecarChannel.writeAndFlush(new BinaryWebSocketFrame(buf));
+                buf = null; // 已交给 Netty 释放
                 LOG.info("Transfer command sent: fromAccount={}, toAccount={}, asset={}, qty={}",
-                        cmd.fromAccountId, cmd.toAccountId, 
-                        AssetRegistry.getInstance().getAsset(cmd.symbolId), 
-                        cmd.qtyE8 / 1_0000_0000.0);
+                        cmd.fromAccountId, cmd.toAccountId, asset, cmd.qtyE8 / 1_0000_0000.0);
             } else {
-                LOG.error("Sidecar channel is full/busy, dropping transfer command for asset {}", 
-                        AssetRegistry.getInstance().getAsset(cmd.symbolId));
+                LOG.error("Sidecar channel is full/busy, dropping transfer command for asset {}", asset);
             }
         } catch (Exception e) {
+            if (buf != null && buf.refCnt() > 0) {
+                buf.release();
+            }
             LOG.error("Failed to encode transfer command", e);
         }
     }
@@ -0,0 +1,327 @@
+package com.xinyue.maker.io.output;
+
+import com.xinyue.maker.common.OrderCommand;
+import com.xinyue.maker.core.gateway.OutboundListener;
+import org.agrona.collections.Long2LongHashMap;
+
+/**
+ * OMS 与 Sidecar 连接之间的出站调度队列（只由 L2 批量线程访问，Zero GC）。
+ * <p>
+ * 容量固定、槽位预分配（指令按值拷入），三条优先级通道：撤单 > 降低风险 > 新报价，出队时总是先取高优先级通道的队头。
+ * <ul>
+ *   <li>合并：同一账户同一交易对同一报价槽（{@link OrderCommand#slotId} != 0）尚未发出的旧报价被新报价原位替换，
+ *       同一连接上不同账户（不同策略实例）的报价互不影响；</li>
+ *   <li>撤单：目标订单仍在队列中时，两条都不再发送；</li>
+ *   <li>队列满：高优先级指令挤掉优先级更低通道中最新入队的一条；无可挤占时丢弃本条。</li>
+ * </ul>
+ * 所有未发送的指令都回调 {@link OutboundListener}，由 OMS 回滚订单状态与预扣余额。
+ * 统计字段只由 L2 线程写入，监控线程读取时允许读到稍旧的值。
+ */
+public final class OutboundOrderQueue {
+
+    public static final int LANES = 3;
+    public static final int WAIT_BUCKETS = 40;
+    private static final int NONE = -1;
+
+    private final int capacity;
+    private final OrderCommand[] slots;
+    private final long[] enqueueNanos;
+    private final long[] coalesceKeys;
+    private final byte[] lanes;
+    // 各通道的双向链表（按槽位下标串联）与空闲链表
+    private final int[] next;
+    private final int[] prev;
+    private final int[] heads = new int[LANES];
+    private final int[] tails = new int[LANES];
+    private final int[] laneDepths = new int[LANES];
+    private int freeHead;
+    private int size;
+
+    // 报价槽合并键 -> 槽位；下单 internalOrderId -> 槽位（撤单时查找未发出的原单）
+    private final Long2LongHashMap slotIndex = new Long2LongHashMap(NONE);
+    private final Long2LongHashMap orderIndex = new Long2LongHashMap(NONE);
+
+    private OutboundListener listener;
+
+    // === 统计 ===
+    private long enqueued;
+    private long sent;
+    private long superseded;
+    private long canceledUnsent;
+    private long dropped;
+    private int maxDepth;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+    private final long[] waitBuckets = new long[WAIT_BUCKETS];
+
+    public OutboundOrderQueue(int capacity) {
+        this.capacity = capacity;
+        this.slots = new OrderCommand[capacity];
+        this.enqueueNanos = new long[capacity];
+        this.coalesceKeys = new long[capacity];
+        this.lanes = new byte[capacity];
+        this.next = new int[capacity];
+        this.prev = new int[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new OrderCommand();
+            next[i] = i + 1 < capacity ? i + 1 : NONE;
+        }
+        java.util.Arrays.fill(heads, NONE);
+        java.util.Arrays.fill(tails, NONE);
+    }
+
+    public void setListener(OutboundListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 指令入队。返回 false 表示本条没有入队（已回调 listener，或撤单命中了未发出的原单）。
+     */
+    public boolean offer(OrderCommand cmd, int lane, long nowNanos) {
+        if (lane == OrderCommand.PRIORITY_CANCEL) {
+            int pending = (int) orderIndex.get(cmd.internalOrderId);
+            if (pending != NONE) {
+                // 原单还没发出：撤单与原单一起作废
+                canceledUnsent++;
+                notifyDropped(slots[pending], OutboundListener.DROP_CANCELED_UNSENT);
+                unlink(pending);
+                return false;
+            }
+        }
+
+        long key = coalesceKey(cmd, lane);
+        if (key != NONE) {
+            int queued = (int) slotIndex.get(key);
+            if (queued != NONE) {
+                // 同一报价槽的旧报价被原位替换（保持其排队位置）
+                superseded++;
+                notifyDropped(slots[queued], OutboundListener.DROP_SUPERSEDED);
+                orderIndex.remove(slots[queued].internalOrderId);
+                fill(queued, cmd, lane, key, nowNanos);
+                enqueued++;
+                return true;
+            }
+        }
+
+        if (size == capacity && !evictBelow(lane)) {
+            dropped++;
+            notifyDropped(cmd, OutboundListener.DROP_QUEUE_FULL);
+            return false;
+        }
+
+        int slot = freeHead;
+        freeHead = next[slot];
+        fill(slot, cmd, lane, key, nowNanos);
+        next[slot] = NONE;
+        prev[slot] = tails[lane];
+        if (tails[lane] == NONE) {
+            heads[lane] = slot;
+        } else {
+            next[tails[lane]] = slot;
+        }
+        tails[lane] = slot;
+        laneDepths[lane]++;
+        if (++size > maxDepth) {
+            maxDepth = size;
+        }
+        enqueued++;
+        return true;
+    }
+
+    /**
+     * 优先级最高的待发指令（不出队），队列为空时返回 null。返回的对象在 {@link #remove} 之后会被复用。
+     */
+    public OrderCommand peek() {
+        int slot = headSlot();
+        return slot == NONE ? null : slots[slot];
+    }
+
+    /**
+     * 移除 {@link #peek()} 返回的指令（已编码写出），并记录其排队时间。
+     */
+    public void remove(long nowNanos) {
+        int slot = headSlot();
+        if (slot == NONE) {
+            return;
+        }
+        recordWait(nowNanos - enqueueNanos[slot]);
+        sent++;
+        unlink(slot);
+    }
+
+    /**
+     * 移除 {@link #peek()} 返回的指令但不计入已发送（连接断开时指令已转入其它连接的队列）。
+     */
+    public void skip() {
+        int slot = headSlot();
+        if (slot != NONE) {
+            unlink(slot);
+        }
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    private int headSlot() {
+        for (int lane = 0; lane < LANES; lane++) {
+            if (heads[lane] != NONE) {
+                return heads[lane];
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * 挤掉优先级低于 lane 的通道中最新入队的一条，为本条腾出位置。
+     */
+    private boolean evictBelow(int lane) {
+        for (int victimLane = LANES - 1; victimLane > lane; victimLane--) {
+            int victim = tails[victimLane];
+            if (victim != NONE) {
+                dropped++;
+                notifyDropped(slots[victim], OutboundListener.DROP_QUEUE_FULL);
+                unlink(victim);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void fill(int slot, OrderCommand cmd, int lane, long key, long nowNanos) {
+        slots[slot].copyFrom(cmd);
+        lanes[slot] = (byte) lane;
+        enqueueNanos[slot] = nowNanos;
+        coalesceKeys[slot] = key;
+        if (key != NONE) {
+            slotIndex.put(key, slot);
+        }
+        if (lane != OrderCommand.PRIORITY_CANCEL && cmd.internalOrderId != 0) {
+            orderIndex.put(cmd.internalOrderId, slot);
+        }
+    }
+
+    private void unlink(int slot) {
+        int lane = lanes[slot];
+        int p = prev[slot];
+        int n = next[slot];
+        if (p == NONE) {
+            heads[lane] = n;
+        } else {
+            next[p] = n;
+        }
+        if (n == NONE) {
+            tails[lane] = p;
+        } else {
+            prev[n] = p;
+        }
+        laneDepths[lane]--;
+        size--;
+        if (coalesceKeys[slot] != NONE) {
+            slotIndex.remove(coalesceKeys[slot]);
+        }
+        if (lane != OrderCommand.PRIORITY_CANCEL) {
+            orderIndex.remove(slots[slot].internalOrderId);
+        }
+        next[slot] = freeHead;
+        prev[slot] = NONE;
+        freeHead = slot;
+    }
+
+    /**
+     * 报价槽合并键：通道(8 位) + 账户(16 位) + 交易对(16 位) + slotId(低 24 位)；撤单与未指定 slotId 的指令不合并。
+     */
+    private static long coalesceKey(OrderCommand cmd, int lane) {
+        if (cmd.slotId == 0 || lane == OrderCommand.PRIORITY_CANCEL) {
+            return NONE;
+        }
+        return ((long) lane << 56)
+                | ((long) (cmd.accountId & 0xFFFF) << 40)
+                | ((long) (cmd.symbolId & 0xFFFF) << 24)
+                | (cmd.slotId & 0xFFFFFFL);
+    }
+
+    private void notifyDropped(OrderCommand cmd, byte reason) {
+        OutboundListener l = listener;
+        if (l != null) {
+            l.onCommandDropped(cmd, reason);
+        }
+    }
+
+    private void recordWait(long nanos) {
+        if (nanos < 0) {
+            return;
+        }
+        totalWaitNanos += nanos;
+        if (nanos > maxWaitNanos) {
+            maxWaitNanos = nanos;
+        }
+        waitBuckets[Math.min(WAIT_BUCKETS - 1, 63 - Long.numberOfLeadingZeros(nanos | 1))]++;
+    }
+
+    // === 监控读取 ===
+
+    public int laneDepth(int lane) {
+        return laneDepths[lane];
+    }
+
+    public int maxDepth() {
+        return maxDepth;
+    }
+
+    public long enqueued() {
+        return enqueued;
+    }
+
+    public long sent() {
+        return sent;
+    }
+
+    public long superseded() {
+        return superseded;
+    }
+
+    public long canceledUnsent() {
+        return canceledUnsent;
+    }
+
+    public long dropped() {
+        return dropped;
+    }
+
+    public long maxWaitNanos() {
+        return maxWaitNanos;
+    }
+
+    public long avgWaitNanos() {
+        long c = sent;
+        return c == 0 ? 0L : totalWaitNanos / c;
+    }
+
+    /**
+     * 排队时间近似分位数：返回样本所在桶的上界（纳秒）。
+     */
+    public long percentileWaitNanos(double percentile) {
+        long c = sent;
+        if (c == 0) {
+            return 0L;
+        }
+        long target = (long) Math.ceil(c * percentile);
+        long seen = 0;
+        for (int i = 0; i < WAIT_BUCKETS; i++) {
+            seen += waitBuckets[i];
+            if (seen >= target) {
+                return 1L << (i + 1);
+            }
+        }
+        return maxWaitNanos;
+    }
+}
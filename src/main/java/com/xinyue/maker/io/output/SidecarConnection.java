@@ -0,0 +1,189 @@
+package com.xinyue.maker.io.output;
+
+import com.xinyue.maker.io.NettyTransport;
+import com.xinyue.maker.io.Normalizer;
+import com.xinyue.maker.io.input.ConnectionSupervisor;
+import io.netty.channel.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sidecar 连接池中的一条连接：由 {@link ConnectionSupervisor} 监管（断线切换备用 / 退避重连），
+ * 自带一条 {@link OutboundOrderQueue}，分配到本连接的账户的下单 / 撤单只在这里排队和发送，
+ * 某个 Sidecar worker 签名 / 广播慢只阻塞本连接上的账户。
+ * <p>
+ * 在途指令数 = 已写出的指令数 - 本连接收到的执行回报数（Sidecar 对每条下单 / 撤单都回报一次）。
+ * 连接每次成为活动连接时代数 {@link #epoch()} 加一，账户会话据此在新连接上重新注册。
+ */
+public final class SidecarConnection implements ConnectionSupervisor.Link {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SidecarConnection.class);
+
+    private final int index;
+    private final String name;
+    private final URI uri;
+    private final Normalizer normalizer;
+    private final ConnectionSupervisor supervisor;
+    // 只由 L2 批量线程访问
+    final OutboundOrderQueue outbound;
+
+    private volatile Channel channel;
+    private volatile int epoch;
+    // 当前分配到本连接的账户数（L2 迁移账户与启动线程初始化账户都会修改）
+    private final AtomicInteger sessions = new AtomicInteger();
+
+    // 统计：sent 只由 L2 线程写，reports 只由本连接的 IO 线程写，监控线程读取时允许读到稍旧的值
+    private volatile long sent;
+    private volatile long reports;
+    private volatile long lastReportMillis;
+    private volatile long migratedIn;
+
+    SidecarConnection(int index, String uri, Normalizer normalizer, int queueCapacity) {
+        this.index = index;
+        this.name = "sidecar-" + index;
+        this.uri = URI.create(uri);
+        this.normalizer = normalizer;
+        this.outbound = new OutboundOrderQueue(queueCapacity);
+        this.supervisor = new ConnectionSupervisor(name, this, NettyTransport.getInstance().config());
+    }
+
+    /**
+     * 同步建立连接；失败时记录日志并转入后台重连，不影响连接池中的其它连接。
+     */
+    void start() {
+        try {
+            supervisor.start();
+            LOG.info("Sidecar 连接 {} 已建立: {}", name, uri);
+        } catch (Exception e) {
+            LOG.error("Sidecar 连接 {} 建立失败，转入后台重连: {}", name, uri, e);
+            supervisor.startInBackground();
+        }
+    }
+
+    void stop() {
+        supervisor.close();
+    }
+
+    @Override
+    public Channel open() throws Exception {
+        SidecarWebSocketClientHandler handler =
+                new SidecarWebSocketClientHandler(DydxConnector.newHandshaker(uri), normalizer, this);
+        return DydxConnector.connect(uri, handler);
+    }
+
+    @Override
+    public void activate(Channel channel) {
+        // 新连接上还没有任何账户注册：代数加一，账户在下一次发送前重新注册
+        epoch++;
+        this.channel = channel;
+    }
+
+    @Override
+    public void onLost() {
+        channel = null;
+        // 已写到旧连接上的指令不会再从本连接回报，在途数归零
+        reports = sent;
+        LOG.warn("Sidecar 连接 {} 断开，其上的账户将迁移到其它连接", name);
+    }
+
+    /**
+     * 当前可用的连接（已握手），断线恢复期间为 null。
+     */
+    Channel channel() {
+        Channel ch = channel;
+        return ch != null && ch.isActive() ? ch : null;
+    }
+
+    public boolean isActive() {
+        return channel() != null;
+    }
+
+    public boolean isWritable() {
+        Channel ch = channel();
+        return ch != null && ch.isWritable();
+    }
+
+    int epoch() {
+        return epoch;
+    }
+
+    void onSent(int commands) {
+        sent += commands;
+    }
+
+    void onReport() {
+        reports++;
+        lastReportMillis = System.currentTimeMillis();
+    }
+
+    void addSession() {
+        sessions.incrementAndGet();
+    }
+
+    void removeSession() {
+        sessions.decrementAndGet();
+    }
+
+    void onMigratedIn() {
+        migratedIn++;
+    }
+
+    // === 监控读取 ===
+
+    public int index() {
+        return index;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public String uri() {
+        return uri.toString();
+    }
+
+    public OutboundOrderQueue outboundQueue() {
+        return outbound;
+    }
+
+    public int sessions() {
+        return sessions.get();
+    }
+
+    public long sent() {
+        return sent;
+    }
+
+    public long reports() {
+        return reports;
+    }
+
+    /**
+     * 已发出、尚未收到回报的指令数。
+     */
+    public long inFlight() {
+        return Math.max(0L, sent - reports);
+    }
+
+    public long lastReportMillis() {
+        return lastReportMillis;
+    }
+
+    /**
+     * 迁入本连接的账户次数（其它连接断开时迁入，或 home 恢复后迁回）。
+     */
+    public long migratedIn() {
+        return migratedIn;
+    }
+
+    public boolean hasStandby() {
+        return supervisor.hasStandby();
+    }
+
+    public long disconnects() {
+        return supervisor.disconnects();
+    }
+}
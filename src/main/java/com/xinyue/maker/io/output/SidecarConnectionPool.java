@@ -0,0 +1,154 @@
+package com.xinyue.maker.io.output;
+
+import com.xinyue.maker.config.TransportConfig;
+import com.xinyue.maker.io.NettyTransport;
+import com.xinyue.maker.io.Normalizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sidecar 连接池：连接到一个或多个 Sidecar 进程的若干条连接，账户粘性地分配到其中一条。
+ * <p>
+ * 路由规则：
+ * 1. 账户初始化时分配到账户数最少的连接（home），之后该账户的指令都走同一条连接，保证下单与撤单的先后顺序
+ * 2. 当前连接断开时，L2 在下一次发送（或批次 flush 转移排队指令）时把账户迁移到账户数最少的可用连接，并在新连接上重新注册
+ * 3. home 恢复后，账户在 {@link #REHOME_QUIET_NANOS} 内没有发出指令时才迁回，避免同一账户的指令在两条连接上乱序
+ * <p>
+ * 迁移只在 L2 批量线程上发生；其它线程（如 Web 接口撤单）只使用账户的当前连接。
+ */
+public final class SidecarConnectionPool {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SidecarConnectionPool.class);
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    // 账户空闲多久后才允许迁回 home
+    static final long REHOME_QUIET_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final SidecarConnection[] connections;
+
+    public SidecarConnectionPool(String[] uris, int connectionsPerUri, Normalizer normalizer, int queueCapacity) {
+        this.connections = new SidecarConnection[uris.length * connectionsPerUri];
+        int index = 0;
+        // 同一 Sidecar 进程的多条连接交错排列，账户先铺满各进程
+        for (int round = 0; round < connectionsPerUri; round++) {
+            for (String uri : uris) {
+                connections[index] = new SidecarConnection(index, uri, normalizer, queueCapacity);
+                index++;
+            }
+        }
+    }
+
+    /**
+     * 按 transport.properties 的 io.sidecar.* 创建连接池（尚未连接，见 {@link #start()}）。
+     */
+    public static SidecarConnectionPool fromConfig(Normalizer normalizer) {
+        TransportConfig config = NettyTransport.getInstance().config();
+        return new SidecarConnectionPool(config.sidecarUris, config.sidecarConnectionsPerUri, normalizer,
+                DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * 建立所有连接（阻塞到各连接握手完成或失败）。单条连接失败只转入后台重连；全部失败时抛出异常。
+     */
+    public void start() {
+        for (SidecarConnection connection : connections) {
+            connection.start();
+        }
+        if (activeConnections() == 0) {
+            throw new IllegalStateException("初始化 Sidecar WebSocket 连接失败：连接池中没有可用连接");
+        }
+        LOG.info("Sidecar 连接池已启动: {}/{} 条连接可用", activeConnections(), connections.length);
+    }
+
+    public void stop() {
+        for (SidecarConnection connection : connections) {
+            connection.stop();
+        }
+    }
+
+    public SidecarConnection[] connections() {
+        return connections;
+    }
+
+    public int activeConnections() {
+        int n = 0;
+        for (SidecarConnection connection : connections) {
+            if (connection.isActive()) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * 是否没有任何可写的连接（所有账户都无法发送）。
+     */
+    public boolean isBackpressured() {
+        for (SidecarConnection connection : connections) {
+            if (connection.isWritable()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 为新账户分配 home 连接：账户数最少的连接（不论当前是否可用，保证各连接上的账户数均衡）。
+     */
+    synchronized void assign(TradeSession session) {
+        SidecarConnection target = connections[0];
+        for (SidecarConnection connection : connections) {
+            if (connection.sessions() < target.sessions()) {
+                target = connection;
+            }
+        }
+        session.home = target;
+        session.connection = target;
+        target.addSession();
+    }
+
+    /**
+     * 账户的当前连接（不迁移），供非 L2 线程使用。
+     */
+    SidecarConnection current(TradeSession session) {
+        return session.connection;
+    }
+
+    /**
+     * L2 批量线程：返回账户此刻应使用的连接，必要时迁移（当前连接断开，或 home 已恢复且账户空闲）。
+     * 所有连接都不可用时返回账户的当前连接（调用方按背压处理）。
+     */
+    SidecarConnection route(TradeSession session, long nowNanos) {
+        SidecarConnection current = session.connection;
+        if (current.isActive()) {
+            SidecarConnection home = session.home;
+            if (home != current && home.isActive() && nowNanos - session.lastSendNanos > REHOME_QUIET_NANOS) {
+                migrate(session, current, home);
+                return home;
+            }
+            return current;
+        }
+        SidecarConnection target = null;
+        for (SidecarConnection connection : connections) {
+            if (connection.isActive() && (target == null || connection.sessions() < target.sessions())) {
+                target = connection;
+            }
+        }
+        if (target == null) {
+            return current;
+        }
+        migrate(session, current, target);
+        return target;
+    }
+
+    private void migrate(TradeSession session, SidecarConnection from, SidecarConnection to) {
+        from.removeSession();
+        to.addSession();
+        to.onMigratedIn();
+        session.registeredEpoch = -1;
+        session.connection = to;
+        LOG.info("账户 {} 从 Sidecar 连接 {} 迁移到 {}", session.accountId, from.name(), to.name());
+    }
+}
@@ -1,13 +1,11 @@
 package com.xinyue.maker.io.output;
 
+import com.xinyue.maker.io.NettyTransport;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
-import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.HttpClientCodec;
 import io.netty.handler.codec.http.HttpObjectAggregator;
@@ -26,7 +24,6 @@ import java.net.URI;
 public final class SidecarConnector {
 
     private final URI sidecarUri;
-    private EventLoopGroup eventLoopGroup;
     private Channel channel;
     private SidecarWebSocketClientHandler handler;
 
@@ -56,10 +53,6 @@ public final class SidecarConnector {
             channel.close();
             channel = null;
         }
-        if (eventLoopGroup != null) {
-            eventLoopGroup.shutdownGracefully();
-            eventLoopGroup = null;
-        }
     }
 
     /**
@@ -81,8 +74,6 @@ public final class SidecarConnector {
         int port = sidecarUri.getPort() == -1 ? 8080 : sidecarUri.getPort();
         // 注意：本地 Sidecar 通常使用 ws://，不需要 SSL
 
-        eventLoopGroup = new NioEventLoopGroup(1);
-
         WebSocketClientHandshaker handshaker = WebSocketClientHandshakerFactory.newHandshaker(
                 sidecarUri,
                 WebSocketVersion.V13,
@@ -91,12 +82,10 @@ public final class SidecarConnector {
                 new DefaultHttpHeaders()
         );
 
-        handler = new SidecarWebSocketClientHandler(handshaker);
+        handler = new SidecarWebSocketClientHandler(handshaker, null, null);
 
-        Bootstrap bootstrap = new Bootstrap()
-                .group(eventLoopGroup)
-                .channel(NioSocketChannel.class)
-                .option(ChannelOption.TCP_NODELAY, true)
+        // 共享 IO 线程池与统一 socket 参数（见 NettyTransport）
+        Bootstrap bootstrap = NettyTransport.getInstance().bootstrap()
                 .option(ChannelOption.SO_KEEPALIVE, true)
                 .handler(new ChannelInitializer<Channel>() {
                     @Override
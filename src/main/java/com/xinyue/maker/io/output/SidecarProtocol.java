@@ -0,0 +1,307 @@
+package com.xinyue.maker.io.output;
+
+import com.xinyue.maker.common.OrderCommand;
+import com.xinyue.maker.common.TransferCommand;
+import io.netty.buffer.ByteBuf;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Core 与 Node.js Sidecar 之间的二进制指令协议（BinaryWebSocketFrame，网络字节序 / big-endian）。
+ * <p>
+ * 每条消息以 4 字节头开始：version(u8) | type(u8) | accountId(u16)，下单 / 撤单为定长消息，
+ * 按固定偏移直接写入池化 ByteBuf，不经过 JSON 序列化。
+ * 账户助记词只在 {@link #REGISTER_SESSION} 中发送一次，之后的指令只携带 accountId。
+ * 布局详见 docs/sidecar_protocol.md；{@link #decode(ByteBuf, Message)} 是与之对应的参考解码器。
+ */
+public final class SidecarProtocol {
+
+    public static final byte VERSION = 1;
+
+    // === 消息类型 ===
+    public static final byte REGISTER_SESSION = 1;
+    public static final byte ORDER = 2;
+    public static final byte CANCEL = 3;
+    public static final byte TRANSFER = 4;
+    public static final byte BATCH = 5;
+    /** Sidecar -> Core：下单 / 撤单的广播结果（16 起为回报方向的类型） */
+    public static final byte EXECUTION_REPORT = 16;
+
+    // === EXECUTION_REPORT 中的回报种类 ===
+    public static final byte EXEC_ORDER_ACCEPTED = 1;
+    public static final byte EXEC_ORDER_REJECTED = 2;
+    public static final byte EXEC_CANCEL_ACCEPTED = 3;
+    public static final byte EXEC_CANCEL_REJECTED = 4;
+
+    // === 公共头 ===
+    static final int OFF_VERSION = 0;
+    static final int OFF_TYPE = 1;
+    static final int OFF_ACCOUNT = 2;
+    public static final int HEADER_LENGTH = 4;
+
+    // === ORDER（40 字节）===
+    static final int ORDER_CLIENT_ID = 4;
+    static final int ORDER_SYMBOL = 12;
+    static final int ORDER_SIDE = 14;
+    static final int ORDER_PRICE = 16;
+    static final int ORDER_QTY = 24;
+    static final int ORDER_GOOD_TIL_TIME = 32;
+    static final int ORDER_EXCHANGE = 36;
+    public static final int ORDER_LENGTH = 40;
+
+    // === CANCEL（32 字节）===
+    static final int CANCEL_CLIENT_ID = 4;
+    static final int CANCEL_CLOB_PAIR = 12;
+    static final int CANCEL_ORDER_FLAGS = 16;
+    static final int CANCEL_GOOD_TIL_BLOCK_TIME = 24;
+    public static final int CANCEL_LENGTH = 32;
+
+    // === EXECUTION_REPORT（32 字节）===
+    static final int REPORT_CLIENT_ID = 4;
+    static final int REPORT_EXEC_TYPE = 12;
+    static final int REPORT_EXCHANGE = 14;
+    static final int REPORT_ERROR_CODE = 16;
+    static final int REPORT_TIMESTAMP = 24;
+    public static final int REPORT_LENGTH = 32;
+
+    // === TRANSFER（18 字节 + 资产名）===
+    static final int TRANSFER_TO_ACCOUNT = 4;
+    static final int TRANSFER_EXCHANGE = 6;
+    static final int TRANSFER_QTY = 8;
+    static final int TRANSFER_ASSET = 16;
+
+    // === REGISTER_SESSION（4 字节 + 账户名 + 助记词，均为 u16 长度前缀的 UTF-8）===
+    static final int REGISTER_NAME = 4;
+
+    // === BATCH：4 字节头（accountId 位置为消息条数 u16），其后紧跟 count 条 ORDER / CANCEL（回报方向为 EXECUTION_REPORT）===
+    static final int OFF_BATCH_COUNT = 2;
+    public static final int MAX_BATCH_MESSAGES = 0xFFFF;
+
+    private SidecarProtocol() {
+    }
+
+    /**
+     * 在 out 的 writerIndex 处写入一条下单消息（定长 {@link #ORDER_LENGTH}）。
+     */
+    public static void writeOrder(ByteBuf out, OrderCommand cmd) {
+        int base = out.writerIndex();
+        out.ensureWritable(ORDER_LENGTH);
+        out.setByte(base + OFF_VERSION, VERSION);
+        out.setByte(base + OFF_TYPE, ORDER);
+        out.setShort(base + OFF_ACCOUNT, cmd.accountId);
+        out.setLong(base + ORDER_CLIENT_ID, cmd.internalOrderId);
+        out.setShort(base + ORDER_SYMBOL, cmd.symbolId);
+        out.setShort(base + ORDER_SIDE, cmd.side);
+        out.setLong(base + ORDER_PRICE, cmd.priceE8);
+        out.setLong(base + ORDER_QTY, cmd.qtyE8);
+        out.setInt(base + ORDER_GOOD_TIL_TIME, cmd.goodTilTimeInSeconds);
+        out.setShort(base + ORDER_EXCHANGE, cmd.exchangeId);
+        out.setShort(base + ORDER_EXCHANGE + 2, 0);
+        out.writerIndex(base + ORDER_LENGTH);
+    }
+
+    /**
+     * 在 out 的 writerIndex 处写入一条撤单消息（定长 {@link #CANCEL_LENGTH}）。
+     */
+    public static void writeCancel(ByteBuf out, OrderCommand cmd) {
+        int base = out.writerIndex();
+        out.ensureWritable(CANCEL_LENGTH);
+        out.setByte(base + OFF_VERSION, VERSION);
+        out.setByte(base + OFF_TYPE, CANCEL);
+        out.setShort(base + OFF_ACCOUNT, cmd.accountId);
+        out.setLong(base + CANCEL_CLIENT_ID, cmd.internalOrderId);
+        out.setInt(base + CANCEL_CLOB_PAIR, cmd.clobPairId);
+        out.setLong(base + CANCEL_ORDER_FLAGS, cmd.orderFlags);
+        out.setLong(base + CANCEL_GOOD_TIL_BLOCK_TIME, cmd.goodTilBlockTimeSec);
+        out.writerIndex(base + CANCEL_LENGTH);
+    }
+
+    /**
+     * 在 out 的 writerIndex 处写入一条执行回报（定长 {@link #REPORT_LENGTH}）。
+     * 正常由 Sidecar 发送，Core 侧用于测试与模拟器。
+     */
+    public static void writeExecutionReport(ByteBuf out, int accountId, long clientId, byte execType,
+                                            int exchangeId, int errorCode, long timestampMillis) {
+        int base = out.writerIndex();
+        out.ensureWritable(REPORT_LENGTH);
+        out.setByte(base + OFF_VERSION, VERSION);
+        out.setByte(base + OFF_TYPE, EXECUTION_REPORT);
+        out.setShort(base + OFF_ACCOUNT, accountId);
+        out.setLong(base + REPORT_CLIENT_ID, clientId);
+        out.setByte(base + REPORT_EXEC_TYPE, execType);
+        out.setByte(base + REPORT_EXEC_TYPE + 1, 0);
+        out.setShort(base + REPORT_EXCHANGE, exchangeId);
+        out.setInt(base + REPORT_ERROR_CODE, errorCode);
+        out.setInt(base + REPORT_ERROR_CODE + 4, 0);
+        out.setLong(base + REPORT_TIMESTAMP, timestampMillis);
+        out.writerIndex(base + REPORT_LENGTH);
+    }
+
+    /**
+     * 在 out 的 writerIndex 处写入批次头（条数先写 0），返回头部位置，供 {@link #setBatchCount} 回填。
+     */
+    public static int writeBatchHeader(ByteBuf out) {
+        int base = out.writerIndex();
+        out.writeByte(VERSION);
+        out.writeByte(BATCH);
+        out.writeShort(0);
+        return base;
+    }
+
+    /**
+     * 回填批次头中的消息条数。
+     */
+    public static void setBatchCount(ByteBuf out, int headerIndex, int count) {
+        out.setShort(headerIndex + OFF_BATCH_COUNT, count);
+    }
+
+    /**
+     * 写入资产转移消息（冷路径，资产名为 UTF-8）。
+     */
+    public static void writeTransfer(ByteBuf out, TransferCommand cmd, String asset) {
+        out.writeByte(VERSION);
+        out.writeByte(TRANSFER);
+        out.writeShort(cmd.fromAccountId);
+        out.writeShort(cmd.toAccountId);
+        out.writeShort(cmd.exchangeId);
+        out.writeLong(cmd.qtyE8);
+        writeString(out, asset);
+    }
+
+    /**
+     * 写入会话注册消息：每条 Sidecar 连接上每个账户只发送一次，助记词此后不再出现在指令中。
+     */
+    public static void writeRegisterSession(ByteBuf out, int accountId, String accountName, String mnemonicPhrase) {
+        out.writeByte(VERSION);
+        out.writeByte(REGISTER_SESSION);
+        out.writeShort(accountId);
+        writeString(out, accountName);
+        writeString(out, mnemonicPhrase);
+    }
+
+    private static void writeString(ByteBuf out, String value) {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("string too long: " + bytes.length);
+        }
+        out.writeShort(bytes.length);
+        out.writeBytes(bytes);
+    }
+
+    private static String readString(ByteBuf in) {
+        int length = in.readUnsignedShort();
+        String value = in.toString(in.readerIndex(), length, StandardCharsets.UTF_8);
+        in.skipBytes(length);
+        return value;
+    }
+
+    /**
+     * 解码结果（可复用，按 type 只填充对应字段）。
+     */
+    public static final class Message {
+        public byte type;
+        public short accountId;
+
+        // ORDER / CANCEL
+        public long clientId;
+        public short symbolId;
+        public short side;
+        public long priceE8;
+        public long qtyE8;
+        public int goodTilTimeInSeconds;
+        public short exchangeId;
+        public int clobPairId;
+        public long orderFlags;
+        public long goodTilBlockTimeSec;
+
+        // TRANSFER
+        public short toAccountId;
+        public String asset;
+
+        // REGISTER_SESSION
+        public String accountName;
+        public String mnemonicPhrase;
+
+        // EXECUTION_REPORT（clientId / exchangeId 复用上面的字段）
+        public byte execType;
+        public int errorCode;
+        public long timestampMillis;
+
+        // BATCH：其后紧跟的消息条数
+        public int count;
+    }
+
+    /**
+     * 从 in 的 readerIndex 处解码一条消息并前移 readerIndex，返回消息类型。
+     * 版本或类型不识别时抛出 IllegalArgumentException（对端应拒绝整帧）。
+     * BATCH 只解码 4 字节头（条数写入 {@link Message#count}），调用方随后再调用 count 次本方法取出各条消息。
+     */
+    public static byte decode(ByteBuf in, Message out) {
+        if (in.readableBytes() < HEADER_LENGTH) {
+            throw new IllegalArgumentException("truncated header: " + in.readableBytes());
+        }
+        int base = in.readerIndex();
+        byte version = in.getByte(base + OFF_VERSION);
+        if (version != VERSION) {
+            throw new IllegalArgumentException("unsupported sidecar protocol version: " + version);
+        }
+        byte type = in.getByte(base + OFF_TYPE);
+        out.type = type;
+        out.accountId = in.getShort(base + OFF_ACCOUNT);
+        switch (type) {
+            case ORDER -> {
+                requireLength(in, ORDER_LENGTH);
+                out.clientId = in.getLong(base + ORDER_CLIENT_ID);
+                out.symbolId = in.getShort(base + ORDER_SYMBOL);
+                out.side = in.getShort(base + ORDER_SIDE);
+                out.priceE8 = in.getLong(base + ORDER_PRICE);
+                out.qtyE8 = in.getLong(base + ORDER_QTY);
+                out.goodTilTimeInSeconds = in.getInt(base + ORDER_GOOD_TIL_TIME);
+                out.exchangeId = in.getShort(base + ORDER_EXCHANGE);
+                in.readerIndex(base + ORDER_LENGTH);
+            }
+            case CANCEL -> {
+                requireLength(in, CANCEL_LENGTH);
+                out.clientId = in.getLong(base + CANCEL_CLIENT_ID);
+                out.clobPairId = in.getInt(base + CANCEL_CLOB_PAIR);
+                out.orderFlags = in.getLong(base + CANCEL_ORDER_FLAGS);
+                out.goodTilBlockTimeSec = in.getLong(base + CANCEL_GOOD_TIL_BLOCK_TIME);
+                in.readerIndex(base + CANCEL_LENGTH);
+            }
+            case TRANSFER -> {
+                requireLength(in, TRANSFER_ASSET + 2);
+                out.toAccountId = in.getShort(base + TRANSFER_TO_ACCOUNT);
+                out.exchangeId = in.getShort(base + TRANSFER_EXCHANGE);
+                out.qtyE8 = in.getLong(base + TRANSFER_QTY);
+                in.readerIndex(base + TRANSFER_ASSET);
+                out.asset = readString(in);
+            }
+            case EXECUTION_REPORT -> {
+                requireLength(in, REPORT_LENGTH);
+                out.clientId = in.getLong(base + REPORT_CLIENT_ID);
+                out.execType = in.getByte(base + REPORT_EXEC_TYPE);
+                out.exchangeId = in.getShort(base + REPORT_EXCHANGE);
+                out.errorCode = in.getInt(base + REPORT_ERROR_CODE);
+                out.timestampMillis = in.getLong(base + REPORT_TIMESTAMP);
+                in.readerIndex(base + REPORT_LENGTH);
+            }
+            case BATCH -> {
+                out.count = in.getUnsignedShort(base + OFF_BATCH_COUNT);
+                in.readerIndex(base + HEADER_LENGTH);
+            }
+            case REGISTER_SESSION -> {
+                in.readerIndex(base + REGISTER_NAME);
+                out.accountName = readString(in);
+                out.mnemonicPhrase = readString(in);
+            }
+            default -> throw new IllegalArgumentException("unknown sidecar message type: " + type);
+        }
+        return type;
+    }
+
+    private static void requireLength(ByteBuf in, int length) {
+        if (in.readableBytes() < length) {
+            throw new IllegalArgumentException("truncated message: " + in.readableBytes() + " < " + length);
+        }
+    }
+}
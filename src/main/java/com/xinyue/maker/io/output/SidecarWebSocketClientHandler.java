@@ -1,11 +1,15 @@
 package com.xinyue.maker.io.output;
 
+import com.xinyue.maker.common.Exchange;
+import com.xinyue.maker.io.Normalizer;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.PongWebSocketFrame;
@@ -14,18 +18,30 @@ import io.netty.handler.codec.http.websocketx.WebSocketClientHandshaker;
 import io.netty.handler.codec.http.websocketx.WebSocketFrame;
 import io.netty.handler.codec.http.websocketx.WebSocketHandshakeException;
 import io.netty.util.CharsetUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Sidecar WebSocket 客户端处理器。
- * 负责处理与 Node.js Sidecar 的 WebSocket 连接，包括 PING/PONG 心跳。
+ * 负责处理与 Node.js Sidecar 的 WebSocket 连接，包括 PING/PONG 心跳，
+ * 并把 Sidecar 的二进制回报（EXECUTION_REPORT，可能以 BATCH 合并）解码后发布到 Core 的 ring。
  */
 final class SidecarWebSocketClientHandler extends SimpleChannelInboundHandler<Object> {
 
+    private static final Logger LOG = LoggerFactory.getLogger(SidecarWebSocketClientHandler.class);
+
     private final WebSocketClientHandshaker handshaker;
+    private final Normalizer normalizer; // 为 null 时只解码不发布（调试用）
+    private final SidecarConnection connection; // 所属的连接池连接，为 null 时不统计在途指令
+    // 只在本连接的 IO 线程上使用，复用避免每帧分配
+    private final SidecarProtocol.Message message = new SidecarProtocol.Message();
     private ChannelPromise handshakeFuture;
 
-    SidecarWebSocketClientHandler(WebSocketClientHandshaker handshaker) {
+    SidecarWebSocketClientHandler(WebSocketClientHandshaker handshaker, Normalizer normalizer,
+                                  SidecarConnection connection) {
         this.handshaker = handshaker;
+        this.normalizer = normalizer;
+        this.connection = connection;
     }
 
     @Override
@@ -69,10 +85,11 @@ final class SidecarWebSocketClientHandler extends SimpleChannelInboundHandler<Ob
         }
 
         WebSocketFrame frame = (WebSocketFrame) msg;
-        if (frame instanceof TextWebSocketFrame) {
-            // TODO: 处理来自 Sidecar 的响应消息（订单确认、成交回报等）
-            // 可以在这里解析 JSON 并转换为 CoreEvent，发布到 Disruptor
-            // TextWebSocketFrame textFrame = (TextWebSocketFrame) frame;
+        if (frame instanceof BinaryWebSocketFrame) {
+            onReports(frame.content());
+        } else if (frame instanceof TextWebSocketFrame textFrame) {
+            // 协议 v1 的回报均为二进制帧，文本帧只可能是 Sidecar 的日志 / 错误提示
+            LOG.warn("忽略 Sidecar 文本帧: {}", textFrame.text());
         } else if (frame instanceof PingWebSocketFrame pingFrame) {
             // 收到 PING，立即回复 PONG（payload 保持一致）
             ch.writeAndFlush(new PongWebSocketFrame());
@@ -80,5 +97,32 @@ final class SidecarWebSocketClientHandler extends SimpleChannelInboundHandler<Ob
             ch.close();
         }
     }
-}
 
+    /**
+     * 解码一帧中的全部回报（单条或 BATCH）并逐条发布。解码失败时丢弃该帧剩余部分。
+     */
+    private void onReports(ByteBuf content) {
+        try {
+            while (content.isReadable()) {
+                byte type = SidecarProtocol.decode(content, message);
+                if (type == SidecarProtocol.BATCH) {
+                    continue; // 批次头之后就是各条回报，按顺序继续解码
+                }
+                if (type != SidecarProtocol.EXECUTION_REPORT) {
+                    LOG.warn("忽略 Sidecar 非回报消息: type={}", type);
+                    continue;
+                }
+                if (connection != null) {
+                    connection.onReport();
+                }
+                if (normalizer != null) {
+                    Exchange exchange = Exchange.fromId(message.exchangeId);
+                    normalizer.onExecutionReport(exchange != null ? exchange : Exchange.DYDX, message.accountId,
+                            message.clientId, message.execType, message.errorCode, message.timestampMillis);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            LOG.error("Sidecar 回报解码失败，丢弃该帧剩余 {} 字节", content.readableBytes(), e);
+        }
+    }
+}
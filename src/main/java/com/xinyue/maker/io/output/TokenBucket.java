@@ -0,0 +1,99 @@
+package com.xinyue.maker.io.output;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * 无锁、无分配的令牌桶（GCRA 实现：只保存「令牌耗尽时刻」一个 long，CAS 更新）。
+ * <p>
+ * 每 {@code 1s / ratePerSecond} 补充一个令牌，最多累积 burst 个；时间由调用方传入（通常是 CachedClock）。
+ * ratePerSecond <= 0 表示不限频。L2 线程与 Web 线程（撤单）可同时调用。
+ */
+public final class TokenBucket {
+
+    private static final VarHandle TAT;
+
+    static {
+        try {
+            TAT = MethodHandles.lookup().findVarHandle(TokenBucket.class, "tat", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final long intervalNanos;
+    private final long capacityNanos;
+    // theoretical arrival time：按当前消耗速度，令牌桶重新装满的时刻
+    @SuppressWarnings("unused")
+    private volatile long tat = Long.MIN_VALUE;
+    private long throttled;
+
+    public TokenBucket(int ratePerSecond, int burst) {
+        this.intervalNanos = ratePerSecond <= 0 ? 0L : 1_000_000_000L / ratePerSecond;
+        this.capacityNanos = intervalNanos * Math.max(1, burst);
+    }
+
+    /**
+     * 取一个令牌；令牌不足时返回 false（不排队、不阻塞）。
+     */
+    public boolean tryAcquire(long nowNanos) {
+        if (intervalNanos == 0) {
+            return true;
+        }
+        while (true) {
+            long current = (long) TAT.getVolatile(this);
+            long next = Math.max(current, nowNanos) + intervalNanos;
+            if (next - nowNanos > capacityNanos) {
+                throttled++;
+                return false;
+            }
+            if (TAT.compareAndSet(this, current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 强制扣一个令牌（允许透支）：用于撤单等不能被拒绝、但同样计入交易所限额的指令。
+     */
+    public void forceAcquire(long nowNanos) {
+        if (intervalNanos == 0) {
+            return;
+        }
+        while (true) {
+            long current = (long) TAT.getVolatile(this);
+            long next = Math.max(current, nowNanos) + intervalNanos;
+            if (TAT.compareAndSet(this, current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 此刻下单是否会被限频（只查询，不扣令牌）。
+     */
+    public boolean wouldThrottle(long nowNanos) {
+        if (intervalNanos == 0) {
+            return false;
+        }
+        return Math.max(tat, nowNanos) + intervalNanos - nowNanos > capacityNanos;
+    }
+
+    /**
+     * 当前可用令牌数（透支时为 0）。
+     */
+    public long available(long nowNanos) {
+        if (intervalNanos == 0) {
+            return Long.MAX_VALUE;
+        }
+        long used = Math.max(tat, nowNanos) - nowNanos;
+        return Math.max(0L, (capacityNanos - used) / intervalNanos);
+    }
+
+    /**
+     * 被拒绝的次数（统计用，并发下允许少计）。
+     */
+    public long throttled() {
+        return throttled;
+    }
+}
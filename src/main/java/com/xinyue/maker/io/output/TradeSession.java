@@ -1,6 +1,9 @@
 package com.xinyue.maker.io.output;
 
 import com.xinyue.maker.common.Exchange;
+import com.xinyue.maker.config.RateLimitConfig;
+
+import java.util.Arrays;
 
 public class TradeSession {
     // === 身份标识 ===
@@ -9,12 +12,87 @@ public class TradeSession {
     public final Exchange exchange; // BINANCE 或 HYPERLIQUID
     public final String mnemonicPhrase;
 
+    // === 连接池路由（见 SidecarConnectionPool）===
+    // home：初始分配的连接；connection：当前粘性连接（home 断开时迁移到其它连接，空闲后回到 home）
+    volatile SidecarConnection home;
+    volatile SidecarConnection connection;
+    // 在当前连接上完成注册时该连接的代数（注册后指令只携带 accountId，不再发送助记词），-1 表示未注册
+    volatile int registeredEpoch = -1;
+    // 最近一次发出指令的时刻（L2 缓存时钟），决定何时可以安全地回到 home
+    long lastSendNanos;
+
+    // === 限频：账户级令牌桶 + 按 symbolId 下标的交易对令牌桶（首次用到某交易对时创建，之后只读数组）===
+    private final RateLimitConfig limits;
+    private final TokenBucket accountLimiter;
+    private volatile TokenBucket[] marketLimiters = new TokenBucket[0];
+
 
     public TradeSession(int id, String name, Exchange type,String mnemonicPhrase) {
+        this(id, name, type, mnemonicPhrase, new RateLimitConfig(0, 1, 0, 1));
+    }
+
+    public TradeSession(int id, String name, Exchange type, String mnemonicPhrase, RateLimitConfig limits) {
         this.accountId = id;
         this.accountName = name;
         this.exchange = type;
         this.mnemonicPhrase = mnemonicPhrase;
+        this.limits = limits;
+        this.accountLimiter = new TokenBucket(limits.accountOrdersPerSecond, limits.accountBurst);
+    }
+
+    /**
+     * 下单前取令牌（账户级与交易对级都要有余量）；返回 false 表示被限频。
+     * 先查询账户桶再扣交易对桶，避免账户已满时白白消耗交易对令牌。
+     */
+    boolean tryAcquire(short symbolId, long nowNanos) {
+        if (accountLimiter.wouldThrottle(nowNanos)) {
+            return false;
+        }
+        return marketLimiter(symbolId).tryAcquire(nowNanos) && accountLimiter.tryAcquire(nowNanos);
+    }
+
+    /**
+     * 撤单：照常计入限额，但不拒绝。
+     */
+    void forceAcquire(short symbolId, long nowNanos) {
+        accountLimiter.forceAcquire(nowNanos);
+        marketLimiter(symbolId).forceAcquire(nowNanos);
+    }
+
+    /**
+     * 此刻在该交易对上下单是否会被限频（只查询）。
+     */
+    boolean isThrottled(short symbolId, long nowNanos) {
+        return accountLimiter.wouldThrottle(nowNanos) || marketLimiter(symbolId).wouldThrottle(nowNanos);
+    }
+
+    public long throttled() {
+        long total = accountLimiter.throttled();
+        for (TokenBucket bucket : marketLimiters) {
+            if (bucket != null) {
+                total += bucket.throttled();
+            }
+        }
+        return total;
+    }
+
+    private TokenBucket marketLimiter(short symbolId) {
+        TokenBucket[] buckets = marketLimiters;
+        if (symbolId >= 0 && symbolId < buckets.length && buckets[symbolId] != null) {
+            return buckets[symbolId];
+        }
+        return createMarketLimiter(symbolId);
     }
 
-}
\ No newline at end of file
+    private synchronized TokenBucket createMarketLimiter(short symbolId) {
+        int index = Math.max(0, symbolId);
+        TokenBucket[] buckets = marketLimiters;
+        if (index < buckets.length && buckets[index] != null) {
+            return buckets[index];
+        }
+        TokenBucket[] next = Arrays.copyOf(buckets, Math.max(buckets.length, index + 1));
+        next[index] = new TokenBucket(limits.marketOrdersPerSecond, limits.marketBurst);
+        marketLimiters = next;
+        return next[index];
+    }
+}
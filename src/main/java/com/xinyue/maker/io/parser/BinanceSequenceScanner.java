@@ -0,0 +1,134 @@
+package com.xinyue.maker.io.parser;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.xinyue.maker.common.RawIdResolver;
+import io.netty.buffer.ByteBuf;
+
+import java.io.IOException;
+
+/**
+ * 冗余行情仲裁用的 Binance 消息序号扫描器：只读消息头部字段，取出 (streamKey, sequence) 后立即停止。
+ * <p>
+ * - depthUpdate：sequence = u（最后一个 updateId），字段顺序 e, E, s, U, u, b, a，
+ *   在 b/a 数组之前即可结束，不解析档位
+ * - aggTrade：sequence = a（归集交易 ID）
+ * streamKey 由消息类型与 symbolId 组成，保证非 0。组合流（/stream）消息直接下钻到 data 对象。
+ * <p>
+ * 非线程安全，每条连接（IO 线程）一个实例。
+ */
+public final class BinanceSequenceScanner {
+
+    private static final int EVENT_UNKNOWN = 0;
+    private static final int EVENT_AGG_TRADE = 1;
+    private static final int EVENT_DEPTH_UPDATE = 2;
+
+    private final RawIdResolver symbolResolver;
+
+    private long streamKey;
+    private long sequence;
+
+    // === 单条消息的暂存状态 ===
+    private int eventType;
+    private short symbolId;
+    private boolean sequenceSeen;
+    private long updateId;
+    private long aggTradeId;
+
+    public BinanceSequenceScanner(RawIdResolver symbolResolver) {
+        this.symbolResolver = symbolResolver;
+    }
+
+    /**
+     * 扫描一条消息，不修改 readerIndex。
+     *
+     * @return true 表示取到了可仲裁的 (streamKey, sequence)；订阅响应、未知 symbol 等返回 false，调用方应直接放行
+     */
+    public boolean scan(ByteBuf payload) throws IOException {
+        try (JsonParser p = JsonParsers.create(payload)) {
+            return scan(p);
+        }
+    }
+
+    public boolean scan(byte[] payload, int offset, int length) throws IOException {
+        try (JsonParser p = JsonParsers.create(payload, offset, length)) {
+            return scan(p);
+        }
+    }
+
+    private boolean scan(JsonParser p) throws IOException {
+        if (p.nextToken() != JsonToken.START_OBJECT) {
+            return false;
+        }
+        eventType = EVENT_UNKNOWN;
+        symbolId = RawIdResolver.MISSING;
+        sequenceSeen = false;
+        updateId = 0L;
+        aggTradeId = 0L;
+        if (!scanFields(p)) {
+            return false;
+        }
+        streamKey = ((long) eventType << 32) | (symbolId & 0xFFFFL);
+        sequence = eventType == EVENT_DEPTH_UPDATE ? updateId : aggTradeId;
+        return true;
+    }
+
+    // 返回 true 表示 (eventType, symbolId, sequence) 已齐全，可以提前结束
+    private boolean scanFields(JsonParser p) throws IOException {
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.currentName();
+            JsonToken t = p.nextToken();
+            switch (name) {
+                case "e" -> {
+                    if (JsonTokens.textEquals(p, "aggTrade")) {
+                        eventType = EVENT_AGG_TRADE;
+                    } else if (JsonTokens.textEquals(p, "depthUpdate")) {
+                        eventType = EVENT_DEPTH_UPDATE;
+                    }
+                }
+                case "s" -> {
+                    if (JsonTokens.hasText(p)) {
+                        symbolId = symbolResolver.resolve(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+                    }
+                }
+                case "u" -> {
+                    updateId = p.getValueAsLong(0L);
+                    sequenceSeen = true;
+                }
+                case "a" -> {
+                    // depthUpdate 中 "a" 是卖盘数组，aggTrade 中是归集交易 ID
+                    if (t == JsonToken.VALUE_NUMBER_INT) {
+                        aggTradeId = p.getLongValue();
+                        sequenceSeen = true;
+                    } else {
+                        p.skipChildren();
+                    }
+                }
+                // 组合流外层
+                case "data" -> {
+                    if (t == JsonToken.START_OBJECT) {
+                        return scanFields(p);
+                    }
+                    p.skipChildren();
+                }
+                default -> p.skipChildren();
+            }
+            if (complete()) {
+                return true;
+            }
+        }
+        return complete();
+    }
+
+    private boolean complete() {
+        return eventType != EVENT_UNKNOWN && symbolId != RawIdResolver.MISSING && sequenceSeen;
+    }
+
+    public long streamKey() {
+        return streamKey;
+    }
+
+    public long sequence() {
+        return sequence;
+    }
+}
@@ -0,0 +1,169 @@
+package com.xinyue.maker.io.parser;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.xinyue.maker.common.CoreEvent;
+import com.xinyue.maker.common.CoreEventType;
+import com.xinyue.maker.common.RawIdResolver;
+
+import java.io.IOException;
+
+/**
+ * Binance WebSocket 消息的流式解析器（aggTrade / depthUpdate）。
+ * <p>
+ * 语义与 Normalizer 中的 DOM 解析路径保持一致。注意 "a" 字段在两种消息中含义不同：
+ * aggTrade 中是归集交易 ID（数字），depthUpdate 中是卖盘数组，按 token 类型区分，
+ * 因此不依赖 "e" 出现在前面。
+ * <p>
+ * 同时支持原始流（/ws）与组合流（/stream）：组合流消息外层为 {"stream":"btcusdt@depth@100ms","data":{...}}，
+ * 解析时直接下钻到 data 对象，stream 字段忽略。
+ * <p>
+ * 非线程安全，每个 IO 线程一个实例。
+ */
+public final class BinanceStreamingParser {
+
+    private static final int EVENT_UNKNOWN = 0;
+    private static final int EVENT_AGG_TRADE = 1;
+    private static final int EVENT_DEPTH_UPDATE = 2;
+
+    private final RawIdResolver symbolResolver;
+
+    // === 单条消息的暂存状态 ===
+    private int eventType;
+    private boolean subscriptionResponse;
+    private short symbolId;
+    private boolean symbolSeen;
+    private long eventTime;
+    private long tradeTime;
+    private long aggTradeId;
+    private long firstUpdateId;
+    private long lastUpdateId;
+    private long price;
+    private long quantity;
+    private int bidCount;
+    private int askCount;
+
+    public BinanceStreamingParser(RawIdResolver symbolResolver) {
+        this.symbolResolver = symbolResolver;
+    }
+
+    public boolean parse(byte[] payload, int offset, int length, CoreEvent event) throws IOException {
+        try (JsonParser p = JsonParsers.create(payload, offset, length)) {
+            return parse(p, event);
+        }
+    }
+
+    /**
+     * 解析一条 Binance 消息并直接写入 event。Binance 消息总能被流式解析，始终返回 true。
+     */
+    public boolean parse(JsonParser p, CoreEvent event) throws IOException {
+        resetState();
+        if (p.nextToken() != JsonToken.START_OBJECT) {
+            return true;
+        }
+        parseFields(p, event);
+        finish(event);
+        return true;
+    }
+
+    private void parseFields(JsonParser p, CoreEvent event) throws IOException {
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.currentName();
+            JsonToken t = p.nextToken();
+            switch (name) {
+                case "e" -> {
+                    if (JsonTokens.textEquals(p, "aggTrade")) {
+                        eventType = EVENT_AGG_TRADE;
+                    } else if (JsonTokens.textEquals(p, "depthUpdate")) {
+                        eventType = EVENT_DEPTH_UPDATE;
+                    }
+                }
+                case "s" -> {
+                    if (JsonTokens.hasText(p)) {
+                        symbolSeen = true;
+                        symbolId = symbolResolver.resolve(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+                    }
+                }
+                case "E" -> eventTime = p.getValueAsLong(0L);
+                case "T" -> tradeTime = p.getValueAsLong(0L);
+                case "U" -> firstUpdateId = p.getValueAsLong(0L);
+                case "u" -> lastUpdateId = p.getValueAsLong(0L);
+                case "p" -> price = JsonTokens.decimalE8(p);
+                case "q" -> quantity = JsonTokens.decimalE8(p);
+                case "b" -> bidCount = JsonTokens.parseLevels(p, event.bidPrices, event.bidQtys);
+                case "a" -> {
+                    if (t == JsonToken.START_ARRAY) {
+                        askCount = JsonTokens.parseLevels(p, event.askPrices, event.askQtys);
+                    } else {
+                        aggTradeId = p.getValueAsLong(0L);
+                    }
+                }
+                // 订阅响应（{"result":null,"id":1}），忽略
+                case "result", "id" -> {
+                    subscriptionResponse = true;
+                    p.skipChildren();
+                }
+                // 组合流外层
+                case "data" -> {
+                    if (t == JsonToken.START_OBJECT) {
+                        parseFields(p, event);
+                    } else {
+                        p.skipChildren();
+                    }
+                }
+                default -> p.skipChildren();
+            }
+        }
+    }
+
+    private void resetState() {
+        eventType = EVENT_UNKNOWN;
+        subscriptionResponse = false;
+        symbolId = 0;
+        symbolSeen = false;
+        eventTime = 0L;
+        tradeTime = 0L;
+        aggTradeId = 0L;
+        firstUpdateId = 0L;
+        lastUpdateId = 0L;
+        price = 0L;
+        quantity = 0L;
+        bidCount = 0;
+        askCount = 0;
+    }
+
+    private void finish(CoreEvent event) {
+        if (subscriptionResponse || eventType != EVENT_DEPTH_UPDATE) {
+            // 非 depthUpdate 消息不应留下档位数据
+            java.util.Arrays.fill(event.bidPrices, 0, bidCount, 0L);
+            java.util.Arrays.fill(event.bidQtys, 0, bidCount, 0L);
+            java.util.Arrays.fill(event.askPrices, 0, askCount, 0L);
+            java.util.Arrays.fill(event.askQtys, 0, askCount, 0L);
+        }
+        if (subscriptionResponse) {
+            return;
+        }
+        if (eventType == EVENT_AGG_TRADE) {
+            if (!symbolSeen) {
+                throw new IllegalArgumentException("aggTrade 消息缺少 symbol 字段");
+            }
+            event.type = CoreEventType.MARKET_DATA_TICK;
+            event.symbolId = symbolId;
+            // 时间戳（交易所时间，毫秒），T 缺失时使用 E
+            event.timestamp = tradeTime != 0 ? tradeTime : eventTime;
+            // 序列号（使用归集交易ID）
+            event.sequence = aggTradeId;
+            event.price = price;
+            event.quantity = quantity;
+            // accountId 保持为 0（公共行情）
+            event.accountId = 0;
+        } else if (eventType == EVENT_DEPTH_UPDATE) {
+            event.type = CoreEventType.DEPTH_UPDATE;
+            event.symbolId = symbolId;
+            event.timestamp = eventTime;
+            event.firstUpdateId = firstUpdateId;
+            event.sequence = lastUpdateId; // 使用 sequence 字段存储 u
+            event.depthCount = Math.max(bidCount, askCount);
+        }
+    }
+}
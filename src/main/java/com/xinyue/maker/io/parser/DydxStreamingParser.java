@@ -0,0 +1,532 @@
+package com.xinyue.maker.io.parser;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.xinyue.maker.common.AccountOrderBatch;
+import com.xinyue.maker.common.CoreEvent;
+import com.xinyue.maker.common.CoreEventType;
+import com.xinyue.maker.common.RawIdResolver;
+
+import java.io.IOException;
+
+/**
+ * dYdX WebSocket 消息的流式解析器（基于 JsonParser token 迭代，不构建 JsonNode 树）。
+ * <p>
+ * 语义与 Normalizer 中的 DOM 解析路径保持一致：
+ * - v4_orderbook: subscribed -> 全量快照（firstUpdateId = -1），channel_data -> 增量（firstUpdateId = 0），
+ *   sequence 存储 message_id
+ * - v4_subaccounts: message_id == 1 为同步（订单写入数组），否则只取第一个订单写入单笔字段，
+ *   fills / assetPositions / transfers 同 DOM 路径
+ * <p>
+ * 字段名由 Jackson 的符号表规范化（同一字段名每次返回同一个 String 实例），
+ * 字段值通过 {@link JsonTokens} 直接读取内部 char[]，稳定运行时不产生 String 分配。
+ * <p>
+ * 顶层字段的顺序不做假设：message_id / id / type 可以出现在 contents 之后，
+ * 相关判断统一放在 {@link #finish} 中完成。唯一的前提是 channel 出现在 contents 之前
+ * （dYdX 实际推送总是如此），否则返回 false，由调用方回退到 DOM 解析。
+ * <p>
+ * 非线程安全：内部持有解析过程中的暂存状态，每个 IO 线程一个实例。
+ */
+public final class DydxStreamingParser {
+
+    private static final int CHANNEL_UNKNOWN = 0;
+    private static final int CHANNEL_ORDERBOOK = 1;
+    private static final int CHANNEL_SUBACCOUNTS = 2;
+
+    private static final int TYPE_UNKNOWN = 0;
+    private static final int TYPE_SUBSCRIBED = 1;
+    private static final int TYPE_CHANNEL_DATA = 2;
+
+    private final RawIdResolver symbolResolver;
+    private final RawIdResolver assetResolver;
+    private final RawIdResolver addressResolver;
+
+    // === 单条消息的暂存状态（每条消息开始时重置） ===
+    private int channel;
+    private int type;
+    private long messageId;
+    private final char[] id = new char[128];
+    private int idLength;
+    private int bidCount;
+    private int askCount;
+    private int fillTotal;
+    // 订单 / 资产先完整解析到批量缓冲，不受单个 CoreEvent 容量限制
+    private final AccountOrderBatch orders = new AccountOrderBatch();
+    private boolean transferSeen;
+    private final char[] transferType = new char[32];
+    private int transferTypeLength;
+    private final char[] recipientAddress = new char[128];
+    private int recipientAddressLength;
+
+    public DydxStreamingParser(RawIdResolver symbolResolver, RawIdResolver assetResolver, RawIdResolver addressResolver) {
+        this.symbolResolver = symbolResolver;
+        this.assetResolver = assetResolver;
+        this.addressResolver = addressResolver;
+    }
+
+    /**
+     * 解析一条 dYdX 消息并直接写入 event。
+     *
+     * @return false 表示消息布局不支持流式解析（contents 先于 channel 出现），调用方需回退到 DOM 路径
+     */
+    public boolean parse(byte[] payload, int offset, int length, CoreEvent event) throws IOException {
+        try (JsonParser p = JsonParsers.create(payload, offset, length)) {
+            return parse(p, event);
+        }
+    }
+
+    /**
+     * 使用调用方创建的 JsonParser 解析（ByteBuf / ByteBuffer 输入见 {@link JsonParsers}）。
+     */
+    public boolean parse(JsonParser p, CoreEvent event) throws IOException {
+        resetState();
+        if (p.nextToken() != JsonToken.START_OBJECT) {
+            return true;
+        }
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.currentName();
+            p.nextToken();
+            switch (name) {
+                case "type" -> {
+                    if (JsonTokens.textEquals(p, "subscribed")) {
+                        type = TYPE_SUBSCRIBED;
+                    } else if (JsonTokens.textEquals(p, "channel_data")) {
+                        type = TYPE_CHANNEL_DATA;
+                    }
+                }
+                case "channel" -> {
+                    if (JsonTokens.textEquals(p, "v4_orderbook")) {
+                        channel = CHANNEL_ORDERBOOK;
+                    } else if (JsonTokens.textEquals(p, "v4_subaccounts")) {
+                        channel = CHANNEL_SUBACCOUNTS;
+                    }
+                }
+                case "id" -> idLength = JsonTokens.copyText(p, id);
+                case "message_id" -> messageId = p.getValueAsLong(0L);
+                case "contents" -> {
+                    if (channel == CHANNEL_ORDERBOOK) {
+                        parseOrderBookContents(p, event);
+                    } else if (channel == CHANNEL_SUBACCOUNTS) {
+                        parseSubaccountContents(p, event);
+                    } else if (hasChannelAfterContents(p)) {
+                        return false;
+                    }
+                }
+                default -> p.skipChildren();
+            }
+        }
+        finish(event);
+        return true;
+    }
+
+    /**
+     * 最近一次 parse 得到的完整订单 / 资产列表。
+     * 当 event.type == ACCOUNT_SYNC_BEGIN 时，调用方需从这里读取并分块发布；下一次 parse 前有效。
+     */
+    public AccountOrderBatch syncBatch() {
+        return orders;
+    }
+
+    private void resetState() {
+        channel = CHANNEL_UNKNOWN;
+        type = TYPE_UNKNOWN;
+        messageId = 0L;
+        idLength = 0;
+        bidCount = 0;
+        askCount = 0;
+        fillTotal = 0;
+        orders.clear();
+        transferSeen = false;
+        transferTypeLength = 0;
+        recipientAddressLength = 0;
+    }
+
+    /**
+     * contents 出现时 channel 未知：跳过 contents 并检查后续是否还有 channel 字段。
+     * 只有确实存在 channel（说明消息布局非常规）才需要回退。
+     */
+    private boolean hasChannelAfterContents(JsonParser p) throws IOException {
+        p.skipChildren();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            if ("channel".equals(p.currentName())) {
+                return true;
+            }
+            p.nextToken();
+            p.skipChildren();
+        }
+        return false;
+    }
+
+    // ==================== v4_orderbook ====================
+
+    private void parseOrderBookContents(JsonParser p, CoreEvent event) throws IOException {
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return;
+        }
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.currentName();
+            p.nextToken();
+            switch (name) {
+                case "bids" -> bidCount = JsonTokens.parseLevels(p, event.bidPrices, event.bidQtys);
+                case "asks" -> askCount = JsonTokens.parseLevels(p, event.askPrices, event.askQtys);
+                default -> p.skipChildren();
+            }
+        }
+    }
+
+    // ==================== v4_subaccounts ====================
+
+    private void parseSubaccountContents(JsonParser p, CoreEvent event) throws IOException {
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return;
+        }
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.currentName();
+            JsonToken t = p.nextToken();
+            switch (name) {
+                case "orders" -> {
+                    if (t == JsonToken.START_ARRAY) {
+                        while (p.nextToken() == JsonToken.START_OBJECT) {
+                            parseOrder(p, orders.addOrder());
+                        }
+                    } else {
+                        p.skipChildren();
+                    }
+                }
+                case "fills" -> {
+                    if (t == JsonToken.START_ARRAY) {
+                        while (p.nextToken() == JsonToken.START_OBJECT) {
+                            if (fillTotal < CoreEvent.MAX_FILLS) {
+                                parseFill(p, event, fillTotal);
+                            } else {
+                                p.skipChildren();
+                            }
+                            fillTotal++;
+                        }
+                    } else {
+                        p.skipChildren();
+                    }
+                }
+                case "assetPositions" -> {
+                    if (t == JsonToken.START_ARRAY) {
+                        while (p.nextToken() == JsonToken.START_OBJECT) {
+                            parseAssetPosition(p, orders.addAsset());
+                        }
+                    } else {
+                        p.skipChildren();
+                    }
+                }
+                case "transfers" -> {
+                    if (t == JsonToken.START_OBJECT) {
+                        parseTransfer(p, event);
+                    } else {
+                        p.skipChildren();
+                    }
+                }
+                default -> p.skipChildren();
+            }
+        }
+    }
+
+    private void parseOrder(JsonParser p, int i) throws IOException {
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.currentName();
+            p.nextToken();
+            if (!JsonTokens.hasText(p)) {
+                p.skipChildren();
+                continue;
+            }
+            switch (name) {
+                case "clientId" -> orders.orderClientIds[i] = JsonTokens.longOrHash(p);
+                case "price" -> orders.orderPrices[i] = JsonTokens.decimalE8(p);
+                case "size" -> orders.orderQtys[i] = JsonTokens.decimalE8(p);
+                case "totalFilled" -> orders.orderFilledQtys[i] = JsonTokens.decimalE8(p);
+                case "side" -> {
+                    if (JsonTokens.textEquals(p, "BUY")) {
+                        orders.orderSides[i] = 0; // Buy
+                    } else if (JsonTokens.textEquals(p, "SELL")) {
+                        orders.orderSides[i] = 1; // Sell
+                    }
+                }
+                case "status" -> {
+                    if (JsonTokens.textEquals(p, "OPEN")) {
+                        orders.orderStatuses[i] = 3; // New
+                    } else if (JsonTokens.textEquals(p, "CANCELED")) {
+                        orders.orderStatuses[i] = 6; // Canceled
+                    } else if (JsonTokens.textEquals(p, "FILLED")) {
+                        orders.orderStatuses[i] = 5; // Filled
+                    }
+                }
+                case "ticker" -> orders.orderSymbolIds[i] =
+                        symbolResolver.resolve(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+                case "clobPairId" -> {
+                    long v = JsonTokens.longOr(p, 0L);
+                    orders.orderClobPairIds[i] = (v > Integer.MAX_VALUE || v < Integer.MIN_VALUE) ? 0 : (int) v;
+                }
+                case "orderFlags" -> orders.orderFlags[i] = JsonTokens.longOr(p, 0L);
+                case "goodTilBlockTime" -> orders.orderGoodTilBlockTimeSec[i] = JsonTokens.isoToEpochSeconds(p);
+                default -> {
+                }
+            }
+        }
+    }
+
+    private void parseFill(JsonParser p, CoreEvent event, int i) throws IOException {
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.currentName();
+            p.nextToken();
+            switch (name) {
+                case "price" -> event.fillPrices[i] = JsonTokens.decimalE8(p);
+                case "size" -> event.fillQtys[i] = JsonTokens.decimalE8(p);
+                default -> p.skipChildren();
+            }
+        }
+    }
+
+    private void parseAssetPosition(JsonParser p, int i) throws IOException {
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.currentName();
+            p.nextToken();
+            switch (name) {
+                case "symbol" -> {
+                    if (JsonTokens.hasText(p)) {
+                        short assetId = assetResolver.resolve(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+                        if (assetId > 0) {
+                            orders.assetIds[i] = assetId;
+                        }
+                    }
+                }
+                case "size" -> orders.assetBalances[i] = JsonTokens.decimalE8(p);
+                default -> p.skipChildren();
+            }
+        }
+    }
+
+    private void parseTransfer(JsonParser p, CoreEvent event) throws IOException {
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            transferSeen = true;
+            String name = p.currentName();
+            JsonToken t = p.nextToken();
+            switch (name) {
+                case "symbol" -> {
+                    if (JsonTokens.hasText(p)) {
+                        short assetId = assetResolver.resolve(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+                        if (assetId > 0) {
+                            event.transferAssetId = assetId;
+                        }
+                    }
+                }
+                case "size" -> event.transferAmountE8 = JsonTokens.decimalE8(p);
+                case "type" -> transferTypeLength = JsonTokens.copyText(p, transferType);
+                case "recipient" -> {
+                    if (t == JsonToken.START_OBJECT) {
+                        while (p.nextToken() == JsonToken.FIELD_NAME) {
+                            String field = p.currentName();
+                            p.nextToken();
+                            if ("address".equals(field)) {
+                                recipientAddressLength = JsonTokens.copyText(p, recipientAddress);
+                            } else {
+                                p.skipChildren();
+                            }
+                        }
+                    } else {
+                        p.skipChildren();
+                    }
+                }
+                default -> p.skipChildren();
+            }
+        }
+    }
+
+    // ==================== 收尾 ====================
+
+    private void finish(CoreEvent event) {
+        if (channel == CHANNEL_ORDERBOOK) {
+            finishOrderBook(event);
+        } else if (channel == CHANNEL_SUBACCOUNTS) {
+            finishSubaccount(event);
+        }
+    }
+
+    private void finishOrderBook(CoreEvent event) {
+        if (type == TYPE_UNKNOWN) {
+            // 与 DOM 路径一致：只处理 subscribed / channel_data
+            clearLevels(event);
+            return;
+        }
+        event.type = CoreEventType.DEPTH_UPDATE;
+        if (idLength > 0) {
+            event.symbolId = symbolResolver.resolve(id, 0, idLength);
+        }
+        event.timestamp = System.currentTimeMillis();
+        // 使用 firstUpdateId = -1 标记这是全量快照（subscribed 消息），用于重建期间识别
+        event.firstUpdateId = type == TYPE_SUBSCRIBED ? -1 : 0;
+        // 使用 sequence 字段存储 dYdX 的 message_id，供 gap 检测使用
+        event.sequence = messageId;
+        event.depthCount = Math.max(bidCount, askCount);
+    }
+
+    private void clearLevels(CoreEvent event) {
+        java.util.Arrays.fill(event.bidPrices, 0, bidCount, 0L);
+        java.util.Arrays.fill(event.bidQtys, 0, bidCount, 0L);
+        java.util.Arrays.fill(event.askPrices, 0, askCount, 0L);
+        java.util.Arrays.fill(event.askQtys, 0, askCount, 0L);
+    }
+
+    private void finishSubaccount(CoreEvent event) {
+        // 判断是否是同步订单（message_id == 1 表示订阅确认，需要同步所有订单）
+        boolean isSync = messageId == 1;
+        int addressLength = addressLength();
+        short accountId = resolveAccountId(addressLength);
+        int orderCount = orders.orderCount;
+        int fillCount = Math.min(fillTotal, CoreEvent.MAX_FILLS);
+
+        if (isSync && (orderCount > CoreEvent.MAX_ORDERS || orders.assetCount > CoreEvent.MAX_ASSETS)) {
+            // 快照超出单个 CoreEvent 容量：只写 header，由 Normalizer 从 syncBatch() 拆分成多个 chunk 发布
+            event.type = CoreEventType.ACCOUNT_SYNC_BEGIN;
+            event.sequence = messageId;
+            event.timestamp = System.currentTimeMillis();
+            event.accountId = accountId;
+            event.firstUpdateId = -1;
+            clearFills(event, fillCount);
+            return;
+        }
+
+        if (orderCount > 0) {
+            event.type = CoreEventType.ACCOUNT_ORDER_UPDATE;
+            event.sequence = messageId;
+            event.timestamp = System.currentTimeMillis();
+            event.accountId = accountId;
+            if (isSync) {
+                event.firstUpdateId = -1; // 标记为同步
+                orders.copyOrdersTo(event, 0, orderCount);
+                clearFills(event, fillCount);
+            } else {
+                event.firstUpdateId = 0; // 标记为增量更新
+                moveFirstOrderToSingleFields(event);
+                applyFills(event, fillCount);
+            }
+        } else {
+            clearFills(event, fillCount);
+        }
+
+        int assetCount = Math.min(orders.assetCount, CoreEvent.MAX_ASSETS);
+        if (assetCount > 0) {
+            if (event.type == CoreEventType.NONE) {
+                event.type = CoreEventType.ACCOUNT_ORDER_UPDATE;
+                event.sequence = messageId;
+                event.timestamp = System.currentTimeMillis();
+            }
+            event.accountId = accountId;
+            orders.copyAssetsTo(event, 0, assetCount);
+        }
+
+        if (transferSeen) {
+            if (event.type == CoreEventType.NONE) {
+                event.type = CoreEventType.ACCOUNT_ORDER_UPDATE;
+                event.sequence = messageId;
+                event.timestamp = System.currentTimeMillis();
+            }
+            // 判断转账方向：如果接收方是当前账户，则是转入；否则是转出
+            boolean isTransferIn;
+            if (addressLength >= 0) {
+                isTransferIn = regionEquals(id, addressLength, recipientAddress, recipientAddressLength);
+            } else {
+                isTransferIn = regionEquals(transferType, transferTypeLength, "TRANSFER_IN");
+            }
+            // 设置转账类型：0=转入，1=转出
+            event.transferType = (byte) (isTransferIn ? 0 : 1);
+        }
+    }
+
+    /**
+     * 增量模式下 DOM 路径只处理第一个订单并写入单笔字段，数组保持为空。
+     */
+    private void moveFirstOrderToSingleFields(CoreEvent event) {
+        event.clientOidHash = orders.orderClientIds[0];
+        event.orderStatus = orders.orderStatuses[0];
+        event.side = orders.orderSides[0];
+        event.price = orders.orderPrices[0];
+        event.quantity = orders.orderQtys[0];
+        event.filledQty = orders.orderFilledQtys[0];
+        event.symbolId = orders.orderSymbolIds[0];
+        event.clobPairId = orders.orderClobPairIds[0];
+        event.orderFlag = orders.orderFlags[0];
+        event.goodTilBlockTimeSec = orders.orderGoodTilBlockTimeSec[0];
+    }
+
+    private void applyFills(CoreEvent event, int fillCount) {
+        if (fillCount == 0) {
+            return;
+        }
+        long totalQtyE8 = 0L;
+        long lastPriceE8 = 0L;
+        for (int i = 0; i < fillCount; i++) {
+            if (event.fillPrices[i] != 0) {
+                lastPriceE8 = event.fillPrices[i];
+            }
+            totalQtyE8 += event.fillQtys[i];
+        }
+        event.fillCount = fillCount;
+        // 兼容：同时在 price/quantity 上提供聚合信息，供简单策略使用
+        if (lastPriceE8 > 0) {
+            event.price = lastPriceE8;
+        }
+        if (totalQtyE8 > 0) {
+            event.totalFillQty = totalQtyE8;
+        }
+    }
+
+    private void clearFills(CoreEvent event, int fillCount) {
+        java.util.Arrays.fill(event.fillPrices, 0, fillCount, 0L);
+        java.util.Arrays.fill(event.fillQtys, 0, fillCount, 0L);
+    }
+
+    /**
+     * id 形如 address/subaccountNumber，返回 address 的长度；不含 '/' 时返回 -1。
+     */
+    private int addressLength() {
+        for (int i = 0; i < idLength; i++) {
+            if (id[i] == '/') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private short resolveAccountId(int addressLength) {
+        if (addressLength > 0) {
+            short accountId = addressResolver.resolve(id, 0, addressLength);
+            if (accountId > 0) {
+                return accountId;
+            }
+        }
+        return 0;
+    }
+
+    private static boolean regionEquals(char[] a, int aLength, char[] b, int bLength) {
+        if (aLength != bLength) {
+            return false;
+        }
+        for (int i = 0; i < aLength; i++) {
+            if (a[i] != b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean regionEquals(char[] a, int aLength, String b) {
+        if (aLength != b.length()) {
+            return false;
+        }
+        for (int i = 0; i < aLength; i++) {
+            if (a[i] != b.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
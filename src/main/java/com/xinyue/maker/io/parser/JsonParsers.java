@@ -0,0 +1,68 @@
+package com.xinyue.maker.io.parser;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import io.netty.buffer.ByteBuf;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * 流式解析器共用的 JsonFactory 与 JsonParser 创建入口。
+ * <p>
+ * 支持三种输入，均不拷贝 payload：
+ * - byte[]：普通字节数组解析器
+ * - 堆内 ByteBuf：直接使用底层数组（arrayOffset + readerIndex）
+ * - 直接内存 ByteBuf（Netty 默认的池化 direct buffer）：使用 Jackson 的非阻塞 ByteBuffer 解析器，
+ *   一次性喂入 nioBuffer 视图并标记输入结束
+ * <p>
+ * 只有由多段内存组成的 CompositeByteBuf 需要先拷贝到线程内复用的暂存数组。
+ */
+public final class JsonParsers {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final int INITIAL_SCRATCH_SIZE = 64 * 1024;
+
+    // CompositeByteBuf 的拼接缓冲区（按 IO 线程复用，只增不减）
+    private static final ThreadLocal<byte[][]> SCRATCH = ThreadLocal.withInitial(() -> new byte[][]{new byte[INITIAL_SCRATCH_SIZE]});
+
+    private JsonParsers() {
+    }
+
+    public static JsonParser create(byte[] payload, int offset, int length) throws IOException {
+        return JSON_FACTORY.createParser(payload, offset, length);
+    }
+
+    /**
+     * 基于 ByteBuf 可读区域创建解析器，不修改 readerIndex，不转移所有权（调用方负责 release）。
+     */
+    public static JsonParser create(ByteBuf buf) throws IOException {
+        int length = buf.readableBytes();
+        if (buf.hasArray()) {
+            return JSON_FACTORY.createParser(buf.array(), buf.arrayOffset() + buf.readerIndex(), length);
+        }
+        if (buf.nioBufferCount() == 1) {
+            return create(buf.nioBuffer(buf.readerIndex(), length));
+        }
+        byte[][] holder = SCRATCH.get();
+        if (holder[0].length < length) {
+            holder[0] = new byte[Math.max(length, holder[0].length * 2)];
+        }
+        buf.getBytes(buf.readerIndex(), holder[0], 0, length);
+        return JSON_FACTORY.createParser(holder[0], 0, length);
+    }
+
+    /**
+     * 基于完整消息的 ByteBuffer（通常是 direct buffer）创建非阻塞解析器。
+     * 输入在创建时已全部喂入并标记结束，因此不会出现 NOT_AVAILABLE token，可按同步方式迭代。
+     */
+    public static JsonParser create(ByteBuffer buffer) throws IOException {
+        JsonParser parser = JSON_FACTORY.createNonBlockingByteBufferParser();
+        ByteBufferFeeder feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+        feeder.feedInput(buffer);
+        feeder.endOfInput();
+        return parser;
+    }
+}
@@ -0,0 +1,176 @@
+package com.xinyue.maker.io.parser;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.xinyue.maker.common.CoreEvent;
+import com.xinyue.maker.common.FixedPointParser;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+
+/**
+ * 流式解析的公共工具方法。
+ * <p>
+ * 所有方法直接读取 {@link JsonParser#getTextCharacters()} 返回的内部 char[]，
+ * 不经过 {@code getText()}，因此不会产生 String 分配。
+ */
+final class JsonTokens {
+
+    private JsonTokens() {
+    }
+
+    /**
+     * 当前值（字符串 token）是否等于给定常量。
+     */
+    static boolean textEquals(JsonParser p, String expected) throws IOException {
+        if (p.currentToken() != JsonToken.VALUE_STRING) {
+            return false;
+        }
+        int len = p.getTextLength();
+        if (len != expected.length()) {
+            return false;
+        }
+        char[] buf = p.getTextCharacters();
+        int off = p.getTextOffset();
+        for (int i = 0; i < len; i++) {
+            if (buf[off + i] != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 当前值是否为非空字符串（对应 DOM 路径中的 {@code !str.isEmpty()} 判断）。
+     */
+    static boolean hasText(JsonParser p) throws IOException {
+        return p.currentToken() == JsonToken.VALUE_STRING && p.getTextLength() > 0;
+    }
+
+    /**
+     * 将当前字符串 token 解析为放大 1e8 的 long，超过 8 位小数截断（见 {@link FixedPointParser}）。
+     * 非字符串 token（null/数字）返回 0。
+     */
+    static long decimalE8(JsonParser p) throws IOException {
+        if (!hasText(p)) {
+            return 0L;
+        }
+        return FixedPointParser.parseE8(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+    }
+
+    /**
+     * 将当前字符串 token 解析为 long；非纯数字时按 {@link String#hashCode()} 的算法取哈希，
+     * 与 DOM 路径中 {@code Long.parseLong} 失败后退回 {@code hashCode()} 的行为一致。
+     */
+    static long longOrHash(JsonParser p) throws IOException {
+        char[] buf = p.getTextCharacters();
+        int off = p.getTextOffset();
+        int len = p.getTextLength();
+        long value = parseLong(buf, off, len, Long.MIN_VALUE);
+        if (value != Long.MIN_VALUE) {
+            return value;
+        }
+        int h = 0;
+        for (int i = 0; i < len; i++) {
+            h = 31 * h + buf[off + i];
+        }
+        return h;
+    }
+
+    /**
+     * 将当前字符串 token 解析为 long，非法时返回 {@code fallback}。
+     */
+    static long longOr(JsonParser p, long fallback) throws IOException {
+        return parseLong(p.getTextCharacters(), p.getTextOffset(), p.getTextLength(), fallback);
+    }
+
+    private static long parseLong(char[] buf, int off, int len, long fallback) {
+        if (len == 0 || len > 19) {
+            return fallback;
+        }
+        int i = off;
+        int end = off + len;
+        boolean negative = buf[i] == '-';
+        if (negative || buf[i] == '+') {
+            i++;
+            if (i == end) {
+                return fallback;
+            }
+        }
+        long value = 0L;
+        for (; i < end; i++) {
+            int d = buf[i] - '0';
+            if (d < 0 || d > 9) {
+                return fallback;
+            }
+            value = value * 10 + d;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * ISO-8601 UTC 时间（如 2026-01-08T11:32:05.000Z）转 epoch seconds，格式不符返回 0。
+     */
+    static long isoToEpochSeconds(JsonParser p) throws IOException {
+        try {
+            return FixedPointParser.parseIsoEpochSeconds(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+        } catch (DateTimeException ignore) {
+            return 0L;
+        }
+    }
+
+    /**
+     * 解析档位数组：快照为 {"price":"..","size":".."}，增量为 ["price","size"]，两种格式按 token 自动识别。
+     * 超过 {@link CoreEvent#MAX_DEPTH} 的档位被跳过。
+     */
+    static int parseLevels(JsonParser p, long[] prices, long[] qtys) throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return 0;
+        }
+        int count = 0;
+        JsonToken t;
+        while ((t = p.nextToken()) != JsonToken.END_ARRAY) {
+            if (count >= CoreEvent.MAX_DEPTH) {
+                p.skipChildren();
+                continue;
+            }
+            if (t == JsonToken.START_ARRAY) {
+                p.nextToken();
+                prices[count] = decimalE8(p);
+                p.nextToken();
+                qtys[count] = decimalE8(p);
+                while (p.nextToken() != JsonToken.END_ARRAY) {
+                    p.skipChildren();
+                }
+                count++;
+            } else if (t == JsonToken.START_OBJECT) {
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = p.currentName();
+                    p.nextToken();
+                    switch (name) {
+                        case "price" -> prices[count] = decimalE8(p);
+                        case "size" -> qtys[count] = decimalE8(p);
+                        default -> p.skipChildren();
+                    }
+                }
+                count++;
+            } else {
+                p.skipChildren();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 将当前字符串 token 复制到调用方提供的缓冲区，超长部分截断，返回复制的长度。
+     */
+    static int copyText(JsonParser p, char[] dest) throws IOException {
+        if (p.currentToken() != JsonToken.VALUE_STRING) {
+            return 0;
+        }
+        int len = Math.min(p.getTextLength(), dest.length);
+        System.arraycopy(p.getTextCharacters(), p.getTextOffset(), dest, 0, len);
+        return len;
+    }
+}
@@ -2,9 +2,10 @@ package com.xinyue.maker.io.rest;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xinyue.maker.common.FixedPointParser;
+import com.xinyue.maker.config.TransportConfig;
 
 import java.io.IOException;
-import java.math.BigDecimal;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
@@ -17,11 +18,13 @@ import java.time.Duration;
  */
 public final class DydxRestClient {
 
-    private static final String BASE_URL = "https://dydx1.forcast.money";
+    // indexer REST 地址（transport.properties 的 io.dydx.restUrl）
+    private final String baseUrl;
     private final HttpClient httpClient;
     private final ObjectMapper objectMapper;
 
     public DydxRestClient() {
+        this.baseUrl = TransportConfig.load().dydxRestUrl;
         this.httpClient = HttpClient.newBuilder()
                 .connectTimeout(Duration.ofSeconds(10))
                 .build();
@@ -38,7 +41,7 @@ public final class DydxRestClient {
      * @throws InterruptedException 中断异常
      */
     public String getSubaccount(String address, int subaccountNumber) throws IOException, InterruptedException {
-        String url = String.format("%s/v4/addresses/%s/subaccountNumber/%d", BASE_URL, address, subaccountNumber);
+        String url = String.format("%s/v4/addresses/%s/subaccountNumber/%d", baseUrl, address, subaccountNumber);
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .header("Content-Type", "application/json")
@@ -106,9 +109,8 @@ public final class DydxRestClient {
      */
     public static long parseSizeToLong(String sizeStr) {
         try {
-            BigDecimal size = new BigDecimal(sizeStr);
-            return size.multiply(BigDecimal.valueOf(1_0000_0000L)).longValue();
-        } catch (NumberFormatException e) {
+            return FixedPointParser.parseE8(sizeStr);
+        } catch (NumberFormatException | ArithmeticException e) {
             throw new IllegalArgumentException("无效的数量格式: " + sizeStr, e);
         }
     }
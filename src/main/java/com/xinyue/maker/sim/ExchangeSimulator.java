@@ -0,0 +1,157 @@
+package com.xinyue.maker.sim;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地交易所模拟器：离线端到端压测用，在一个端口上同时提供
+ * dYdX 兼容的 WebSocket（v4_orderbook / v4_subaccounts）、子账户 REST 查询与 Sidecar 兼容的下单端点，
+ * 背后是价格优先、时间优先的撮合引擎与随机游走的背景流动性。
+ * <p>
+ * 两种用法：
+ * <ul>
+ *   <li>独立进程：{@code java -cp ... com.xinyue.maker.sim.ExchangeSimulator}，
+ *       交易系统用 -Dio.dydx.wsUri / -Dio.dydx.restUrl / -Dio.sidecar.uris 指向它；</li>
+ *   <li>进程内：-Dsim.enabled=true（或 simulator.properties 中 sim.enabled=true）时由
+ *       MakerSystemApp / AppContext 在启动最开始调用 {@link #startIfEnabled()}，并把未显式指定的上述地址改写为模拟器地址。</li>
+ * </ul>
+ * 模拟器使用独立的单线程 EventLoop（不与 NettyTransport 共用 IO 线程），所有连接与背景行情定时任务都在该线程上执行。
+ * 压测结果见 GET /sim/stats：最大持续指令速率与 tick-to-trade 延迟分位数。
+ */
+public final class ExchangeSimulator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ExchangeSimulator.class);
+
+    private static final int MAX_HTTP_CONTENT_BYTES = 64 * 1024;
+    private static final long STATS_LOG_SECONDS = 10;
+
+    private final SimConfig config;
+    private final SimulatedExchange exchange;
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
+    private Channel serverChannel;
+
+    public ExchangeSimulator(SimConfig config) {
+        this.config = config;
+        this.exchange = new SimulatedExchange(config);
+    }
+
+    /**
+     * 启动监听并开始推送背景行情（阻塞到端口绑定完成）。
+     */
+    public synchronized void start() throws InterruptedException {
+        if (serverChannel != null) {
+            return;
+        }
+        bossGroup = new NioEventLoopGroup(1, new DefaultThreadFactory("sim-boss", true));
+        workerGroup = new NioEventLoopGroup(1, new DefaultThreadFactory("sim-io", true));
+        ServerBootstrap bootstrap = new ServerBootstrap()
+                .group(bossGroup, workerGroup)
+                .channel(NioServerSocketChannel.class)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline().addLast(
+                                new HttpServerCodec(),
+                                new HttpObjectAggregator(MAX_HTTP_CONTENT_BYTES),
+                                new SimHttpHandler(exchange));
+                    }
+                });
+        serverChannel = bootstrap.bind(config.host, config.port).sync().channel();
+
+        EventLoop loop = workerGroup.next();
+        loop.submit(exchange::seedBooks).sync();
+        loop.scheduleAtFixedRate(() -> {
+            try {
+                exchange.onTick();
+            } catch (Exception e) {
+                LOG.error("模拟器背景行情节拍异常", e);
+            }
+        }, config.tickMillis, config.tickMillis, TimeUnit.MILLISECONDS);
+        loop.scheduleAtFixedRate(this::logStats, STATS_LOG_SECONDS, STATS_LOG_SECONDS, TimeUnit.SECONDS);
+
+        LOG.info("交易所模拟器已启动: ws={}, rest={}, sidecar={}, markets={}",
+                config.wsUri(), config.restUrl(), config.sidecarUri(), config.markets.size());
+    }
+
+    public synchronized void stop() {
+        if (serverChannel != null) {
+            serverChannel.close();
+            serverChannel = null;
+        }
+        if (workerGroup != null) {
+            workerGroup.shutdownGracefully();
+            bossGroup.shutdownGracefully();
+        }
+    }
+
+    public SimConfig config() {
+        return config;
+    }
+
+    private void logStats() {
+        SimStats stats = exchange.stats();
+        if (stats.orders() == 0) {
+            return;
+        }
+        Map<String, Object> snapshot = stats.snapshot(System.nanoTime());
+        LOG.info("模拟器统计: {}", snapshot);
+    }
+
+    /**
+     * 嵌入式启动：sim.enabled=true 时启动模拟器，并把未通过 -D 显式指定的 dYdX / Sidecar 地址指向模拟器。
+     * 必须在任何 TransportConfig.load() / NettyTransport.getInstance() 之前调用。未开启或启动失败时返回 null。
+     */
+    public static ExchangeSimulator startIfEnabled() {
+        SimConfig config = SimConfig.load();
+        if (!config.enabled) {
+            return null;
+        }
+        ExchangeSimulator simulator = new ExchangeSimulator(config);
+        try {
+            simulator.start();
+        } catch (Exception e) {
+            LOG.error("交易所模拟器启动失败，继续连接 transport.properties 中配置的地址", e);
+            simulator.stop();
+            return null;
+        }
+        redirect("io.dydx.wsUri", config.wsUri());
+        redirect("io.dydx.restUrl", config.restUrl());
+        redirect("io.sidecar.uris", config.sidecarUri());
+        return simulator;
+    }
+
+    private static void redirect(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+            LOG.info("{} 指向交易所模拟器: {}", key, value);
+        }
+    }
+
+    /**
+     * 独立进程运行模拟器，直到进程退出。
+     */
+    public static void main(String[] args) throws InterruptedException {
+        ExchangeSimulator simulator = new ExchangeSimulator(SimConfig.load());
+        simulator.start();
+        Channel server = simulator.serverChannel;
+        Runtime.getRuntime().addShutdownHook(new Thread(simulator::stop, "sim-shutdown"));
+        server.closeFuture().sync();
+    }
+}
@@ -0,0 +1,181 @@
+package com.xinyue.maker.sim;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 单个交易对的价格优先、时间优先撮合引擎（限价单，只在模拟器线程上访问）。
+ * <p>
+ * 新订单先与对手方最优价位逐笔撮合（成交价取挂单价），剩余数量挂入本方价位队尾。
+ * 每次撮合 / 挂单 / 撤单都通过 {@link Listener} 报告价位聚合数量的变化与逐笔成交，
+ * 由 {@link SimulatedExchange} 合并成 v4_orderbook 增量与 v4_subaccounts 成交推送。
+ */
+final class MatchingEngine {
+
+    /**
+     * 撮合结果回调。
+     */
+    interface Listener {
+
+        /**
+         * 价位聚合数量变化，sizeE8 == 0 表示该价位已清空。
+         */
+        void onLevelChanged(byte side, long priceE8, long sizeE8);
+
+        /**
+         * 一笔成交：maker 为被动挂单，taker 为主动订单，成交价为 maker 的挂单价。
+         */
+        void onFill(SimOrder maker, SimOrder taker, long priceE8, long qtyE8);
+    }
+
+    /**
+     * 一个价位：同价订单的先进先出链表与聚合数量。
+     */
+    static final class Level {
+        final long priceE8;
+        long sizeE8;
+        SimOrder head;
+        SimOrder tail;
+
+        Level(long priceE8) {
+            this.priceE8 = priceE8;
+        }
+    }
+
+    private final TreeMap<Long, Level> bids = new TreeMap<>(Comparator.reverseOrder());
+    private final TreeMap<Long, Level> asks = new TreeMap<>();
+    private final Listener listener;
+
+    MatchingEngine(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 提交一笔限价单：先撮合，剩余数量挂单。返回 true 表示订单仍有剩余数量挂在簿上。
+     */
+    boolean submit(SimOrder order) {
+        TreeMap<Long, Level> opposite = order.side == 0 ? asks : bids;
+        byte oppositeSide = (byte) (1 - order.side);
+        while (!order.isFilled() && !opposite.isEmpty()) {
+            Level best = opposite.firstEntry().getValue();
+            boolean crosses = order.side == 0 ? best.priceE8 <= order.priceE8 : best.priceE8 >= order.priceE8;
+            if (!crosses) {
+                break;
+            }
+            while (!order.isFilled() && best.head != null) {
+                SimOrder maker = best.head;
+                long qty = Math.min(order.remainingE8(), maker.remainingE8());
+                maker.filledE8 += qty;
+                order.filledE8 += qty;
+                best.sizeE8 -= qty;
+                if (maker.isFilled()) {
+                    unlink(best, maker);
+                }
+                listener.onFill(maker, order, best.priceE8, qty);
+            }
+            if (best.head == null) {
+                opposite.remove(best.priceE8);
+            }
+            listener.onLevelChanged(oppositeSide, best.priceE8, best.head == null ? 0L : best.sizeE8);
+        }
+        if (order.isFilled()) {
+            return false;
+        }
+        TreeMap<Long, Level> own = order.side == 0 ? bids : asks;
+        Level level = own.computeIfAbsent(order.priceE8, Level::new);
+        append(level, order);
+        listener.onLevelChanged(order.side, level.priceE8, level.sizeE8);
+        return true;
+    }
+
+    /**
+     * 撤销仍在簿上的订单，返回 false 表示订单已不在簿上（已成交或已撤）。
+     */
+    boolean cancel(SimOrder order) {
+        Level level = order.level;
+        if (level == null) {
+            return false;
+        }
+        level.sizeE8 -= order.remainingE8();
+        unlink(level, order);
+        if (level.head == null) {
+            (order.side == 0 ? bids : asks).remove(level.priceE8);
+        }
+        listener.onLevelChanged(order.side, level.priceE8, level.head == null ? 0L : level.sizeE8);
+        return true;
+    }
+
+    /**
+     * 最优买价，无买单时返回 0。
+     */
+    long bestBid() {
+        Map.Entry<Long, Level> e = bids.firstEntry();
+        return e == null ? 0L : e.getKey();
+    }
+
+    /**
+     * 最优卖价，无卖单时返回 0。
+     */
+    long bestAsk() {
+        Map.Entry<Long, Level> e = asks.firstEntry();
+        return e == null ? 0L : e.getKey();
+    }
+
+    /**
+     * 某一侧某价位的聚合数量，无挂单时返回 0。
+     */
+    long sizeAt(byte side, long priceE8) {
+        Level level = (side == 0 ? bids : asks).get(priceE8);
+        return level == null ? 0L : level.sizeE8;
+    }
+
+    /**
+     * 按最优价开始依次复制某一侧最多 maxLevels 个价位，返回复制的价位数（全量快照用）。
+     */
+    int copyLevels(byte side, long[] prices, long[] sizes, int maxLevels) {
+        int n = 0;
+        for (Level level : (side == 0 ? bids : asks).values()) {
+            if (n >= maxLevels) {
+                break;
+            }
+            prices[n] = level.priceE8;
+            sizes[n] = level.sizeE8;
+            n++;
+        }
+        return n;
+    }
+
+    int levelCount(byte side) {
+        return (side == 0 ? bids : asks).size();
+    }
+
+    private static void append(Level level, SimOrder order) {
+        order.level = level;
+        order.prev = level.tail;
+        order.next = null;
+        if (level.tail == null) {
+            level.head = order;
+        } else {
+            level.tail.next = order;
+        }
+        level.tail = order;
+        level.sizeE8 += order.remainingE8();
+    }
+
+    private static void unlink(Level level, SimOrder order) {
+        if (order.prev == null) {
+            level.head = order.next;
+        } else {
+            order.prev.next = order.next;
+        }
+        if (order.next == null) {
+            level.tail = order.prev;
+        } else {
+            order.next.prev = order.prev;
+        }
+        order.prev = null;
+        order.next = null;
+        order.level = null;
+    }
+}
@@ -0,0 +1,198 @@
+package com.xinyue.maker.sim;
+
+import com.xinyue.maker.common.FixedPointParser;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * 本地交易所模拟器配置读取器。
+ * 从 simulator.properties 读取监听端口、模拟交易对、背景行情参数与账户初始余额；
+ * 同名 JVM 系统属性（-Dsim.enabled=true）优先，文件缺失时全部使用默认值。
+ */
+public final class SimConfig {
+
+    /**
+     * 一个模拟交易对。
+     */
+    public static final class Market {
+        // dYdX ticker（如 H2-USDT），base / quote 资产由 '-' 拆分
+        public final String ticker;
+        public final String baseAsset;
+        public final String quoteAsset;
+        public final long midE8;
+        public final long tickE8;
+        public final int clobPairId;
+
+        Market(String ticker, long midE8, long tickE8, int clobPairId) {
+            this.ticker = ticker;
+            int dash = ticker.indexOf('-');
+            this.baseAsset = dash > 0 ? ticker.substring(0, dash) : ticker;
+            this.quoteAsset = dash > 0 ? ticker.substring(dash + 1) : "USDT";
+            this.midE8 = midE8;
+            this.tickE8 = Math.max(1L, tickE8);
+            this.clobPairId = clobPairId;
+        }
+    }
+
+    // 嵌入启动开关（MakerSystemApp / AppContext 启动时检查）
+    public final boolean enabled;
+    public final String host;
+    public final int port;
+    public final List<Market> markets;
+    // 背景流动性：每侧挂单的价位数与每档基准数量（实际数量在 0.5~1.5 倍间随机）
+    public final int levels;
+    public final long levelSizeE8;
+    // 背景行情节拍（毫秒），每拍中间价以 moveProbability 的概率上下移动一个 tick
+    public final int tickMillis;
+    public final double moveProbability;
+    // 每拍以 takerProbability 的概率发出一笔主动单（数量在 0.5~1.5 倍 takerSizeE8 间随机），会成交我方挂单
+    public final double takerProbability;
+    public final long takerSizeE8;
+    // 全量快照最多推送的价位数
+    public final int snapshotDepth;
+    // 每个账户的初始余额：资产 -> 数量（E8）
+    public final Map<String, Long> initialBalances;
+    public final long seed;
+
+    public SimConfig(boolean enabled, String host, int port, List<Market> markets, int levels, long levelSizeE8,
+                     int tickMillis, double moveProbability, double takerProbability, long takerSizeE8,
+                     int snapshotDepth, Map<String, Long> initialBalances, long seed) {
+        this.enabled = enabled;
+        this.host = host;
+        this.port = port;
+        this.markets = markets;
+        this.levels = Math.max(1, levels);
+        this.levelSizeE8 = Math.max(1L, levelSizeE8);
+        this.tickMillis = Math.max(1, tickMillis);
+        this.moveProbability = moveProbability;
+        this.takerProbability = takerProbability;
+        this.takerSizeE8 = Math.max(1L, takerSizeE8);
+        this.snapshotDepth = Math.max(1, snapshotDepth);
+        this.initialBalances = initialBalances;
+        this.seed = seed;
+    }
+
+    /**
+     * 模拟器的 dYdX WebSocket 地址（写入 io.dydx.wsUri）。
+     */
+    public String wsUri() {
+        return "ws://" + host + ":" + port + "/v4/ws";
+    }
+
+    /**
+     * 模拟器的 dYdX REST 地址（写入 io.dydx.restUrl）。
+     */
+    public String restUrl() {
+        return "http://" + host + ":" + port;
+    }
+
+    /**
+     * 模拟器的 Sidecar 地址（写入 io.sidecar.uris）。
+     */
+    public String sidecarUri() {
+        return "ws://" + host + ":" + port + "/sidecar";
+    }
+
+    /**
+     * 从 simulator.properties 读取配置。
+     */
+    public static SimConfig load() {
+        Properties props = new Properties();
+        try (InputStream is = SimConfig.class.getClassLoader()
+                .getResourceAsStream("simulator.properties")) {
+            if (is != null) {
+                props.load(is);
+            }
+        } catch (Exception e) {
+            System.err.println("读取模拟器配置失败，使用默认值: " + e.getMessage());
+        }
+
+        List<Market> markets = new ArrayList<>();
+        for (String part : value(props, "sim.markets", "H2-USDT").split(",")) {
+            String ticker = part.trim();
+            if (ticker.isEmpty()) {
+                continue;
+            }
+            String prefix = "sim.market." + ticker + ".";
+            markets.add(new Market(ticker,
+                    decimalValue(props, prefix + "mid", "1"),
+                    decimalValue(props, prefix + "tick", "0.0001"),
+                    intValue(props, prefix + "clobPairId", markets.size() + 1)));
+        }
+
+        Map<String, Long> balances = new LinkedHashMap<>();
+        for (String key : props.stringPropertyNames()) {
+            if (key.startsWith("sim.balance.")) {
+                balances.put(key.substring("sim.balance.".length()), decimalValue(props, key, "0"));
+            }
+        }
+        if (balances.isEmpty()) {
+            for (Market market : markets) {
+                balances.put(market.baseAsset, 1_000_000L * 100_000_000L);
+                balances.put(market.quoteAsset, 1_000_000L * 100_000_000L);
+            }
+        }
+
+        return new SimConfig(
+                Boolean.parseBoolean(value(props, "sim.enabled", "false")),
+                value(props, "sim.host", "127.0.0.1"),
+                intValue(props, "sim.port", 9100),
+                List.copyOf(markets),
+                intValue(props, "sim.levels", 20),
+                decimalValue(props, "sim.levelSize", "5000"),
+                intValue(props, "sim.tickMillis", 100),
+                doubleValue(props, "sim.moveProbability", 0.3),
+                doubleValue(props, "sim.takerProbability", 0.2),
+                decimalValue(props, "sim.takerSize", "2000"),
+                intValue(props, "sim.snapshotDepth", 100),
+                balances,
+                intValue(props, "sim.seed", 42)
+        );
+    }
+
+    private static String value(Properties props, String key, String defaultValue) {
+        String v = System.getProperty(key, props.getProperty(key, defaultValue));
+        return v == null ? defaultValue : v.trim();
+    }
+
+    private static int intValue(Properties props, String key, int defaultValue) {
+        String v = value(props, key, "");
+        if (v.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(v);
+        } catch (NumberFormatException e) {
+            System.err.println("警告: 模拟器配置 " + key + "=" + v + " 不是整数，使用默认值 " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    private static double doubleValue(Properties props, String key, double defaultValue) {
+        String v = value(props, key, "");
+        if (v.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(v);
+        } catch (NumberFormatException e) {
+            System.err.println("警告: 模拟器配置 " + key + "=" + v + " 不是小数，使用默认值 " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    private static long decimalValue(Properties props, String key, String defaultValue) {
+        String v = value(props, key, defaultValue);
+        try {
+            return FixedPointParser.parseE8(v);
+        } catch (RuntimeException e) {
+            System.err.println("警告: 模拟器配置 " + key + "=" + v + " 不是数值，使用默认值 " + defaultValue);
+            return FixedPointParser.parseE8(defaultValue);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.xinyue.maker.sim;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * dYdX 行情 WebSocket（/v4/ws）：握手完成后推送 connected，处理 subscribe / unsubscribe。
+ * ping / close 由 {@link WebSocketServerProtocolHandler} 处理。
+ */
+final class SimFeedHandler extends SimpleChannelInboundHandler<TextWebSocketFrame> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SimFeedHandler.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final SimulatedExchange exchange;
+    private SimulatedExchange.FeedSession session;
+
+    SimFeedHandler(SimulatedExchange exchange) {
+        this.exchange = exchange;
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt instanceof WebSocketServerProtocolHandler.HandshakeComplete) {
+            session = new SimulatedExchange.FeedSession(ctx.channel());
+            exchange.onConnected(session);
+        }
+        super.userEventTriggered(ctx, evt);
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, TextWebSocketFrame frame) {
+        if (session == null) {
+            return;
+        }
+        try {
+            JsonNode root = MAPPER.readTree(frame.text());
+            String type = root.path("type").asText();
+            String channel = root.path("channel").asText();
+            String id = root.path("id").asText();
+            if ("subscribe".equals(type)) {
+                exchange.subscribe(session, channel, id);
+            } else if ("unsubscribe".equals(type)) {
+                exchange.unsubscribe(session, channel, id);
+            }
+        } catch (Exception e) {
+            LOG.warn("模拟器忽略无法解析的行情请求: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (session != null) {
+            exchange.onDisconnected(session);
+        }
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        LOG.warn("模拟器行情连接异常: {}", cause.getMessage());
+        ctx.close();
+    }
+}
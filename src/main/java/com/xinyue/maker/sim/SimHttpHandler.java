@@ -0,0 +1,106 @@
+package com.xinyue.maker.sim;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 模拟器 HTTP 入口：按路径分发。
+ * <ul>
+ *   <li>WebSocket 升级：/v4/ws 为 dYdX 行情（{@link SimFeedHandler}），其它路径为 Sidecar（{@link SimSidecarHandler}）；</li>
+ *   <li>GET /v4/addresses/{address}/subaccountNumber/{n}：dYdX indexer 子账户查询；</li>
+ *   <li>GET /sim/stats：压测统计（吞吐、tick-to-trade 延迟分位数）。</li>
+ * </ul>
+ */
+final class SimHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SimHttpHandler.class);
+
+    static final String FEED_PATH = "/v4/ws";
+    private static final String SUBACCOUNT_PREFIX = "/v4/addresses/";
+    private static final String SUBACCOUNT_NUMBER = "/subaccountNumber/";
+    private static final String STATS_PATH = "/sim/stats";
+    // 与客户端一致：行情快照可能较大
+    private static final int MAX_FRAME_PAYLOAD_LENGTH = 10 * 1024 * 1024;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final SimulatedExchange exchange;
+
+    SimHttpHandler(SimulatedExchange exchange) {
+        this.exchange = exchange;
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) throws Exception {
+        String path = new QueryStringDecoder(request.uri()).path();
+        if (request.headers().containsValue(HttpHeaderNames.UPGRADE, HttpHeaderValues.WEBSOCKET, true)) {
+            // 换成对应的 WebSocket 协议处理器后重新投递本次握手请求
+            ChannelPipeline pipeline = ctx.pipeline();
+            pipeline.addLast(new WebSocketServerProtocolHandler(path, null, true, MAX_FRAME_PAYLOAD_LENGTH));
+            pipeline.addLast(path.startsWith(FEED_PATH) ? new SimFeedHandler(exchange) : new SimSidecarHandler(exchange));
+            pipeline.remove(this);
+            ctx.fireChannelRead(request.retain());
+            return;
+        }
+
+        if (request.method() != HttpMethod.GET) {
+            respond(ctx, request, HttpResponseStatus.METHOD_NOT_ALLOWED, "{\"error\":\"method not allowed\"}");
+        } else if (STATS_PATH.equals(path)) {
+            respond(ctx, request, HttpResponseStatus.OK, MAPPER.writeValueAsString(exchange.statsSnapshot()));
+        } else if (path.startsWith(SUBACCOUNT_PREFIX) && path.contains(SUBACCOUNT_NUMBER)) {
+            int split = path.indexOf(SUBACCOUNT_NUMBER);
+            String address = path.substring(SUBACCOUNT_PREFIX.length(), split);
+            String body = null;
+            try {
+                body = exchange.subaccountJson(address, Integer.parseInt(path.substring(split + SUBACCOUNT_NUMBER.length())));
+            } catch (NumberFormatException ignore) {
+                // 按未找到处理
+            }
+            if (body == null) {
+                respond(ctx, request, HttpResponseStatus.NOT_FOUND, "{\"errors\":[{\"msg\":\"Subaccount not found\"}]}");
+            } else {
+                respond(ctx, request, HttpResponseStatus.OK, body);
+            }
+        } else {
+            respond(ctx, request, HttpResponseStatus.NOT_FOUND, "{\"error\":\"not found\"}");
+        }
+    }
+
+    private static void respond(ChannelHandlerContext ctx, FullHttpRequest request, HttpResponseStatus status, String body) {
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status,
+                Unpooled.copiedBuffer(body, StandardCharsets.UTF_8));
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/json; charset=UTF-8");
+        HttpUtil.setContentLength(response, response.content().readableBytes());
+        boolean keepAlive = HttpUtil.isKeepAlive(request);
+        HttpUtil.setKeepAlive(response, keepAlive);
+        if (keepAlive) {
+            ctx.writeAndFlush(response);
+        } else {
+            ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        LOG.warn("模拟器 HTTP 连接异常: {}", cause.getMessage());
+        ctx.close();
+    }
+}
@@ -0,0 +1,55 @@
+package com.xinyue.maker.sim;
+
+import java.time.Instant;
+
+/**
+ * 模拟器推送用的 JSON 片段拼接（dYdX indexer 把数值都编码为十进制字符串）。
+ */
+final class SimJson {
+
+    private static final long SCALE = 100_000_000L;
+
+    private SimJson() {
+    }
+
+    /**
+     * 追加 E8 定点数的十进制字符串（带引号，去掉末尾多余的 0），如 25000000 -> "0.25"。
+     */
+    static StringBuilder decimal(StringBuilder sb, long e8) {
+        sb.append('"');
+        if (e8 < 0) {
+            sb.append('-');
+            e8 = -e8;
+        }
+        sb.append(e8 / SCALE);
+        long frac = e8 % SCALE;
+        if (frac != 0) {
+            int digits = 8;
+            while (frac % 10 == 0) {
+                frac /= 10;
+                digits--;
+            }
+            sb.append('.');
+            String s = Long.toString(frac);
+            for (int i = s.length(); i < digits; i++) {
+                sb.append('0');
+            }
+            sb.append(s);
+        }
+        return sb.append('"');
+    }
+
+    /**
+     * 追加带引号的字符串字段值（模拟器内部生成的标识符，不含需要转义的字符）。
+     */
+    static StringBuilder text(StringBuilder sb, String value) {
+        return sb.append('"').append(value).append('"');
+    }
+
+    /**
+     * 追加 ISO-8601 时间（带引号），如 "2024-01-01T00:00:00Z"。
+     */
+    static StringBuilder isoSeconds(StringBuilder sb, long epochSeconds) {
+        return sb.append('"').append(Instant.ofEpochSecond(epochSeconds)).append('"');
+    }
+}
@@ -0,0 +1,47 @@
+package com.xinyue.maker.sim;
+
+/**
+ * 模拟撮合引擎中的一笔挂单。owner 为 0 表示模拟器自身的背景流动性，否则为我方 accountId。
+ * <p>
+ * 同一价位的订单按到达顺序串成双向链表（价格优先、时间优先），只在模拟器线程上访问。
+ */
+final class SimOrder {
+
+    final long id;
+    final short owner;
+    final long clientId;
+    final short symbolId;
+    final byte side; // 0 = Buy, 1 = Sell
+    final long priceE8;
+    final long qtyE8;
+    long filledE8;
+    // 下单时携带的 GTT 秒数换算出的到期时间（epoch 秒），回报给 indexer 推送
+    long goodTilBlockTimeSec;
+
+    // 所在价位的链表指针
+    SimOrder prev;
+    SimOrder next;
+    MatchingEngine.Level level;
+
+    SimOrder(long id, short owner, long clientId, short symbolId, byte side, long priceE8, long qtyE8) {
+        this.id = id;
+        this.owner = owner;
+        this.clientId = clientId;
+        this.symbolId = symbolId;
+        this.side = side;
+        this.priceE8 = priceE8;
+        this.qtyE8 = qtyE8;
+    }
+
+    long remainingE8() {
+        return qtyE8 - filledE8;
+    }
+
+    boolean isFilled() {
+        return filledE8 >= qtyE8;
+    }
+
+    boolean isResting() {
+        return level != null;
+    }
+}
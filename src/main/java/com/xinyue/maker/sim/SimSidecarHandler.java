@@ -0,0 +1,32 @@
+package com.xinyue.maker.sim;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sidecar 兼容的下单端点：二进制帧交给 {@link SimulatedExchange#onSidecarFrame} 处理并回报。
+ */
+final class SimSidecarHandler extends SimpleChannelInboundHandler<BinaryWebSocketFrame> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SimSidecarHandler.class);
+
+    private final SimulatedExchange exchange;
+
+    SimSidecarHandler(SimulatedExchange exchange) {
+        this.exchange = exchange;
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, BinaryWebSocketFrame frame) {
+        exchange.onSidecarFrame(ctx.channel(), frame.content());
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        LOG.warn("模拟器 Sidecar 连接异常: {}", cause.getMessage());
+        ctx.close();
+    }
+}
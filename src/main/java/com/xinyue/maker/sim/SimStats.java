@@ -0,0 +1,148 @@
+package com.xinyue.maker.sim;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 模拟器压测统计（只由模拟器线程写入，/sim/stats 在同一线程读取）。
+ * <ul>
+ *   <li>吞吐：按整秒窗口统计收到的下单 + 撤单条数，记录最大持续速率（完整一秒窗口内的最大值）；</li>
+ *   <li>tick-to-trade：背景行情改变某交易对最优价并推送增量后，到收到我方针对该交易对的第一条下单之间的时间，
+ *       按 2^n 纳秒分桶记录（同一 tick 只记第一条下单）。</li>
+ * </ul>
+ * 延迟包含模拟器自身的编码 / 网络往返，是端到端上界。
+ */
+final class SimStats {
+
+    static final int LATENCY_BUCKETS = 40;
+
+    private long orders;
+    private long cancels;
+    private long rejects;
+    private long fills;
+    private long feedMessages;
+
+    private long windowStartNanos;
+    private long windowCommands;
+    private long lastRate;
+    private long maxRate;
+
+    private final long[] latencyBuckets = new long[LATENCY_BUCKETS];
+    private long latencyCount;
+    private long latencyTotalNanos;
+    private long latencyMaxNanos;
+
+    void onOrder(long nowNanos) {
+        orders++;
+        onCommand(nowNanos);
+    }
+
+    void onCancel(long nowNanos) {
+        cancels++;
+        onCommand(nowNanos);
+    }
+
+    void onReject() {
+        rejects++;
+    }
+
+    void onFill() {
+        fills++;
+    }
+
+    void onFeedMessage() {
+        feedMessages++;
+    }
+
+    void recordTickToTrade(long nanos) {
+        if (nanos < 0) {
+            return;
+        }
+        latencyCount++;
+        latencyTotalNanos += nanos;
+        if (nanos > latencyMaxNanos) {
+            latencyMaxNanos = nanos;
+        }
+        latencyBuckets[Math.min(LATENCY_BUCKETS - 1, 63 - Long.numberOfLeadingZeros(nanos | 1))]++;
+    }
+
+    private void onCommand(long nowNanos) {
+        roll(nowNanos);
+        windowCommands++;
+    }
+
+    /**
+     * 关闭已结束的一秒窗口；跨过多个空窗口时速率记为 0。
+     */
+    void roll(long nowNanos) {
+        if (windowStartNanos == 0) {
+            windowStartNanos = nowNanos;
+            return;
+        }
+        long elapsed = nowNanos - windowStartNanos;
+        if (elapsed < 1_000_000_000L) {
+            return;
+        }
+        lastRate = elapsed < 2_000_000_000L ? windowCommands : 0L;
+        if (lastRate > maxRate) {
+            maxRate = lastRate;
+        }
+        windowCommands = 0;
+        windowStartNanos = nowNanos - elapsed % 1_000_000_000L;
+    }
+
+    long orders() {
+        return orders;
+    }
+
+    long maxRate() {
+        return maxRate;
+    }
+
+    long lastRate() {
+        return lastRate;
+    }
+
+    long latencyCount() {
+        return latencyCount;
+    }
+
+    /**
+     * tick-to-trade 近似分位数：返回样本所在桶的上界（纳秒）。
+     */
+    long percentileLatencyNanos(double percentile) {
+        if (latencyCount == 0) {
+            return 0L;
+        }
+        long target = (long) Math.ceil(latencyCount * percentile);
+        long seen = 0;
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            seen += latencyBuckets[i];
+            if (seen >= target) {
+                return 1L << (i + 1);
+            }
+        }
+        return latencyMaxNanos;
+    }
+
+    Map<String, Object> snapshot(long nowNanos) {
+        roll(nowNanos);
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("orders", orders);
+        m.put("cancels", cancels);
+        m.put("rejects", rejects);
+        m.put("fills", fills);
+        m.put("feedMessages", feedMessages);
+        m.put("commandsPerSecond", lastRate);
+        m.put("maxCommandsPerSecond", maxRate);
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("samples", latencyCount);
+        latency.put("avgMicros", latencyCount == 0 ? 0L : latencyTotalNanos / latencyCount / 1_000L);
+        latency.put("p50Micros", percentileLatencyNanos(0.50) / 1_000L);
+        latency.put("p99Micros", percentileLatencyNanos(0.99) / 1_000L);
+        latency.put("p999Micros", percentileLatencyNanos(0.999) / 1_000L);
+        latency.put("maxMicros", latencyMaxNanos / 1_000L);
+        m.put("tickToTrade", latency);
+        return m;
+    }
+}
@@ -0,0 +1,796 @@
+package com.xinyue.maker.sim;
+
+import com.xinyue.maker.common.SymbolRegistry;
+import com.xinyue.maker.config.AccountConfig;
+import com.xinyue.maker.io.output.SidecarProtocol;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * 模拟交易所的全部状态：各交易对的撮合引擎、背景流动性、账户余额与挂单、行情 / 账户频道订阅。
+ * <p>
+ * 所有方法只在模拟器的单个 IO 线程上调用（WebSocket / REST handler 与背景行情定时任务共用该线程），不加锁。
+ * <ul>
+ *   <li>Sidecar 端：解码 ORDER / CANCEL / TRANSFER / REGISTER_SESSION（可能以 BATCH 合并），
+ *       先按帧回报 EXECUTION_REPORT（多条时合并为 BATCH），随后才撮合，与真实链路“Sidecar 受理 -> indexer 推送”的先后一致；</li>
+ *   <li>dYdX 端：v4_orderbook 订阅先推全量快照，之后每次撮合 / 背景行情变化合并成一条 channel_data 增量；
+ *       v4_subaccounts 订阅先推当前挂单与余额，之后每笔订单状态变化推送一条（含该订单的成交与最新余额）。</li>
+ * </ul>
+ * message_id 按订阅计数（快照为 1，之后逐条加 1），满足 L2 按 symbol 检测 gap 与账户快照识别的约定。
+ */
+final class SimulatedExchange implements MatchingEngine.Listener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SimulatedExchange.class);
+
+    static final String CHANNEL_ORDERBOOK = "v4_orderbook";
+    static final String CHANNEL_SUBACCOUNTS = "v4_subaccounts";
+
+    // 拒单原因（EXECUTION_REPORT.errorCode）
+    static final int ERROR_UNKNOWN_ACCOUNT = 1;
+    static final int ERROR_UNKNOWN_MARKET = 2;
+    static final int ERROR_INVALID_ORDER = 3;
+    static final int ERROR_DUPLICATE_CLIENT_ID = 4;
+    static final int ERROR_ORDER_NOT_FOUND = 5;
+
+    // 背景主动单穿透的价位数（实际成交由数量决定）
+    private static final int TAKER_SWEEP_TICKS = 5;
+
+    /**
+     * 一条 WebSocket 行情连接上的订阅集合。
+     */
+    static final class FeedSession {
+        final Channel channel;
+        final String connectionId = UUID.randomUUID().toString();
+        final List<Subscription> subscriptions = new ArrayList<>();
+
+        FeedSession(Channel channel) {
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * 一个频道订阅，message_id 按订阅递增。
+     */
+    static final class Subscription {
+        final FeedSession session;
+        final String channel;
+        final String id;
+        long messageId;
+
+        Subscription(FeedSession session, String channel, String id) {
+            this.session = session;
+            this.channel = channel;
+            this.id = id;
+        }
+    }
+
+    /**
+     * 一个模拟交易对。
+     */
+    private static final class Market {
+        final SimConfig.Market spec;
+        final short symbolId;
+        final MatchingEngine engine;
+        final List<Subscription> subscribers = new ArrayList<>();
+        // 背景挂单：价格 -> 订单（每侧每个价位至多一笔）
+        final Map<Long, SimOrder> backgroundBids = new HashMap<>();
+        final Map<Long, SimOrder> backgroundAsks = new HashMap<>();
+        // 本次操作中变化的价位：价格 -> 最新聚合数量（0 表示删除），操作结束时合并成一条增量
+        final Map<Long, Long> changedBids = new LinkedHashMap<>();
+        final Map<Long, Long> changedAsks = new LinkedHashMap<>();
+        long midE8;
+        // 最近一次背景行情改变最优价的时间（纳秒），我方针对该交易对的第一条下单到达时计入 tick-to-trade
+        long lastTickNanos;
+
+        Market(SimConfig.Market spec, short symbolId, MatchingEngine.Listener listener) {
+            this.spec = spec;
+            this.symbolId = symbolId;
+            this.engine = new MatchingEngine(listener);
+            this.midE8 = spec.midE8;
+        }
+    }
+
+    /**
+     * 一个模拟账户（dYdX 子账户）。
+     */
+    private static final class Account {
+        final short accountId;
+        final String address;
+        final int subaccountNumber;
+        final String subaccountId;
+        final Map<String, Long> balances = new LinkedHashMap<>();
+        // 挂单：clientId -> 订单
+        final Map<Long, SimOrder> openOrders = new HashMap<>();
+        final List<Subscription> subscribers = new ArrayList<>();
+        // 本次操作中状态变化的订单与各订单的成交（JSON 片段），操作结束时逐单推送
+        final List<SimOrder> changedOrders = new ArrayList<>();
+        final Map<SimOrder, StringBuilder> pendingFills = new HashMap<>();
+        boolean balancesChanged;
+
+        Account(short accountId, String address, int subaccountNumber, Map<String, Long> initialBalances) {
+            this.accountId = accountId;
+            this.address = address;
+            this.subaccountNumber = subaccountNumber;
+            this.subaccountId = address + "/" + subaccountNumber;
+            this.balances.putAll(initialBalances);
+        }
+    }
+
+    private final SimConfig config;
+    private final SimStats stats = new SimStats();
+    private final Random random;
+    private final Map<Short, Market> marketsBySymbol = new HashMap<>();
+    private final Map<String, Market> marketsByTicker = new HashMap<>();
+    private final Map<Short, Account> accountsById = new HashMap<>();
+    private final Map<String, Account> accountsBySubaccount = new HashMap<>();
+    private final List<Account> dirtyAccounts = new ArrayList<>();
+    private final List<Market> dirtyMarkets = new ArrayList<>();
+    private final SidecarProtocol.Message message = new SidecarProtocol.Message();
+    // 一帧内已受理、待撮合的下单 / 撤单（回报写出后执行）
+    private final List<SimOrder> acceptedOrders = new ArrayList<>();
+    private final List<SimOrder> acceptedCancels = new ArrayList<>();
+    // 撮合回调所属的交易对：engine 的回调不带交易对，调用 engine 前设置
+    private Market currentMarket;
+    private long nextOrderId = 1;
+    private long nextFillId = 1;
+
+    SimulatedExchange(SimConfig config) {
+        this.config = config;
+        this.random = new Random(config.seed);
+        for (SimConfig.Market spec : config.markets) {
+            // dYdX ticker（H2-USDT）与系统内 symbol（H2USDT）的对应关系与 RawIdResolver 一致：忽略 '-'
+            short symbolId = SymbolRegistry.getInstance().register(spec.ticker.replace("-", ""));
+            Market market = new Market(spec, symbolId, this);
+            marketsBySymbol.put(symbolId, market);
+            marketsByTicker.put(spec.ticker, market);
+        }
+        for (AccountConfig.AccountInfo info : AccountConfig.loadAccounts()) {
+            addAccount((short) info.accountId, info.address, info.subaccountNumber);
+        }
+    }
+
+    SimStats stats() {
+        return stats;
+    }
+
+    // ==================== 背景行情 ====================
+
+    /**
+     * 铺设初始背景挂单（启动时调用一次）。
+     */
+    void seedBooks() {
+        for (Market market : marketsBySymbol.values()) {
+            currentMarket = market;
+            refreshLadder(market);
+            finishOperation();
+        }
+    }
+
+    /**
+     * 背景行情节拍：中间价随机游走、补齐 / 撤掉背景挂单，并按概率发出一笔主动单。
+     * 一拍内的全部价位变化合并为一条增量。
+     */
+    void onTick() {
+        for (Market market : marketsBySymbol.values()) {
+            currentMarket = market;
+            long bestBid = market.engine.bestBid();
+            long bestAsk = market.engine.bestAsk();
+            if (random.nextDouble() < config.moveProbability) {
+                long next = market.midE8 + (random.nextBoolean() ? market.spec.tickE8 : -market.spec.tickE8);
+                if (next > market.spec.tickE8) {
+                    market.midE8 = next;
+                }
+            }
+            refreshLadder(market);
+            if (random.nextDouble() < config.takerProbability) {
+                sendTaker(market);
+            }
+            finishOperation();
+            if (market.engine.bestBid() != bestBid || market.engine.bestAsk() != bestAsk) {
+                market.lastTickNanos = System.nanoTime();
+            }
+        }
+    }
+
+    private void refreshLadder(Market market) {
+        long tick = market.spec.tickE8;
+        long mid = market.midE8;
+        long lowestBid = mid - tick * config.levels;
+        long highestAsk = mid + tick * config.levels;
+        cancelOutside(market, market.backgroundBids, lowestBid, mid - tick);
+        cancelOutside(market, market.backgroundAsks, mid + tick, highestAsk);
+        for (int k = 1; k <= config.levels; k++) {
+            placeBackground(market, market.backgroundBids, (byte) 0, mid - tick * k);
+            placeBackground(market, market.backgroundAsks, (byte) 1, mid + tick * k);
+        }
+    }
+
+    private static void cancelOutside(Market market, Map<Long, SimOrder> background, long low, long high) {
+        List<SimOrder> outside = null;
+        for (SimOrder order : background.values()) {
+            if (order.priceE8 < low || order.priceE8 > high) {
+                if (outside == null) {
+                    outside = new ArrayList<>();
+                }
+                outside.add(order);
+            }
+        }
+        if (outside != null) {
+            for (SimOrder order : outside) {
+                background.remove(order.priceE8);
+                market.engine.cancel(order);
+            }
+        }
+    }
+
+    private void placeBackground(Market market, Map<Long, SimOrder> background, byte side, long priceE8) {
+        if (priceE8 <= 0 || background.containsKey(priceE8)) {
+            return;
+        }
+        SimOrder order = new SimOrder(nextOrderId++, (short) 0, 0L, market.symbolId, side, priceE8,
+                randomSize(config.levelSizeE8));
+        if (market.engine.submit(order)) {
+            background.put(priceE8, order);
+        }
+    }
+
+    /**
+     * 背景主动单：以穿透最优价若干 tick 的限价吃单，未成交部分立即撤销（IOC）。
+     */
+    private void sendTaker(Market market) {
+        byte side = (byte) (random.nextBoolean() ? 0 : 1);
+        long best = side == 0 ? market.engine.bestAsk() : market.engine.bestBid();
+        if (best == 0) {
+            return;
+        }
+        long sweep = market.spec.tickE8 * TAKER_SWEEP_TICKS;
+        long priceE8 = side == 0 ? best + sweep : Math.max(market.spec.tickE8, best - sweep);
+        SimOrder taker = new SimOrder(nextOrderId++, (short) 0, 0L, market.symbolId, side, priceE8,
+                randomSize(config.takerSizeE8));
+        if (market.engine.submit(taker)) {
+            market.engine.cancel(taker);
+        }
+    }
+
+    private long randomSize(long baseE8) {
+        return Math.max(1L, (long) (baseE8 * (0.5 + random.nextDouble())));
+    }
+
+    // ==================== Sidecar ====================
+
+    /**
+     * 处理 Sidecar 连接上的一帧二进制消息。帧内任一消息解码失败时丢弃该帧剩余部分。
+     */
+    void onSidecarFrame(Channel channel, ByteBuf in) {
+        ByteBuf out = channel.alloc().buffer();
+        int header = SidecarProtocol.writeBatchHeader(out);
+        int reports = 0;
+        try {
+            while (in.isReadable()) {
+                byte type = SidecarProtocol.decode(in, message);
+                switch (type) {
+                    case SidecarProtocol.ORDER -> {
+                        onOrder(out);
+                        reports++;
+                    }
+                    case SidecarProtocol.CANCEL -> {
+                        onCancel(out);
+                        reports++;
+                    }
+                    case SidecarProtocol.REGISTER_SESSION -> account(message.accountId);
+                    case SidecarProtocol.TRANSFER -> onTransfer();
+                    default -> {
+                        // BATCH 头：其后的消息逐条解码
+                    }
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            LOG.warn("模拟器丢弃无法解码的 Sidecar 帧: {}", e.getMessage());
+        }
+        if (reports == 0) {
+            out.release();
+        } else {
+            if (reports == 1) {
+                // 单条回报不需要批次头
+                out.readerIndex(SidecarProtocol.HEADER_LENGTH);
+            } else {
+                SidecarProtocol.setBatchCount(out, header, reports);
+            }
+            channel.writeAndFlush(new BinaryWebSocketFrame(out));
+        }
+        applyAccepted();
+    }
+
+    private void onOrder(ByteBuf out) {
+        long now = System.nanoTime();
+        stats.onOrder(now);
+        Market market = marketsBySymbol.get(message.symbolId);
+        if (market != null && market.lastTickNanos != 0) {
+            stats.recordTickToTrade(now - market.lastTickNanos);
+            market.lastTickNanos = 0;
+        }
+        Account account = accountsById.get(message.accountId);
+        int error = 0;
+        if (account == null) {
+            error = ERROR_UNKNOWN_ACCOUNT;
+        } else if (market == null) {
+            error = ERROR_UNKNOWN_MARKET;
+        } else if (message.priceE8 <= 0 || message.qtyE8 <= 0 || message.side < 0 || message.side > 1) {
+            error = ERROR_INVALID_ORDER;
+        } else if (account.openOrders.containsKey(message.clientId)) {
+            error = ERROR_DUPLICATE_CLIENT_ID;
+        }
+        if (error != 0) {
+            stats.onReject();
+            report(out, SidecarProtocol.EXEC_ORDER_REJECTED, error);
+            return;
+        }
+        SimOrder order = new SimOrder(nextOrderId++, account.accountId, message.clientId, market.symbolId,
+                (byte) message.side, message.priceE8, message.qtyE8);
+        order.goodTilBlockTimeSec = System.currentTimeMillis() / 1000L + Math.max(0, message.goodTilTimeInSeconds);
+        account.openOrders.put(order.clientId, order);
+        acceptedOrders.add(order);
+        report(out, SidecarProtocol.EXEC_ORDER_ACCEPTED, 0);
+    }
+
+    private void onCancel(ByteBuf out) {
+        stats.onCancel(System.nanoTime());
+        Account account = accountsById.get(message.accountId);
+        SimOrder order = account == null ? null : account.openOrders.get(message.clientId);
+        if (order == null || acceptedCancels.contains(order)) {
+            report(out, SidecarProtocol.EXEC_CANCEL_REJECTED,
+                    account == null ? ERROR_UNKNOWN_ACCOUNT : ERROR_ORDER_NOT_FOUND);
+            return;
+        }
+        acceptedCancels.add(order);
+        report(out, SidecarProtocol.EXEC_CANCEL_ACCEPTED, 0);
+    }
+
+    private void report(ByteBuf out, byte execType, int errorCode) {
+        SidecarProtocol.writeExecutionReport(out, message.accountId, message.clientId, execType,
+                message.exchangeId, errorCode, System.currentTimeMillis());
+    }
+
+    private void onTransfer() {
+        Account from = accountsById.get(message.accountId);
+        Account to = accountsById.get(message.toAccountId);
+        if (from == null || to == null || message.asset == null) {
+            LOG.warn("模拟器忽略无效转账: from={}, to={}, asset={}", message.accountId, message.toAccountId, message.asset);
+            return;
+        }
+        adjustBalance(from, message.asset, -message.qtyE8);
+        adjustBalance(to, message.asset, message.qtyE8);
+        finishOperation();
+    }
+
+    /**
+     * 回报写出后按到达顺序执行本帧受理的下单与撤单。
+     */
+    private void applyAccepted() {
+        for (SimOrder order : acceptedOrders) {
+            Market market = marketsBySymbol.get(order.symbolId);
+            Account account = accountsById.get(order.owner);
+            currentMarket = market;
+            if (!acceptedCancels.contains(order)) {
+                // 撮合后按最终状态推送一次：立即全部成交为 FILLED（含成交明细），否则为 OPEN
+                orderChanged(account, order);
+                market.engine.submit(order);
+            }
+            finishOperation();
+        }
+        for (SimOrder order : acceptedCancels) {
+            Market market = marketsBySymbol.get(order.symbolId);
+            Account account = accountsById.get(order.owner);
+            currentMarket = market;
+            account.openOrders.remove(order.clientId);
+            market.engine.cancel(order);
+            orderChanged(account, order);
+            finishOperation();
+        }
+        acceptedOrders.clear();
+        acceptedCancels.clear();
+    }
+
+    // ==================== 撮合回调 ====================
+
+    @Override
+    public void onLevelChanged(byte side, long priceE8, long sizeE8) {
+        // 回调发生在某个交易对的撮合中：通过当前操作的交易对记录变化
+        Market market = currentMarket;
+        (side == 0 ? market.changedBids : market.changedAsks).put(priceE8, sizeE8);
+        if (!dirtyMarkets.contains(market)) {
+            dirtyMarkets.add(market);
+        }
+    }
+
+    @Override
+    public void onFill(SimOrder maker, SimOrder taker, long priceE8, long qtyE8) {
+        stats.onFill();
+        Market market = currentMarket;
+        if (maker.owner == 0 && maker.isFilled()) {
+            (maker.side == 0 ? market.backgroundBids : market.backgroundAsks).remove(maker.priceE8);
+        }
+        applyFill(market, maker, priceE8, qtyE8, true);
+        applyFill(market, taker, priceE8, qtyE8, false);
+    }
+
+    private void applyFill(Market market, SimOrder order, long priceE8, long qtyE8, boolean isMaker) {
+        if (order.owner == 0) {
+            return;
+        }
+        Account account = accountsById.get(order.owner);
+        long notionalE8 = notionalE8(priceE8, qtyE8);
+        if (order.side == 0) {
+            adjustBalance(account, market.spec.baseAsset, qtyE8);
+            adjustBalance(account, market.spec.quoteAsset, -notionalE8);
+        } else {
+            adjustBalance(account, market.spec.baseAsset, -qtyE8);
+            adjustBalance(account, market.spec.quoteAsset, notionalE8);
+        }
+        if (order.isFilled()) {
+            account.openOrders.remove(order.clientId);
+        }
+        StringBuilder fills = account.pendingFills.computeIfAbsent(order, o -> new StringBuilder());
+        if (fills.length() > 0) {
+            fills.append(',');
+        }
+        fills.append("{\"id\":\"").append(nextFillId++)
+                .append("\",\"side\":\"").append(order.side == 0 ? "BUY" : "SELL")
+                .append("\",\"liquidity\":\"").append(isMaker ? "MAKER" : "TAKER")
+                .append("\",\"type\":\"LIMIT\",\"market\":");
+        SimJson.text(fills, market.spec.ticker).append(",\"price\":");
+        SimJson.decimal(fills, priceE8).append(",\"size\":");
+        SimJson.decimal(fills, qtyE8).append(",\"orderId\":\"").append(order.id)
+                .append("\",\"clientId\":\"").append(order.clientId).append("\"}");
+        orderChanged(account, order);
+    }
+
+    private static long notionalE8(long priceE8, long qtyE8) {
+        try {
+            return Math.multiplyExact(priceE8, qtyE8) / 100_000_000L;
+        } catch (ArithmeticException e) {
+            return (long) ((double) priceE8 * qtyE8 / 100_000_000L);
+        }
+    }
+
+    private void orderChanged(Account account, SimOrder order) {
+        if (!account.changedOrders.contains(order)) {
+            account.changedOrders.add(order);
+        }
+        if (!dirtyAccounts.contains(account)) {
+            dirtyAccounts.add(account);
+        }
+    }
+
+    private void adjustBalance(Account account, String asset, long deltaE8) {
+        account.balances.merge(asset, deltaE8, Long::sum);
+        account.balancesChanged = true;
+        if (!dirtyAccounts.contains(account)) {
+            dirtyAccounts.add(account);
+        }
+    }
+
+    // ==================== 推送 ====================
+
+    /**
+     * 结束一次操作：把变化的价位合并成每个交易对一条增量，把变化的订单逐单推送到账户频道。
+     */
+    private void finishOperation() {
+        for (Market market : dirtyMarkets) {
+            if (!market.changedBids.isEmpty() || !market.changedAsks.isEmpty()) {
+                StringBuilder contents = new StringBuilder(128);
+                contents.append('{');
+                appendDelta(contents, "bids", market.changedBids);
+                if (!market.changedBids.isEmpty() && !market.changedAsks.isEmpty()) {
+                    contents.append(',');
+                }
+                appendDelta(contents, "asks", market.changedAsks);
+                contents.append('}');
+                for (Subscription sub : market.subscribers) {
+                    send(sub, "channel_data", contents);
+                }
+                market.changedBids.clear();
+                market.changedAsks.clear();
+            }
+        }
+        dirtyMarkets.clear();
+        for (Account account : dirtyAccounts) {
+            flushAccount(account);
+        }
+        dirtyAccounts.clear();
+    }
+
+    private static void appendDelta(StringBuilder sb, String name, Map<Long, Long> levels) {
+        if (levels.isEmpty()) {
+            return;
+        }
+        sb.append('"').append(name).append("\":[");
+        boolean first = true;
+        for (Map.Entry<Long, Long> e : levels.entrySet()) {
+            if (!first) {
+                sb.append(',');
+            }
+            first = false;
+            sb.append('[');
+            SimJson.decimal(sb, e.getKey()).append(',');
+            SimJson.decimal(sb, e.getValue()).append(']');
+        }
+        sb.append(']');
+    }
+
+    private void flushAccount(Account account) {
+        List<SimOrder> orders = account.changedOrders;
+        int last = orders.size() - 1;
+        for (int i = 0; i <= last; i++) {
+            SimOrder order = orders.get(i);
+            StringBuilder contents = new StringBuilder(256);
+            contents.append("{\"orders\":[");
+            appendOrder(contents, account, order);
+            contents.append(']');
+            StringBuilder fills = account.pendingFills.get(order);
+            if (fills != null) {
+                contents.append(",\"fills\":[").append(fills).append(']');
+            }
+            if (i == last && account.balancesChanged) {
+                contents.append(',');
+                appendAssets(contents, account);
+                account.balancesChanged = false;
+            }
+            contents.append('}');
+            for (Subscription sub : account.subscribers) {
+                send(sub, "channel_data", contents);
+            }
+        }
+        if (account.balancesChanged) {
+            StringBuilder contents = new StringBuilder(128).append('{');
+            appendAssets(contents, account);
+            contents.append('}');
+            for (Subscription sub : account.subscribers) {
+                send(sub, "channel_data", contents);
+            }
+            account.balancesChanged = false;
+        }
+        orders.clear();
+        account.pendingFills.clear();
+    }
+
+    private void appendOrder(StringBuilder sb, Account account, SimOrder order) {
+        Market market = marketsBySymbol.get(order.symbolId);
+        String status = order.isFilled() ? "FILLED" : order.isResting() ? "OPEN" : "CANCELED";
+        sb.append("{\"id\":\"").append(order.id)
+                .append("\",\"subaccountId\":");
+        SimJson.text(sb, account.subaccountId).append(",\"clientId\":\"").append(order.clientId)
+                .append("\",\"clobPairId\":\"").append(market.spec.clobPairId)
+                .append("\",\"side\":\"").append(order.side == 0 ? "BUY" : "SELL")
+                .append("\",\"size\":");
+        SimJson.decimal(sb, order.qtyE8).append(",\"totalFilled\":");
+        SimJson.decimal(sb, order.filledE8).append(",\"price\":");
+        SimJson.decimal(sb, order.priceE8).append(",\"type\":\"LIMIT\",\"status\":\"").append(status)
+                .append("\",\"timeInForce\":\"GTT\",\"postOnly\":false,\"reduceOnly\":false")
+                .append(",\"orderFlags\":\"64\",\"goodTilBlockTime\":");
+        SimJson.isoSeconds(sb, order.goodTilBlockTimeSec).append(",\"ticker\":");
+        SimJson.text(sb, market.spec.ticker).append('}');
+    }
+
+    private static void appendAssets(StringBuilder sb, Account account) {
+        sb.append("\"assetPositions\":[");
+        boolean first = true;
+        for (Map.Entry<String, Long> e : account.balances.entrySet()) {
+            if (!first) {
+                sb.append(',');
+            }
+            first = false;
+            sb.append("{\"address\":");
+            SimJson.text(sb, account.address).append(",\"subaccountNumber\":").append(account.subaccountNumber)
+                    .append(",\"symbol\":");
+            SimJson.text(sb, e.getKey()).append(",\"side\":\"").append(e.getValue() < 0 ? "SHORT" : "LONG")
+                    .append("\",\"size\":");
+            SimJson.decimal(sb, Math.abs(e.getValue())).append('}');
+        }
+        sb.append(']');
+    }
+
+    private void send(Subscription sub, String type, CharSequence contents) {
+        StringBuilder sb = new StringBuilder(contents.length() + 160);
+        sb.append("{\"type\":\"").append(type)
+                .append("\",\"connection_id\":\"").append(sub.session.connectionId)
+                .append("\",\"message_id\":").append(++sub.messageId)
+                .append(",\"id\":");
+        SimJson.text(sb, sub.id).append(",\"channel\":\"").append(sub.channel)
+                .append("\",\"version\":\"4.0.0\",\"contents\":").append(contents).append('}');
+        sub.session.channel.writeAndFlush(new TextWebSocketFrame(sb.toString()));
+        stats.onFeedMessage();
+    }
+
+    // ==================== 行情连接 ====================
+
+    void onConnected(FeedSession session) {
+        session.channel.writeAndFlush(new TextWebSocketFrame(
+                "{\"type\":\"connected\",\"connection_id\":\"" + session.connectionId + "\",\"message_id\":0}"));
+    }
+
+    void subscribe(FeedSession session, String channel, String id) {
+        if (CHANNEL_ORDERBOOK.equals(channel)) {
+            Market market = marketsByTicker.get(id);
+            if (market == null) {
+                sendError(session, "Invalid subscribe message: invalid id " + id);
+                return;
+            }
+            Subscription sub = new Subscription(session, channel, id);
+            session.subscriptions.add(sub);
+            market.subscribers.add(sub);
+            send(sub, "subscribed", snapshot(market));
+        } else if (CHANNEL_SUBACCOUNTS.equals(channel)) {
+            Account account = accountsBySubaccount.get(id);
+            if (account == null) {
+                sendError(session, "Invalid subscribe message: unknown subaccount " + id);
+                return;
+            }
+            Subscription sub = new Subscription(session, channel, id);
+            session.subscriptions.add(sub);
+            account.subscribers.add(sub);
+            StringBuilder contents = new StringBuilder(256).append("{\"orders\":[");
+            boolean first = true;
+            for (SimOrder order : account.openOrders.values()) {
+                if (!first) {
+                    contents.append(',');
+                }
+                first = false;
+                appendOrder(contents, account, order);
+            }
+            contents.append("],");
+            appendAssets(contents, account);
+            contents.append('}');
+            send(sub, "subscribed", contents);
+        } else {
+            sendError(session, "Invalid subscribe message: invalid channel " + channel);
+        }
+    }
+
+    void unsubscribe(FeedSession session, String channel, String id) {
+        Subscription found = null;
+        for (Subscription sub : session.subscriptions) {
+            if (sub.channel.equals(channel) && sub.id.equals(id)) {
+                found = sub;
+                break;
+            }
+        }
+        if (found == null) {
+            return;
+        }
+        remove(found);
+        session.subscriptions.remove(found);
+        session.channel.writeAndFlush(new TextWebSocketFrame("{\"type\":\"unsubscribed\",\"connection_id\":\""
+                + session.connectionId + "\",\"channel\":\"" + channel + "\",\"id\":\"" + id + "\"}"));
+    }
+
+    void onDisconnected(FeedSession session) {
+        for (Subscription sub : session.subscriptions) {
+            remove(sub);
+        }
+        session.subscriptions.clear();
+    }
+
+    private void remove(Subscription sub) {
+        if (CHANNEL_ORDERBOOK.equals(sub.channel)) {
+            Market market = marketsByTicker.get(sub.id);
+            if (market != null) {
+                market.subscribers.remove(sub);
+            }
+        } else {
+            Account account = accountsBySubaccount.get(sub.id);
+            if (account != null) {
+                account.subscribers.remove(sub);
+            }
+        }
+    }
+
+    private void sendError(FeedSession session, String text) {
+        session.channel.writeAndFlush(new TextWebSocketFrame("{\"type\":\"error\",\"message\":\"" + text
+                + "\",\"connection_id\":\"" + session.connectionId + "\"}"));
+    }
+
+    private CharSequence snapshot(Market market) {
+        int depth = config.snapshotDepth;
+        long[] prices = new long[depth];
+        long[] sizes = new long[depth];
+        StringBuilder sb = new StringBuilder(64 + depth * 64).append("{\"bids\":[");
+        appendSnapshotSide(sb, market.engine.copyLevels((byte) 0, prices, sizes, depth), prices, sizes);
+        sb.append("],\"asks\":[");
+        appendSnapshotSide(sb, market.engine.copyLevels((byte) 1, prices, sizes, depth), prices, sizes);
+        return sb.append("]}");
+    }
+
+    private static void appendSnapshotSide(StringBuilder sb, int n, long[] prices, long[] sizes) {
+        for (int i = 0; i < n; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"price\":");
+            SimJson.decimal(sb, prices[i]).append(",\"size\":");
+            SimJson.decimal(sb, sizes[i]).append('}');
+        }
+    }
+
+    // ==================== REST ====================
+
+    /**
+     * GET /v4/addresses/{address}/subaccountNumber/{n} 的响应体，账户不存在时返回 null。
+     */
+    String subaccountJson(String address, int subaccountNumber) {
+        Account account = accountsBySubaccount.get(address + "/" + subaccountNumber);
+        if (account == null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(256).append("{\"subaccount\":{\"address\":");
+        SimJson.text(sb, account.address).append(",\"subaccountNumber\":").append(account.subaccountNumber)
+                .append(",\"assetPositions\":{");
+        boolean first = true;
+        for (Map.Entry<String, Long> e : account.balances.entrySet()) {
+            if (!first) {
+                sb.append(',');
+            }
+            first = false;
+            SimJson.text(sb, e.getKey()).append(":{\"symbol\":");
+            SimJson.text(sb, e.getKey()).append(",\"side\":\"").append(e.getValue() < 0 ? "SHORT" : "LONG")
+                    .append("\",\"size\":");
+            SimJson.decimal(sb, Math.abs(e.getValue())).append(",\"subaccountNumber\":")
+                    .append(account.subaccountNumber).append('}');
+        }
+        return sb.append("},\"openPerpetualPositions\":{}}}").toString();
+    }
+
+    Map<String, Object> statsSnapshot() {
+        Map<String, Object> m = stats.snapshot(System.nanoTime());
+        Map<String, Object> markets = new LinkedHashMap<>();
+        for (Market market : marketsBySymbol.values()) {
+            Map<String, Object> mm = new LinkedHashMap<>();
+            mm.put("mid", market.midE8);
+            mm.put("bestBid", market.engine.bestBid());
+            mm.put("bestAsk", market.engine.bestAsk());
+            mm.put("bidLevels", market.engine.levelCount((byte) 0));
+            mm.put("askLevels", market.engine.levelCount((byte) 1));
+            mm.put("subscribers", market.subscribers.size());
+            markets.put(market.spec.ticker, mm);
+        }
+        m.put("markets", markets);
+        int openOrders = 0;
+        for (Account account : accountsById.values()) {
+            openOrders += account.openOrders.size();
+        }
+        m.put("accounts", accountsById.size());
+        m.put("openOrders", openOrders);
+        return m;
+    }
+
+    // ==================== 账户 ====================
+
+    private Account account(short accountId) {
+        Account account = accountsById.get(accountId);
+        if (account == null) {
+            // 未在 accounts.properties 中配置的账户：用合成地址建档，只能下单，行情端订阅不到
+            account = addAccount(accountId, "sim" + accountId, 0);
+            LOG.info("模拟器为未配置的账户 {} 建档: {}", accountId, account.subaccountId);
+        }
+        return account;
+    }
+
+    private Account addAccount(short accountId, String address, int subaccountNumber) {
+        Account account = new Account(accountId, address, subaccountNumber, config.initialBalances);
+        accountsById.put(accountId, account);
+        accountsBySubaccount.put(account.subaccountId, account);
+        return account;
+    }
+}
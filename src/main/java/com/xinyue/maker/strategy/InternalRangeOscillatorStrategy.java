@@ -916,10 +916,10 @@ public final class InternalRangeOscillatorStrategy implements MarketMakingStrate
     }
 
     /**
-     * 创建订单命令。
+     * 创建订单命令（从 OMS 指令池取用，由 submitOrder 交还）。
      */
     private OrderCommand createOrderCommand(short accountId, short side, long priceE8, long qtyE8) {
-        OrderCommand cmd = new OrderCommand();
+        OrderCommand cmd = oms.acquireCommand();
         cmd.accountId = accountId;
         cmd.symbolId = symbolId;
         cmd.exchangeId = exchangeId;
@@ -943,6 +943,8 @@ public final class InternalRangeOscillatorStrategy implements MarketMakingStrate
                 cmd.qtyE8 / (double) ScaleConstants.SCALE_E8);
         } catch (Exception e) {
             LOG.error("{} 订单提交失败", orderType, e);
+        } finally {
+            oms.releaseCommand(cmd);
         }
     }
     
@@ -58,6 +58,8 @@ public final class InternalRangeOscillatorStrategy2 implements MarketMakingStrat
     private final OrderManagementSystem oms;
     private final PositionManager positionManager;
     private final LobManager lobManager;
+    // 选账户时跳过此刻已被限频的账户（单例，避免每次下单分配 lambda）
+    private final PositionManager.AccountFilter notThrottled;
 
     // === 状态变量（运行时可变）===
     private double currentTargetPriceE8;     // 当前策略计算出的目标价格（用 double 保持计算精度）
@@ -230,6 +232,7 @@ public final class InternalRangeOscillatorStrategy2 implements MarketMakingStrat
         this.baseAssetId = baseAssetId;
         this.quoteAssetId = quoteAssetId;
         this.exchangeId = exchangeId;
+        this.notThrottled = accountId -> !oms.isThrottled(exchangeId, accountId, symbolId);
         this.cycleDurationMs = cycleDurationMs;
         this.targetVolumeE8 = targetVolumeE8;
         this.enableVolumeTarget = enableVolumeTarget;
@@ -783,7 +786,7 @@ public final class InternalRangeOscillatorStrategy2 implements MarketMakingStrat
         // 根据参数决定使用最小数量还是动态调整数量
         long qtyE8 = useMinQty ? minKeepOrderQtyE8 : generateRandomOrderQty(currentTimeMs);
         LOG.info("铺路，买，价格{}，数量：{}",priceE8,qtyE8);
-        short accountId = positionManager.selectAccountWithBalance(buyAccountIds, quoteAssetId, calculateRequiredQuoteBalance(priceE8, qtyE8));
+        short accountId = positionManager.selectAccountWithBalance(buyAccountIds, quoteAssetId, calculateRequiredQuoteBalance(priceE8, qtyE8), notThrottled);
         if (accountId == -1) {
             return;
         }
@@ -800,7 +803,7 @@ public final class InternalRangeOscillatorStrategy2 implements MarketMakingStrat
      * @param currentTimeMs 当前时间（毫秒时间戳）
      */
     private void placeMakerBuyOrderWithQty(long priceE8, long qtyE8, long currentTimeMs) {
-        short accountId = positionManager.selectAccountWithBalance(buyAccountIds, quoteAssetId, calculateRequiredQuoteBalance(priceE8, qtyE8));
+        short accountId = positionManager.selectAccountWithBalance(buyAccountIds, quoteAssetId, calculateRequiredQuoteBalance(priceE8, qtyE8), notThrottled);
         if (accountId == -1) {
             return;
         }
@@ -820,7 +823,7 @@ public final class InternalRangeOscillatorStrategy2 implements MarketMakingStrat
         // 根据参数决定使用最小数量还是动态调整数量
         long qtyE8 = useMinQty ? minKeepOrderQtyE8 : generateRandomOrderQty(currentTimeMs);
         LOG.info("铺路，卖，价格{}，数量：{}",priceE8,qtyE8);
-        short accountId = positionManager.selectAccountWithBalance(sellAccountIds, baseAssetId, qtyE8);
+        short accountId = positionManager.selectAccountWithBalance(sellAccountIds, baseAssetId, qtyE8, notThrottled);
         if (accountId == -1) {
             return;
         }
@@ -837,7 +840,7 @@ public final class InternalRangeOscillatorStrategy2 implements MarketMakingStrat
      * @param currentTimeMs 当前时间（毫秒时间戳）
      */
     private void placeMakerSellOrderWithQty(long priceE8, long qtyE8, long currentTimeMs) {
-        short accountId = positionManager.selectAccountWithBalance(sellAccountIds, baseAssetId, qtyE8);
+        short accountId = positionManager.selectAccountWithBalance(sellAccountIds, baseAssetId, qtyE8, notThrottled);
         if (accountId == -1) {
             return;
         }
@@ -959,7 +962,7 @@ public final class InternalRangeOscillatorStrategy2 implements MarketMakingStrat
             }
             
             long requiredBalanceE8 = calculateRequiredQuoteBalance(takerPriceE8, takerQtyE8);
-            short accountId = positionManager.selectAccountWithBalance(takerAccountIds, requiredAssetId, requiredBalanceE8);
+            short accountId = positionManager.selectAccountWithBalance(takerAccountIds, requiredAssetId, requiredBalanceE8, notThrottled);
             if (accountId == -1) {
                 LOG.warn("Taker Buy: symbolId={}, 买入账户组余额不足，需要 {} USDT", symbolId, requiredBalanceE8 / (double) ScaleConstants.SCALE_E8);
                 return;
@@ -1001,7 +1004,7 @@ public final class InternalRangeOscillatorStrategy2 implements MarketMakingStrat
                 takerPriceE8 = bestBidE8;
             }
             
-            short accountId = positionManager.selectAccountWithBalance(takerAccountIds, requiredAssetId, takerQtyE8);
+            short accountId = positionManager.selectAccountWithBalance(takerAccountIds, requiredAssetId, takerQtyE8, notThrottled);
             if (accountId == -1) {
                 LOG.warn("Taker Sell: symbolId={}, 卖出账户组余额不足，需要 {} ETH", symbolId, takerQtyE8 / (double) ScaleConstants.SCALE_E8);
                 return;
@@ -1029,10 +1032,10 @@ public final class InternalRangeOscillatorStrategy2 implements MarketMakingStrat
     }
 
     /**
-     * 创建订单命令。
+     * 创建订单命令（从 OMS 指令池取用，由 submitOrder 交还）。
      */
     private OrderCommand createOrderCommand(short accountId, short side, long priceE8, long qtyE8) {
-        OrderCommand cmd = new OrderCommand();
+        OrderCommand cmd = oms.acquireCommand();
         cmd.accountId = accountId;
         cmd.symbolId = symbolId;
         cmd.exchangeId = exchangeId;
@@ -1065,6 +1068,8 @@ public final class InternalRangeOscillatorStrategy2 implements MarketMakingStrat
 //                cmd.qtyE8 / (double) ScaleConstants.SCALE_E8);
         } catch (Exception e) {
             LOG.error("{} 订单提交失败: symbolId={}", orderType, symbolId, e);
+        } finally {
+            oms.releaseCommand(cmd);
         }
     }
     
@@ -1192,8 +1197,8 @@ public final class InternalRangeOscillatorStrategy2 implements MarketMakingStrat
             short accountId = positionManager.selectAccountWithBalance(
                 buyAccountIds, 
                 quoteAssetId, 
-                calculateRequiredQuoteBalance(buyPriceE8, randomQtyE8)
-            );
+                calculateRequiredQuoteBalance(buyPriceE8, randomQtyE8),
+                notThrottled);
             if (accountId == -1) {
                 LOG.warn("买单账户余额不足: symbolId={}, 价格: {}, 数量: {}", 
                     symbolId,
@@ -1223,8 +1228,8 @@ public final class InternalRangeOscillatorStrategy2 implements MarketMakingStrat
             short accountId = positionManager.selectAccountWithBalance(
                 sellAccountIds, 
                 baseAssetId, 
-                randomQtyE8
-            );
+                randomQtyE8,
+                notThrottled);
             if (accountId == -1) {
                 LOG.warn("卖单账户余额不足: symbolId={}, 价格: {}, 数量: {}", 
                     symbolId,
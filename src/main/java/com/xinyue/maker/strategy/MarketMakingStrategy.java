@@ -3,6 +3,8 @@ package com.xinyue.maker.strategy;
 import com.xinyue.maker.common.CoreEvent;
 import com.xinyue.maker.core.lob.OrderBookSnapshot;
 
+import java.util.Set;
+
 /**
  * 做市策略接口。
  * 所有做市策略都需要实现此接口。
@@ -32,5 +34,13 @@ public interface MarketMakingStrategy {
     default void onTimer(CoreEvent event) {
         // 默认空实现，策略可以选择性实现
     }
+
+    /**
+     * 策略需要的 Binance 参考交易对（如 BTCUSDT）。
+     * StrategyEngine 汇总所有启用策略的集合，驱动 Binance 组合流动态订阅 / 退订。
+     */
+    default Set<String> referenceSymbols() {
+        return Set.of();
+    }
 }
 
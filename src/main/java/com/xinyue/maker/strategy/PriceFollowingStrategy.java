@@ -110,11 +110,15 @@ public final class PriceFollowingStrategy implements MarketMakingStrategy {
     private final short baseAssetId;      // 基础资产ID（如 BTC）
     private final short quoteAssetId;    // 报价资产ID（如 USDT）
     private final short targetExchangeId; // 目标交易所ID（dYdX）
+    private final String referenceSymbol; // Binance 参考交易对（如 BTCUSDT）
     
     // 当前挂单信息
     private long currentBidOrderId = 0;   // 当前买单ID（0表示没有）
     private long currentAskOrderId = 0;   // 当前卖单ID（0表示没有）
     
+    // 累计净成交（基础资产，买入为正、卖出为负），决定哪一侧报价在降低库存敞口
+    private long netFilledBaseE8 = 0;
+    
     // 上次价格（用于价格变化阈值检查）
     private long lastBidPriceE8 = 0;
     private long lastAskPriceE8 = 0;
@@ -144,6 +148,12 @@ public final class PriceFollowingStrategy implements MarketMakingStrategy {
         AssetRegistry assetRegistry = AssetRegistry.getInstance();
         this.baseAssetId = assetRegistry.get(baseAssetSymbol);
         this.quoteAssetId = assetRegistry.get(quoteAssetSymbol);
+        this.referenceSymbol = baseAssetSymbol + quoteAssetSymbol;
+    }
+
+    @Override
+    public java.util.Set<String> referenceSymbols() {
+        return java.util.Set.of(referenceSymbol);
     }
     
     @Override
@@ -199,6 +209,11 @@ public final class PriceFollowingStrategy implements MarketMakingStrategy {
     
     @Override
     public void onAccountOrderUpdate(CoreEvent event) {
+        // 累计成交（同步快照不带成交明细）
+        if (event.firstUpdateId != -1 && event.totalFillQty > 0) {
+            netFilledBaseE8 += event.side == 0 ? event.totalFillQty : -event.totalFillQty;
+        }
+        
         // 处理撤单确认事件
         if (adjustState != AdjustState.PENDING_CANCEL) {
             return; // 不在等待撤单状态，忽略
@@ -395,22 +410,24 @@ public final class PriceFollowingStrategy implements MarketMakingStrategy {
         
         // 余额足够：先挂新订单，再撤旧订单（异步，非阻塞）
         if (oldBidOrder != null && oldBidOrder.isActive() && currentBidOrderId != 0) {
-            // 先挂新买单
+            // 先挂新买单（成功时 currentBidOrderId 指向新买单）
+            long oldBidOrderId = currentBidOrderId;
+            currentBidOrderId = 0;
             submitBidOrder(targetBidPriceE8, targetBidQtyE8);
             // 再撤旧买单（异步）
-            oms.cancelOrder(currentBidOrderId);
-            currentBidOrderId = 0;
+            oms.cancelOrder(oldBidOrderId);
         } else if (currentBidOrderId == 0) {
             // 没有旧买单，直接挂新买单
             submitBidOrder(targetBidPriceE8, targetBidQtyE8);
         }
         
         if (oldAskOrder != null && oldAskOrder.isActive() && currentAskOrderId != 0) {
-            // 先挂新卖单
+            // 先挂新卖单（成功时 currentAskOrderId 指向新卖单）
+            long oldAskOrderId = currentAskOrderId;
+            currentAskOrderId = 0;
             submitAskOrder(targetAskPriceE8, targetAskQtyE8);
             // 再撤旧卖单（异步）
-            oms.cancelOrder(currentAskOrderId);
-            currentAskOrderId = 0;
+            oms.cancelOrder(oldAskOrderId);
         } else if (currentAskOrderId == 0) {
             // 没有旧卖单，直接挂新卖单
             submitAskOrder(targetAskPriceE8, targetAskQtyE8);
@@ -465,20 +482,24 @@ public final class PriceFollowingStrategy implements MarketMakingStrategy {
             return; // 余额不足
         }
         
-        // 创建订单命令
-        OrderCommand cmd = new OrderCommand();
+        // 创建订单命令（从 OMS 指令池取用，提交后交还）
+        OrderCommand cmd = oms.acquireCommand();
         cmd.accountId = (short) accountId;
         cmd.symbolId = targetSymbolId;
         cmd.exchangeId = targetExchangeId;
         cmd.priceE8 = priceE8;
         cmd.qtyE8 = qtyE8;
         cmd.side = 0; // Buy
+        cmd.slotId = 1; // 买单报价槽：未发出的旧买单被新买单替换
+        cmd.priority = priorityFor(cmd.side);
         
-        // 提交订单
-        oms.submitOrder(cmd);
-        
-        // 更新当前订单信息
-        currentBidOrderId = cmd.internalOrderId;
+        // 提交订单：没有发出时回滚本层预扣，当前买单保持不变
+        if (oms.submitOrder(cmd)) {
+            currentBidOrderId = cmd.internalOrderId;
+        } else {
+            positionManager.release(accountId, quoteAssetId, requiredQuoteE8);
+        }
+        oms.releaseCommand(cmd);
     }
     
     /**
@@ -498,20 +519,33 @@ public final class PriceFollowingStrategy implements MarketMakingStrategy {
             return; // 余额不足
         }
         
-        // 创建订单命令
-        OrderCommand cmd = new OrderCommand();
+        // 创建订单命令（从 OMS 指令池取用，提交后交还）
+        OrderCommand cmd = oms.acquireCommand();
         cmd.accountId = (short) accountId;
         cmd.symbolId = targetSymbolId;
         cmd.exchangeId = targetExchangeId;
         cmd.priceE8 = priceE8;
         cmd.qtyE8 = qtyE8;
         cmd.side = 1; // Sell
+        cmd.slotId = 2; // 卖单报价槽
+        cmd.priority = priorityFor(cmd.side);
         
-        // 提交订单
-        oms.submitOrder(cmd);
-        
-        // 更新当前订单信息
-        currentAskOrderId = cmd.internalOrderId;
+        // 提交订单：没有发出时回滚本层预扣，当前卖单保持不变
+        if (oms.submitOrder(cmd)) {
+            currentAskOrderId = cmd.internalOrderId;
+        } else {
+            positionManager.release(accountId, baseAssetId, qtyE8);
+        }
+        oms.releaseCommand(cmd);
+    }
+    
+    /**
+     * 出站优先级：与累计净成交方向相反的报价（买多了之后的卖单、卖多了之后的买单）在降低库存敞口，
+     * 走 reduce 通道，排在排队中的普通报价之前，出站队列满时也不会被普通报价挤出。
+     */
+    private byte priorityFor(short side) {
+        boolean reducing = side == 0 ? netFilledBaseE8 < 0 : netFilledBaseE8 > 0;
+        return reducing ? OrderCommand.PRIORITY_REDUCE : OrderCommand.PRIORITY_QUOTE;
     }
     
     /**
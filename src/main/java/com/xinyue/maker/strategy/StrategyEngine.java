@@ -9,10 +9,17 @@ public final class StrategyEngine {
     private final ExecutionRouter executionRouter;
     private final RiskEngine riskEngine;
     private volatile boolean killSwitch;
+
+    // 订单簿陈旧（行情断线 / gap 重建中）的 symbol：暂停对应策略报价，直到收到新的全量快照（仅 L2 线程读写）
+    private final boolean[] staleSymbols = new boolean[Short.MAX_VALUE];
     
     // 按 symbolId 路由的做市策略映射（支持多策略）
     private final java.util.concurrent.ConcurrentHashMap<Short, MarketMakingStrategy> strategiesBySymbolId = new java.util.concurrent.ConcurrentHashMap<>();
     
+    // 参考行情订阅回调：启用的策略变化时收到所有策略 referenceSymbols 的并集
+    private java.util.function.Consumer<java.util.Set<String>> referenceSymbolListener;
+    private java.util.Set<String> referenceSymbols = java.util.Set.of();
+
     // 当前使用的做市策略（向后兼容，已废弃，保留用于兼容旧代码）
     @Deprecated
     private MarketMakingStrategy marketMakingStrategy;
@@ -59,6 +66,7 @@ public final class StrategyEngine {
         } else {
             strategiesBySymbolId.put(symbolId, strategy);
         }
+        publishReferenceSymbols();
     }
     
     /**
@@ -78,7 +86,42 @@ public final class StrategyEngine {
      * @return 被移除的策略实例，如果不存在返回 null
      */
     public MarketMakingStrategy removeMarketMakingStrategy(short symbolId) {
-        return strategiesBySymbolId.remove(symbolId);
+        MarketMakingStrategy removed = strategiesBySymbolId.remove(symbolId);
+        publishReferenceSymbols();
+        return removed;
+    }
+
+    /**
+     * 设置参考行情订阅回调（通常转发给 AccessLayerCoordinator#updateSymbols(BINANCE, ...)），
+     * 当前集合非空时立即推送一次（为空时连接器保持默认订阅）。
+     */
+    public synchronized void setReferenceSymbolListener(java.util.function.Consumer<java.util.Set<String>> listener) {
+        this.referenceSymbolListener = listener;
+        if (listener != null && !referenceSymbols.isEmpty()) {
+            listener.accept(referenceSymbols);
+        }
+    }
+
+    /**
+     * 当前所有启用策略需要的参考交易对。
+     */
+    public java.util.Set<String> getReferenceSymbols() {
+        return referenceSymbols;
+    }
+
+    // 汇总启用策略的参考交易对，集合变化时通知订阅回调
+    private synchronized void publishReferenceSymbols() {
+        java.util.Set<String> union = new java.util.TreeSet<>();
+        for (MarketMakingStrategy strategy : strategiesBySymbolId.values()) {
+            union.addAll(strategy.referenceSymbols());
+        }
+        if (union.equals(referenceSymbols)) {
+            return;
+        }
+        referenceSymbols = java.util.Set.copyOf(union);
+        if (referenceSymbolListener != null) {
+            referenceSymbolListener.accept(referenceSymbols);
+        }
     }
     
     /**
@@ -115,6 +158,9 @@ public final class StrategyEngine {
             return;
         }
         
+        if (isStale(event.symbolId)) {
+            return;
+        }
         // 按 symbolId 路由到对应的策略
         MarketMakingStrategy strategy = getStrategyForEvent(event);
         if (strategy != null) {
@@ -160,11 +206,13 @@ public final class StrategyEngine {
         // 统一事件源：symbolId=0 表示全局事件，所有策略都收到
         // 策略内部自己判断是否需要下单（基于各自的间隔配置）
         if (event.symbolId == 0) {
-            // 全局事件：调用所有策略
-            for (MarketMakingStrategy strategy : strategiesBySymbolId.values()) {
-                strategy.onTimer(event);
+            // 全局事件：调用所有策略（订单簿陈旧的 symbol 除外）
+            for (java.util.Map.Entry<Short, MarketMakingStrategy> entry : strategiesBySymbolId.entrySet()) {
+                if (!isStale(entry.getKey())) {
+                    entry.getValue().onTimer(event);
+                }
             }
-        } else if (event.symbolId > 0) {
+        } else if (event.symbolId > 0 && !isStale(event.symbolId)) {
             // 特定 symbolId 的事件：路由到对应策略
             MarketMakingStrategy strategy = strategiesBySymbolId.get(event.symbolId);
             if (strategy != null) {
@@ -185,6 +233,28 @@ public final class StrategyEngine {
         return marketMakingStrategy;
     }
 
+    /**
+     * 标记 symbol 的订单簿陈旧：暂停该 symbol 策略的 onDepthUpdate / onTimer（账户订单更新照常处理）。
+     */
+    public void markStale(short symbolId) {
+        if (symbolId > 0) {
+            staleSymbols[symbolId] = true;
+        }
+    }
+
+    /**
+     * 订单簿已用新的全量快照重建，恢复该 symbol 的策略报价。
+     */
+    public void markRecovered(short symbolId) {
+        if (symbolId > 0) {
+            staleSymbols[symbolId] = false;
+        }
+    }
+
+    public boolean isStale(short symbolId) {
+        return symbolId > 0 && staleSymbols[symbolId];
+    }
+
     public void killSwitch() {
         killSwitch = true;
     }
@@ -15,9 +15,10 @@ import com.xinyue.maker.infra.PersistenceDispatcher;
 import com.xinyue.maker.io.input.AccessLayerCoordinator;
 import com.xinyue.maker.io.input.GapDetector;
 import com.xinyue.maker.io.input.dydx.DydxMarketDataConnector;
-import com.xinyue.maker.io.output.DydxConnector;
 import com.xinyue.maker.io.output.ExecutionGatewayManager;
 import com.xinyue.maker.io.output.NettySidecarGateway;
+import com.xinyue.maker.io.output.SidecarConnectionPool;
+import com.xinyue.maker.sim.ExchangeSimulator;
 import com.xinyue.maker.strategy.ExecutionRouter;
 import com.xinyue.maker.strategy.RiskEngine;
 import com.xinyue.maker.strategy.SignalGenerator;
@@ -41,6 +42,7 @@ public class AppContext {
 
     private static final Logger LOG = LoggerFactory.getLogger(AppContext.class);
 
+    private MetricsService metricsService;
     private CoreEngine coreEngine;
     private StrategyEngine strategyEngine;
     private OrderManagementSystem oms;
@@ -57,19 +59,21 @@ public class AppContext {
         LOG.info("正在初始化应用上下文...");
         
         try {
+            // 离线压测：-Dsim.enabled=true 时先启动本地交易所模拟器，并把 dYdX / Sidecar 地址指向它
+            ExchangeSimulator.startIfEnabled();
+
             // L4 基础设施层
-            MetricsService metricsService = new MetricsService();
+            metricsService = new MetricsService();
             PersistenceDispatcher persistenceDispatcher = new PersistenceDispatcher();
 
-            // 启动 dYdX Sidecar 连接器
-            DydxConnector dydxSidecarConnector = new DydxConnector("ws://127.0.0.1:8080");
-            dydxSidecarConnector.start();
-
             // 创建 Disruptor
             Disruptor<CoreEvent> disruptor = createDisruptor();
 
             // 创建 Normalizer 和 AccessLayerCoordinator
             com.xinyue.maker.io.Normalizer normalizer = new com.xinyue.maker.io.Normalizer(disruptor.getRingBuffer());
+
+            // dYdX Sidecar 连接池（执行回报经 normalizer 发布到 ring），随 ExecutionGatewayManager 启动
+            SidecarConnectionPool dydxSidecarPool = SidecarConnectionPool.fromConfig(normalizer);
             com.xinyue.maker.infra.OriginalMessageDao originalMessageDao = null;
             try {
                 originalMessageDao = new com.xinyue.maker.infra.OriginalMessageDao();
@@ -84,9 +88,11 @@ public class AppContext {
             positionManager = new PositionManager(metricsService);
 
             // 创建 ExecutionGateway
-            dydxGateway = createDydxGateway(dydxSidecarConnector);
+            dydxGateway = createDydxGateway(dydxSidecarPool);
             ExecutionGatewayManager gatewayManager = new ExecutionGatewayManager()
-                    .register(com.xinyue.maker.common.Exchange.DYDX, dydxGateway);
+                    .register(com.xinyue.maker.common.Exchange.DYDX, dydxGateway)
+                    .registerSidecarPool(com.xinyue.maker.common.Exchange.DYDX, dydxSidecarPool);
+            gatewayManager.startAll();
 
             // 创建 OMS
             oms = new OrderManagementSystem(metricsService, persistenceDispatcher, gatewayManager, positionManager);
@@ -99,6 +105,9 @@ public class AppContext {
 
             // 创建 StrategyEngine
             strategyEngine = createStrategyEngine(oms, positionManager, metricsService);
+            // 启用的策略变化时，按其参考交易对动态订阅 / 退订 Binance 组合流
+            strategyEngine.setReferenceSymbolListener(symbols ->
+                    accessLayerCoordinator.updateSymbols(com.xinyue.maker.common.Exchange.BINANCE, symbols));
 
             // 初始化账户（TradeSession + 资产余额），但不订阅订单（订单订阅在启动策略时进行）
 //            configureAllAccounts(dydxGateway, positionManager);
@@ -111,7 +120,8 @@ public class AppContext {
                     strategyEngine,
                     persistenceDispatcher,
                     gapDetector,
-                    accessLayerCoordinator
+                    accessLayerCoordinator,
+                    metricsService
             );
             disruptor.handleEventsWith(coreEventHandler);
 
@@ -158,10 +168,10 @@ public class AppContext {
         );
     }
 
-    private NettySidecarGateway createDydxGateway(DydxConnector dydxSidecarConnector) {
+    private NettySidecarGateway createDydxGateway(SidecarConnectionPool dydxSidecarPool) {
         Int2ObjectHashMap<com.xinyue.maker.io.output.TradeSession> dydxSessionPool = new Int2ObjectHashMap<>();
         return new NettySidecarGateway(
-                dydxSidecarConnector.getChannel(),
+                dydxSidecarPool,
                 dydxSessionPool,
                 com.xinyue.maker.common.Exchange.DYDX
         );
@@ -197,6 +207,10 @@ public class AppContext {
         return lobManager;
     }
 
+    public MetricsService getMetricsService() {
+        return metricsService;
+    }
+
     public CoreEngine getCoreEngine() {
         return coreEngine;
     }
@@ -1,10 +1,32 @@
 package com.xinyue.maker.web.controller;
 
+import com.xinyue.maker.common.Exchange;
+import com.xinyue.maker.common.SymbolRegistry;
+import com.xinyue.maker.core.oms.ArchivedOrder;
+import com.xinyue.maker.core.oms.FirstSignalStats;
+import com.xinyue.maker.core.oms.OmsMonitorSnapshot;
+import com.xinyue.maker.core.oms.OrderArchive;
+import com.xinyue.maker.core.oms.OrderLatencyStats;
+import com.xinyue.maker.core.oms.OrderManagementSystem;
+import com.xinyue.maker.infra.MetricsService;
+import com.xinyue.maker.io.ConnectionTrafficStats;
+import com.xinyue.maker.io.FeedTrafficStats;
+import com.xinyue.maker.io.IoLatencyStats;
+import com.xinyue.maker.io.NettyTransport;
+import com.xinyue.maker.io.input.ConnectionSupervisor;
+import com.xinyue.maker.io.output.NettySidecarGateway;
+import com.xinyue.maker.io.output.OutboundOrderQueue;
+import com.xinyue.maker.io.output.SidecarConnection;
+import com.xinyue.maker.web.context.AppContext;
 import org.noear.solon.annotation.Controller;
 import org.noear.solon.annotation.Mapping;
 import org.noear.solon.annotation.Get;
+import org.noear.solon.annotation.Inject;
+import org.noear.solon.annotation.Param;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -13,6 +35,9 @@ import java.util.Map;
 @Controller
 public class HealthController {
 
+    @Inject
+    private AppContext appContext;
+
     /**
      * 健康检查接口。
      * GET /health
@@ -57,5 +82,337 @@ public class HealthController {
         result.put("system", system);
         return result;
     }
-}
 
+    /**
+     * IO 线程信息接口：传输层类型、每个 IO 线程「收到帧 -> 发布」耗时、各行情源流量与解压耗时、各连接断线恢复统计、
+     * 各连接吞吐与排队延迟。
+     * GET /api/io
+     */
+    @Get
+    @Mapping("/api/io")
+    public Map<String, Object> io() {
+        List<Map<String, Object>> threads = new ArrayList<>();
+        for (IoLatencyStats stats : IoLatencyStats.all()) {
+            Map<String, Object> thread = new HashMap<>();
+            thread.put("thread", stats.threadName());
+            thread.put("count", stats.count());
+            thread.put("avgNanos", stats.avgNanos());
+            thread.put("p99Nanos", stats.percentileNanos(0.99));
+            thread.put("p999Nanos", stats.percentileNanos(0.999));
+            thread.put("maxNanos", stats.maxNanos());
+            threads.add(thread);
+        }
+
+        List<Map<String, Object>> connections = new ArrayList<>();
+        for (ConnectionSupervisor supervisor : ConnectionSupervisor.all()) {
+            Map<String, Object> connection = new HashMap<>();
+            connection.put("name", supervisor.name());
+            connection.put("active", supervisor.isActive());
+            connection.put("standby", supervisor.hasStandby());
+            connection.put("disconnects", supervisor.disconnects());
+            connection.put("recoveries", supervisor.recoveries());
+            connection.put("standbyPromotions", supervisor.standbyPromotions());
+            connection.put("failedAttempts", supervisor.failedAttempts());
+            connection.put("lastRecoverNanos", supervisor.lastRecoverNanos());
+            connection.put("avgRecoverNanos", supervisor.avgRecoverNanos());
+            connection.put("maxRecoverNanos", supervisor.maxRecoverNanos());
+            connections.add(connection);
+        }
+
+        List<Map<String, Object>> feeds = new ArrayList<>();
+        for (Exchange exchange : Exchange.values()) {
+            FeedTrafficStats stats = FeedTrafficStats.of(exchange);
+            if (stats.messages() == 0) {
+                continue;
+            }
+            Map<String, Object> feed = new HashMap<>();
+            feed.put("exchange", exchange.name());
+            feed.put("deflate", NettyTransport.getInstance().config().deflateEnabled(exchange.name()));
+            feed.put("messages", stats.messages());
+            feed.put("wireBytes", stats.wireBytes());
+            feed.put("payloadBytes", stats.payloadBytes());
+            feed.put("compressedFrames", stats.compressedFrames());
+            feed.put("compressionRatio", stats.compressionRatio());
+            feed.put("avgInflateNanos", stats.avgInflateNanos());
+            feed.put("maxInflateNanos", stats.maxInflateNanos());
+            feed.put("totalInflateNanos", stats.inflateNanos());
+            feeds.add(feed);
+        }
+
+        List<Map<String, Object>> traffic = new ArrayList<>();
+        for (ConnectionTrafficStats stats : ConnectionTrafficStats.all()) {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("name", stats.name());
+            entry.put("ioThread", stats.ioThread());
+            entry.put("messages", stats.messages());
+            entry.put("bytes", stats.bytes());
+            entry.put("messagesPerSecond", stats.messagesPerSecond());
+            entry.put("bytesPerSecond", stats.bytesPerSecond());
+            entry.put("avgQueueNanos", stats.avgQueueNanos());
+            entry.put("p99QueueNanos", stats.percentileQueueNanos(0.99));
+            entry.put("maxQueueNanos", stats.maxQueueNanos());
+            traffic.add(entry);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("transport", NettyTransport.getInstance().isEpoll() ? "epoll" : "nio");
+        result.put("feeds", feeds);
+        result.put("threads", threads);
+        result.put("connections", connections);
+        result.put("connectionTraffic", traffic);
+        return result;
+    }
+
+    /**
+     * dYdX 订单簿 gap 与断线恢复统计（按交易对）：message_id gap 次数、行情断开次数、重建完成次数与重建耗时。
+     * 只列出发生过 gap 或断开的交易对。
+     * GET /api/md/gaps
+     */
+    @Get
+    @Mapping("/api/md/gaps")
+    public Map<String, Object> marketDataGaps() {
+        Map<String, Object> result = new HashMap<>();
+        MetricsService metrics = appContext.getMetricsService();
+        if (metrics == null) {
+            return result;
+        }
+        SymbolRegistry.getInstance().forEach((symbol, id) -> {
+            short symbolId = (short) id;
+            if (metrics.dydxGapCount(symbolId) == 0 && metrics.dydxFeedStaleCount(symbolId) == 0) {
+                return;
+            }
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("symbolId", symbolId);
+            entry.put("gaps", metrics.dydxGapCount(symbolId));
+            entry.put("feedStale", metrics.dydxFeedStaleCount(symbolId));
+            entry.put("recovered", metrics.dydxRecoveredCount(symbolId));
+            entry.put("lastRecoveryNanos", metrics.dydxLastRecoveryNanos(symbolId));
+            entry.put("avgRecoveryNanos", metrics.dydxAvgRecoveryNanos(symbolId));
+            entry.put("maxRecoveryNanos", metrics.dydxMaxRecoveryNanos(symbolId));
+            result.put(symbol, entry);
+        });
+        return result;
+    }
+
+    /**
+     * 订单首个信号统计：Sidecar 回报与 indexer v4_subaccounts 推送谁先到、相差多少。
+     * GET /api/oms/signals
+     */
+    @Get
+    @Mapping("/api/oms/signals")
+    public Map<String, Object> orderSignals() {
+        Map<String, Object> result = new HashMap<>();
+        OrderManagementSystem oms = appContext.getOms();
+        if (oms == null) {
+            return result;
+        }
+        FirstSignalStats stats = oms.firstSignalStats();
+        result.put("samples", stats.samples());
+        result.put("sidecarFirst", stats.sidecarFirst());
+        result.put("indexerFirst", stats.indexerFirst());
+        result.put("avgGapNanos", stats.avgGapNanos());
+        result.put("p50GapNanos", stats.percentileGapNanos(0.5));
+        result.put("p99GapNanos", stats.percentileGapNanos(0.99));
+        result.put("maxLeadNanos", stats.maxLeadNanos());
+        return result;
+    }
+
+    /**
+     * 订单生命周期各阶段耗时（submit / queue / ack / confirm / live / cancel），按交易所与按账户。
+     * 读取 L2 发布的监控快照（snapshotAgeMillis 为快照距今的毫秒数）。
+     * GET /api/oms/latency
+     */
+    @Get
+    @Mapping("/api/oms/latency")
+    public Map<String, Object> orderLatency() {
+        Map<String, Object> result = new HashMap<>();
+        OrderManagementSystem oms = appContext.getOms();
+        if (oms == null) {
+            return result;
+        }
+        OmsMonitorSnapshot snapshot = oms.monitorSnapshot();
+        Map<String, Object> exchanges = new HashMap<>();
+        for (Exchange exchange : Exchange.values()) {
+            OrderLatencyStats stats = snapshot.exchangeLatency(exchange.id());
+            if (stats != null && stats.samples(OrderLatencyStats.STAGE_SUBMIT) > 0) {
+                exchanges.put(exchange.name(), latencyStages(stats));
+            }
+        }
+        Map<String, Object> accounts = new HashMap<>();
+        for (int i = 0; i < snapshot.accountCount(); i++) {
+            accounts.put(String.valueOf(snapshot.accountId(i)), latencyStages(snapshot.accountLatency(i)));
+        }
+        result.put("snapshotAgeMillis", snapshotAgeMillis(snapshot));
+        result.put("exchanges", exchanges);
+        result.put("accounts", accounts);
+        return result;
+    }
+
+    private static long snapshotAgeMillis(OmsMonitorSnapshot snapshot) {
+        return snapshot.publishedNanos() == 0 ? -1L : (System.nanoTime() - snapshot.publishedNanos()) / 1_000_000L;
+    }
+
+    private static Map<String, Object> latencyStages(OrderLatencyStats stats) {
+        Map<String, Object> stages = new HashMap<>();
+        for (int stage = 0; stage < OrderLatencyStats.STAGES; stage++) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("samples", stats.samples(stage));
+            item.put("avgNanos", stats.avgNanos(stage));
+            item.put("p50Nanos", stats.percentileNanos(stage, 0.5));
+            item.put("p99Nanos", stats.percentileNanos(stage, 0.99));
+            item.put("maxNanos", stats.maxNanos(stage));
+            stages.put(OrderLatencyStats.STAGE_NAMES[stage], item);
+        }
+        return stages;
+    }
+
+    /**
+     * 停留在 PendingNew 超过 olderThanMillis（默认 1000）毫秒的订单，附带已到达的最后一个阶段。
+     * 订单取自 L2 发布的监控快照，停留时长按当前时刻计算。
+     * GET /api/oms/stuck?olderThanMillis=500
+     */
+    @Get
+    @Mapping("/api/oms/stuck")
+    public Map<String, Object> stuckOrders(@Param Long olderThanMillis) {
+        Map<String, Object> result = new HashMap<>();
+        OrderManagementSystem oms = appContext.getOms();
+        if (oms == null) {
+            return result;
+        }
+        long thresholdMillis = olderThanMillis != null && olderThanMillis >= 0 ? olderThanMillis : 1000L;
+        OmsMonitorSnapshot snapshot = oms.monitorSnapshot();
+        long now = System.nanoTime();
+        List<Map<String, Object>> orders = new ArrayList<>();
+        for (int i = 0; i < snapshot.pendingNewCount(); i++) {
+            OmsMonitorSnapshot.PendingOrder order = snapshot.pendingNew(i);
+            if (now - order.createNanos <= thresholdMillis * 1_000_000L) {
+                continue;
+            }
+            Map<String, Object> item = new HashMap<>();
+            item.put("localOrderId", order.localOrderId);
+            item.put("accountId", order.accountId);
+            item.put("exchangeId", order.exchangeId);
+            item.put("symbolId", order.symbolId);
+            item.put("side", order.side);
+            item.put("priceE8", order.priceE8);
+            item.put("qtyE8", order.qtyE8);
+            item.put("ageMillis", (now - order.createNanos) / 1_000_000L);
+            item.put("lastStage", order.lastStage);
+            orders.add(item);
+        }
+        result.put("snapshotAgeMillis", snapshotAgeMillis(snapshot));
+        result.put("olderThanMillis", thresholdMillis);
+        result.put("count", orders.size());
+        result.put("orders", orders);
+        return result;
+    }
+
+    /**
+     * 终态订单归档查询：指定 id 时按 localOrderId 查找，否则按进入终态的时间区间 [fromMillis, toMillis]
+     * 返回最多 limit（默认 100，上限 1000）笔；同时返回归档与热索引的规模。
+     * GET /api/oms/archive?id=123 或 GET /api/oms/archive?fromMillis=...&toMillis=...&limit=200
+     */
+    @Get
+    @Mapping("/api/oms/archive")
+    public Map<String, Object> archivedOrders(@Param Long id, @Param Long fromMillis, @Param Long toMillis, @Param Integer limit) {
+        Map<String, Object> result = new HashMap<>();
+        OrderManagementSystem oms = appContext.getOms();
+        if (oms == null) {
+            return result;
+        }
+        OrderArchive archive = oms.orderArchive();
+        result.put("capacity", archive.capacity());
+        result.put("size", archive.size());
+        result.put("archived", archive.archived());
+        result.put("liveOrders", oms.liveOrderCount());
+        result.put("orderPoolAvailable", oms.orderPool().available());
+        result.put("orderPoolMisses", oms.orderPool().misses());
+
+        List<Map<String, Object>> orders = new ArrayList<>();
+        ArchivedOrder scratch = new ArchivedOrder();
+        if (id != null) {
+            if (archive.find(id, scratch)) {
+                orders.add(archivedOrder(scratch));
+            }
+        } else {
+            int max = limit == null || limit <= 0 ? 100 : Math.min(limit, 1000);
+            long from = fromMillis != null ? fromMillis : 0L;
+            long to = toMillis != null ? toMillis : Long.MAX_VALUE;
+            archive.forEachInRange(from, to, scratch, order -> {
+                orders.add(archivedOrder(order));
+                return orders.size() < max;
+            });
+        }
+        result.put("orders", orders);
+        return result;
+    }
+
+    private static Map<String, Object> archivedOrder(ArchivedOrder order) {
+        Map<String, Object> item = new HashMap<>();
+        item.put("localOrderId", order.localOrderId);
+        item.put("exchangeOrderId", order.exchangeOrderId);
+        item.put("accountId", order.accountId);
+        item.put("symbolId", order.symbolId);
+        item.put("exchangeId", order.exchangeId);
+        item.put("side", order.side);
+        item.put("status", order.orderStatus);
+        item.put("priceE8", order.priceE8);
+        item.put("qtyE8", order.qtyE8);
+        item.put("filledQtyE8", order.filledQtyE8);
+        item.put("createTime", order.createTime);
+        item.put("terminalTime", order.terminalTime);
+        return item;
+    }
+
+    /**
+     * Sidecar 连接池与出站调度队列：每条连接的健康状态、账户数、在途指令数，以及各优先级通道深度、排队时间、合并 / 丢弃计数；
+     * 另含整体是否背压、限频拒绝数。
+     * GET /api/oms/outbound
+     */
+    @Get
+    @Mapping("/api/oms/outbound")
+    public Map<String, Object> outbound() {
+        Map<String, Object> result = new HashMap<>();
+        NettySidecarGateway gateway = appContext.getDydxGateway();
+        if (gateway == null) {
+            return result;
+        }
+        result.put("backpressured", gateway.isBackpressured());
+        result.put("throttled", gateway.throttledOrders());
+
+        List<Map<String, Object>> connections = new ArrayList<>();
+        for (SidecarConnection connection : gateway.connectionPool().connections()) {
+            OutboundOrderQueue queue = connection.outboundQueue();
+            Map<String, Object> item = new HashMap<>();
+            item.put("name", connection.name());
+            item.put("uri", connection.uri());
+            item.put("active", connection.isActive());
+            item.put("writable", connection.isWritable());
+            item.put("standby", connection.hasStandby());
+            item.put("disconnects", connection.disconnects());
+            item.put("sessions", connection.sessions());
+            item.put("migratedIn", connection.migratedIn());
+            item.put("commandsSent", connection.sent());
+            item.put("reports", connection.reports());
+            item.put("inFlight", connection.inFlight());
+            item.put("lastReportMillis", connection.lastReportMillis());
+            item.put("capacity", queue.capacity());
+            item.put("depth", queue.size());
+            item.put("cancelDepth", queue.laneDepth(0));
+            item.put("reduceDepth", queue.laneDepth(1));
+            item.put("quoteDepth", queue.laneDepth(2));
+            item.put("maxDepth", queue.maxDepth());
+            item.put("enqueued", queue.enqueued());
+            item.put("sent", queue.sent());
+            item.put("superseded", queue.superseded());
+            item.put("canceledUnsent", queue.canceledUnsent());
+            item.put("dropped", queue.dropped());
+            item.put("avgWaitNanos", queue.avgWaitNanos());
+            item.put("p99WaitNanos", queue.percentileWaitNanos(0.99));
+            item.put("maxWaitNanos", queue.maxWaitNanos());
+            connections.add(item);
+        }
+        result.put("connections", connections);
+        return result;
+    }
+}
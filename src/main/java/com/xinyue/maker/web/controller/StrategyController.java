@@ -4,7 +4,6 @@ import com.xinyue.maker.common.AssetRegistry;
 import com.xinyue.maker.common.Exchange;
 import com.xinyue.maker.common.ScaleConstants;
 import com.xinyue.maker.common.SymbolRegistry;
-import com.xinyue.maker.core.oms.OrderManagementSystem;
 import com.xinyue.maker.core.position.PositionManager;
 import com.xinyue.maker.io.input.dydx.DydxMarketDataConnector;
 import com.xinyue.maker.io.output.NettySidecarGateway;
@@ -263,18 +262,13 @@ public class StrategyController {
                 // 退订所有策略的订阅
                 unsubscribeAllStrategies();
                 
-                // 停止所有策略后，取消所有订单并清理订单簿
-                OrderManagementSystem oms = appContext.getOms();
+                // 停止所有策略后，取消所有订单（交给 L2 执行）并清理订单簿
                 com.xinyue.maker.core.lob.LobManager lobManager = appContext.getLobManager();
                 
-                if (oms != null) {
-                    int totalCanceledCount = 0;
-                    for (Short symbolId : symbolIds) {
-                        int canceledCount = oms.cancelAllOrdersBySymbolId(symbolId);
-                        totalCanceledCount += canceledCount;
-                    }
-                    LOG.info("停止所有策略后已取消订单: totalCanceledCount={}", totalCanceledCount);
+                for (Short symbolId : symbolIds) {
+                    getStrategyService().requestCancelAllOrders(symbolId);
                 }
+                LOG.info("停止所有策略后已请求撤单: symbolIds={}", symbolIds);
                 
                 if (lobManager != null) {
                     for (Short symbolId : symbolIds) {
@@ -300,11 +294,9 @@ public class StrategyController {
                     unsubscribeStrategy(strategyInfo);
                 }
                 
-                // 停止策略之后把所有订单取消
-                OrderManagementSystem oms = appContext.getOms();
-                if (oms != null) {
-                    int canceledCount = oms.cancelAllOrdersBySymbolId(symbolId);
-                    LOG.info("策略停止后已取消订单: symbolId={}, canceledCount={}", symbolId, canceledCount);
+                // 停止策略之后把所有订单取消（交给 L2 执行，撤单数量见 L2 日志）
+                if (getStrategyService().requestCancelAllOrders(symbolId)) {
+                    LOG.info("策略停止后已请求撤单: symbolId={}", symbolId);
                 }
                 
                 // 清理订单簿中与 symbolId 相关的数据
@@ -659,7 +651,7 @@ public class StrategyController {
                     for (AccountInfo account : accounts) {
                         if (accountIdSet.contains((short) account.accountId)) {
                             try {
-                                dydxConnector.configureAccountOrders(account.address, account.subaccountNumber);
+                                dydxConnector.configureAccountOrders((short) account.accountId, account.address, account.subaccountNumber);
                                 LOG.info("已订阅账户订单: accountId={}, address={}, subaccountNumber={}",
                                         account.accountId, account.address, account.subaccountNumber);
                                 subscribedCount++;
@@ -201,6 +201,35 @@ public final class StrategyService {
         }
     }
     
+    /**
+     * 请求 L2 撤掉指定 symbolId 的所有在途订单（异步：发布 CANCEL_ALL_ORDERS 事件，由 L2 遍历 OMS 在途订单链并撤单）。
+     * OMS 的索引与池化订单只由 L2 线程读写，Web 线程不直接调用 OMS 撤单。
+     *
+     * @return false 表示 symbolId 非法或事件发布失败
+     */
+    public boolean requestCancelAllOrders(short symbolId) {
+        if (symbolId <= 0) {
+            return false;
+        }
+        try {
+            long sequence = ringBuffer.next();
+            try {
+                CoreEvent event = ringBuffer.get(sequence);
+                event.reset();
+                event.type = CoreEventType.CANCEL_ALL_ORDERS;
+                event.timestamp = System.currentTimeMillis();
+                event.recvTime = System.nanoTime();
+                event.symbolId = symbolId;
+            } finally {
+                ringBuffer.publish(sequence);
+            }
+            return true;
+        } catch (Exception e) {
+            LOG.error("发布批量撤单事件失败（symbolId={}）", symbolId, e);
+            return false;
+        }
+    }
+
     /**
      * 停止所有策略。
      */
@@ -248,6 +277,8 @@ public final class StrategyService {
             status.config = null;
             status.runtimeStatus = null;
         }
+        // 该交易对的在途订单数（OMS 维护的交易对在途订单链，O(1)）
+        status.liveOrders = oms != null ? oms.liveOrderCount(symbolId) : 0;
         return status;
     }
     
@@ -335,6 +366,9 @@ public final class StrategyService {
         
         // 策略运行状态（从策略实例获取，仅 InternalRangeOscillatorStrategy2 支持）
         public Object runtimeStatus;  // InternalRangeOscillatorStrategy2.StrategyStatusInfo
+
+        // 该交易对在 OMS 中的在途订单数
+        public int liveOrders;
     }
     
     /**
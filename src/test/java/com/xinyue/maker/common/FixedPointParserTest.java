@@ -0,0 +1,189 @@
+package com.xinyue.maker.common;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FixedPointParser 属性测试：随机输入与 BigDecimal / Instant 的结果逐一对比。
+ */
+@DisplayName("定点数 / ISO-8601 解析属性测试")
+class FixedPointParserTest {
+
+    private static final int ITERATIONS = 200_000;
+
+    @Test
+    @DisplayName("十进制 -> E8 与 BigDecimal 一致（全部舍入模式、溢出、三种输入形式）")
+    void decimalMatchesBigDecimal() {
+        Random random = new Random(20260108L);
+        RoundingMode[] modes = RoundingMode.values();
+        for (int n = 0; n < ITERATIONS; n++) {
+            String s = randomDecimal(random);
+            RoundingMode mode = modes[random.nextInt(modes.length)];
+            assertDecimal(s, mode);
+        }
+    }
+
+    @Test
+    @DisplayName("十进制边界值")
+    void decimalEdgeCases() {
+        String[] samples = {
+                "0", "-0", "+0", "0.00000000", "1", "0.001", "100.5", "93057", "0.2978", "1400578.2411",
+                ".5", "5.", "-.5", "1E-8", "1e-9", "5e-9", "-5e-9", "1.5e-8", "2.5e-8", "123456789.123456789",
+                "92233720368.54775807", "92233720368.54775808", "-92233720368.54775807", "92233720368.547758079",
+                "0.000000000000000000000000001", "1e18", "1e-1000", "0e99999", "000000000000000000000001.5"
+        };
+        for (String s : samples) {
+            for (RoundingMode mode : RoundingMode.values()) {
+                assertDecimal(s, mode);
+            }
+        }
+        assertEquals(100_000L, FixedPointParser.parseE8("0.001"));
+        assertEquals(10_050_000_000L, FixedPointParser.parseE8("100.5"));
+        assertEquals(12L, FixedPointParser.parseE8("0.000000129"));
+        assertEquals(13L, FixedPointParser.parseE8("0.000000125", RoundingMode.HALF_UP));
+        assertEquals(12L, FixedPointParser.parseE8("0.000000125", RoundingMode.HALF_EVEN));
+        assertThrows(ArithmeticException.class, () -> FixedPointParser.parseE8("92233720368.54775808"));
+        assertThrows(ArithmeticException.class, () -> FixedPointParser.parseE8("0.000000001", RoundingMode.UNNECESSARY));
+    }
+
+    @Test
+    @DisplayName("非法十进制格式")
+    void decimalRejectsMalformed() {
+        String[] malformed = {"", "-", "+", ".", "-.", "1..2", "1.2.3", "abc", "1a", "1e", "1e+", "1e-x", "--1", "1 ", " 1", "0x10", "1,5"};
+        for (String s : malformed) {
+            assertThrows(NumberFormatException.class, () -> new BigDecimal(s), s);
+            assertThrows(NumberFormatException.class, () -> FixedPointParser.parseE8(s), s);
+        }
+    }
+
+    @Test
+    @DisplayName("ISO-8601 -> epoch 与 Instant 一致")
+    void isoMatchesInstant() {
+        Random random = new Random(42L);
+        DateTimeFormatter withOffset = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
+        long min = Instant.parse("1970-01-01T00:00:00Z").getEpochSecond();
+        long max = Instant.parse("2200-12-31T23:59:59Z").getEpochSecond();
+        for (int n = 0; n < ITERATIONS; n++) {
+            long seconds = min + (long) (random.nextDouble() * (max - min));
+            int nanos = random.nextBoolean() ? 0 : random.nextInt(1_000_000_000);
+            Instant instant = Instant.ofEpochSecond(seconds, nanos);
+
+            String utc = instant.toString();
+            assertIso(utc, instant.getEpochSecond(), instant.toEpochMilli());
+
+            int offsetHours = random.nextInt(25) - 12;
+            int offsetMinutes = random.nextBoolean() ? 0 : (offsetHours < 0 ? -30 : 30);
+            ZoneOffset offset = ZoneOffset.ofHoursMinutes(offsetHours, offsetMinutes);
+            Instant millisInstant = Instant.ofEpochMilli(instant.toEpochMilli());
+            String zoned = OffsetDateTime.ofInstant(millisInstant, offset).format(withOffset).replace("Z", "+00:00");
+            assertIso(zoned, millisInstant.getEpochSecond(), millisInstant.toEpochMilli());
+        }
+        assertEquals(1767871925L, FixedPointParser.parseIsoEpochSeconds("2026-01-08T11:32:05.000Z"));
+    }
+
+    @Test
+    @DisplayName("非法 ISO-8601")
+    void isoRejectsMalformed() {
+        String[] malformed = {
+                "", "2026-01-08", "2026-01-08T11:32:05", "2026-02-30T00:00:00Z", "2025-02-29T00:00:00Z",
+                "2026-13-01T00:00:00Z", "2026-01-08T24:00:00Z", "2026-01-08T11:60:00Z", "2026-01-08 11:32:05Z",
+                "2026-01-08T11:32:05.Z", "2026-01-08T11:32:05.000", "2026/01/08T11:32:05Z", "2026-01-08T11:32:05+0800"
+        };
+        for (String s : malformed) {
+            assertThrows(DateTimeException.class, () -> FixedPointParser.parseIsoEpochSeconds(s), s);
+        }
+        assertEquals(Instant.parse("2024-02-29T00:00:00Z").getEpochSecond(),
+                FixedPointParser.parseIsoEpochSeconds("2024-02-29T00:00:00Z"));
+    }
+
+    private static void assertIso(String s, long expectedSeconds, long expectedMillis) {
+        char[] chars = s.toCharArray();
+        byte[] bytes = s.getBytes(StandardCharsets.US_ASCII);
+        assertEquals(expectedSeconds, FixedPointParser.parseIsoEpochSeconds(s), s);
+        assertEquals(expectedSeconds, FixedPointParser.parseIsoEpochSeconds(chars, 0, chars.length), s);
+        assertEquals(expectedSeconds, FixedPointParser.parseIsoEpochSeconds(bytes, 0, bytes.length), s);
+        assertEquals(expectedMillis, FixedPointParser.parseIsoEpochMillis(s), s);
+        assertEquals(expectedMillis, FixedPointParser.parseIsoEpochMillis(bytes, 0, bytes.length), s);
+    }
+
+    private static void assertDecimal(String s, RoundingMode mode) {
+        Long expected;
+        try {
+            expected = new BigDecimal(s).movePointRight(FixedPointParser.SCALE_DIGITS).setScale(0, mode).longValueExact();
+        } catch (ArithmeticException e) {
+            expected = null;
+        }
+        // 两侧各带 3 个字节的噪声，验证 offset / length 处理
+        String padded = "x9." + s + "7e-";
+        byte[] bytes = padded.getBytes(StandardCharsets.US_ASCII);
+        char[] chars = padded.toCharArray();
+        if (expected == null || expected == Long.MIN_VALUE) {
+            // Long.MIN_VALUE 的绝对值无法用正数累加表示，按溢出处理
+            assertThrows(ArithmeticException.class, () -> FixedPointParser.parseE8(s, mode), s + " " + mode);
+            assertThrows(ArithmeticException.class, () -> FixedPointParser.parseE8(bytes, 3, s.length(), mode), s + " " + mode);
+            return;
+        }
+        assertEquals(expected.longValue(), FixedPointParser.parseE8(s, mode), s + " " + mode);
+        assertEquals(expected.longValue(), FixedPointParser.parseE8(chars, 3, s.length(), mode), s + " " + mode);
+        assertEquals(expected.longValue(), FixedPointParser.parseE8(bytes, 3, s.length(), mode), s + " " + mode);
+    }
+
+    private static String randomDecimal(Random random) {
+        StringBuilder sb = new StringBuilder(40);
+        int sign = random.nextInt(4);
+        if (sign == 0) {
+            sb.append('-');
+        } else if (sign == 1) {
+            sb.append('+');
+        }
+        int intDigits = random.nextInt(13);
+        int fracDigits = random.nextInt(16);
+        boolean dot = fracDigits > 0 || random.nextInt(4) == 0;
+        if (intDigits == 0 && fracDigits == 0) {
+            intDigits = 1;
+        }
+        for (int i = 0; i < intDigits; i++) {
+            sb.append(randomDigit(random));
+        }
+        if (dot) {
+            sb.append('.');
+        }
+        for (int i = 0; i < fracDigits; i++) {
+            sb.append(randomDigit(random));
+        }
+        if (random.nextInt(5) == 0) {
+            sb.append(random.nextBoolean() ? 'e' : 'E');
+            int exp = random.nextInt(41) - 20;
+            if (exp >= 0 && random.nextBoolean()) {
+                sb.append('+');
+            }
+            sb.append(exp);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 偏向 0/5/9，让舍入的临界情况（恰好一半、全 9 进位）更常出现。
+     */
+    private static char randomDigit(Random random) {
+        int r = random.nextInt(14);
+        return switch (r) {
+            case 10, 11 -> '0';
+            case 12 -> '5';
+            case 13 -> '9';
+            default -> (char) ('0' + r);
+        };
+    }
+}
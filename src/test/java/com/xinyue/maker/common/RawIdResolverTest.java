@@ -0,0 +1,121 @@
+package com.xinyue.maker.common;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RawIdResolver 测试：交易所格式规范化、三种输入形式一致、注册表变更后重建、查询不分配内存。
+ */
+@DisplayName("原始字符 ID 解析器测试")
+class RawIdResolverTest {
+
+    private final RawIdResolver symbols = RawIdResolver.forSymbols(SymbolRegistry.getInstance());
+    private final RawIdResolver assets = RawIdResolver.forAssets(AssetRegistry.getInstance());
+    private final RawIdResolver addresses = RawIdResolver.forAddresses(AddressRegistry.getInstance());
+
+    @Test
+    @DisplayName("交易对：忽略 '-'，与 SymbolRegistry 一致")
+    void symbols() {
+        assertSymbol(1, "BTCUSDT");
+        assertSymbol(1, "BTC-USDT");
+        assertSymbol(2, "ETH-USDT");
+        assertSymbol(3, "BNBUSDT");
+        assertSymbol(5, "H2-USDT");
+        assertSymbol(5, "H2USDT");
+        assertSymbol(RawIdResolver.MISSING, "H2-USDC");
+        assertSymbol(RawIdResolver.MISSING, "BTCUSD");
+        assertSymbol(RawIdResolver.MISSING, "BTCUSDTX");
+        assertSymbol(RawIdResolver.MISSING, "");
+        assertSymbol(RawIdResolver.MISSING, "---");
+        assertEquals(RawIdResolver.MISSING, symbols.resolve((CharSequence) null));
+    }
+
+    @Test
+    @DisplayName("资产：按原样匹配")
+    void assets() {
+        assertEquals(1, assets.resolve("USDT"));
+        assertEquals(5, assets.resolve("H2"));
+        assertEquals(RawIdResolver.MISSING, assets.resolve("H-2"));
+        assertEquals(RawIdResolver.MISSING, assets.resolve("usdt"));
+        byte[] raw = "xxETHxx".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(4, assets.resolve(raw, 2, 3));
+    }
+
+    @Test
+    @DisplayName("账户地址：address/subaccountNumber 截取地址部分，注册后重建查找表")
+    void addresses() {
+        String address = "h21resolvertestaddress0000000000000000001";
+        assertEquals(RawIdResolver.MISSING, addresses.resolve(address + "/0"));
+
+        AddressRegistry.getInstance().register(address, (short) 900);
+        assertEquals(900, addresses.resolve(address + "/0"));
+        assertEquals(900, addresses.resolve(address + "/127"));
+        assertEquals(900, addresses.resolve(address));
+        char[] chars = (address + "/3").toCharArray();
+        assertEquals(900, addresses.resolve(chars, 0, chars.length));
+        byte[] bytes = (address + "/3").getBytes(StandardCharsets.US_ASCII);
+        assertEquals(900, addresses.resolve(bytes, 0, bytes.length));
+        assertEquals(RawIdResolver.MISSING, addresses.resolve(address.substring(1) + "/0"));
+        assertEquals(RawIdResolver.MISSING, addresses.resolve("/" + address));
+
+        // 同一账户换地址：旧地址失效
+        String replaced = "h21resolvertestaddress0000000000000000002";
+        AddressRegistry.getInstance().register(replaced, (short) 900);
+        assertEquals(900, addresses.resolve(replaced + "/0"));
+        assertEquals(RawIdResolver.MISSING, addresses.resolve(address + "/0"));
+    }
+
+    @Test
+    @DisplayName("大量 key 的完美哈希表：全部命中且表保持紧凑")
+    void manyKeys() {
+        int count = 2000;
+        for (int i = 0; i < count; i++) {
+            AddressRegistry.getInstance().register(bulkAddress(i), (short) (1000 + i));
+        }
+        for (int i = 0; i < count; i++) {
+            byte[] raw = (bulkAddress(i) + "/0").getBytes(StandardCharsets.US_ASCII);
+            assertEquals(1000 + i, addresses.resolve(raw, 0, raw.length));
+            assertEquals(RawIdResolver.MISSING, addresses.resolve(bulkAddress(i) + "x"));
+        }
+        assertTrue(addresses.tableSize() <= 4 * count, "tableSize=" + addresses.tableSize());
+    }
+
+    @Test
+    @DisplayName("查询不分配内存")
+    void noAllocation() {
+        char[] ticker = "H2-USDT".toCharArray();
+        byte[] raw = "ETH-USDT".getBytes(StandardCharsets.US_ASCII);
+        String account = "unregistered0000000000000000000000000000/0";
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long id = Thread.currentThread().threadId();
+        long sum = 0;
+        // 预热，触发 JIT 与首次建表
+        for (int i = 0; i < 20_000; i++) {
+            sum += symbols.resolve(ticker, 0, ticker.length) + symbols.resolve(raw, 0, raw.length) + addresses.resolve(account);
+        }
+        long before = mx.getThreadAllocatedBytes(id);
+        for (int i = 0; i < 100_000; i++) {
+            sum += symbols.resolve(ticker, 0, ticker.length) + symbols.resolve(raw, 0, raw.length) + addresses.resolve(account);
+        }
+        long allocated = mx.getThreadAllocatedBytes(id) - before;
+        assertTrue(sum != 0);
+        assertTrue(allocated < 1024, "allocated=" + allocated);
+    }
+
+    private void assertSymbol(int expected, String symbol) {
+        assertEquals(expected, symbols.resolve(symbol), symbol);
+        char[] chars = ("[" + symbol + "]").toCharArray();
+        assertEquals(expected, symbols.resolve(chars, 1, symbol.length()), symbol);
+        byte[] bytes = ("[" + symbol + "]").getBytes(StandardCharsets.US_ASCII);
+        assertEquals(expected, symbols.resolve(bytes, 1, symbol.length()), symbol);
+    }
+
+    private static String bulkAddress(int i) {
+        return "h21bulk" + Integer.toString(i * 7919, 36) + "q";
+    }
+}
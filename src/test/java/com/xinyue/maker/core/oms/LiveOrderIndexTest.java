@@ -0,0 +1,136 @@
+package com.xinyue.maker.core.oms;
+
+import com.xinyue.maker.common.CoreEvent;
+import com.xinyue.maker.common.Exchange;
+import com.xinyue.maker.common.OrderCommand;
+import com.xinyue.maker.common.TransferCommand;
+import com.xinyue.maker.core.gateway.ExecutionGateway;
+import com.xinyue.maker.infra.MetricsService;
+import com.xinyue.maker.io.output.ExecutionGatewayManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 在途订单链测试：按交易对 / (账户, 交易对) 遍历与计数、终态即摘链，以及按交易对批量撤单。
+ */
+@DisplayName("在途订单链测试")
+class LiveOrderIndexTest {
+
+    private static final short SYMBOL_A = 5;
+    private static final short SYMBOL_B = 6;
+
+    private static final class RecordingGateway implements ExecutionGateway {
+        final List<Long> cancels = new ArrayList<>();
+
+        @Override
+        public void sendOrder(OrderCommand cmd) {
+            if (cmd.priority == OrderCommand.PRIORITY_CANCEL) {
+                cancels.add(cmd.internalOrderId);
+            }
+        }
+
+        @Override
+        public void transfer(TransferCommand cmd) {
+        }
+    }
+
+    private final RecordingGateway gateway = new RecordingGateway();
+    private final CoreEvent update = new CoreEvent();
+    private OrderManagementSystem oms;
+
+    @BeforeEach
+    void setUp() {
+        ExecutionGatewayManager gatewayManager = new ExecutionGatewayManager().register(Exchange.DYDX, gateway);
+        oms = new OrderManagementSystem(new MetricsService(), null, gatewayManager, null);
+        oms.enableOrderBatching(); // 测试线程充当 L2 线程
+    }
+
+    private long submit(int accountId, short symbolId, long priceE8) {
+        OrderCommand cmd = oms.acquireCommand();
+        cmd.accountId = (short) accountId;
+        cmd.symbolId = symbolId;
+        cmd.exchangeId = Exchange.DYDX.id();
+        cmd.side = 0;
+        cmd.priceE8 = priceE8;
+        cmd.qtyE8 = 1_00000000L;
+        oms.submitOrder(cmd);
+        long localOrderId = cmd.internalOrderId;
+        oms.releaseCommand(cmd);
+        return localOrderId;
+    }
+
+    private void pushStatus(long localOrderId, byte status) {
+        update.firstUpdateId = 1; // 增量推送
+        update.clientOidHash = localOrderId;
+        update.orderStatus = status;
+        update.recvTime = System.nanoTime();
+        oms.onAccountOrderUpdate(update);
+    }
+
+    private List<Long> liveIds(short symbolId) {
+        List<Long> ids = new ArrayList<>();
+        oms.forEachLiveOrder(symbolId, order -> ids.add(order.localOrderId));
+        return ids;
+    }
+
+    @Test
+    @DisplayName("按交易对与 (账户, 交易对) 维护在途订单，进入终态即摘链")
+    void tracksLiveOrdersPerSymbolAndAccount() {
+        long a1 = submit(1, SYMBOL_A, 100);
+        long a2 = submit(2, SYMBOL_A, 101);
+        long a3 = submit(1, SYMBOL_A, 102);
+        long b1 = submit(1, SYMBOL_B, 200);
+
+        assertEquals(List.of(a1, a2, a3), liveIds(SYMBOL_A));
+        assertEquals(List.of(b1), liveIds(SYMBOL_B));
+        assertEquals(2, oms.liveOrderCount((short) 1, SYMBOL_A));
+        assertEquals(1, oms.liveOrderCount((short) 2, SYMBOL_A));
+        assertEquals(0, oms.liveOrderCount((short) 2, SYMBOL_B));
+
+        List<Long> account1 = new ArrayList<>();
+        oms.forEachLiveOrder((short) 1, SYMBOL_A, order -> account1.add(order.localOrderId));
+        assertEquals(List.of(a1, a3), account1);
+
+        pushStatus(a2, (byte) 5); // Filled
+        assertEquals(List.of(a1, a3), liveIds(SYMBOL_A));
+        assertNotNull(oms.getOrder(a2), "同一批次内仍可按 ID 查到终态订单");
+        assertEquals(0, oms.liveOrderCount((short) 2, SYMBOL_A));
+
+        oms.flushOrders();
+        oms.recycleTerminalOrders();
+        assertEquals(2, oms.liveOrderCount(SYMBOL_A));
+        assertEquals(List.of(a1, a3), liveIds(SYMBOL_A));
+
+        List<Long> first = new ArrayList<>();
+        assertEquals(1, oms.forEachLiveOrder(SYMBOL_A, order -> {
+            first.add(order.localOrderId);
+            return false;
+        }));
+        assertEquals(List.of(a1), first);
+    }
+
+    @Test
+    @DisplayName("按交易对批量撤单只撤该交易对的在途订单，撤单确认后摘链")
+    void cancelsAllLiveOrdersOfSymbol() {
+        long a1 = submit(1, SYMBOL_A, 100);
+        long a2 = submit(2, SYMBOL_A, 101);
+        long b1 = submit(1, SYMBOL_B, 200);
+
+        assertEquals(2, oms.cancelAllOrdersBySymbolId(SYMBOL_A));
+        assertEquals(List.of(a1, a2), gateway.cancels);
+        assertEquals(2, oms.getOrdersBySymbolId(SYMBOL_A).size(), "撤单确认前仍是在途订单（PendingCancel）");
+
+        pushStatus(a1, (byte) 6);
+        pushStatus(a2, (byte) 6);
+        assertEquals(0, oms.liveOrderCount(SYMBOL_A));
+        assertTrue(oms.getOrdersBySymbolId(SYMBOL_A).isEmpty());
+        assertEquals(List.of(b1), liveIds(SYMBOL_B));
+        assertEquals(0, oms.cancelAllOrdersBySymbolId((short) 99));
+    }
+}
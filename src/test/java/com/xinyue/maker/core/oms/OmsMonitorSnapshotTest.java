@@ -0,0 +1,113 @@
+package com.xinyue.maker.core.oms;
+
+import com.xinyue.maker.common.CoreEvent;
+import com.xinyue.maker.common.Exchange;
+import com.xinyue.maker.common.OrderCommand;
+import com.xinyue.maker.common.TransferCommand;
+import com.xinyue.maker.config.OmsConfig;
+import com.xinyue.maker.core.gateway.ExecutionGateway;
+import com.xinyue.maker.infra.MetricsService;
+import com.xinyue.maker.io.output.ExecutionGatewayManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 监控快照测试：L2 按间隔发布 PendingNew 订单与耗时统计的拷贝，发布后不随 OMS 状态变化。
+ */
+@DisplayName("OMS 监控快照测试")
+class OmsMonitorSnapshotTest {
+
+    private static final short ACCOUNT_ID = 3;
+    private static final short SYMBOL_ID = 5;
+
+    private static final class NoopGateway implements ExecutionGateway {
+        @Override
+        public void sendOrder(OrderCommand cmd) {
+        }
+
+        @Override
+        public void transfer(TransferCommand cmd) {
+        }
+    }
+
+    private static OrderManagementSystem newOms(int intervalMillis) {
+        ExecutionGatewayManager gatewayManager = new ExecutionGatewayManager().register(Exchange.DYDX, new NoopGateway());
+        OrderManagementSystem oms = new OrderManagementSystem(new MetricsService(), null, gatewayManager, null,
+                new OmsConfig(64, 64, intervalMillis));
+        oms.enableOrderBatching(); // 测试线程充当 L2 线程
+        return oms;
+    }
+
+    private static long submit(OrderManagementSystem oms) {
+        OrderCommand cmd = oms.acquireCommand();
+        cmd.accountId = ACCOUNT_ID;
+        cmd.symbolId = SYMBOL_ID;
+        cmd.exchangeId = Exchange.DYDX.id();
+        cmd.side = 1;
+        cmd.priceE8 = 100_00000000L;
+        cmd.qtyE8 = 1_00000000L;
+        oms.submitOrder(cmd);
+        long localOrderId = cmd.internalOrderId;
+        oms.releaseCommand(cmd);
+        return localOrderId;
+    }
+
+    private static void endOfBatch(OrderManagementSystem oms) {
+        oms.flushOrders();
+        oms.recycleTerminalOrders();
+        oms.publishMonitorSnapshot();
+    }
+
+    @Test
+    @DisplayName("快照拷贝 PendingNew 订单与账户耗时统计，订单离开 PendingNew 后旧快照不变")
+    void publishesImmutableCopies() {
+        OrderManagementSystem oms = newOms(0);
+        assertEquals(0L, oms.monitorSnapshot().publishedNanos(), "L2 发布前为空快照");
+
+        long localOrderId = submit(oms);
+        endOfBatch(oms);
+        OmsMonitorSnapshot snapshot = oms.monitorSnapshot();
+        assertEquals(1, snapshot.pendingNewCount());
+        OmsMonitorSnapshot.PendingOrder pending = snapshot.pendingNew(0);
+        assertEquals(localOrderId, pending.localOrderId);
+        assertEquals(ACCOUNT_ID, pending.accountId);
+        assertEquals("gateway", pending.lastStage);
+        assertEquals(1, snapshot.accountCount());
+        assertEquals(ACCOUNT_ID, snapshot.accountId(0));
+        assertEquals(1, snapshot.accountLatency(0).samples(OrderLatencyStats.STAGE_SUBMIT));
+        assertEquals(1, snapshot.exchangeLatency(Exchange.DYDX.id()).samples(OrderLatencyStats.STAGE_SUBMIT));
+
+        CoreEvent update = new CoreEvent();
+        update.firstUpdateId = 1; // 增量推送
+        update.clientOidHash = localOrderId;
+        update.orderStatus = 3; // New
+        update.recvTime = System.nanoTime();
+        oms.onAccountOrderUpdate(update);
+        submit(oms);
+        endOfBatch(oms);
+
+        assertEquals(localOrderId, pending.localOrderId, "已发布的快照不随订单对象变化");
+        assertEquals(1, snapshot.accountLatency(0).samples(OrderLatencyStats.STAGE_SUBMIT));
+        OmsMonitorSnapshot next = oms.monitorSnapshot();
+        assertNotSame(snapshot, next);
+        assertEquals(1, next.pendingNewCount());
+        assertNotEquals(localOrderId, next.pendingNew(0).localOrderId);
+        assertEquals(2, next.accountLatency(0).samples(OrderLatencyStats.STAGE_SUBMIT));
+    }
+
+    @Test
+    @DisplayName("距上次发布不足间隔时不重建")
+    void rateLimitsRebuilds() {
+        OrderManagementSystem oms = newOms(60_000);
+        endOfBatch(oms);
+        OmsMonitorSnapshot first = oms.monitorSnapshot();
+        assertNotEquals(0L, first.publishedNanos(), "首个批次立即发布");
+
+        submit(oms);
+        endOfBatch(oms);
+        assertSame(first, oms.monitorSnapshot());
+        assertEquals(0, oms.monitorSnapshot().pendingNewCount());
+    }
+}
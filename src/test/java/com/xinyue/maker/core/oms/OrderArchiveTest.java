@@ -0,0 +1,98 @@
+package com.xinyue.maker.core.oms;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 终态订单归档测试：按 ID 查找、按终态时间区间查询，以及容量满后覆盖最旧记录。
+ */
+@DisplayName("终态订单归档测试")
+class OrderArchiveTest {
+
+    private final ArchivedOrder scratch = new ArchivedOrder();
+
+    private static Order terminal(long localOrderId, long terminalTime, byte status) {
+        Order order = new Order();
+        order.localOrderId = localOrderId;
+        order.accountId = 3;
+        order.symbolId = 7;
+        order.side = 1;
+        order.orderStatus = status;
+        order.priceE8 = localOrderId * 100;
+        order.qtyE8 = 10;
+        order.filledQtyE8 = status == 5 ? 10 : 0;
+        order.updateTime = terminalTime;
+        return order;
+    }
+
+    private List<Long> idsInRange(OrderArchive archive, long from, long to) {
+        List<Long> ids = new ArrayList<>();
+        archive.forEachInRange(from, to, scratch, order -> {
+            ids.add(order.localOrderId);
+            return true;
+        });
+        return ids;
+    }
+
+    @Test
+    @DisplayName("按 ID 查找返回归档时的字段拷贝")
+    void findsById() {
+        OrderArchive archive = new OrderArchive(8);
+        archive.archive(terminal(11, 1_000, (byte) 5));
+        archive.archive(terminal(12, 1_001, (byte) 6));
+
+        assertTrue(archive.find(12, scratch));
+        assertEquals(12, scratch.localOrderId);
+        assertEquals(6, scratch.orderStatus);
+        assertEquals(1_200, scratch.priceE8);
+        assertEquals(3, scratch.accountId);
+        assertEquals(1_001, scratch.terminalTime);
+        assertFalse(archive.find(99, scratch));
+        assertEquals(2, archive.size());
+    }
+
+    @Test
+    @DisplayName("时间区间查询两端包含，从旧到新，可提前结束")
+    void queriesByTerminalTime() {
+        OrderArchive archive = new OrderArchive(16);
+        for (int i = 0; i < 10; i++) {
+            archive.archive(terminal(100 + i, 1_000 + i * 10L, (byte) 6));
+        }
+
+        assertEquals(List.of(102L, 103L, 104L), idsInRange(archive, 1_020, 1_040));
+        assertEquals(List.of(), idsInRange(archive, 2_000, 3_000));
+
+        List<Long> firstTwo = new ArrayList<>();
+        int visited = archive.forEachInRange(0, Long.MAX_VALUE, scratch, order -> {
+            firstTwo.add(order.localOrderId);
+            return firstTwo.size() < 2;
+        });
+        assertEquals(2, visited);
+        assertEquals(List.of(100L, 101L), firstTwo);
+    }
+
+    @Test
+    @DisplayName("容量满后覆盖最旧记录，被覆盖的 ID 查不到；墙钟回拨时终态时间保持单调")
+    void evictsOldestWhenFull() {
+        OrderArchive archive = new OrderArchive(4);
+        for (int i = 1; i <= 6; i++) {
+            archive.archive(terminal(i, 1_000 + i, (byte) 5));
+        }
+        archive.archive(terminal(7, 900, (byte) 7)); // 墙钟回拨
+
+        assertEquals(7, archive.archived());
+        assertEquals(4, archive.size());
+        assertFalse(archive.find(1, scratch));
+        assertFalse(archive.find(3, scratch));
+        assertTrue(archive.find(4, scratch));
+        assertTrue(archive.find(7, scratch));
+        assertEquals(1_006, scratch.terminalTime);
+        assertEquals(List.of(4L, 5L, 6L, 7L), idsInRange(archive, 0, Long.MAX_VALUE));
+        assertEquals(List.of(6L, 7L), idsInRange(archive, 1_006, 1_006));
+    }
+}
@@ -0,0 +1,44 @@
+package com.xinyue.maker.core.oms;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 订单生命周期耗时统计测试：各阶段独立计数，负值忽略，分位数取桶上界。
+ */
+@DisplayName("订单生命周期耗时统计测试")
+class OrderLatencyStatsTest {
+
+    @Test
+    @DisplayName("各阶段独立统计，时钟倒退产生的负值不计入")
+    void recordsPerStage() {
+        OrderLatencyStats stats = new OrderLatencyStats();
+        stats.record(OrderLatencyStats.STAGE_ACK, 1_000);
+        stats.record(OrderLatencyStats.STAGE_ACK, 3_000);
+        stats.record(OrderLatencyStats.STAGE_ACK, -5);
+        stats.record(OrderLatencyStats.STAGE_CANCEL, 70_000);
+
+        assertEquals(2, stats.samples(OrderLatencyStats.STAGE_ACK));
+        assertEquals(2_000, stats.avgNanos(OrderLatencyStats.STAGE_ACK));
+        assertEquals(3_000, stats.maxNanos(OrderLatencyStats.STAGE_ACK));
+        assertEquals(1, stats.samples(OrderLatencyStats.STAGE_CANCEL));
+        assertEquals(0, stats.samples(OrderLatencyStats.STAGE_SUBMIT));
+        assertEquals(0, stats.percentileNanos(OrderLatencyStats.STAGE_SUBMIT, 0.99));
+    }
+
+    @Test
+    @DisplayName("分位数返回样本所在 2 的幂桶的上界")
+    void percentileIsBucketUpperBound() {
+        OrderLatencyStats stats = new OrderLatencyStats();
+        for (int i = 0; i < 99; i++) {
+            stats.record(OrderLatencyStats.STAGE_LIVE, 1_000);
+        }
+        stats.record(OrderLatencyStats.STAGE_LIVE, 1_000_000);
+
+        assertEquals(1_024, stats.percentileNanos(OrderLatencyStats.STAGE_LIVE, 0.5));
+        assertEquals(1_024, stats.percentileNanos(OrderLatencyStats.STAGE_LIVE, 0.99));
+        assertEquals(1L << 20, stats.percentileNanos(OrderLatencyStats.STAGE_LIVE, 1.0));
+    }
+}
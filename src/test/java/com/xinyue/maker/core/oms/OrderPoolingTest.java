@@ -0,0 +1,155 @@
+package com.xinyue.maker.core.oms;
+
+import com.xinyue.maker.common.AssetRegistry;
+import com.xinyue.maker.common.CoreEvent;
+import com.xinyue.maker.common.Exchange;
+import com.xinyue.maker.common.OrderCommand;
+import com.xinyue.maker.common.TransferCommand;
+import com.xinyue.maker.core.gateway.ExecutionGateway;
+import com.xinyue.maker.core.position.PositionManager;
+import com.xinyue.maker.infra.MetricsService;
+import com.xinyue.maker.io.output.ExecutionGatewayManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OMS 对象池测试：终态订单在批次结束时回收并归档，稳态下单 / 撤单 / 撤单确认（含余额预扣与释放）不产生任何堆分配。
+ */
+@DisplayName("OMS 对象池测试")
+class OrderPoolingTest {
+
+    private static final short ACCOUNT_ID = 1;
+    private static final short SYMBOL_ID = 5; // H2USDT
+    private static final long QUOTE_BALANCE_E8 = 1_000_000_00000000L;
+    private static final long PRICE_E8 = 100_00000000L;
+    private static final long QTY_E8 = 1_00000000L;
+
+    /**
+     * 模拟网关：像出站队列一样按值拷贝指令，不持有调用方对象。
+     */
+    private static final class CopyingGateway implements ExecutionGateway {
+        final OrderCommand last = new OrderCommand();
+        long sent;
+
+        @Override
+        public void sendOrder(OrderCommand cmd) {
+            last.copyFrom(cmd);
+            sent++;
+        }
+
+        @Override
+        public void transfer(TransferCommand cmd) {
+        }
+    }
+
+    private final CopyingGateway gateway = new CopyingGateway();
+    private final CoreEvent update = new CoreEvent();
+    private final short usdt = AssetRegistry.getInstance().get("USDT");
+    private PositionManager positionManager;
+    private OrderManagementSystem oms;
+
+    @BeforeEach
+    void setUp() {
+        MetricsService metricsService = new MetricsService();
+        positionManager = new PositionManager(metricsService);
+        positionManager.registerAccount(ACCOUNT_ID);
+        positionManager.updateBalances(ACCOUNT_ID, new short[]{usdt}, new long[]{QUOTE_BALANCE_E8}, 1);
+        ExecutionGatewayManager gatewayManager = new ExecutionGatewayManager().register(Exchange.DYDX, gateway);
+        oms = new OrderManagementSystem(metricsService, null, gatewayManager, positionManager);
+        oms.enableOrderBatching(); // 测试线程充当 L2 线程
+    }
+
+    private long submit() {
+        OrderCommand cmd = oms.acquireCommand();
+        cmd.accountId = ACCOUNT_ID;
+        cmd.symbolId = SYMBOL_ID;
+        cmd.exchangeId = Exchange.DYDX.id();
+        cmd.side = 0;
+        cmd.priceE8 = PRICE_E8;
+        cmd.qtyE8 = QTY_E8;
+        oms.submitOrder(cmd);
+        long localOrderId = cmd.internalOrderId;
+        oms.releaseCommand(cmd);
+        return localOrderId;
+    }
+
+    private void confirmCanceled(long localOrderId) {
+        update.firstUpdateId = 1; // 增量推送
+        update.clientOidHash = localOrderId;
+        update.orderStatus = 6; // Canceled
+        update.recvTime = System.nanoTime();
+        oms.onAccountOrderUpdate(update);
+    }
+
+    private void cycle() {
+        long localOrderId = submit();
+        oms.cancelOrder(localOrderId);
+        confirmCanceled(localOrderId);
+        oms.flushOrders();
+        oms.recycleTerminalOrders();
+    }
+
+    @Test
+    @DisplayName("终态订单在本批次内仍可查询，批次结束后移出索引并交还对象池")
+    void recyclesTerminalOrdersAtEndOfBatch() {
+        int available = oms.orderPool().available();
+        long localOrderId = submit();
+        assertEquals(available - 1, oms.orderPool().available());
+        assertEquals(2, oms.getOrder(localOrderId).orderStatus); // PendingNew
+        assertEquals(PRICE_E8, positionManager.getLockedBalance(ACCOUNT_ID, usdt), "买单预扣报价资产");
+
+        oms.cancelOrder(localOrderId);
+        assertEquals(OrderCommand.PRIORITY_CANCEL, gateway.last.priority);
+        assertEquals(localOrderId, gateway.last.internalOrderId);
+        confirmCanceled(localOrderId);
+
+        Order order = oms.getOrder(localOrderId);
+        assertNotNull(order, "同一批次内的策略回调仍能查到终态订单");
+        assertEquals(6, order.orderStatus);
+
+        oms.flushOrders();
+        oms.recycleTerminalOrders();
+        assertNull(oms.getOrder(localOrderId));
+        assertEquals(0, oms.liveOrderCount());
+        assertEquals(available, oms.orderPool().available());
+        ArchivedOrder archived = new ArchivedOrder();
+        assertTrue(oms.orderArchive().find(localOrderId, archived), "终态订单移出热索引后可在归档中查到");
+        assertEquals(6, archived.orderStatus);
+        assertEquals(0L, positionManager.getLockedBalance(ACCOUNT_ID, usdt), "撤单确认后释放预扣");
+        assertEquals(QUOTE_BALANCE_E8, positionManager.getFreeBalance(ACCOUNT_ID, usdt));
+        assertEquals(PRICE_E8, archived.priceE8);
+        assertEquals(0, order.localOrderId, "交还对象池时已重置");
+        assertEquals(oms.commandPool().capacity(), oms.commandPool().available());
+    }
+
+    @Test
+    @DisplayName("稳态下单 / 撤单 / 撤单确认循环（含余额预扣与释放）零分配")
+    void steadyStateSubmitCancelAllocatesNothing() {
+        // 预热：JIT 编译、价格档位、账户统计与交易对资产解析的一次性分配
+        for (int i = 0; i < 50_000; i++) {
+            cycle();
+        }
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long sentBefore = gateway.sent;
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 10_000; i++) {
+            cycle();
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertEquals(0L, allocated, "稳态下单 / 撤单分配了 " + allocated + " 字节");
+        assertEquals(20_000, gateway.sent - sentBefore);
+        assertEquals(0, oms.orderPool().misses());
+        assertEquals(0, oms.commandPool().misses());
+        assertEquals(0L, positionManager.getLockedBalance(ACCOUNT_ID, usdt));
+        assertEquals(QUOTE_BALANCE_E8, positionManager.getFreeBalance(ACCOUNT_ID, usdt));
+    }
+}
@@ -0,0 +1,127 @@
+package com.xinyue.maker.core.oms;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 价位索引测试：价格区间计数、同价位链表顺序、按账户挂单检查，以及随机增删后与朴素实现一致。
+ */
+@DisplayName("价位索引测试")
+class PriceLevelBookTest {
+
+    private static final short SYMBOL_ID = 5;
+
+    private long nextId = 1;
+
+    private Order order(int account, long price, long qty) {
+        Order order = new Order();
+        order.localOrderId = nextId++;
+        order.accountId = (short) account;
+        order.symbolId = SYMBOL_ID;
+        order.side = 0;
+        order.priceE8 = price;
+        order.qtyE8 = qty;
+        return order;
+    }
+
+    @Test
+    @DisplayName("同价位按挂入顺序成链，价位合计数量随成交与撤单更新，价位清空后删除")
+    void maintainsLevelsAndAggregates() {
+        PriceLevelBook book = new PriceLevelBook(SYMBOL_ID, (byte) 0);
+        Order a = order(1, 100, 5);
+        Order b = order(2, 100, 7);
+        Order c = order(1, 101, 3);
+        book.add(a);
+        book.add(b);
+        book.add(c);
+        book.add(a); // 重复挂入忽略
+
+        assertEquals(2, book.levelCount());
+        assertEquals(3, book.orderCount());
+        assertEquals(101, book.bestPrice());
+        assertEquals(12, book.qtyAt(100));
+        assertSame(a, book.firstAt(100));
+        assertSame(b, a.levelNext);
+        assertNull(b.levelNext);
+
+        b.filledQtyE8 = 4;
+        book.updateQty(b);
+        assertEquals(8, book.qtyAt(100));
+
+        assertTrue(book.hasAccountAt((short) 1, 100));
+        assertTrue(book.hasAccountAt((short) 2, 100));
+        assertFalse(book.hasAccountAt((short) 2, 101));
+
+        book.remove(a);
+        book.remove(a); // 重复移除忽略
+        assertFalse(book.hasAccountAt((short) 1, 100));
+        assertSame(b, book.firstAt(100));
+        assertEquals(3, book.qtyAt(100));
+
+        book.remove(c);
+        assertEquals(1, book.levelCount());
+        assertEquals(100, book.bestPrice());
+        assertEquals(0, book.ordersAt(101));
+        assertNull(c.priceBook);
+
+        List<Long> prices = new ArrayList<>();
+        book.forEachLevel((price, orders, qty, first) -> prices.add(price));
+        assertEquals(List.of(100L), prices);
+    }
+
+    @Test
+    @DisplayName("随机挂撤后区间计数、最优价与逐价位统计与朴素实现一致")
+    void matchesNaiveModelUnderRandomChurn() {
+        PriceLevelBook book = new PriceLevelBook(SYMBOL_ID, (byte) 1);
+        Random random = new Random(7);
+        List<Order> live = new ArrayList<>();
+        TreeMap<Long, Integer> model = new TreeMap<>();
+
+        for (int step = 0; step < 20_000; step++) {
+            if (live.isEmpty() || random.nextInt(100) < 55) {
+                Order o = order(1 + random.nextInt(3), 1_000 + random.nextInt(300), 1);
+                o.side = 1;
+                book.add(o);
+                live.add(o);
+                model.merge(o.priceE8, 1, Integer::sum);
+            } else {
+                Order o = live.remove(random.nextInt(live.size()));
+                book.remove(o);
+                model.merge(o.priceE8, -1, Integer::sum);
+                if (model.get(o.priceE8) == 0) {
+                    model.remove(o.priceE8);
+                }
+            }
+
+            if (step % 97 == 0) {
+                long min = 1_000 + random.nextInt(300);
+                long max = min + random.nextInt(120);
+                int expected = model.subMap(min, true, max, true).values().stream().mapToInt(Integer::intValue).sum();
+                assertEquals(expected, book.countOrders(min, max), "step " + step);
+                assertEquals(model.size(), book.levelCount());
+                assertEquals(live.size(), book.orderCount());
+                assertEquals(model.isEmpty() ? 0L : model.firstKey(), book.bestPrice());
+            }
+        }
+
+        for (Order o : live) {
+            assertTrue(book.hasAccountAt(o.accountId, o.priceE8));
+        }
+        List<Long> prices = new ArrayList<>();
+        List<Integer> counts = new ArrayList<>();
+        book.forEachLevel((price, orders, qty, first) -> {
+            prices.add(price);
+            counts.add(orders);
+            return true;
+        });
+        assertEquals(new ArrayList<>(model.keySet()), prices);
+        assertEquals(new ArrayList<>(model.values()), counts);
+    }
+}
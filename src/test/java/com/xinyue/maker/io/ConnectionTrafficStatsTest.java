@@ -0,0 +1,39 @@
+package com.xinyue.maker.io;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 连接吞吐 / 排队延迟统计测试。
+ */
+@DisplayName("连接流量统计测试")
+class ConnectionTrafficStatsTest {
+
+    @Test
+    @DisplayName("累计消息数、字节数与排队延迟分布，注销后不再出现在列表中")
+    void recordsMessagesAndQueueDelay() {
+        ConnectionTrafficStats stats = ConnectionTrafficStats.register("test-connection");
+        try {
+            assertTrue(ConnectionTrafficStats.all().contains(stats));
+            assertNull(stats.ioThread());
+
+            stats.onMessage(100, 0);
+            stats.onMessage(200, 1_000);
+            stats.onMessage(300, 3_000_000);
+
+            assertEquals(3, stats.messages());
+            assertEquals(600, stats.bytes());
+            assertEquals(Thread.currentThread().getName(), stats.ioThread());
+            assertEquals(3_000_000, stats.maxQueueNanos());
+            assertEquals((1_000 + 3_000_000) / 3, stats.avgQueueNanos());
+            // 前两个样本都在 2^10 以内，p50 落在第二个样本所在的桶
+            assertEquals(1L << 10, stats.percentileQueueNanos(0.5));
+            assertTrue(stats.percentileQueueNanos(0.99) >= 3_000_000);
+        } finally {
+            stats.unregister();
+        }
+        assertFalse(ConnectionTrafficStats.all().contains(stats));
+    }
+}
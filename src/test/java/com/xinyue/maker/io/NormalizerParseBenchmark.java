@@ -0,0 +1,102 @@
+package com.xinyue.maker.io;
+
+import com.lmax.disruptor.RingBuffer;
+import com.xinyue.maker.common.CoreEvent;
+import com.xinyue.maker.common.Exchange;
+import com.xinyue.maker.core.CoreEventFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Normalizer DOM（readTree）与流式解析的延迟 / 分配对比。
+ * <p>
+ * 样本取自 dYdX 实际推送（v4_subaccounts）和生成的 500 档订单簿快照。
+ * 运行：直接执行 main（附带 GC profiler，gc.alloc.rate.norm 即每条消息的分配字节数）。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NormalizerParseBenchmark {
+
+    @Param({
+            "dydx_snapshot_500",
+            "dydx_orderbook_update.json",
+            "dydx_subaccounts_subscribed.json",
+            "dydx_subaccounts_partial_fill.json",
+            "binance_depth_update.json"
+    })
+    public String payloadName;
+
+    private Normalizer normalizer;
+    private Exchange exchange;
+    private byte[] payload;
+    private ByteBuf directPayload;
+    private final CoreEvent event = new CoreEvent();
+
+    @Setup
+    public void setup() {
+        normalizer = new Normalizer(RingBuffer.createSingleProducer(new CoreEventFactory(), 16));
+        exchange = payloadName.startsWith("binance") ? Exchange.BINANCE : Exchange.DYDX;
+        payload = "dydx_snapshot_500".equals(payloadName)
+                ? Payloads.dydxSnapshot(CoreEvent.MAX_DEPTH)
+                : Payloads.load(payloadName);
+        directPayload = PooledByteBufAllocator.DEFAULT.directBuffer(payload.length);
+        directPayload.writeBytes(payload);
+    }
+
+    @TearDown
+    public void tearDown() {
+        directPayload.release();
+    }
+
+    @Benchmark
+    public CoreEvent dom() throws IOException {
+        normalizer.parseDom(exchange, payload, event);
+        return event;
+    }
+
+    @Benchmark
+    public CoreEvent streaming() throws IOException {
+        normalizer.parseStreaming(exchange, payload, event);
+        return event;
+    }
+
+    /**
+     * 与 WebSocket 帧相同的输入形态：池化直接内存，不拷贝到堆内。
+     */
+    @Benchmark
+    public CoreEvent streamingDirectByteBuf() throws IOException {
+        normalizer.parseStreaming(exchange, directPayload, event);
+        return event;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(NormalizerParseBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,294 @@
+package com.xinyue.maker.io;
+
+import com.lmax.disruptor.RingBuffer;
+import com.xinyue.maker.common.AccountOrderBatch;
+import com.xinyue.maker.common.AddressRegistry;
+import com.xinyue.maker.common.CoreEvent;
+import com.xinyue.maker.common.CoreEventType;
+import com.xinyue.maker.common.Exchange;
+import com.xinyue.maker.core.AccountSyncAssembler;
+import com.xinyue.maker.core.CoreEventFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 流式解析与 DOM 解析结果一致性测试：同一条消息两条路径写出的 CoreEvent 必须逐字段相同。
+ */
+@DisplayName("Normalizer 流式解析一致性测试")
+class NormalizerStreamingParserTest {
+
+    static {
+        // 测试 payload 中的账户地址（运行时由 DydxMarketDataConnector#configureAccountOrders 注册）
+        AddressRegistry.getInstance().register("ba1pqhys5muk0tpftmvpak87rakycs9vh3rp6rgv8", (short) 1);
+    }
+
+    private final Normalizer normalizer =
+            new Normalizer(RingBuffer.createSingleProducer(new CoreEventFactory(), 16));
+
+    @Test
+    @DisplayName("dYdX 订单簿快照（500 档）")
+    void dydxSnapshot() throws Exception {
+        CoreEvent event = assertSameAsDom(Exchange.DYDX, Payloads.dydxSnapshot(600));
+        assertEquals(CoreEventType.DEPTH_UPDATE, event.type);
+        assertEquals(-1, event.firstUpdateId);
+        assertEquals(1, event.sequence);
+        assertEquals(CoreEvent.MAX_DEPTH, event.depthCount);
+    }
+
+    @Test
+    @DisplayName("dYdX 订单簿增量")
+    void dydxIncremental() throws Exception {
+        CoreEvent event = assertSameAsDom(Exchange.DYDX, Payloads.load("dydx_orderbook_update.json"));
+        assertEquals(2, event.sequence);
+        assertEquals(9288050000000L, event.bidPrices[1]);
+        assertEquals(120340000L, event.bidQtys[1]);
+    }
+
+    @Test
+    @DisplayName("dYdX 账户订单：同步 / 新单 / 撤单 / 全部成交 / 部分成交 / 转账")
+    void dydxSubaccounts() throws Exception {
+        CoreEvent sync = assertSameAsDom(Exchange.DYDX, Payloads.load("dydx_subaccounts_subscribed.json"));
+        assertEquals(2, sync.orderCount);
+        assertEquals(982046810L, sync.orderClientIds[0]);
+        assertEquals(1767871925L, sync.orderGoodTilBlockTimeSec[0]);
+
+        assertSameAsDom(Exchange.DYDX, Payloads.load("dydx_subaccounts_new_order.json"));
+        assertSameAsDom(Exchange.DYDX, Payloads.load("dydx_subaccounts_canceled.json"));
+        assertSameAsDom(Exchange.DYDX, Payloads.load("dydx_subaccounts_filled.json"));
+
+        CoreEvent partial = assertSameAsDom(Exchange.DYDX, Payloads.load("dydx_subaccounts_partial_fill.json"));
+        assertEquals(2, partial.fillCount);
+        assertEquals(1362000000L, partial.totalFillQty);
+        assertEquals(533126548L, partial.clientOidHash);
+
+        CoreEvent transfer = assertSameAsDom(Exchange.DYDX, Payloads.load("dydx_subaccounts_transfer.json"));
+        assertEquals(1, transfer.accountId);
+        assertEquals(0, transfer.transferType);
+        assertEquals(1, transfer.assetCount);
+    }
+
+    @Test
+    @DisplayName("Binance depthUpdate / aggTrade")
+    void binance() throws Exception {
+        CoreEvent depth = assertSameAsDom(Exchange.BINANCE, Payloads.load("binance_depth_update.json"));
+        assertEquals(82233761282L, depth.firstUpdateId);
+        assertEquals(82233762460L, depth.sequence);
+
+        CoreEvent trade = assertSameAsDom(Exchange.BINANCE, Payloads.load("binance_agg_trade.json"));
+        assertEquals(CoreEventType.MARKET_DATA_TICK, trade.type);
+        assertEquals(12345L, trade.sequence);
+        assertEquals(100000L, trade.price);
+    }
+
+    @Test
+    @DisplayName("Binance 组合流（/stream）外层 {stream, data} 与原始流解析结果一致")
+    void binanceCombinedStream() throws Exception {
+        for (String name : new String[]{"binance_depth_update.json", "binance_agg_trade.json"}) {
+            byte[] raw = Payloads.load(name);
+            byte[] wrapped = ("{\"stream\":\"btcusdt@depth@100ms\",\"data\":"
+                    + new String(raw, java.nio.charset.StandardCharsets.UTF_8).trim() + "}")
+                    .getBytes(java.nio.charset.StandardCharsets.UTF_8);
+            CoreEvent expected = assertSameAsDom(Exchange.BINANCE, raw);
+            CoreEvent actual = assertSameAsDom(Exchange.BINANCE, wrapped);
+            assertSameFields(Exchange.BINANCE, expected, actual);
+        }
+    }
+
+    @Test
+    @DisplayName("ByteBuf 入口：直接内存 / 堆内 / Composite 结果一致，解析后释放")
+    void byteBufEntry() throws Exception {
+        byte[] payload = Payloads.load("dydx_subaccounts_partial_fill.json");
+        CoreEvent expected = new CoreEvent();
+        expected.reset();
+        normalizer.parseStreaming(Exchange.DYDX, payload, expected);
+
+        ByteBuf direct = PooledByteBufAllocator.DEFAULT.directBuffer(payload.length);
+        direct.writeBytes(payload);
+        byte[] padded = new byte[payload.length + 7];
+        System.arraycopy(payload, 0, padded, 7, payload.length);
+        ByteBuf heap = Unpooled.wrappedBuffer(padded, 7, payload.length);
+        CompositeByteBuf composite = Unpooled.compositeBuffer();
+        int half = payload.length / 2;
+        composite.addComponents(true,
+                Unpooled.directBuffer().writeBytes(payload, 0, half),
+                Unpooled.directBuffer().writeBytes(payload, half, payload.length - half));
+
+        for (ByteBuf buf : new ByteBuf[]{direct, heap, composite}) {
+            CoreEvent actual = new CoreEvent();
+            actual.reset();
+            normalizer.parseStreaming(Exchange.DYDX, buf, actual);
+            assertEquals(expected.clientOidHash, actual.clientOidHash);
+            assertEquals(expected.totalFillQty, actual.totalFillQty);
+            assertEquals(expected.fillCount, actual.fillCount);
+            assertEquals(0, buf.readerIndex());
+
+            normalizer.onJsonMessage(Exchange.DYDX, buf);
+            assertEquals(0, buf.refCnt());
+        }
+
+        // 解析失败同样释放
+        ByteBuf broken = Unpooled.copiedBuffer("{\"type\":\"channel_data\",\"channel\":\"v4_orderbook\",\"contents\":{\"bids\":[[\"1.x\"",
+                java.nio.charset.StandardCharsets.UTF_8);
+        normalizer.onJsonMessage(Exchange.DYDX, broken);
+        assertEquals(0, broken.refCnt());
+    }
+
+    @Test
+    @DisplayName("两阶段发布：slot 内容与直接解析一致，无效/失败消息不占用 slot")
+    void twoPhasePublish() throws Exception {
+        // slot 数少于消息数，验证 slot 复用时旧的长数组区间被正确清零
+        RingBuffer<CoreEvent> ring = RingBuffer.createSingleProducer(new CoreEventFactory(), 2);
+        Normalizer twoPhase = new Normalizer(ring);
+        Object[][] messages = {
+                {Exchange.DYDX, Payloads.dydxSnapshot(600)},
+                {Exchange.BINANCE, Payloads.load("binance_depth_update.json")},
+                {Exchange.DYDX, Payloads.load("dydx_subaccounts_subscribed.json")},
+                {Exchange.DYDX, Payloads.load("dydx_orderbook_update.json")},
+                {Exchange.DYDX, Payloads.load("dydx_subaccounts_partial_fill.json")},
+                {Exchange.BINANCE, Payloads.load("binance_agg_trade.json")},
+                {Exchange.DYDX, Payloads.load("dydx_subaccounts_transfer.json")},
+        };
+        for (Object[] message : messages) {
+            Exchange exchange = (Exchange) message[0];
+            byte[] payload = (byte[]) message[1];
+            long cursor = ring.getCursor();
+            twoPhase.onJsonMessage(exchange, payload);
+            assertEquals(cursor + 1, ring.getCursor());
+
+            CoreEvent expected = new CoreEvent();
+            expected.reset();
+            normalizer.parseStreaming(exchange, payload, expected);
+            CoreEvent published = ring.get(ring.getCursor());
+            expected.exchangeId = exchange.id();
+            expected.recvTime = published.recvTime;
+            assertSameFields(exchange, expected, published);
+        }
+
+        long cursor = ring.getCursor();
+        twoPhase.onJsonMessage(Exchange.BINANCE, "{\"result\":null,\"id\":1}".getBytes(java.nio.charset.StandardCharsets.UTF_8));
+        twoPhase.onJsonMessage(Exchange.DYDX, "{\"type\":\"channel_data\",\"channel\":\"v4_orderbook\",\"contents\":{\"bids\":[[\"1.x\""
+                .getBytes(java.nio.charset.StandardCharsets.UTF_8));
+        assertEquals(cursor, ring.getCursor());
+
+        // 失败之后暂存事件已恢复干净，后续消息不受影响
+        byte[] payload = Payloads.load("dydx_orderbook_update.json");
+        twoPhase.onJsonMessage(Exchange.DYDX, payload);
+        CoreEvent expected = new CoreEvent();
+        expected.reset();
+        normalizer.parseStreaming(Exchange.DYDX, payload, expected);
+        CoreEvent published = ring.get(ring.getCursor());
+        expected.exchangeId = Exchange.DYDX.id();
+        expected.recvTime = published.recvTime;
+        assertSameFields(Exchange.DYDX, expected, published);
+    }
+
+    @Test
+    @DisplayName("大账户全量同步：header / chunk / commit 分块发布，L2 重组后不丢单")
+    void largeAccountSyncIsChunked() {
+        int orders = 200;
+        int assets = 40;
+        RingBuffer<CoreEvent> ring = RingBuffer.createSingleProducer(new CoreEventFactory(), 16);
+        Normalizer chunked = new Normalizer(ring);
+        AccountSyncAssembler assembler = new AccountSyncAssembler();
+
+        long cursor = ring.getCursor();
+        chunked.onJsonMessage(Exchange.DYDX, Payloads.dydxSubaccountSync(orders, assets));
+        int chunks = 4; // ceil(200 / 64) 与 ceil(40 / 32) 取大
+        assertEquals(cursor + chunks + 2, ring.getCursor());
+
+        AccountOrderBatch batch = null;
+        for (int i = 0; i < chunks + 2; i++) {
+            CoreEvent event = ring.get(cursor + 1 + i);
+            CoreEventType expectedType = i == 0 ? CoreEventType.ACCOUNT_SYNC_BEGIN
+                    : i <= chunks ? CoreEventType.ACCOUNT_SYNC_CHUNK : CoreEventType.ACCOUNT_SYNC_COMMIT;
+            assertEquals(expectedType, event.type);
+            assertEquals(i, event.batchIndex);
+            assertEquals(1, event.accountId);
+            assertEquals(-1, event.firstUpdateId);
+            assertEquals(1, event.sequence);
+            assertTrue(event.orderCount <= CoreEvent.MAX_ORDERS);
+            assertTrue(event.assetCount <= CoreEvent.MAX_ASSETS);
+            if (event.orderCount < CoreEvent.MAX_ORDERS) {
+                assertEquals(0L, event.orderClientIds[event.orderCount]);
+            }
+            batch = assembler.onEvent(event);
+            assertEquals(i == chunks + 1, batch != null);
+        }
+
+        assertEquals(0, assembler.pendingCount());
+        assertEquals(orders, batch.orderCount);
+        assertEquals(assets, batch.assetCount);
+        for (int i = 0; i < orders; i++) {
+            assertEquals(1000 + i, batch.orderClientIds[i]);
+            assertEquals((100L + i) * 100_000_000L, batch.orderPrices[i]);
+            assertEquals(i % 2, batch.orderSides[i]);
+            assertEquals(2, batch.orderSymbolIds[i]);
+        }
+        for (int i = 0; i < assets; i++) {
+            assertEquals((i % 5) + 1, batch.assetIds[i]);
+            assertEquals(i * 100_000_000L + 50_000_000L, batch.assetBalances[i]);
+        }
+
+        // 缺块：commit 时丢弃整个批次，不应用半个快照
+        CoreEvent begin = new CoreEvent();
+        begin.reset();
+        begin.type = CoreEventType.ACCOUNT_SYNC_BEGIN;
+        begin.accountId = 7;
+        begin.batchId = 99;
+        assertNull(assembler.onEvent(begin));
+        begin.type = CoreEventType.ACCOUNT_SYNC_COMMIT;
+        begin.batchIndex = 2;
+        assertNull(assembler.onEvent(begin));
+        assertEquals(0, assembler.pendingCount());
+
+        // 能放进单个事件的快照仍按原来的 ACCOUNT_ORDER_UPDATE 发布
+        cursor = ring.getCursor();
+        chunked.onJsonMessage(Exchange.DYDX, Payloads.dydxSubaccountSync(CoreEvent.MAX_ORDERS, 3));
+        assertEquals(cursor + 1, ring.getCursor());
+        CoreEvent single = ring.get(ring.getCursor());
+        assertEquals(CoreEventType.ACCOUNT_ORDER_UPDATE, single.type);
+        assertEquals(CoreEvent.MAX_ORDERS, single.orderCount);
+        assertEquals(3, single.assetCount);
+    }
+
+    private CoreEvent assertSameAsDom(Exchange exchange, byte[] payload) throws Exception {
+        CoreEvent dom = new CoreEvent();
+        dom.reset();
+        normalizer.parseDom(exchange, payload, dom);
+
+        CoreEvent streaming = new CoreEvent();
+        streaming.reset();
+        normalizer.parseStreaming(exchange, payload, streaming);
+        // 同一对象连续解析两次，验证暂存状态不会残留
+        normalizer.parseStreaming(exchange, payload, streaming);
+
+        assertSameFields(exchange, dom, streaming);
+        assertNotEquals(CoreEventType.NONE, streaming.type);
+        return streaming;
+    }
+
+    private static void assertSameFields(Exchange exchange, CoreEvent expectedEvent, CoreEvent actualEvent) throws Exception {
+        for (Field field : CoreEvent.class.getFields()) {
+            if (Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            // dYdX 消息没有交易所时间戳，两条路径各自取 System.currentTimeMillis()
+            if (exchange == Exchange.DYDX && "timestamp".equals(field.getName())) {
+                continue;
+            }
+            Object expected = field.get(expectedEvent);
+            Object actual = field.get(actualEvent);
+            assertTrue(Objects.deepEquals(expected, actual), "字段不一致: " + field.getName());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.xinyue.maker.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * 测试 / 基准共用的交易所消息样本（src/test/resources/payloads，取自实际推送）。
+ */
+final class Payloads {
+
+    private Payloads() {
+    }
+
+    static byte[] load(String name) {
+        try (InputStream in = Payloads.class.getResourceAsStream("/payloads/" + name)) {
+            if (in == null) {
+                throw new IllegalArgumentException("样本不存在: " + name);
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 生成 dYdX v4_orderbook 全量快照（subscribed），买卖各 levels 档。
+     */
+    static byte[] dydxSnapshot(int levels) {
+        StringBuilder sb = new StringBuilder(levels * 80);
+        sb.append("{\"type\":\"subscribed\",\"connection_id\":\"4d7dad40-4581-4393-adcf-b7bb6039f4fe\",")
+                .append("\"message_id\":1,\"channel\":\"v4_orderbook\",\"id\":\"BTC-USDT\",\"contents\":{\"bids\":[");
+        for (int i = 0; i < levels; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"price\":\"").append(93057 - i).append('.').append(i % 10)
+                    .append("\",\"size\":\"0.").append(2978 + i).append("\"}");
+        }
+        sb.append("],\"asks\":[");
+        for (int i = 0; i < levels; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"price\":\"").append(93058 + i).append('.').append(i % 10)
+                    .append("\",\"size\":\"").append(i % 7).append(".625\"}");
+        }
+        sb.append("]}}");
+        return sb.toString().getBytes(java.nio.charset.StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 生成 dYdX v4_subaccounts 全量同步（subscribed），orders 个挂单 + assets 个资产。
+     * 第 i 个订单 clientId = 1000 + i、price = 100 + i；第 i 个资产余额 = i + 0.5。
+     */
+    static byte[] dydxSubaccountSync(int orders, int assets) {
+        String[] symbols = {"USDT", "ORCL", "BTC", "ETH", "H2"};
+        StringBuilder sb = new StringBuilder(orders * 300 + assets * 80);
+        sb.append("{\"type\":\"subscribed\",\"connection_id\":\"4d7dad40-4581-4393-adcf-b7bb6039f4fe\",")
+                .append("\"message_id\":1,\"channel\":\"v4_subaccounts\",")
+                .append("\"id\":\"ba1pqhys5muk0tpftmvpak87rakycs9vh3rp6rgv8/0\",\"contents\":{\"orders\":[");
+        for (int i = 0; i < orders; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"clientId\":\"").append(1000 + i)
+                    .append("\",\"clobPairId\":\"1000001\",\"side\":\"").append(i % 2 == 0 ? "BUY" : "SELL")
+                    .append("\",\"size\":\"").append(1 + i % 5).append("\",\"totalFilled\":\"0\",\"price\":\"")
+                    .append(100 + i).append("\",\"status\":\"OPEN\",\"orderFlags\":\"64\",")
+                    .append("\"goodTilBlockTime\":\"2026-01-08T11:32:05.000Z\",\"ticker\":\"ETH-USDT\"}");
+        }
+        sb.append("],\"assetPositions\":[");
+        for (int i = 0; i < assets; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"symbol\":\"").append(symbols[i % symbols.length])
+                    .append("\",\"side\":\"LONG\",\"size\":\"").append(i).append(".5\"}");
+        }
+        sb.append("]}}");
+        return sb.toString().getBytes(java.nio.charset.StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,164 @@
+package com.xinyue.maker.io;
+
+import com.xinyue.maker.common.Exchange;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.DecoderException;
+import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtension;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * permessage-deflate 解压测试：单帧消息、跨消息上下文复用、分片消息、未压缩透传、解压上限与流量统计。
+ * 压缩端用 JDK Deflater（nowrap + SYNC_FLUSH 并去掉 00 00 ff ff 尾部），与 RFC 7692 发送端一致。
+ */
+@DisplayName("permessage-deflate 池化解压测试")
+class PooledDeflateExtensionTest {
+
+    private static final String DEPTH = "{\"e\":\"depthUpdate\",\"E\":1700000000000,\"s\":\"REDUSDT\",\"U\":100,\"u\":105,"
+            + "\"b\":[[\"0.2500\",\"10.0\"],[\"0.2499\",\"20.0\"]],\"a\":[[\"0.2501\",\"5.0\"],[\"0.2502\",\"8.0\"]]}";
+
+    private static byte[] compress(Deflater deflater, String text) {
+        byte[] input = text.getBytes(StandardCharsets.UTF_8);
+        deflater.setInput(input);
+        byte[] buf = new byte[input.length + 64];
+        int n = deflater.deflate(buf, 0, buf.length, Deflater.SYNC_FLUSH);
+        // 去掉 sync flush 尾部 00 00 ff ff
+        return Arrays.copyOf(buf, n - 4);
+    }
+
+    private static EmbeddedChannel channel(boolean serverNoContext, int maxInflatedBytes) {
+        return new EmbeddedChannel(new PooledDeflateExtension.Decoder(Exchange.Test, serverNoContext, maxInflatedBytes));
+    }
+
+    private static String readText(EmbeddedChannel ch) {
+        WebSocketFrame frame = ch.readInbound();
+        assertNotNull(frame);
+        try {
+            assertEquals(0, frame.rsv() & WebSocketExtension.RSV1, "解压后应清除 RSV1");
+            return frame.content().toString(StandardCharsets.UTF_8);
+        } finally {
+            frame.release();
+        }
+    }
+
+    @Test
+    @DisplayName("单帧压缩消息解压为原文")
+    void inflatesSingleFrame() {
+        Deflater deflater = new Deflater(6, true);
+        EmbeddedChannel ch = channel(false, 1 << 20);
+
+        ch.writeInbound(new TextWebSocketFrame(true, WebSocketExtension.RSV1,
+                Unpooled.wrappedBuffer(compress(deflater, DEPTH))));
+
+        assertEquals(DEPTH, readText(ch));
+        assertFalse(ch.finish());
+        deflater.end();
+    }
+
+    @Test
+    @DisplayName("服务端保留上下文：后续消息引用前一条消息的字典")
+    void keepsContextAcrossMessages() {
+        Deflater deflater = new Deflater(6, true);
+        EmbeddedChannel ch = channel(false, 1 << 20);
+
+        byte[] first = compress(deflater, DEPTH);
+        byte[] second = compress(deflater, DEPTH);
+        assertTrue(second.length < first.length, "第二条消息应引用第一条的字典");
+
+        ch.writeInbound(new TextWebSocketFrame(true, WebSocketExtension.RSV1, Unpooled.wrappedBuffer(first)));
+        ch.writeInbound(new TextWebSocketFrame(true, WebSocketExtension.RSV1, Unpooled.wrappedBuffer(second)));
+
+        assertEquals(DEPTH, readText(ch));
+        assertEquals(DEPTH, readText(ch));
+        assertFalse(ch.finish());
+        deflater.end();
+    }
+
+    @Test
+    @DisplayName("分片消息：首帧带 RSV1，continuation 帧继续解压")
+    void inflatesFragmentedMessage() {
+        Deflater deflater = new Deflater(6, true);
+        EmbeddedChannel ch = channel(false, 1 << 20);
+
+        byte[] compressed = compress(deflater, DEPTH);
+        int half = compressed.length / 2;
+        ch.writeInbound(new TextWebSocketFrame(false, WebSocketExtension.RSV1,
+                Unpooled.wrappedBuffer(Arrays.copyOfRange(compressed, 0, half))));
+        ch.writeInbound(new ContinuationWebSocketFrame(true, 0,
+                Unpooled.wrappedBuffer(Arrays.copyOfRange(compressed, half, compressed.length))));
+
+        StringBuilder text = new StringBuilder();
+        WebSocketFrame frame;
+        while ((frame = ch.readInbound()) != null) {
+            text.append(frame.content().toString(StandardCharsets.UTF_8));
+            frame.release();
+        }
+        assertEquals(DEPTH, text.toString());
+        assertFalse(ch.finish());
+        deflater.end();
+    }
+
+    @Test
+    @DisplayName("未压缩消息与控制帧原样透传")
+    void passesThroughUncompressed() {
+        EmbeddedChannel ch = channel(false, 1 << 20);
+
+        ch.writeInbound(new TextWebSocketFrame(DEPTH));
+        ch.writeInbound(new PingWebSocketFrame());
+
+        assertEquals(DEPTH, readText(ch));
+        WebSocketFrame ping = ch.readInbound();
+        assertInstanceOf(PingWebSocketFrame.class, ping);
+        ping.release();
+        assertFalse(ch.finish());
+    }
+
+    @Test
+    @DisplayName("解压后超过上限：报错并关闭连接")
+    void rejectsOversizedMessage() {
+        Deflater deflater = new Deflater(6, true);
+        EmbeddedChannel ch = channel(false, 64);
+
+        ByteBuf content = Unpooled.wrappedBuffer(compress(deflater, DEPTH));
+        assertThrows(DecoderException.class,
+                () -> ch.writeInbound(new TextWebSocketFrame(true, WebSocketExtension.RSV1, content)));
+        assertFalse(ch.isActive());
+        deflater.end();
+    }
+
+    @Test
+    @DisplayName("流量统计：记录压缩帧数、线上字节与解压后字节")
+    void recordsTrafficStats() {
+        FeedTrafficStats stats = FeedTrafficStats.of(Exchange.Test);
+        long framesBefore = stats.compressedFrames();
+        long wireBefore = stats.wireBytes();
+        long payloadBefore = stats.payloadBytes();
+
+        Deflater deflater = new Deflater(6, true);
+        EmbeddedChannel ch = channel(false, 1 << 20);
+        byte[] compressed = compress(deflater, DEPTH);
+        ch.writeInbound(new TextWebSocketFrame(true, WebSocketExtension.RSV1, Unpooled.wrappedBuffer(compressed)));
+        String text = readText(ch);
+        // 连接处理器收到完整消息时计入 payload
+        stats.onMessage(text.length());
+
+        assertEquals(framesBefore + 1, stats.compressedFrames());
+        assertEquals(payloadBefore + DEPTH.length(), stats.payloadBytes());
+        assertEquals(wireBefore + compressed.length, stats.wireBytes());
+        assertTrue(stats.compressionRatio() > 1.0);
+        assertFalse(ch.finish());
+        deflater.end();
+    }
+}
@@ -0,0 +1,148 @@
+package com.xinyue.maker.io.input;
+
+import io.netty.channel.Channel;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 连接监管测试：备用连接切换、退避重连、订阅重放、主动关闭不重连、退避时长范围。
+ * 连接用 EmbeddedChannel 代替，close() 即模拟断线。
+ */
+@DisplayName("连接监管（断线恢复）测试")
+class ConnectionSupervisorTest {
+
+    private static final long BASE = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long MAX = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private ConnectionSupervisor supervisor;
+
+    @AfterEach
+    void tearDown() {
+        if (supervisor != null) {
+            supervisor.close();
+        }
+    }
+
+    @Test
+    @DisplayName("活动连接断开：立即切换到预热的备用连接并重放订阅")
+    void promotesStandby() throws Exception {
+        FakeLink link = new FakeLink(0);
+        supervisor = new ConnectionSupervisor("test", link, BASE, MAX, true);
+        supervisor.start();
+        Channel first = supervisor.channel();
+        assertEquals(List.of(first), link.activated);
+        await(supervisor::hasStandby);
+
+        first.close();
+
+        assertEquals(1, link.lost.get());
+        Channel promoted = supervisor.channel();
+        assertNotNull(promoted);
+        assertNotSame(first, promoted);
+        assertEquals(List.of(first, promoted), link.activated);
+        assertEquals(1, supervisor.disconnects());
+        assertEquals(1, supervisor.standbyPromotions());
+        assertEquals(1, supervisor.recoveries());
+        // 切换后重新预热备用连接
+        await(supervisor::hasStandby);
+    }
+
+    @Test
+    @DisplayName("无备用连接：按退避重试直到成功，期间失败计数")
+    void reconnectsWithBackoff() throws Exception {
+        FakeLink link = new FakeLink(0);
+        supervisor = new ConnectionSupervisor("test", link, BASE, MAX, false);
+        supervisor.start();
+        link.failures.set(3);
+
+        supervisor.channel().close();
+
+        assertEquals(1, link.lost.get());
+        await(() -> supervisor.isActive());
+        assertEquals(3, supervisor.failedAttempts());
+        assertEquals(1, supervisor.recoveries());
+        assertEquals(2, link.activated.size());
+        assertTrue(supervisor.lastRecoverNanos() > 0);
+        assertFalse(supervisor.hasStandby());
+    }
+
+    @Test
+    @DisplayName("主动关闭后不再重连")
+    void closeDoesNotReconnect() throws Exception {
+        FakeLink link = new FakeLink(0);
+        supervisor = new ConnectionSupervisor("test", link, BASE, MAX, false);
+        supervisor.start();
+        Channel channel = supervisor.channel();
+
+        supervisor.close();
+        Thread.sleep(50);
+
+        assertFalse(channel.isActive());
+        assertNull(supervisor.channel());
+        assertEquals(0, link.lost.get());
+        assertEquals(1, link.opened.get());
+        assertEquals(0, supervisor.disconnects());
+    }
+
+    @Test
+    @DisplayName("退避时长：[d/2, d]，d 按 2 倍增长并封顶")
+    void backoffBounds() {
+        for (int i = 0; i < 1000; i++) {
+            long first = ConnectionSupervisor.backoffNanos(1, BASE, MAX);
+            assertTrue(first >= BASE / 2 && first <= BASE, "attempt 1: " + first);
+            long third = ConnectionSupervisor.backoffNanos(3, BASE, MAX);
+            assertTrue(third >= 2 * BASE && third <= 4 * BASE, "attempt 3: " + third);
+            long capped = ConnectionSupervisor.backoffNanos(60, BASE, MAX);
+            assertTrue(capped >= MAX / 2 && capped <= MAX, "attempt 60: " + capped);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "等待超时");
+            Thread.sleep(1);
+        }
+    }
+
+    private static final class FakeLink implements ConnectionSupervisor.Link {
+
+        final AtomicInteger failures;
+        final AtomicInteger opened = new AtomicInteger();
+        final AtomicInteger lost = new AtomicInteger();
+        final List<Channel> activated = new CopyOnWriteArrayList<>();
+
+        FakeLink(int failures) {
+            this.failures = new AtomicInteger(failures);
+        }
+
+        @Override
+        public Channel open() {
+            if (failures.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                throw new IllegalStateException("connection refused");
+            }
+            opened.incrementAndGet();
+            return new EmbeddedChannel();
+        }
+
+        @Override
+        public void activate(Channel channel) {
+            activated.add(channel);
+        }
+
+        @Override
+        public void onLost() {
+            lost.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.xinyue.maker.io.input;
+
+import com.xinyue.maker.common.RawIdResolver;
+import com.xinyue.maker.common.SymbolRegistry;
+import com.xinyue.maker.io.parser.BinanceSequenceScanner;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 冗余行情仲裁测试：先到先得、重复丢弃、补洞、落后时间统计、仲裁与转发的原子性、并发下每条消息恰好转发一次、消息头序号扫描。
+ */
+@DisplayName("A/B 冗余行情仲裁器测试")
+class FeedArbiterTest {
+
+    private static final long DEPTH_BTC = (2L << 32) | 1;
+    private static final long DEPTH_ETH = (2L << 32) | 2;
+
+    @Test
+    @DisplayName("先到的副本转发，后到的副本丢弃并记录落后时间")
+    void firstArrivalWins() {
+        FeedArbiter arbiter = new FeedArbiter(2);
+        assertTrue(arbiter.offer(0, DEPTH_BTC, 100, 1_000));
+        assertFalse(arbiter.offer(1, DEPTH_BTC, 100, 1_250));
+        assertTrue(arbiter.offer(1, DEPTH_BTC, 101, 2_000));
+        assertFalse(arbiter.offer(0, DEPTH_BTC, 101, 2_900));
+
+        FeedArbiter.LegStats a = arbiter.leg(0);
+        FeedArbiter.LegStats b = arbiter.leg(1);
+        assertEquals(1, a.wins());
+        assertEquals(1, a.duplicates());
+        assertEquals(900, a.lagMaxNanos());
+        assertEquals(1, b.wins());
+        assertEquals(1, b.duplicates());
+        assertEquals(250, b.lagAvgNanos());
+        assertEquals(0.5, b.leadRatio());
+        assertTrue(b.lagPercentileNanos(0.99) >= 250);
+    }
+
+    @Test
+    @DisplayName("不同流独立仲裁；序号跳跃计数；早于转发记录窗口的旧序号丢弃")
+    void streamsAreIndependent() {
+        FeedArbiter arbiter = new FeedArbiter(2);
+        assertTrue(arbiter.offer(0, DEPTH_BTC, 10, 0));
+        assertTrue(arbiter.offer(0, DEPTH_ETH, 10, 0));
+        assertTrue(arbiter.offer(1, DEPTH_BTC, 15, 0));
+        assertEquals(1, arbiter.leg(1).gapsAhead());
+        // 比该流转发过的最小序号还旧，无法判断是否转发过
+        assertFalse(arbiter.offer(0, DEPTH_BTC, 9, 0));
+        assertEquals(1, arbiter.leg(0).lagUnknown());
+        assertTrue(arbiter.offer(1, DEPTH_ETH, 11, 0));
+    }
+
+    @Test
+    @DisplayName("快的 leg 漏掉的序号由慢的 leg 补上，只有真正转发过的序号才判为重复")
+    void slowLegFillsFastLegGap() {
+        FeedArbiter arbiter = new FeedArbiter(2);
+        assertTrue(arbiter.offer(0, DEPTH_BTC, 1, 100));
+        assertTrue(arbiter.offer(0, DEPTH_BTC, 3, 300)); // 快的 leg 漏了 2
+        assertFalse(arbiter.offer(1, DEPTH_BTC, 1, 150));
+        assertTrue(arbiter.offer(1, DEPTH_BTC, 2, 250), "2 没有转发过，由慢的 leg 补上");
+        assertFalse(arbiter.offer(1, DEPTH_BTC, 3, 350));
+        assertFalse(arbiter.offer(0, DEPTH_BTC, 2, 400), "补上之后再到的副本是重复");
+
+        FeedArbiter.LegStats fast = arbiter.leg(0);
+        FeedArbiter.LegStats slow = arbiter.leg(1);
+        assertEquals(2, fast.wins());
+        assertEquals(1, fast.gapsAhead());
+        assertEquals(1, fast.duplicates());
+        assertEquals(1, slow.wins());
+        assertEquals(1, slow.gapFills());
+        assertEquals(2, slow.duplicates());
+        assertEquals(2, slow.lagSamples());
+        assertEquals(50, slow.lagMaxNanos());
+        assertEquals(150, fast.lagMaxNanos());
+    }
+
+    @Test
+    @DisplayName("转发在流锁内完成：后仲裁的 leg 必须等先胜出的 leg 转发完才能转发")
+    void forwardIsAtomicWithArbitration() throws Exception {
+        FeedArbiter arbiter = new FeedArbiter(2);
+        List<Long> published = new ArrayList<>();
+        CountDownLatch aInside = new CountDownLatch(1);
+        CountDownLatch releaseA = new CountDownLatch(1);
+        Consumer<Long> blockingPublish = u -> {
+            aInside.countDown();
+            try {
+                releaseA.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (published) {
+                published.add(u);
+            }
+        };
+        Consumer<Long> publish = u -> {
+            synchronized (published) {
+                published.add(u);
+            }
+        };
+
+        // leg 0 赢得 u=1，在转发（claim + publish）途中停住
+        Thread legA = new Thread(() -> arbiter.offer(0, DEPTH_BTC, 1, 1L, blockingPublish));
+        legA.start();
+        assertTrue(aInside.await(5, TimeUnit.SECONDS));
+
+        // leg 1 带着 u=2 到达：不能在 u=1 发布之前发布
+        CountDownLatch bDone = new CountDownLatch(1);
+        Thread legB = new Thread(() -> {
+            arbiter.offer(1, DEPTH_BTC, 2, 2L, publish);
+            bDone.countDown();
+        });
+        legB.start();
+        assertFalse(bDone.await(100, TimeUnit.MILLISECONDS), "leg 1 在 leg 0 转发完成前不应返回");
+        synchronized (published) {
+            assertTrue(published.isEmpty());
+        }
+
+        releaseA.countDown();
+        legA.join();
+        legB.join();
+        assertEquals(List.of(1L, 2L), published);
+        assertFalse(arbiter.offer(1, DEPTH_BTC, 1, 1L, publish));
+        assertEquals(List.of(1L, 2L), published, "重复副本不转发");
+    }
+
+    @Test
+    @DisplayName("同一 leg 重放不计入落后统计")
+    void sameLegReplayIsNotLag() {
+        FeedArbiter arbiter = new FeedArbiter(2);
+        assertTrue(arbiter.offer(0, DEPTH_BTC, 1, 0));
+        assertFalse(arbiter.offer(0, DEPTH_BTC, 1, 5_000));
+        assertEquals(1, arbiter.leg(0).duplicates());
+        assertEquals(0, arbiter.leg(0).lagSamples());
+    }
+
+    @Test
+    @DisplayName("两条 leg 并发送达同一序列：每条消息恰好转发一次，且按序号顺序转发")
+    void concurrentLegsForwardEachMessageOnce() throws Exception {
+        int messages = 200_000;
+        FeedArbiter arbiter = new FeedArbiter(2);
+        long[] forwarded = new long[messages];
+        int[] count = {0};
+        Consumer<Long> publish = u -> forwarded[count[0]++] = u; // 在流锁内调用，无需额外同步
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[2];
+        for (int leg = 0; leg < 2; leg++) {
+            int l = leg;
+            threads[leg] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (long seq = 1; seq <= messages; seq++) {
+                    arbiter.offer(l, DEPTH_BTC, seq, seq, publish);
+                }
+            });
+            threads[leg].start();
+        }
+        start.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+        FeedArbiter.LegStats a = arbiter.leg(0);
+        FeedArbiter.LegStats b = arbiter.leg(1);
+        assertEquals(messages, a.wins() + b.wins());
+        assertEquals(messages, a.duplicates() + b.duplicates());
+        assertEquals(messages, count[0]);
+        for (int i = 0; i < messages; i++) {
+            assertEquals(i + 1, forwarded[i]);
+        }
+    }
+
+    @Test
+    @DisplayName("消息头扫描：depthUpdate 取 u，aggTrade 取 a，订阅响应放行")
+    void scanner() throws Exception {
+        BinanceSequenceScanner scanner = new BinanceSequenceScanner(RawIdResolver.forSymbols(SymbolRegistry.getInstance()));
+
+        byte[] depth = ("{\"e\":\"depthUpdate\",\"E\":1672515782136,\"s\":\"BTCUSDT\",\"U\":82233761282,\"u\":82233762460,"
+                + "\"b\":[[\"86818.34\",\"0.17882\"]],\"a\":[[\"86818.35\",\"0.625\"]]}").getBytes(StandardCharsets.UTF_8);
+        assertTrue(scanner.scan(depth, 0, depth.length));
+        assertEquals(82233762460L, scanner.sequence());
+        long depthKey = scanner.streamKey();
+
+        byte[] trade = ("{\"e\":\"aggTrade\",\"E\":1672515782136,\"s\":\"BNBUSDT\",\"a\":12345,\"p\":\"0.001\",\"q\":\"100\"}")
+                .getBytes(StandardCharsets.UTF_8);
+        assertTrue(scanner.scan(trade, 0, trade.length));
+        assertEquals(12345L, scanner.sequence());
+        assertNotEquals(depthKey, scanner.streamKey());
+        assertNotEquals(0L, scanner.streamKey());
+
+        // 组合流外层 {stream, data}
+        byte[] wrapped = ("{\"stream\":\"btcusdt@depth@100ms\",\"data\":" + new String(depth, StandardCharsets.UTF_8) + "}")
+                .getBytes(StandardCharsets.UTF_8);
+        assertTrue(scanner.scan(wrapped, 0, wrapped.length));
+        assertEquals(82233762460L, scanner.sequence());
+        assertEquals(depthKey, scanner.streamKey());
+
+        byte[] ack = "{\"result\":null,\"id\":1}".getBytes(StandardCharsets.UTF_8);
+        assertFalse(scanner.scan(ack, 0, ack.length));
+    }
+}
@@ -0,0 +1,141 @@
+package com.xinyue.maker.io.input;
+
+import com.lmax.disruptor.RingBuffer;
+import com.xinyue.maker.common.CoreEvent;
+import com.xinyue.maker.common.Exchange;
+import com.xinyue.maker.core.CoreEventFactory;
+import com.xinyue.maker.io.Normalizer;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 冗余行情端到端测试：本地起两个 WebSocket 服务模拟 Binance，推送相同的 depthUpdate 序列，
+ * 其中一路注入固定延迟；验证每条消息只发布一次且按序号顺序进入 ring。
+ * 哪一路胜出取决于 IO 线程调度，这里不断言；具体交错由 FeedArbiterTest 直接驱动仲裁器覆盖。
+ */
+@DisplayName("A/B 冗余行情端到端测试")
+class RedundantMarketDataConnectorTest {
+
+    private static final int MESSAGES = 200;
+    private static final long SLOW_DELAY_MILLIS = 20;
+
+    private final EventLoopGroup serverGroup = new NioEventLoopGroup(2);
+    private final List<Channel> servers = new ArrayList<>();
+    private RedundantMarketDataConnector connector;
+
+    @AfterEach
+    void tearDown() {
+        if (connector != null) {
+            connector.stop();
+        }
+        servers.forEach(Channel::close);
+        serverGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("快慢两路：每条消息只发布一次，ring 中按序号顺序排列")
+    void slowLegIsDeduplicated() throws Exception {
+        URI fast = startServer(0);
+        URI slow = startServer(SLOW_DELAY_MILLIS);
+
+        RingBuffer<CoreEvent> ringBuffer = RingBuffer.createMultiProducer(new CoreEventFactory(), 1024);
+        Normalizer normalizer = new Normalizer(ringBuffer);
+        connector = new AccessLayerCoordinator().registerRedundant(Exchange.BINANCE, normalizer, List.of(fast, slow));
+        connector.start();
+
+        FeedArbiter arbiter = connector.arbiter();
+        FeedArbiter.LegStats fastLeg = arbiter.leg(0);
+        FeedArbiter.LegStats slowLeg = arbiter.leg(1);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (fastLeg.wins() + fastLeg.duplicates() + slowLeg.wins() + slowLeg.duplicates() < 2L * MESSAGES
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(MESSAGES, fastLeg.wins() + slowLeg.wins());
+        assertEquals(MESSAGES, fastLeg.duplicates() + slowLeg.duplicates());
+        assertEquals(MESSAGES - 1, ringBuffer.getCursor());
+        // 仲裁与发布在同一个流锁内完成，无论哪一路胜出，ring 中的顺序都与序号一致
+        for (int i = 0; i < MESSAGES; i++) {
+            assertEquals(i + 1, ringBuffer.get(i).sequence);
+        }
+        assertEquals(0, fastLeg.gapFills() + slowLeg.gapFills());
+    }
+
+    @Test
+    @DisplayName("dYdX message_id 按连接计数，不支持冗余模式")
+    void dydxIsRejected() {
+        Normalizer normalizer = new Normalizer(RingBuffer.createSingleProducer(new CoreEventFactory(), 16));
+        assertThrows(IllegalArgumentException.class, () -> new AccessLayerCoordinator().registerRedundant(
+                Exchange.DYDX, normalizer, List.of(URI.create("ws://127.0.0.1:1/ws"), URI.create("ws://127.0.0.1:2/ws"))));
+    }
+
+    /**
+     * 启动一个 Binance 行情替身：收到订阅后推送 depthUpdate u = 1..MESSAGES，每条延迟 delayMillis 后发出。
+     */
+    private URI startServer(long delayMillis) throws InterruptedException {
+        Channel server = new ServerBootstrap()
+                .group(serverGroup)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline().addLast(
+                                new HttpServerCodec(),
+                                new HttpObjectAggregator(65536),
+                                new WebSocketServerProtocolHandler("/ws"),
+                                new FeedStandIn(delayMillis));
+                    }
+                })
+                .bind("127.0.0.1", 0).sync().channel();
+        servers.add(server);
+        int port = ((InetSocketAddress) server.localAddress()).getPort();
+        return URI.create("ws://127.0.0.1:" + port + "/ws");
+    }
+
+    private static final class FeedStandIn extends SimpleChannelInboundHandler<TextWebSocketFrame> {
+
+        private final long delayMillis;
+
+        FeedStandIn(long delayMillis) {
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, TextWebSocketFrame msg) {
+            // 收到 SUBSCRIBE 后开始推送（预热的备用连接不订阅，不会收到数据）
+            for (int u = 1; u <= MESSAGES; u++) {
+                String frame = depthUpdate(u);
+                ctx.executor().schedule(() -> ctx.writeAndFlush(new TextWebSocketFrame(frame)),
+                        delayMillis + u, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private static String depthUpdate(long u) {
+            return "{\"e\":\"depthUpdate\",\"E\":1672515782136,\"s\":\"BTCUSDT\",\"U\":" + u + ",\"u\":" + u
+                    + ",\"b\":[[\"86818.34\",\"0.17882\"]],\"a\":[[\"86818.35\",\"0.625\"]]}";
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.xinyue.maker.io.input.binance;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 组合流 symbol 分配测试：按速率预算放置、订满后新开连接、按实测速率迁移。
+ */
+@DisplayName("Binance 组合流连接分配测试")
+class StreamBalancerTest {
+
+    @Test
+    @DisplayName("预算内集中到一条连接，超出预算新开连接，连接数满后放到负载最低的连接")
+    void placesByRateBudget() {
+        StreamBalancer balancer = new StreamBalancer(100, 100.0, 2);
+
+        assertEquals(0, balancer.place("BTCUSDT", 40));
+        assertEquals(0, balancer.place("ETHUSDT", 40));
+        // 0 号连接放不下 -> 新开 1 号
+        assertEquals(1, balancer.place("SOLUSDT", 40));
+        // 预算内选负载最低的连接
+        assertEquals(1, balancer.place("BNBUSDT", 10));
+        // 连接数已满，都放不下时退而选负载最低的
+        assertEquals(1, balancer.place("XRPUSDT", 60));
+        assertEquals(2, balancer.connections());
+        // 重复放置返回原连接
+        assertEquals(0, balancer.place("BTCUSDT", 5));
+        assertEquals(80.0, balancer.load(0));
+        assertEquals(110.0, balancer.load(1));
+    }
+
+    @Test
+    @DisplayName("单连接 symbol 数上限，全部订满返回 -1；移除后可再放置")
+    void respectsSymbolCap() {
+        StreamBalancer balancer = new StreamBalancer(2, 1000.0, 1);
+        assertEquals(0, balancer.place("A", 1));
+        assertEquals(0, balancer.place("B", 1));
+        assertEquals(-1, balancer.place("C", 1));
+
+        assertEquals(0, balancer.remove("A"));
+        assertEquals(-1, balancer.remove("A"));
+        assertEquals(-1, balancer.connectionOf("A"));
+        assertEquals(0, balancer.place("C", 1));
+        assertEquals(2, balancer.symbolCount(0));
+    }
+
+    @Test
+    @DisplayName("实测速率变高：把 symbol 迁到负载低的连接，使两边接近")
+    void rebalancesByMeasuredRate() {
+        StreamBalancer balancer = new StreamBalancer(100, 100.0, 4);
+        for (String s : new String[]{"A", "B", "C", "D"}) {
+            assertEquals(0, balancer.place(s, 20));
+        }
+        assertEquals(1, balancer.place("E", 30));
+
+        // A、B 变热：0 号连接超出预算
+        balancer.updateRate("A", 60);
+        balancer.updateRate("B", 50);
+        assertEquals(150.0, balancer.load(0));
+
+        List<StreamBalancer.Move> moves = balancer.rebalance();
+        assertFalse(moves.isEmpty());
+        for (StreamBalancer.Move move : moves) {
+            assertEquals(move.to(), balancer.connectionOf(move.symbol()));
+        }
+        for (int i = 0; i < balancer.connections(); i++) {
+            assertTrue(balancer.load(i) <= 100.0, "connection " + i + " load " + balancer.load(i));
+        }
+        // 均衡后再次计算不再迁移
+        assertTrue(balancer.rebalance().isEmpty());
+    }
+
+    @Test
+    @DisplayName("负载差距在预算 1/4 以内不迁移")
+    void ignoresSmallImbalance() {
+        StreamBalancer balancer = new StreamBalancer(100, 100.0, 4);
+        balancer.place("A", 60);
+        balancer.place("B", 60);
+        balancer.place("C", 5);
+        assertEquals(2, balancer.connections());
+        assertTrue(balancer.rebalance().isEmpty());
+    }
+}
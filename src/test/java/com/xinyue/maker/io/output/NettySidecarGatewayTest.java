@@ -0,0 +1,122 @@
+package com.xinyue.maker.io.output;
+
+import com.xinyue.maker.common.Exchange;
+import com.xinyue.maker.common.OrderCommand;
+import com.xinyue.maker.core.gateway.OutboundListener;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import org.agrona.collections.Int2ObjectHashMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sidecar 网关批量发送测试：撤单按 {@link OrderCommand#PRIORITY_CANCEL} 识别，
+ * 即使目标订单尚未收到 indexer 推送（clobPairId 等为 0）也走撤单通道。
+ */
+@DisplayName("Sidecar 网关批量发送测试")
+class NettySidecarGatewayTest {
+
+    private static final short ACCOUNT_ID = 1;
+    private static final short SYMBOL_ID = 5;
+
+    private final List<String> drops = new ArrayList<>();
+    private final EmbeddedChannel channel = new EmbeddedChannel();
+    private NettySidecarGateway gateway;
+
+    @BeforeEach
+    void setUp() {
+        SidecarConnectionPool pool = new SidecarConnectionPool(new String[]{"ws://127.0.0.1:1"}, 1, null, 64);
+        pool.connections()[0].activate(channel);
+        gateway = new NettySidecarGateway(pool, new Int2ObjectHashMap<>(), Exchange.DYDX);
+        gateway.setOutboundListener(new OutboundListener() {
+            @Override
+            public void onCommandDropped(OrderCommand cmd, byte reason) {
+                drops.add(cmd.internalOrderId + ":" + reason);
+            }
+        });
+        gateway.initializeSession(ACCOUNT_ID, "test", "mnemonic");
+        assertEquals(SidecarProtocol.REGISTER_SESSION, readFrameType());
+        gateway.beginBatching(); // 测试线程充当 L2 线程
+    }
+
+    private static OrderCommand order(long id) {
+        OrderCommand cmd = new OrderCommand();
+        cmd.internalOrderId = id;
+        cmd.accountId = ACCOUNT_ID;
+        cmd.symbolId = SYMBOL_ID;
+        cmd.exchangeId = Exchange.DYDX.id();
+        cmd.priceE8 = 100_00000000L;
+        cmd.qtyE8 = 1_00000000L;
+        return cmd;
+    }
+
+    /**
+     * 与 OMS 撤单一致：只带 clientId 与 dYdX 撤单字段；原单尚未确认时这些字段都是 0。
+     */
+    private static OrderCommand cancel(long id) {
+        OrderCommand cmd = new OrderCommand();
+        cmd.internalOrderId = id;
+        cmd.accountId = ACCOUNT_ID;
+        cmd.symbolId = SYMBOL_ID;
+        cmd.priority = OrderCommand.PRIORITY_CANCEL;
+        return cmd;
+    }
+
+    private byte readFrameType() {
+        BinaryWebSocketFrame frame = channel.readOutbound();
+        assertNotNull(frame, "没有写出帧");
+        try {
+            return frameType(frame.content(), 0);
+        } finally {
+            frame.release();
+        }
+    }
+
+    private static byte frameType(ByteBuf content, int offset) {
+        return content.getByte(content.readerIndex() + offset + 1);
+    }
+
+    @Test
+    @DisplayName("撤单命中仍在出站队列中的原单：两条都不发送，原单以 DROP_CANCELED_UNSENT 回调")
+    void cancelOfQueuedOrderDropsBoth() {
+        gateway.sendOrder(order(42));
+        gateway.sendOrder(cancel(42));
+
+        assertEquals(List.of("42:" + OutboundListener.DROP_CANCELED_UNSENT), drops);
+        gateway.flush();
+        assertNull(channel.readOutbound(), "原单与撤单都不应写出");
+    }
+
+    @Test
+    @DisplayName("已发出但未确认的订单：撤单编码为 CANCEL，并排在同批次的新报价之前")
+    void cancelOfUnacknowledgedOrderIsWrittenAsCancel() {
+        gateway.sendOrder(order(42));
+        gateway.flush();
+        assertEquals(SidecarProtocol.ORDER, readFrameType());
+
+        gateway.sendOrder(order(43));
+        gateway.sendOrder(cancel(42));
+        gateway.flush();
+
+        BinaryWebSocketFrame frame = channel.readOutbound();
+        assertNotNull(frame);
+        try {
+            ByteBuf content = frame.content();
+            assertEquals(SidecarProtocol.BATCH, frameType(content, 0));
+            assertEquals(2, content.getShort(content.readerIndex() + SidecarProtocol.OFF_BATCH_COUNT));
+            assertEquals(SidecarProtocol.CANCEL, frameType(content, SidecarProtocol.HEADER_LENGTH));
+            assertEquals(SidecarProtocol.ORDER,
+                    frameType(content, SidecarProtocol.HEADER_LENGTH + SidecarProtocol.CANCEL_LENGTH));
+        } finally {
+            frame.release();
+        }
+        assertTrue(drops.isEmpty());
+    }
+}
@@ -0,0 +1,129 @@
+package com.xinyue.maker.io.output;
+
+import com.xinyue.maker.common.OrderCommand;
+import com.xinyue.maker.core.gateway.OutboundListener;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 出站调度队列测试：优先级出队、按账户的报价槽合并、撤单命中未发出的原单、满队列挤占。
+ */
+@DisplayName("出站调度队列测试")
+class OutboundOrderQueueTest {
+
+    private final List<String> drops = new ArrayList<>();
+    private final OutboundListener listener = (cmd, reason) -> drops.add(cmd.internalOrderId + ":" + reason);
+
+    private static OrderCommand order(long id, int slot) {
+        OrderCommand cmd = new OrderCommand();
+        cmd.internalOrderId = id;
+        cmd.symbolId = 3;
+        cmd.slotId = slot;
+        return cmd;
+    }
+
+    private static long pollId(OutboundOrderQueue queue, long now) {
+        long id = queue.peek().internalOrderId;
+        queue.remove(now);
+        return id;
+    }
+
+    @Test
+    @DisplayName("撤单 > 降低风险 > 新报价，同通道内先进先出，并记录排队时间")
+    void drainsByPriority() {
+        OutboundOrderQueue queue = new OutboundOrderQueue(8);
+        queue.setListener(listener);
+        queue.offer(order(1, 0), OrderCommand.PRIORITY_QUOTE, 0);
+        queue.offer(order(2, 0), OrderCommand.PRIORITY_REDUCE, 0);
+        queue.offer(order(3, 0), OrderCommand.PRIORITY_QUOTE, 0);
+        queue.offer(order(99, 0), OrderCommand.PRIORITY_CANCEL, 0);
+        assertEquals(4, queue.size());
+        assertEquals(2, queue.laneDepth(OrderCommand.PRIORITY_QUOTE));
+
+        assertEquals(99, pollId(queue, 1_000));
+        assertEquals(2, pollId(queue, 1_000));
+        assertEquals(1, pollId(queue, 1_000));
+        assertEquals(3, pollId(queue, 5_000));
+        assertTrue(queue.isEmpty());
+        assertNull(queue.peek());
+        assertEquals(4, queue.sent());
+        assertEquals(5_000, queue.maxWaitNanos());
+        assertEquals(2_000, queue.avgWaitNanos());
+        assertTrue(drops.isEmpty());
+    }
+
+    @Test
+    @DisplayName("同一报价槽的旧报价被原位替换；撤单命中未发出的原单时两条都不发送")
+    void coalescesSlotsAndCancelsUnsentOrders() {
+        OutboundOrderQueue queue = new OutboundOrderQueue(8);
+        queue.setListener(listener);
+        queue.offer(order(1, 7), OrderCommand.PRIORITY_QUOTE, 0);
+        queue.offer(order(2, 0), OrderCommand.PRIORITY_QUOTE, 0);
+        queue.offer(order(3, 7), OrderCommand.PRIORITY_QUOTE, 0);
+        assertEquals(2, queue.size());
+        assertEquals(List.of("1:" + OutboundListener.DROP_SUPERSEDED), drops);
+
+        assertFalse(queue.offer(order(2, 0), OrderCommand.PRIORITY_CANCEL, 0));
+        assertEquals("2:" + OutboundListener.DROP_CANCELED_UNSENT, drops.get(1));
+        assertEquals(1, queue.size());
+
+        // 替换后的报价保持原排队位置
+        assertEquals(3, pollId(queue, 0));
+        assertTrue(queue.isEmpty());
+        assertEquals(1, queue.superseded());
+        assertEquals(1, queue.canceledUnsent());
+
+        // 已发出的原单再撤单：撤单正常入队
+        assertTrue(queue.offer(order(3, 0), OrderCommand.PRIORITY_CANCEL, 0));
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    @DisplayName("两个账户在同一交易对使用相同报价槽：互不替换，只合并本账户的旧报价")
+    void coalescesPerAccount() {
+        OutboundOrderQueue queue = new OutboundOrderQueue(8);
+        queue.setListener(listener);
+        OrderCommand a1 = order(1, 1);
+        a1.accountId = 1;
+        OrderCommand b1 = order(2, 1);
+        b1.accountId = 2;
+        queue.offer(a1, OrderCommand.PRIORITY_QUOTE, 0);
+        queue.offer(b1, OrderCommand.PRIORITY_QUOTE, 0);
+        assertEquals(2, queue.size());
+        assertTrue(drops.isEmpty(), "另一个账户同槽的报价不能被替换");
+
+        OrderCommand a2 = order(3, 1);
+        a2.accountId = 1;
+        queue.offer(a2, OrderCommand.PRIORITY_QUOTE, 0);
+        assertEquals(List.of("1:" + OutboundListener.DROP_SUPERSEDED), drops);
+        assertEquals(3, pollId(queue, 0));
+        assertEquals(2, pollId(queue, 0));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    @DisplayName("队列满：撤单挤掉最新的新报价，新报价本身被丢弃")
+    void evictsLowestPriorityWhenFull() {
+        OutboundOrderQueue queue = new OutboundOrderQueue(2);
+        queue.setListener(listener);
+        queue.offer(order(1, 0), OrderCommand.PRIORITY_QUOTE, 0);
+        queue.offer(order(2, 0), OrderCommand.PRIORITY_QUOTE, 0);
+
+        assertFalse(queue.offer(order(3, 0), OrderCommand.PRIORITY_QUOTE, 0));
+        assertTrue(queue.offer(order(4, 0), OrderCommand.PRIORITY_CANCEL, 0));
+        assertEquals(List.of("3:" + OutboundListener.DROP_QUEUE_FULL, "2:" + OutboundListener.DROP_QUEUE_FULL), drops);
+        assertEquals(2, queue.dropped());
+
+        assertTrue(queue.offer(order(5, 0), OrderCommand.PRIORITY_CANCEL, 0)); // 挤掉报价 1
+        assertFalse(queue.offer(order(6, 0), OrderCommand.PRIORITY_CANCEL, 0)); // 队列全是撤单，无可挤占
+        assertEquals(4, pollId(queue, 0));
+        assertEquals(5, pollId(queue, 0));
+        assertTrue(queue.isEmpty());
+        assertEquals(2, queue.maxDepth());
+    }
+}
@@ -0,0 +1,112 @@
+package com.xinyue.maker.io.output;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.xinyue.maker.common.OrderCommand;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单笔下单指令的编码耗时 / 分配对比：原 JSON（ObjectNode + 助记词）与 {@link SidecarProtocol} 二进制编码。
+ * <p>
+ * 两者都包含「申请 buffer + 构造 WebSocket 帧 + 释放」，与 NettySidecarGateway.sendOrder 在 L2 线程上的开销一致。
+ * 运行：直接执行 main（附带 GC profiler，gc.alloc.rate.norm 即每笔指令的分配字节数）。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SidecarEncodeBenchmark {
+
+    private static final String MNEMONIC = "abandon ability able about above absent absorb abstract absurd abuse "
+            + "access accident account accuse achieve acid acoustic acquire across act action actor actress actual";
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+    private final ByteBufAllocator alloc = PooledByteBufAllocator.DEFAULT;
+    private final OrderCommand cmd = new OrderCommand();
+
+    @Setup
+    public void setup() {
+        cmd.internalOrderId = 1_000_001L;
+        cmd.accountId = 1;
+        cmd.symbolId = 3;
+        cmd.side = 1;
+        cmd.priceE8 = 25_000_000L;
+        cmd.qtyE8 = 1_000_00000000L;
+        cmd.exchangeId = 2;
+    }
+
+    @Benchmark
+    public int json() {
+        ObjectNode payload = jsonMapper.createObjectNode();
+        payload.put("action", "ORDER");
+        payload.put("clientId", cmd.internalOrderId);
+        payload.put("accountId", cmd.accountId);
+        payload.put("symbol", cmd.symbolId);
+        payload.put("price", cmd.priceE8);
+        payload.put("qty", cmd.qtyE8);
+        payload.put("side", cmd.side);
+        payload.put("word", MNEMONIC);
+        payload.put("goodTilTimeInSeconds", cmd.goodTilTimeInSeconds);
+        TextWebSocketFrame frame = new TextWebSocketFrame(payload.toString());
+        int size = frame.content().readableBytes();
+        frame.release();
+        return size;
+    }
+
+    @Benchmark
+    public int binary() {
+        ByteBuf buf = alloc.buffer(SidecarProtocol.ORDER_LENGTH);
+        SidecarProtocol.writeOrder(buf, cmd);
+        BinaryWebSocketFrame frame = new BinaryWebSocketFrame(buf);
+        int size = frame.content().readableBytes();
+        frame.release();
+        return size;
+    }
+
+    /**
+     * 一次梯度刷新（10 笔）合并成一个 BATCH 帧：除以 10 即每笔的摊销成本。
+     */
+    @Benchmark
+    public int binaryBatch10() {
+        ByteBuf buf = alloc.buffer(SidecarProtocol.HEADER_LENGTH + 10 * SidecarProtocol.ORDER_LENGTH);
+        int header = SidecarProtocol.writeBatchHeader(buf);
+        for (int i = 0; i < 10; i++) {
+            SidecarProtocol.writeOrder(buf, cmd);
+        }
+        SidecarProtocol.setBatchCount(buf, header, 10);
+        BinaryWebSocketFrame frame = new BinaryWebSocketFrame(buf);
+        int size = frame.content().readableBytes();
+        frame.release();
+        return size;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SidecarEncodeBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
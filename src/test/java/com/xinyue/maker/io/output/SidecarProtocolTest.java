@@ -0,0 +1,171 @@
+package com.xinyue.maker.io.output;
+
+import com.xinyue.maker.common.OrderCommand;
+import com.xinyue.maker.common.TransferCommand;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sidecar 二进制协议编解码测试：定长消息的偏移、变长消息、版本 / 类型校验。
+ */
+@DisplayName("Sidecar 二进制协议测试")
+class SidecarProtocolTest {
+
+    @Test
+    @DisplayName("下单与撤单：定长编码，解码还原全部字段")
+    void roundTripsOrderAndCancel() {
+        OrderCommand order = new OrderCommand();
+        order.internalOrderId = 1234567890123L;
+        order.accountId = 7;
+        order.symbolId = 3;
+        order.side = 1;
+        order.priceE8 = 25_000_000L;
+        order.qtyE8 = 1_000_00000000L;
+        order.goodTilTimeInSeconds = 180;
+        order.exchangeId = 2;
+
+        OrderCommand cancel = new OrderCommand();
+        cancel.internalOrderId = 42L;
+        cancel.accountId = 7;
+        cancel.clobPairId = 1000001;
+        cancel.orderFlags = 64;
+        cancel.goodTilBlockTimeSec = 1_700_000_000L;
+
+        ByteBuf buf = Unpooled.buffer();
+        SidecarProtocol.writeOrder(buf, order);
+        assertEquals(SidecarProtocol.ORDER_LENGTH, buf.readableBytes());
+        SidecarProtocol.writeCancel(buf, cancel);
+        assertEquals(SidecarProtocol.ORDER_LENGTH + SidecarProtocol.CANCEL_LENGTH, buf.readableBytes());
+
+        SidecarProtocol.Message msg = new SidecarProtocol.Message();
+        assertEquals(SidecarProtocol.ORDER, SidecarProtocol.decode(buf, msg));
+        assertEquals(7, msg.accountId);
+        assertEquals(1234567890123L, msg.clientId);
+        assertEquals(3, msg.symbolId);
+        assertEquals(1, msg.side);
+        assertEquals(25_000_000L, msg.priceE8);
+        assertEquals(1_000_00000000L, msg.qtyE8);
+        assertEquals(180, msg.goodTilTimeInSeconds);
+        assertEquals(2, msg.exchangeId);
+
+        assertEquals(SidecarProtocol.CANCEL, SidecarProtocol.decode(buf, msg));
+        assertEquals(42L, msg.clientId);
+        assertEquals(1000001, msg.clobPairId);
+        assertEquals(64, msg.orderFlags);
+        assertEquals(1_700_000_000L, msg.goodTilBlockTimeSec);
+        assertEquals(0, buf.readableBytes());
+    }
+
+    @Test
+    @DisplayName("会话注册与转账：变长字符串字段")
+    void roundTripsRegistrationAndTransfer() {
+        TransferCommand transfer = new TransferCommand();
+        transfer.fromAccountId = 1;
+        transfer.toAccountId = 2;
+        transfer.exchangeId = 2;
+        transfer.qtyE8 = 5_00000000L;
+
+        ByteBuf buf = Unpooled.buffer();
+        SidecarProtocol.writeRegisterSession(buf, 1, "Main_红", "word1 word2 word3");
+        SidecarProtocol.writeTransfer(buf, transfer, "USDC");
+
+        SidecarProtocol.Message msg = new SidecarProtocol.Message();
+        assertEquals(SidecarProtocol.REGISTER_SESSION, SidecarProtocol.decode(buf, msg));
+        assertEquals(1, msg.accountId);
+        assertEquals("Main_红", msg.accountName);
+        assertEquals("word1 word2 word3", msg.mnemonicPhrase);
+
+        assertEquals(SidecarProtocol.TRANSFER, SidecarProtocol.decode(buf, msg));
+        assertEquals(1, msg.accountId);
+        assertEquals(2, msg.toAccountId);
+        assertEquals(2, msg.exchangeId);
+        assertEquals(5_00000000L, msg.qtyE8);
+        assertEquals("USDC", msg.asset);
+        assertEquals(0, buf.readableBytes());
+    }
+
+    @Test
+    @DisplayName("批次：头部回填条数，随后依次解码各条下单 / 撤单")
+    void roundTripsBatch() {
+        OrderCommand order = new OrderCommand();
+        order.internalOrderId = 1L;
+        order.accountId = 1;
+        order.priceE8 = 100L;
+        order.qtyE8 = 200L;
+        OrderCommand cancel = new OrderCommand();
+        cancel.internalOrderId = 2L;
+        cancel.accountId = 1;
+        cancel.clobPairId = 5;
+        cancel.goodTilBlockTimeSec = 9L;
+
+        ByteBuf buf = Unpooled.buffer();
+        int header = SidecarProtocol.writeBatchHeader(buf);
+        SidecarProtocol.writeCancel(buf, cancel);
+        SidecarProtocol.writeOrder(buf, order);
+        SidecarProtocol.writeOrder(buf, order);
+        SidecarProtocol.setBatchCount(buf, header, 3);
+        assertEquals(SidecarProtocol.HEADER_LENGTH + SidecarProtocol.CANCEL_LENGTH + 2 * SidecarProtocol.ORDER_LENGTH,
+                buf.readableBytes());
+
+        SidecarProtocol.Message msg = new SidecarProtocol.Message();
+        assertEquals(SidecarProtocol.BATCH, SidecarProtocol.decode(buf, msg));
+        assertEquals(3, msg.count);
+        assertEquals(SidecarProtocol.CANCEL, SidecarProtocol.decode(buf, msg));
+        assertEquals(2L, msg.clientId);
+        assertEquals(SidecarProtocol.ORDER, SidecarProtocol.decode(buf, msg));
+        assertEquals(100L, msg.priceE8);
+        assertEquals(SidecarProtocol.ORDER, SidecarProtocol.decode(buf, msg));
+        assertEquals(0, buf.readableBytes());
+    }
+
+    @Test
+    @DisplayName("执行回报：Sidecar 以 BATCH 合并的受理 / 拒绝回报逐条还原")
+    void roundTripsExecutionReports() {
+        ByteBuf buf = Unpooled.buffer();
+        int header = SidecarProtocol.writeBatchHeader(buf);
+        SidecarProtocol.writeExecutionReport(buf, 3, 1001L, SidecarProtocol.EXEC_ORDER_ACCEPTED, 2, 0, 1_700_000_000_123L);
+        SidecarProtocol.writeExecutionReport(buf, 3, 1002L, SidecarProtocol.EXEC_ORDER_REJECTED, 2, 2002, 1_700_000_000_456L);
+        SidecarProtocol.setBatchCount(buf, header, 2);
+        assertEquals(SidecarProtocol.HEADER_LENGTH + 2 * SidecarProtocol.REPORT_LENGTH, buf.readableBytes());
+
+        SidecarProtocol.Message msg = new SidecarProtocol.Message();
+        assertEquals(SidecarProtocol.BATCH, SidecarProtocol.decode(buf, msg));
+        assertEquals(2, msg.count);
+
+        assertEquals(SidecarProtocol.EXECUTION_REPORT, SidecarProtocol.decode(buf, msg));
+        assertEquals(3, msg.accountId);
+        assertEquals(1001L, msg.clientId);
+        assertEquals(SidecarProtocol.EXEC_ORDER_ACCEPTED, msg.execType);
+        assertEquals(2, msg.exchangeId);
+        assertEquals(0, msg.errorCode);
+        assertEquals(1_700_000_000_123L, msg.timestampMillis);
+
+        assertEquals(SidecarProtocol.EXECUTION_REPORT, SidecarProtocol.decode(buf, msg));
+        assertEquals(1002L, msg.clientId);
+        assertEquals(SidecarProtocol.EXEC_ORDER_REJECTED, msg.execType);
+        assertEquals(2002, msg.errorCode);
+        assertEquals(0, buf.readableBytes());
+    }
+
+    @Test
+    @DisplayName("版本不符、类型未知或长度不足：拒绝解码")
+    void rejectsUnknownVersionTypeAndTruncated() {
+        SidecarProtocol.Message msg = new SidecarProtocol.Message();
+
+        ByteBuf badVersion = Unpooled.buffer();
+        badVersion.writeByte(2).writeByte(SidecarProtocol.ORDER).writeShort(1);
+        assertThrows(IllegalArgumentException.class, () -> SidecarProtocol.decode(badVersion, msg));
+
+        ByteBuf badType = Unpooled.buffer();
+        badType.writeByte(SidecarProtocol.VERSION).writeByte(99).writeShort(1);
+        assertThrows(IllegalArgumentException.class, () -> SidecarProtocol.decode(badType, msg));
+
+        ByteBuf truncated = Unpooled.buffer();
+        truncated.writeByte(SidecarProtocol.VERSION).writeByte(SidecarProtocol.ORDER).writeShort(1).writeLong(1L);
+        assertThrows(IllegalArgumentException.class, () -> SidecarProtocol.decode(truncated, msg));
+    }
+}
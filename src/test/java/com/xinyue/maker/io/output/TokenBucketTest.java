@@ -0,0 +1,61 @@
+package com.xinyue.maker.io.output;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 令牌桶测试：突发容量、按时间补充、撤单透支、不限频。
+ */
+@DisplayName("令牌桶测试")
+class TokenBucketTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    @DisplayName("满桶可突发 burst 个，之后按速率补充")
+    void allowsBurstThenRefills() {
+        TokenBucket bucket = new TokenBucket(10, 3); // 每 100ms 一个令牌，最多 3 个
+        long now = 5 * SECOND;
+        assertEquals(3, bucket.available(now));
+        assertTrue(bucket.tryAcquire(now));
+        assertTrue(bucket.tryAcquire(now));
+        assertTrue(bucket.tryAcquire(now));
+        assertTrue(bucket.wouldThrottle(now));
+        assertFalse(bucket.tryAcquire(now));
+        assertEquals(1, bucket.throttled());
+
+        now += SECOND / 10;
+        assertEquals(1, bucket.available(now));
+        assertTrue(bucket.tryAcquire(now));
+        assertFalse(bucket.tryAcquire(now));
+
+        now += 10 * SECOND; // 长时间空闲也最多攒 burst 个
+        assertEquals(3, bucket.available(now));
+    }
+
+    @Test
+    @DisplayName("撤单强制扣令牌：允许透支，之后的下单要等透支部分补回")
+    void forcedAcquireOverdraws() {
+        TokenBucket bucket = new TokenBucket(10, 1);
+        long now = -7 * SECOND; // nanoTime 可能为负
+        assertTrue(bucket.tryAcquire(now));
+        bucket.forceAcquire(now);
+        bucket.forceAcquire(now);
+        assertEquals(0, bucket.available(now));
+        assertFalse(bucket.tryAcquire(now + SECOND / 10));
+        assertFalse(bucket.tryAcquire(now + 2 * SECOND / 10));
+        assertTrue(bucket.tryAcquire(now + 3 * SECOND / 10));
+    }
+
+    @Test
+    @DisplayName("速率为 0 表示不限频")
+    void zeroRateIsUnlimited() {
+        TokenBucket bucket = new TokenBucket(0, 1);
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(bucket.tryAcquire(0));
+        }
+        assertFalse(bucket.wouldThrottle(0));
+    }
+}
@@ -0,0 +1,100 @@
+package com.xinyue.maker.sim;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 模拟器撮合引擎测试：价格优先、时间优先、部分成交与撤单后的价位聚合。
+ */
+@DisplayName("模拟器撮合引擎测试")
+class MatchingEngineTest {
+
+    private static final long E8 = 100_000_000L;
+
+    private final List<String> fills = new ArrayList<>();
+    private final List<String> levels = new ArrayList<>();
+    private final MatchingEngine engine = new MatchingEngine(new MatchingEngine.Listener() {
+        @Override
+        public void onLevelChanged(byte side, long priceE8, long sizeE8) {
+            levels.add(side + "@" + priceE8 / E8 + "=" + sizeE8 / E8);
+        }
+
+        @Override
+        public void onFill(SimOrder maker, SimOrder taker, long priceE8, long qtyE8) {
+            fills.add(maker.id + "<-" + taker.id + "@" + priceE8 / E8 + "x" + qtyE8 / E8);
+        }
+    });
+    private long nextId = 1;
+
+    private SimOrder order(int side, long price, long qty) {
+        return new SimOrder(nextId++, (short) 1, nextId, (short) 5, (byte) side, price * E8, qty * E8);
+    }
+
+    @Test
+    @DisplayName("主动单先吃最优价，同价位按到达顺序成交，成交价取挂单价")
+    void matchesByPriceThenTime() {
+        SimOrder a = order(1, 101, 5);
+        SimOrder b = order(1, 100, 5);
+        SimOrder c = order(1, 100, 5);
+        engine.submit(a);
+        engine.submit(b);
+        engine.submit(c);
+        assertEquals(100 * E8, engine.bestAsk());
+
+        SimOrder taker = order(0, 102, 12);
+        assertFalse(engine.submit(taker));
+
+        assertEquals(List.of("2<-4@100x5", "3<-4@100x5", "1<-4@101x2"), fills);
+        assertTrue(b.isFilled());
+        assertTrue(c.isFilled());
+        assertEquals(2 * E8, a.filledE8);
+        assertTrue(a.isResting());
+        assertEquals(101 * E8, engine.bestAsk());
+        assertEquals(3 * E8, engine.sizeAt((byte) 1, 101 * E8));
+        assertEquals(0L, engine.bestBid());
+    }
+
+    @Test
+    @DisplayName("部分成交后剩余数量挂单，并报告两侧价位变化")
+    void restsRemainderAfterPartialFill() {
+        engine.submit(order(0, 99, 4));
+        levels.clear();
+
+        SimOrder seller = order(1, 98, 10);
+        assertTrue(engine.submit(seller));
+
+        assertEquals(4 * E8, seller.filledE8);
+        assertEquals(List.of("0@99=0", "1@98=6"), levels);
+        assertEquals(0L, engine.bestBid());
+        assertEquals(98 * E8, engine.bestAsk());
+    }
+
+    @Test
+    @DisplayName("撤单只扣减本单剩余数量，价位清空后删除；重复撤单返回 false")
+    void cancelUpdatesLevel() {
+        SimOrder first = order(0, 50, 3);
+        SimOrder second = order(0, 50, 7);
+        engine.submit(first);
+        engine.submit(second);
+        engine.submit(order(1, 50, 1));
+        assertEquals(9 * E8, engine.sizeAt((byte) 0, 50 * E8));
+
+        assertTrue(engine.cancel(first));
+        assertEquals(7 * E8, engine.sizeAt((byte) 0, 50 * E8));
+        assertFalse(engine.cancel(first));
+
+        assertTrue(engine.cancel(second));
+        assertEquals(0L, engine.bestBid());
+        assertEquals(0, engine.levelCount((byte) 0));
+        assertEquals("0@50=0", levels.get(levels.size() - 1));
+
+        long[] prices = new long[4];
+        long[] sizes = new long[4];
+        assertEquals(0, engine.copyLevels((byte) 0, prices, sizes, 4));
+    }
+}
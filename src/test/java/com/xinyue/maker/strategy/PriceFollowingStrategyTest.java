@@ -0,0 +1,167 @@
+package com.xinyue.maker.strategy;
+
+import com.xinyue.maker.common.AssetRegistry;
+import com.xinyue.maker.common.CoreEvent;
+import com.xinyue.maker.common.Exchange;
+import com.xinyue.maker.common.OrderCommand;
+import com.xinyue.maker.common.TransferCommand;
+import com.xinyue.maker.core.gateway.ExecutionGateway;
+import com.xinyue.maker.core.lob.OrderBookSnapshot;
+import com.xinyue.maker.core.oms.OrderManagementSystem;
+import com.xinyue.maker.core.position.PositionManager;
+import com.xinyue.maker.infra.MetricsService;
+import com.xinyue.maker.io.output.ExecutionGatewayManager;
+import com.xinyue.maker.io.output.OutboundOrderQueue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 跟价策略测试：降低库存敞口的报价走 reduce 通道，先于排队中的普通报价发出。
+ */
+@DisplayName("跟价策略测试")
+class PriceFollowingStrategyTest {
+
+    private static final short ACCOUNT_ID = 1;
+    private static final short SYMBOL_ID = 5; // H2USDT
+    private static final long BALANCE_E8 = 1_000_000_00000000L;
+
+    /**
+     * 模拟网关：与 NettySidecarGateway 一样按指令优先级放入出站队列。
+     */
+    private static final class QueueingGateway implements ExecutionGateway {
+        final OutboundOrderQueue queue = new OutboundOrderQueue(64);
+
+        @Override
+        public void sendOrder(OrderCommand cmd) {
+            queue.offer(cmd, cmd.priority, System.nanoTime());
+        }
+
+        @Override
+        public void transfer(TransferCommand cmd) {
+        }
+    }
+
+    private final QueueingGateway gateway = new QueueingGateway();
+    private final OrderBookSnapshot reference = new OrderBookSnapshot();
+    private PositionManager positionManager;
+    private OrderManagementSystem oms;
+    private PriceFollowingStrategy strategy;
+
+    @BeforeEach
+    void setUp() {
+        MetricsService metricsService = new MetricsService();
+        positionManager = new PositionManager(metricsService);
+        positionManager.registerAccount(ACCOUNT_ID);
+        AssetRegistry assets = AssetRegistry.getInstance();
+        positionManager.updateBalances(ACCOUNT_ID, new short[]{assets.get("USDT"), assets.get("H2")},
+                new long[]{BALANCE_E8, BALANCE_E8}, 2);
+        ExecutionGatewayManager gatewayManager = new ExecutionGatewayManager().register(Exchange.DYDX, gateway);
+        oms = new OrderManagementSystem(metricsService, null, gatewayManager, positionManager);
+        oms.enableOrderBatching(); // 测试线程充当 L2 线程
+        strategy = new PriceFollowingStrategy(oms, positionManager, SYMBOL_ID, "H2", "USDT", Exchange.DYDX);
+    }
+
+    private void quote(long bidE8, long askE8) {
+        quote(strategy, bidE8, askE8);
+    }
+
+    private void quote(PriceFollowingStrategy target, long bidE8, long askE8) {
+        reference.bestBidE8(bidE8);
+        reference.bestAskE8(askE8);
+        target.onDepthUpdate(new CoreEvent(), reference);
+    }
+
+    private void update(long localOrderId, byte side, byte status, long filledQtyE8) {
+        CoreEvent event = new CoreEvent();
+        event.firstUpdateId = 1; // 增量推送
+        event.clientOidHash = localOrderId;
+        event.symbolId = SYMBOL_ID;
+        event.side = side;
+        event.orderStatus = status;
+        event.filledQty = filledQtyE8;
+        event.totalFillQty = filledQtyE8;
+        event.recvTime = System.nanoTime();
+        oms.onAccountOrderUpdate(event);
+        strategy.onAccountOrderUpdate(event);
+    }
+
+    /**
+     * 按出站顺序取出队列中的全部指令（拷贝）。
+     */
+    private List<OrderCommand> drain() {
+        List<OrderCommand> sent = new ArrayList<>();
+        while (!gateway.queue.isEmpty()) {
+            OrderCommand cmd = new OrderCommand();
+            cmd.copyFrom(gateway.queue.peek());
+            gateway.queue.remove(System.nanoTime());
+            sent.add(cmd);
+        }
+        return sent;
+    }
+
+    @Test
+    @DisplayName("买单成交后新卖单降低敞口，走 reduce 通道并先于排队中的买单报价发出")
+    void reducingQuoteIsSentAheadOfQueuedQuotes() {
+        quote(100_00000000L, 101_00000000L);
+        List<OrderCommand> initial = drain();
+        assertEquals(2, initial.size());
+        OrderCommand bid = initial.get(0).side == 0 ? initial.get(0) : initial.get(1);
+        OrderCommand ask = initial.get(0).side == 0 ? initial.get(1) : initial.get(0);
+        assertEquals(OrderCommand.PRIORITY_QUOTE, bid.priority, "无库存时两侧都是普通报价");
+        assertEquals(OrderCommand.PRIORITY_QUOTE, ask.priority);
+
+        update(bid.internalOrderId, (byte) 0, (byte) 5, bid.qtyE8); // 买单成交
+        update(ask.internalOrderId, (byte) 1, (byte) 6, 0L);        // 卖单到期撤销
+        oms.recycleTerminalOrders();
+
+        quote(100_50000000L, 101_50000000L); // 两侧重新挂单：先买后卖
+        List<OrderCommand> sent = drain();
+        assertEquals(2, sent.size());
+        assertEquals(1, sent.get(0).side);
+        assertEquals(OrderCommand.PRIORITY_REDUCE, sent.get(0).priority, "卖单降低买入库存");
+        assertEquals(0, sent.get(1).side);
+        assertEquals(OrderCommand.PRIORITY_QUOTE, sent.get(1).priority, "买单先入队，但排在卖单之后发出");
+    }
+
+    @Test
+    @DisplayName("订单没有发出时回滚策略层预扣，不记为当前挂单")
+    void releasesReserveWhenSubmitFails() {
+        // 目标交易所没有注册网关：OMS 拒单并回滚自己的预扣
+        PriceFollowingStrategy unrouted = new PriceFollowingStrategy(oms, positionManager, SYMBOL_ID, "H2", "USDT", Exchange.BINANCE);
+        AssetRegistry assets = AssetRegistry.getInstance();
+
+        quote(unrouted, 1_00000000L, 1_01000000L);
+        assertEquals(0L, positionManager.getLockedBalance(ACCOUNT_ID, assets.get("USDT")));
+        assertEquals(0L, positionManager.getLockedBalance(ACCOUNT_ID, assets.get("H2")));
+
+        quote(unrouted, 1_00500000L, 1_01500000L); // 没有当前挂单，不会发出撤单
+        assertEquals(0L, positionManager.getLockedBalance(ACCOUNT_ID, assets.get("USDT")));
+        assertEquals(0L, positionManager.getLockedBalance(ACCOUNT_ID, assets.get("H2")));
+        assertTrue(gateway.queue.isEmpty());
+    }
+
+    @Test
+    @DisplayName("改价时先挂新单再撤旧单，撤的是旧单")
+    void replaceCancelsPreviousOrder() {
+        quote(1_00000000L, 1_01000000L);
+        List<OrderCommand> initial = drain();
+        assertEquals(2, initial.size());
+
+        quote(1_00500000L, 1_01500000L);
+        List<OrderCommand> sent = drain();
+        assertEquals(4, sent.size());
+        assertEquals(OrderCommand.PRIORITY_CANCEL, sent.get(0).priority);
+        assertEquals(initial.get(0).internalOrderId, sent.get(0).internalOrderId);
+        assertEquals(OrderCommand.PRIORITY_CANCEL, sent.get(1).priority);
+        assertEquals(initial.get(1).internalOrderId, sent.get(1).internalOrderId);
+        assertEquals(8, oms.getOrder(initial.get(0).internalOrderId).orderStatus); // PendingCancel
+        assertEquals(2, oms.getOrder(sent.get(2).internalOrderId).orderStatus);    // 新单 PendingNew
+        assertEquals(2, oms.getOrder(sent.get(3).internalOrderId).orderStatus);
+    }
+}